@@ -0,0 +1,85 @@
+package com.bumptech.glide.load.engine.bitmap_recycle;
+
+import android.support.test.runner.AndroidJUnit4;
+import com.bumptech.glide.test.BenchmarkRule;
+import com.bumptech.glide.test.ConcurrentBenchmark;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Compares the throughput of {@link LruArrayPool} and {@link SizeClassArrayPool} as the number of
+ * threads grows.
+ *
+ * <p>The standard buffer case mirrors {@link com.bumptech.glide.load.resource.bitmap.Downsampler}
+ * and the stream wrappers, which get and put a {@link ArrayPool#STANDARD_BUFFER_SIZE_BYTES} byte
+ * array for every decode. The mixed sizes case also requests small exact arrays, like the header
+ * parser and {@link com.bumptech.glide.load.engine.ResourceCacheKey} do.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ArrayPoolBenchmark {
+  private static final int[] THREAD_COUNTS = new int[] {1, 2, 4, 8, 16};
+  private static final int ITERATIONS_PER_THREAD = 100_000;
+  private static final int POOL_SIZE = 4 * 1024 * 1024;
+  private static final int[] MIXED_SIZES =
+      new int[] {8, 64 * 1024, 2, 16 * 1024, 8, 64 * 1024, 1024, 5 * 1024};
+
+  @Rule public final BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+  @Test
+  public void standardBuffer_lruArrayPool() throws InterruptedException {
+    runStandardBuffer("LruArrayPool standard buffer", new LruArrayPool(POOL_SIZE));
+  }
+
+  @Test
+  public void standardBuffer_sizeClassArrayPool() throws InterruptedException {
+    runStandardBuffer("SizeClassArrayPool standard buffer", new SizeClassArrayPool(POOL_SIZE));
+  }
+
+  @Test
+  public void mixedSizes_lruArrayPool() throws InterruptedException {
+    runMixedSizes("LruArrayPool mixed sizes", new LruArrayPool(POOL_SIZE));
+  }
+
+  @Test
+  public void mixedSizes_sizeClassArrayPool() throws InterruptedException {
+    runMixedSizes("SizeClassArrayPool mixed sizes", new SizeClassArrayPool(POOL_SIZE));
+  }
+
+  private static void runStandardBuffer(String name, final ArrayPool pool)
+      throws InterruptedException {
+    for (int threadCount : THREAD_COUNTS) {
+      ConcurrentBenchmark.run(name, threadCount, ITERATIONS_PER_THREAD,
+          new ConcurrentBenchmark.Operation() {
+            @Override
+            public void run(int threadIndex, int iteration) {
+              byte[] buffer = pool.get(ArrayPool.STANDARD_BUFFER_SIZE_BYTES, byte[].class);
+              pool.put(buffer);
+            }
+          });
+      pool.clearMemory();
+    }
+  }
+
+  private static void runMixedSizes(String name, final ArrayPool pool)
+      throws InterruptedException {
+    for (int threadCount : THREAD_COUNTS) {
+      ConcurrentBenchmark.run(name, threadCount, ITERATIONS_PER_THREAD,
+          new ConcurrentBenchmark.Operation() {
+            @Override
+            public void run(int threadIndex, int iteration) {
+              int size = MIXED_SIZES[(threadIndex + iteration) % MIXED_SIZES.length];
+              if (size <= 8) {
+                pool.put(pool.getExact(size, byte[].class));
+              } else {
+                byte[] buffer = pool.get(size, byte[].class);
+                int[] ints = pool.get(size / 4, int[].class);
+                pool.put(ints);
+                pool.put(buffer);
+              }
+            }
+          });
+      pool.clearMemory();
+    }
+  }
+}
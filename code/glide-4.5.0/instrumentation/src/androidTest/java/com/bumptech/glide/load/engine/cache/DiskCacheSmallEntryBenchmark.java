@@ -0,0 +1,145 @@
+package com.bumptech.glide.load.engine.cache;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.support.annotation.NonNull;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import com.bumptech.glide.signature.ObjectKey;
+import com.bumptech.glide.test.BenchmarkRule;
+import com.bumptech.glide.test.ConcurrentBenchmark;
+import com.bumptech.glide.util.ByteBufferUtil;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Compares {@link DiskLruCacheWrapper} and {@link SegmentDiskCache} when writing and reading many
+ * small entries, similar to caching thumbnails for a long list.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DiskCacheSmallEntryBenchmark {
+  private static final int[] THREAD_COUNTS = new int[] {1, 4};
+  private static final int ENTRIES_PER_THREAD = 500;
+  private static final int ENTRY_SIZE = 4 * 1024;
+  private static final long CACHE_SIZE = 250 * 1024 * 1024;
+
+  @Rule public final BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+  private final byte[] data = new byte[ENTRY_SIZE];
+  private File directory;
+
+  @Before
+  public void setUp() {
+    directory = new File(InstrumentationRegistry.getTargetContext().getCacheDir(), "benchmark");
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (byte) i;
+    }
+  }
+
+  @After
+  public void tearDown() {
+    deleteRecursive(directory);
+  }
+
+  @Test
+  public void diskLruCacheWrapper() throws InterruptedException {
+    for (int threadCount : THREAD_COUNTS) {
+      final DiskCache cache = DiskLruCacheWrapper.create(directory, CACHE_SIZE);
+      run("DiskLruCacheWrapper", cache, threadCount, new Reader() {
+        @Override
+        public int read(ObjectKey key) throws IOException {
+          File file = cache.get(key);
+          return file == null ? 0 : ByteBufferUtil.toBytes(ByteBufferUtil.fromFile(file)).length;
+        }
+      });
+      cache.clear();
+    }
+  }
+
+  @Test
+  public void segmentDiskCache() throws InterruptedException {
+    for (int threadCount : THREAD_COUNTS) {
+      final SegmentDiskCache cache = SegmentDiskCache.create(directory, CACHE_SIZE);
+      run("SegmentDiskCache", cache, threadCount, new Reader() {
+        @Override
+        public int read(ObjectKey key) {
+          ByteBuffer buffer = cache.getBuffer(key);
+          return buffer == null ? 0 : ByteBufferUtil.toBytes(buffer).length;
+        }
+      });
+      cache.clear();
+    }
+  }
+
+  private void run(String name, final DiskCache cache, int threadCount, final Reader reader)
+      throws InterruptedException {
+    final DiskCache.Writer writer = new DiskCache.Writer() {
+      @Override
+      public boolean write(@NonNull File file) {
+        OutputStream os = null;
+        try {
+          os = new FileOutputStream(file);
+          os.write(data);
+          return true;
+        } catch (IOException e) {
+          return false;
+        } finally {
+          if (os != null) {
+            try {
+              os.close();
+            } catch (IOException e) {
+              // Ignored.
+            }
+          }
+        }
+      }
+    };
+    // Each pass, including the warm up, writes new keys so that puts are never skipped.
+    final AtomicInteger nextKey = new AtomicInteger();
+    ConcurrentBenchmark.run(name + " put", threadCount, ENTRIES_PER_THREAD,
+        new ConcurrentBenchmark.Operation() {
+          @Override
+          public void run(int threadIndex, int iteration) {
+            cache.put(new ObjectKey(nextKey.getAndIncrement()), writer);
+          }
+        });
+
+    final int keyCount = nextKey.get();
+    final AtomicInteger bytesRead = new AtomicInteger();
+    ConcurrentBenchmark.run(name + " get", threadCount, ENTRIES_PER_THREAD,
+        new ConcurrentBenchmark.Operation() {
+          @Override
+          public void run(int threadIndex, int iteration) throws IOException {
+            int key = (threadIndex * 7919 + iteration * 31) % keyCount;
+            bytesRead.addAndGet(reader.read(new ObjectKey(key)));
+          }
+        });
+
+    assertThat(bytesRead.get()).isGreaterThan(0);
+  }
+
+  private static void deleteRecursive(File file) {
+    File[] files = file.listFiles();
+    if (files != null) {
+      for (File child : files) {
+        deleteRecursive(child);
+      }
+    }
+    // Best effort, the next run starts with a fresh cache regardless.
+    //noinspection ResultOfMethodCallIgnored
+    file.delete();
+  }
+
+  private interface Reader {
+    int read(ObjectKey key) throws IOException;
+  }
+}
@@ -0,0 +1,72 @@
+package com.bumptech.glide.load.engine.cache;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.support.test.runner.AndroidJUnit4;
+import com.bumptech.glide.test.BenchmarkRule;
+import com.bumptech.glide.test.ConcurrentBenchmark;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Measures the throughput of {@link DiskCacheWriteLocker#acquire(String)} and
+ * {@link DiskCacheWriteLocker#release(String)} as the number of threads grows.
+ *
+ * <p>The distinct keys case mirrors source threads writing different images, which shouldn't
+ * contend at all. The shared keys case has every thread competing for a handful of keys.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DiskCacheWriteLockerBenchmark {
+  private static final int[] THREAD_COUNTS = new int[] {1, 2, 4, 8, 16, 32};
+  private static final int ITERATIONS_PER_THREAD = 100_000;
+  private static final int KEYS_PER_THREAD = 64;
+  private static final int SHARED_KEY_COUNT = 4;
+
+  @Rule public final BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+  @Test
+  public void distinctKeys() throws InterruptedException {
+    int maxThreads = THREAD_COUNTS[THREAD_COUNTS.length - 1];
+    final String[][] keys = new String[maxThreads][KEYS_PER_THREAD];
+    for (int i = 0; i < maxThreads; i++) {
+      for (int j = 0; j < KEYS_PER_THREAD; j++) {
+        keys[i][j] = i + "_" + j;
+      }
+    }
+    for (int threadCount : THREAD_COUNTS) {
+      final DiskCacheWriteLocker locker = new DiskCacheWriteLocker();
+      ConcurrentBenchmark.run("DiskCacheWriteLocker distinct keys", threadCount,
+          ITERATIONS_PER_THREAD, new ConcurrentBenchmark.Operation() {
+            @Override
+            public void run(int threadIndex, int iteration) {
+              String key = keys[threadIndex][iteration % KEYS_PER_THREAD];
+              locker.acquire(key);
+              locker.release(key);
+            }
+          });
+      assertThat(locker.getLockCount()).isEqualTo(0);
+    }
+  }
+
+  @Test
+  public void sharedKeys() throws InterruptedException {
+    final String[] keys = new String[SHARED_KEY_COUNT];
+    for (int i = 0; i < SHARED_KEY_COUNT; i++) {
+      keys[i] = "shared_" + i;
+    }
+    for (int threadCount : THREAD_COUNTS) {
+      final DiskCacheWriteLocker locker = new DiskCacheWriteLocker();
+      ConcurrentBenchmark.run("DiskCacheWriteLocker shared keys", threadCount,
+          ITERATIONS_PER_THREAD, new ConcurrentBenchmark.Operation() {
+            @Override
+            public void run(int threadIndex, int iteration) {
+              String key = keys[(threadIndex + iteration) % SHARED_KEY_COUNT];
+              locker.acquire(key);
+              locker.release(key);
+            }
+          });
+      assertThat(locker.getLockCount()).isEqualTo(0);
+    }
+  }
+}
@@ -0,0 +1,115 @@
+package com.bumptech.glide.load.engine.cache;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.support.annotation.NonNull;
+import android.support.test.runner.AndroidJUnit4;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.load.engine.Resource;
+import com.bumptech.glide.signature.ObjectKey;
+import com.bumptech.glide.test.BenchmarkRule;
+import com.bumptech.glide.test.ConcurrentBenchmark;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Compares the throughput of {@link LruResourceCache} and {@link StripedResourceCache} when
+ * multiple threads put and remove resources concurrently.
+ *
+ * <p>Each thread works on a mostly private set of keys with some overlap, mirroring decode threads
+ * adding resources while the main thread removes them to start new loads. The cache is sized so
+ * that roughly half of the keys fit, so the benchmark also exercises eviction.
+ */
+@RunWith(AndroidJUnit4.class)
+public class MemoryCacheContentionBenchmark {
+  private static final int[] THREAD_COUNTS = new int[] {1, 2, 4, 8, 16};
+  private static final int ITERATIONS_PER_THREAD = 50_000;
+  private static final int KEY_COUNT = 4096;
+  private static final int RESOURCE_SIZE = 1024;
+  private static final long CACHE_SIZE = KEY_COUNT / 2 * RESOURCE_SIZE;
+
+  @Rule public final BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+  private final Key[] keys = new Key[KEY_COUNT];
+  private final Resource<?>[] resources = new Resource<?>[KEY_COUNT];
+
+  public MemoryCacheContentionBenchmark() {
+    for (int i = 0; i < KEY_COUNT; i++) {
+      keys[i] = new ObjectKey(i);
+      resources[i] = new FakeResource(RESOURCE_SIZE);
+    }
+  }
+
+  @Test
+  public void lruResourceCache() throws InterruptedException {
+    for (int threadCount : THREAD_COUNTS) {
+      run("LruResourceCache", new LruResourceCache(CACHE_SIZE), threadCount);
+    }
+  }
+
+  @Test
+  public void stripedResourceCache() throws InterruptedException {
+    for (int threadCount : THREAD_COUNTS) {
+      run("StripedResourceCache", new StripedResourceCache(CACHE_SIZE), threadCount);
+    }
+  }
+
+  private void run(String name, final MemoryCache cache, int threadCount)
+      throws InterruptedException {
+    cache.setResourceRemovedListener(new MemoryCache.ResourceRemovedListener() {
+      @Override
+      public void onResourceRemoved(@NonNull Resource<?> removed) {
+        // Do nothing.
+      }
+    });
+
+    double operationsPerSecond = ConcurrentBenchmark.run(
+        name, threadCount, ITERATIONS_PER_THREAD, new ConcurrentBenchmark.Operation() {
+          @Override
+          public void run(int threadIndex, int iteration) {
+            // A cheap, thread local pseudo random walk over the key space.
+            int index = (threadIndex * 7919 + iteration * 31) & (KEY_COUNT - 1);
+            if ((iteration & 1) == 0) {
+              cache.put(keys[index], resources[index]);
+            } else {
+              cache.remove(keys[index]);
+            }
+          }
+        });
+
+    assertThat(operationsPerSecond).isGreaterThan(0d);
+    assertThat(cache.getCurrentSize()).isAtMost(cache.getMaxSize());
+  }
+
+  private static final class FakeResource implements Resource<Object> {
+    private final Object resource = new Object();
+    private final int size;
+
+    FakeResource(int size) {
+      this.size = size;
+    }
+
+    @NonNull
+    @Override
+    public Class<Object> getResourceClass() {
+      return Object.class;
+    }
+
+    @NonNull
+    @Override
+    public Object get() {
+      return resource;
+    }
+
+    @Override
+    public int getSize() {
+      return size;
+    }
+
+    @Override
+    public void recycle() {
+      // Do nothing.
+    }
+  }
+}
@@ -0,0 +1,155 @@
+package com.bumptech.glide.load.engine.executor;
+
+import android.support.test.runner.AndroidJUnit4;
+import com.bumptech.glide.test.BenchmarkRule;
+import com.bumptech.glide.test.ConcurrentBenchmark;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Compares how quickly jobs for data found in the disk cache complete while other jobs are
+ * blocked on slow network requests.
+ *
+ * <p>Disk cache hits are modeled as a short CPU bound decode. Network requests are modeled as a
+ * fetch that sleeps for {@link #NETWORK_LATENCY_MS} followed by the same decode. A background
+ * thread keeps {@link #NETWORK_REQUESTS_IN_FLIGHT} network requests in flight for the duration of
+ * each run.
+ */
+@RunWith(AndroidJUnit4.class)
+public class GlideExecutorBenchmark {
+  private static final int[] THREAD_COUNTS = new int[] {1, 4, 8};
+  private static final int ITERATIONS_PER_THREAD = 200;
+  private static final int NETWORK_REQUESTS_IN_FLIGHT = 16;
+  private static final long NETWORK_LATENCY_MS = 50;
+  private static final int DECODE_BYTES = 256 * 1024;
+
+  @Rule public final BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+  @Test
+  public void mixedLoad_sharedThreadPoolExecutor() throws InterruptedException {
+    GlideExecutor source = GlideExecutor.newSourceExecutor();
+    try {
+      runMixedLoad("ThreadPoolExecutor shared", source, source, source);
+    } finally {
+      source.shutdownNow();
+    }
+  }
+
+  @Test
+  public void mixedLoad_sharedWorkStealingExecutor() throws InterruptedException {
+    GlideExecutor source = GlideExecutor.newWorkStealingSourceExecutor();
+    try {
+      runMixedLoad("WorkStealingExecutor shared", source, source, source);
+    } finally {
+      source.shutdownNow();
+    }
+  }
+
+  @Test
+  public void mixedLoad_workStealingExecutorWithSeparateIoExecutor()
+      throws InterruptedException {
+    GlideExecutor io = GlideExecutor.newSourceIoExecutor();
+    GlideExecutor decode = GlideExecutor.newWorkStealingSourceExecutor();
+    try {
+      runMixedLoad("WorkStealingExecutor with I/O executor", io, decode, decode);
+    } finally {
+      io.shutdownNow();
+      decode.shutdownNow();
+    }
+  }
+
+  private static void runMixedLoad(String name, Executor networkFetchExecutor,
+      Executor networkDecodeExecutor, final Executor diskCacheExecutor)
+      throws InterruptedException {
+    for (int threadCount : THREAD_COUNTS) {
+      NetworkLoad networkLoad = new NetworkLoad(networkFetchExecutor, networkDecodeExecutor);
+      networkLoad.start();
+      try {
+        ConcurrentBenchmark.run(name + " disk cache hits", threadCount, ITERATIONS_PER_THREAD,
+            new ConcurrentBenchmark.Operation() {
+              @Override
+              public void run(int threadIndex, int iteration) throws InterruptedException {
+                final CountDownLatch done = new CountDownLatch(1);
+                diskCacheExecutor.execute(new Runnable() {
+                  @Override
+                  public void run() {
+                    decode();
+                    done.countDown();
+                  }
+                });
+                done.await();
+              }
+            });
+      } finally {
+        networkLoad.stop();
+      }
+    }
+  }
+
+  static int decode() {
+    // Touch every byte like a decoder would, without allocating.
+    int hash = 0;
+    for (int i = 0; i < DECODE_BYTES; i++) {
+      hash = 31 * hash + i;
+    }
+    return hash;
+  }
+
+  private static final class NetworkLoad implements Runnable {
+    private final Semaphore inFlight = new Semaphore(NETWORK_REQUESTS_IN_FLIGHT);
+    private final Executor fetchExecutor;
+    private final Executor decodeExecutor;
+    private final Thread thread = new Thread(this, "GlideBenchmark-network");
+    private volatile boolean isStopped;
+
+    NetworkLoad(Executor fetchExecutor, Executor decodeExecutor) {
+      this.fetchExecutor = fetchExecutor;
+      this.decodeExecutor = decodeExecutor;
+    }
+
+    void start() {
+      thread.start();
+    }
+
+    void stop() throws InterruptedException {
+      isStopped = true;
+      thread.interrupt();
+      thread.join();
+      // Let in flight requests finish so they don't leak into the next run.
+      inFlight.acquire(NETWORK_REQUESTS_IN_FLIGHT);
+    }
+
+    @Override
+    public void run() {
+      while (!isStopped) {
+        try {
+          inFlight.acquire();
+        } catch (InterruptedException e) {
+          return;
+        }
+        fetchExecutor.execute(new Runnable() {
+          @Override
+          public void run() {
+            try {
+              TimeUnit.MILLISECONDS.sleep(NETWORK_LATENCY_MS);
+            } catch (InterruptedException e) {
+              // Continue to the decode.
+            }
+            decodeExecutor.execute(new Runnable() {
+              @Override
+              public void run() {
+                decode();
+                inFlight.release();
+              }
+            });
+          }
+        });
+      }
+    }
+  }
+}
@@ -0,0 +1,118 @@
+package com.bumptech.glide.load.resource.bitmap;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.LinearGradient;
+import android.graphics.Paint;
+import android.graphics.Shader;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool;
+import com.bumptech.glide.load.engine.bitmap_recycle.LruBitmapPool;
+import com.bumptech.glide.load.engine.executor.GlideExecutor;
+import com.bumptech.glide.test.BenchmarkRule;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Compares the time taken by {@link CenterCrop}, {@link FitCenter}, {@link CircleCrop} and
+ * {@link RoundedCorners} to transform a large {@link Bitmap} on the calling thread and split into
+ * stripes with {@link TransformationUtils#setStripeExecutor(java.util.concurrent.Executor)}.
+ *
+ * <p>Each benchmark also verifies that both paths produce identical pixels. Robolectric doesn't
+ * rasterize, so this is the only check that striped drawing is bit-identical.
+ */
+@RunWith(AndroidJUnit4.class)
+public class TransformationBenchmark {
+  private static final String TAG = "GlideBenchmark";
+  private static final int SOURCE_WIDTH = 4032;
+  private static final int SOURCE_HEIGHT = 3024;
+  private static final int ITERATIONS = 10;
+  private static final int POOL_SIZE = 4 * SOURCE_WIDTH * SOURCE_HEIGHT * 4;
+
+  @Rule public final BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+  private GlideExecutor executor;
+  private BitmapPool pool;
+  private Bitmap source;
+
+  @Before
+  public void setUp() {
+    executor = GlideExecutor.newTransformationExecutor();
+    pool = new LruBitmapPool(POOL_SIZE);
+    source = Bitmap.createBitmap(SOURCE_WIDTH, SOURCE_HEIGHT, Bitmap.Config.ARGB_8888);
+    // A gradient rather than a solid color so that filtering and anti-aliasing differences would
+    // show up in the comparison.
+    Paint paint = new Paint();
+    paint.setShader(new LinearGradient(0, 0, SOURCE_WIDTH, SOURCE_HEIGHT, Color.RED, Color.BLUE,
+        Shader.TileMode.MIRROR));
+    new Canvas(source).drawPaint(paint);
+  }
+
+  @After
+  public void tearDown() {
+    TransformationUtils.setStripeExecutor(null);
+    executor.shutdown();
+    pool.clearMemory();
+  }
+
+  @Test
+  public void centerCrop() {
+    run("CenterCrop", new CenterCrop(), 3000, 2000);
+  }
+
+  @Test
+  public void fitCenter() {
+    run("FitCenter", new FitCenter(), 3000, 3000);
+  }
+
+  @Test
+  public void circleCrop() {
+    run("CircleCrop", new CircleCrop(), 2500, 2500);
+  }
+
+  @Test
+  public void roundedCorners() {
+    run("RoundedCorners", new RoundedCorners(64), SOURCE_WIDTH, SOURCE_HEIGHT);
+  }
+
+  private void run(String name, BitmapTransformation transformation, int width, int height) {
+    TransformationUtils.setStripeExecutor(null);
+    Bitmap serial = transformation.transform(pool, source, width, height).copy(
+        Bitmap.Config.ARGB_8888, false /*isMutable*/);
+    long serialNanos = time(transformation, width, height);
+
+    TransformationUtils.setStripeExecutor(executor);
+    Bitmap striped = transformation.transform(pool, source, width, height);
+    assertThat(striped.sameAs(serial)).isTrue();
+    pool.put(striped);
+    long stripedNanos = time(transformation, width, height);
+
+    Log.i(TAG, String.format(Locale.US, "%s %dx%d -> %dx%d serial=%.2fms striped=%.2fms", name,
+        SOURCE_WIDTH, SOURCE_HEIGHT, width, height, toMillisPerIteration(serialNanos),
+        toMillisPerIteration(stripedNanos)));
+  }
+
+  private long time(BitmapTransformation transformation, int width, int height) {
+    long startTime = System.nanoTime();
+    for (int i = 0; i < ITERATIONS; i++) {
+      Bitmap result = transformation.transform(pool, source, width, height);
+      if (result != source) {
+        pool.put(result);
+      }
+    }
+    return System.nanoTime() - startTime;
+  }
+
+  private static double toMillisPerIteration(long nanos) {
+    return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1) / ITERATIONS;
+  }
+}
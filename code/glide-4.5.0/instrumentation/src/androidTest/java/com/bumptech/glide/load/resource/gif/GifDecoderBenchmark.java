@@ -0,0 +1,128 @@
+package com.bumptech.glide.load.resource.gif;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+import com.bumptech.glide.gifdecoder.GifDecoder;
+import com.bumptech.glide.gifdecoder.GifHeader;
+import com.bumptech.glide.gifdecoder.GifHeaderParser;
+import com.bumptech.glide.gifdecoder.StandardGifDecoder;
+import com.bumptech.glide.load.engine.bitmap_recycle.LruArrayPool;
+import com.bumptech.glide.load.engine.bitmap_recycle.LruBitmapPool;
+import com.bumptech.glide.test.BenchmarkRule;
+import com.bumptech.glide.test.ResourceIds;
+import com.google.common.io.ByteStreams;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Measures the time {@link StandardGifDecoder} takes to decode every frame of a set of real GIFs,
+ * covering opaque, transparent and interlaced images at full size and downsampled.
+ *
+ * <p>Frames are obtained from and returned to pools, as {@link GifFrameLoader} does, so the
+ * results reflect decoding rather than allocation.
+ */
+@RunWith(AndroidJUnit4.class)
+public class GifDecoderBenchmark {
+  private static final String TAG = "GlideBenchmark";
+  private static final int LOOPS = 5;
+  private static final int BITMAP_POOL_SIZE = 32 * 1024 * 1024;
+  private static final int ARRAY_POOL_SIZE = 8 * 1024 * 1024;
+
+  @Rule public final BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+  private Context context;
+  private LruBitmapPool bitmapPool;
+  private GifBitmapProvider provider;
+
+  @Before
+  public void setUp() {
+    context = InstrumentationRegistry.getTargetContext();
+    bitmapPool = new LruBitmapPool(BITMAP_POOL_SIZE);
+    provider = new GifBitmapProvider(bitmapPool, new LruArrayPool(ARRAY_POOL_SIZE));
+  }
+
+  @After
+  public void tearDown() {
+    bitmapPool.clearMemory();
+  }
+
+  @Test
+  public void animated() throws IOException {
+    run("dl_world_anim", ResourceIds.raw.dl_world_anim);
+  }
+
+  @Test
+  public void opaque() throws IOException {
+    run("opaque_gif", ResourceIds.raw.opaque_gif);
+  }
+
+  @Test
+  public void transparent() throws IOException {
+    run("transparent_gif", ResourceIds.raw.transparent_gif);
+  }
+
+  @Test
+  public void opaqueInterlaced() throws IOException {
+    run("opaque_interlaced_gif", ResourceIds.raw.opaque_interlaced_gif);
+  }
+
+  @Test
+  public void transparentInterlaced() throws IOException {
+    run("interlaced_transparent_gif", ResourceIds.raw.interlaced_transparent_gif);
+  }
+
+  private void run(String name, int resourceId) throws IOException {
+    byte[] data = getBytes(resourceId);
+    GifHeader header = new GifHeaderParser().setData(data).parseHeader();
+    assertThat(header.getStatus()).isEqualTo(GifDecoder.STATUS_OK);
+
+    for (int sampleSize : new int[] {1, 2}) {
+      GifDecoder decoder = new StandardGifDecoder(provider);
+      decoder.setData(header, ByteBuffer.wrap(data), sampleSize);
+      // Warm up and populate the pools.
+      decodeFrames(decoder, header.getNumFrames());
+
+      long startTime = System.nanoTime();
+      decodeFrames(decoder, LOOPS * header.getNumFrames());
+      long elapsedNanos = System.nanoTime() - startTime;
+      decoder.clear();
+
+      double millisPerFrame = elapsedNanos / (double) TimeUnit.MILLISECONDS.toNanos(1)
+          / (LOOPS * header.getNumFrames());
+      Log.i(TAG, String.format(Locale.US,
+          "GifDecoder %s %dx%d frames=%d sampleSize=%d %.2fms/frame", name, header.getWidth(),
+          header.getHeight(), header.getNumFrames(), sampleSize, millisPerFrame));
+    }
+  }
+
+  private void decodeFrames(GifDecoder decoder, int frameCount) {
+    for (int i = 0; i < frameCount; i++) {
+      decoder.advance();
+      Bitmap frame = decoder.getNextFrame();
+      assertThat(frame).isNotNull();
+      bitmapPool.put(frame);
+    }
+  }
+
+  private byte[] getBytes(int resourceId) throws IOException {
+    InputStream is = context.getResources().openRawResource(resourceId);
+    try {
+      return ByteStreams.toByteArray(is);
+    } finally {
+      is.close();
+    }
+  }
+}
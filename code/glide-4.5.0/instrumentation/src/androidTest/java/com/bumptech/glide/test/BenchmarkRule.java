@@ -0,0 +1,37 @@
+package com.bumptech.glide.test;
+
+import static org.junit.Assume.assumeTrue;
+
+import android.os.Bundle;
+import android.support.test.InstrumentationRegistry;
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+
+/**
+ * Skips benchmarks unless they're explicitly requested so that they don't slow down or add noise
+ * to the regular emulator test runs.
+ *
+ * <p>To run benchmarks, pass the {@code benchmark} instrumentation argument:
+ * <pre>
+ * {@code
+ * ./gradlew :instrumentation:connectedDebugAndroidTest \
+ *     -Pandroid.testInstrumentationRunnerArguments.benchmark=true
+ * }
+ * </pre>
+ */
+public final class BenchmarkRule implements TestRule {
+  private static final String BENCHMARK_ARGUMENT = "benchmark";
+
+  @Override
+  public Statement apply(final Statement base, Description description) {
+    return new Statement() {
+      @Override
+      public void evaluate() throws Throwable {
+        Bundle arguments = InstrumentationRegistry.getArguments();
+        assumeTrue(Boolean.parseBoolean(arguments.getString(BENCHMARK_ARGUMENT)));
+        base.evaluate();
+      }
+    };
+  }
+}
@@ -0,0 +1,90 @@
+package com.bumptech.glide.test;
+
+import android.util.Log;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs an operation on a fixed number of threads that are released at the same time and reports
+ * the aggregate throughput.
+ *
+ * <p>Each run is preceded by an untimed warm up pass with the same number of threads so that
+ * class loading and JIT compilation don't skew the results.
+ */
+public final class ConcurrentBenchmark {
+  private static final String TAG = "GlideBenchmark";
+  private static final long TIMEOUT_SECONDS = 120;
+
+  /**
+   * A single unit of work. Implementations must be thread safe.
+   */
+  public interface Operation {
+    void run(int threadIndex, int iteration) throws Exception;
+  }
+
+  private ConcurrentBenchmark() {
+    // Utility class.
+  }
+
+  /**
+   * Runs the given operation {@code iterationsPerThread} times on each of {@code threadCount}
+   * threads, logs the result and returns the throughput in operations per second.
+   */
+  public static double run(
+      String name, int threadCount, int iterationsPerThread, Operation operation)
+      throws InterruptedException {
+    time(threadCount, iterationsPerThread, operation);
+    long elapsedNanos = time(threadCount, iterationsPerThread, operation);
+
+    long totalOperations = (long) threadCount * iterationsPerThread;
+    double elapsedSeconds = elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1);
+    double operationsPerSecond = totalOperations / elapsedSeconds;
+    Log.i(TAG, String.format(Locale.US, "%s threads=%d ops=%d elapsed=%.2fms ops/s=%.0f",
+        name, threadCount, totalOperations, elapsedNanos / 1e6, operationsPerSecond));
+    return operationsPerSecond;
+  }
+
+  private static long time(
+      int threadCount, final int iterationsPerThread, final Operation operation)
+      throws InterruptedException {
+    final CountDownLatch ready = new CountDownLatch(threadCount);
+    final CountDownLatch start = new CountDownLatch(1);
+    final CountDownLatch done = new CountDownLatch(threadCount);
+    final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    for (int i = 0; i < threadCount; i++) {
+      final int threadIndex = i;
+      Thread thread = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          ready.countDown();
+          try {
+            start.await();
+            for (int iteration = 0; iteration < iterationsPerThread; iteration++) {
+              operation.run(threadIndex, iteration);
+            }
+          } catch (Throwable t) {
+            failure.compareAndSet(null, t);
+          } finally {
+            done.countDown();
+          }
+        }
+      }, TAG + "-" + i);
+      thread.start();
+    }
+
+    ready.await();
+    long startTime = System.nanoTime();
+    start.countDown();
+    if (!done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+      throw new IllegalStateException("Benchmark failed to complete in time");
+    }
+    long elapsed = System.nanoTime() - startTime;
+    if (failure.get() != null) {
+      throw new RuntimeException(failure.get());
+    }
+    return elapsed;
+  }
+}
@@ -23,16 +23,21 @@ import com.bumptech.glide.gifdecoder.GifDecoder;
 import com.bumptech.glide.load.DecodeFormat;
 import com.bumptech.glide.load.ResourceDecoder;
 import com.bumptech.glide.load.data.InputStreamRewinder;
+import com.bumptech.glide.load.engine.AdmissionStats;
+import com.bumptech.glide.load.engine.DecodePipelineStats;
 import com.bumptech.glide.load.engine.Engine;
 import com.bumptech.glide.load.engine.bitmap_recycle.ArrayPool;
 import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool;
+import com.bumptech.glide.load.engine.cache.MemoryBudgetController;
 import com.bumptech.glide.load.engine.cache.MemoryCache;
+import com.bumptech.glide.load.engine.executor.GlideExecutor;
 import com.bumptech.glide.load.engine.prefill.BitmapPreFiller;
 import com.bumptech.glide.load.engine.prefill.PreFillType;
 import com.bumptech.glide.load.model.AssetUriLoader;
 import com.bumptech.glide.load.model.ByteArrayLoader;
 import com.bumptech.glide.load.model.ByteBufferEncoder;
 import com.bumptech.glide.load.model.ByteBufferFileLoader;
+import com.bumptech.glide.load.model.ByteBufferGlideUrlLoader;
 import com.bumptech.glide.load.model.DataUrlLoader;
 import com.bumptech.glide.load.model.FileLoader;
 import com.bumptech.glide.load.model.GlideUrl;
@@ -52,10 +57,12 @@ import com.bumptech.glide.load.resource.bitmap.BitmapDrawableDecoder;
 import com.bumptech.glide.load.resource.bitmap.BitmapDrawableEncoder;
 import com.bumptech.glide.load.resource.bitmap.BitmapEncoder;
 import com.bumptech.glide.load.resource.bitmap.ByteBufferBitmapDecoder;
+import com.bumptech.glide.load.resource.bitmap.ByteBufferTiledBitmapDecoder;
 import com.bumptech.glide.load.resource.bitmap.DefaultImageHeaderParser;
 import com.bumptech.glide.load.resource.bitmap.Downsampler;
 import com.bumptech.glide.load.resource.bitmap.ResourceBitmapDecoder;
 import com.bumptech.glide.load.resource.bitmap.StreamBitmapDecoder;
+import com.bumptech.glide.load.resource.bitmap.TiledBitmapDecoder;
 import com.bumptech.glide.load.resource.bitmap.UnitBitmapDecoder;
 import com.bumptech.glide.load.resource.bitmap.VideoDecoder;
 import com.bumptech.glide.load.resource.bytes.ByteBufferRewinder;
@@ -112,6 +119,10 @@ public class Glide implements ComponentCallbacks2 {
   private final RequestManagerRetriever requestManagerRetriever;
   private final ConnectivityMonitorFactory connectivityMonitorFactory;
   private final List<RequestManager> managers = new ArrayList<>();
+  @Nullable
+  private final MemoryBudgetController memoryBudgetController;
+  @Nullable
+  private final GlideExecutor transformationExecutor;
   private MemoryCategory memoryCategory = MemoryCategory.NORMAL;
 
   /**
@@ -211,6 +222,12 @@ public class Glide implements ComponentCallbacks2 {
           .getApplicationContext()
           .unregisterComponentCallbacks(glide);
       glide.engine.shutdown();
+      if (glide.memoryBudgetController != null) {
+        glide.memoryBudgetController.stop();
+      }
+      if (glide.transformationExecutor != null) {
+        glide.transformationExecutor.shutdown();
+      }
     }
     glide = null;
   }
@@ -317,13 +334,17 @@ public class Glide implements ComponentCallbacks2 {
       @NonNull ConnectivityMonitorFactory connectivityMonitorFactory,
       int logLevel,
       @NonNull RequestOptions defaultRequestOptions,
-      @NonNull Map<Class<?>, TransitionOptions<?, ?>> defaultTransitionOptions) {
+      @NonNull Map<Class<?>, TransitionOptions<?, ?>> defaultTransitionOptions,
+      @Nullable MemoryBudgetController memoryBudgetController,
+      @Nullable GlideExecutor transformationExecutor) {
     this.engine = engine;
     this.bitmapPool = bitmapPool;
     this.arrayPool = arrayPool;
     this.memoryCache = memoryCache;
     this.requestManagerRetriever = requestManagerRetriever;
     this.connectivityMonitorFactory = connectivityMonitorFactory;
+    this.memoryBudgetController = memoryBudgetController;
+    this.transformationExecutor = transformationExecutor;
 
     DecodeFormat decodeFormat = defaultRequestOptions.getOptions().get(Downsampler.DECODE_FORMAT);
     bitmapPreFiller = new BitmapPreFiller(memoryCache, bitmapPool, decodeFormat);
@@ -334,13 +355,16 @@ public class Glide implements ComponentCallbacks2 {
     registry.register(new DefaultImageHeaderParser());
 
     Downsampler downsampler = new Downsampler(registry.getImageHeaderParsers(),
-        resources.getDisplayMetrics(), bitmapPool, arrayPool);
+        resources.getDisplayMetrics(), bitmapPool, arrayPool, memoryBudgetController,
+        transformationExecutor);
     ByteBufferGifDecoder byteBufferGifDecoder =
         new ByteBufferGifDecoder(context, registry.getImageHeaderParsers(), bitmapPool, arrayPool);
     ResourceDecoder<ParcelFileDescriptor, Bitmap> parcelFileDescriptorVideoDecoder =
         VideoDecoder.parcel(bitmapPool);
     ByteBufferBitmapDecoder byteBufferBitmapDecoder = new ByteBufferBitmapDecoder(downsampler);
     StreamBitmapDecoder streamBitmapDecoder = new StreamBitmapDecoder(downsampler, arrayPool);
+    TiledBitmapDecoder tiledBitmapDecoder =
+        new TiledBitmapDecoder(registry.getImageHeaderParsers(), bitmapPool, arrayPool);
     ResourceDrawableDecoder resourceDrawableDecoder =
         new ResourceDrawableDecoder(context);
     ResourceLoader.StreamFactory resourceLoaderStreamFactory =
@@ -362,6 +386,14 @@ public class Glide implements ComponentCallbacks2 {
         .append(ByteBuffer.class, new ByteBufferEncoder())
         .append(InputStream.class, new StreamEncoder(arrayPool))
         /* Bitmaps */
+        // Tiled decoders only handle loads for a specific tile and must be tried first so that
+        // tiles aren't decoded as full images.
+        .append(
+            Registry.BUCKET_BITMAP,
+            ByteBuffer.class,
+            Bitmap.class,
+            new ByteBufferTiledBitmapDecoder(tiledBitmapDecoder))
+        .append(Registry.BUCKET_BITMAP, InputStream.class, Bitmap.class, tiledBitmapDecoder)
         .append(Registry.BUCKET_BITMAP, ByteBuffer.class, Bitmap.class, byteBufferBitmapDecoder)
         .append(Registry.BUCKET_BITMAP, InputStream.class, Bitmap.class, streamBitmapDecoder)
         .append(
@@ -446,6 +478,11 @@ public class Glide implements ComponentCallbacks2 {
             AssetFileDescriptor.class,
             resourceLoaderAssetFileDescriptorFactory)
         .append(int.class, Uri.class, resourceLoaderUriFactory)
+        // Only provide data if HttpGlideUrlLoader.BUFFER_RESPONSE is set, so they must come before
+        // the corresponding InputStream loaders.
+        .append(String.class, ByteBuffer.class, new StringLoader.ByteBufferFactory())
+        .append(Uri.class, ByteBuffer.class, new UrlUriLoader.ByteBufferFactory())
+        .append(GlideUrl.class, ByteBuffer.class, new ByteBufferGlideUrlLoader.Factory())
         .append(String.class, InputStream.class, new DataUrlLoader.StreamFactory())
         .append(String.class, InputStream.class, new StringLoader.StreamFactory())
         .append(String.class, ParcelFileDescriptor.class, new StringLoader.FileDescriptorFactory())
@@ -504,6 +541,10 @@ public class Glide implements ComponentCallbacks2 {
             defaultTransitionOptions,
             engine,
             logLevel);
+
+    if (memoryBudgetController != null) {
+      memoryBudgetController.start();
+    }
   }
 
   /**
@@ -535,6 +576,45 @@ public class Glide implements ComponentCallbacks2 {
     return arrayPool;
   }
 
+  /**
+   * Returns the {@link GlideExecutor} that large {@link android.graphics.Bitmap}s are transformed
+   * on in parallel, or {@code null} unless one was set with
+   * {@link GlideBuilder#setTransformationExecutor(GlideExecutor)}.
+   *
+   * <p>Exposed for use in {@link com.bumptech.glide.load.resource.bitmap.BitmapTransformation}.
+   * Use outside of it is not generally recommended.
+   */
+  @Nullable
+  public GlideExecutor getTransformationExecutor() {
+    return transformationExecutor;
+  }
+
+  /**
+   * Returns latency statistics for fetching and decoding from source, or {@code null} unless a
+   * source I/O executor was set with {@link GlideBuilder#setSourceIoExecutor}.
+   */
+  @Nullable
+  public DecodePipelineStats getDecodePipelineStats() {
+    return engine.getDecodePipelineStats();
+  }
+
+  /**
+   * Returns the number of loads that used a slightly larger resource from the memory cache, which
+   * is always zero unless enabled with {@link GlideBuilder#setIsSizeCoalescingEnabled(boolean)}.
+   */
+  public long getNearestSizeCacheHitCount() {
+    return engine.getNearestSizeCacheHitCount();
+  }
+
+  /**
+   * Returns queue depths and wait times for loads held back by in flight limits, or {@code null}
+   * unless limits were set with {@link GlideBuilder#setInFlightLimits}.
+   */
+  @Nullable
+  public AdmissionStats getAdmissionStats() {
+    return engine.getAdmissionStats();
+  }
+
   /**
    * @return The context associated with this instance.
    */
@@ -651,8 +731,12 @@ public class Glide implements ComponentCallbacks2 {
     // Engine asserts this anyway when removing resources, fail faster and consistently
     Util.assertMainThread();
     // memory cache needs to be trimmed before bitmap pool to trim re-pooled Bitmaps too. See #687.
-    memoryCache.setSizeMultiplier(memoryCategory.getMultiplier());
-    bitmapPool.setSizeMultiplier(memoryCategory.getMultiplier());
+    if (memoryBudgetController != null) {
+      memoryBudgetController.setBaseMultiplier(memoryCategory.getMultiplier());
+    } else {
+      memoryCache.setSizeMultiplier(memoryCategory.getMultiplier());
+      bitmapPool.setSizeMultiplier(memoryCategory.getMultiplier());
+    }
     MemoryCategory oldCategory = this.memoryCategory;
     this.memoryCategory = memoryCategory;
     return oldCategory;
@@ -825,5 +909,9 @@ public class Glide implements ComponentCallbacks2 {
   @Override
   public void onLowMemory() {
     clearMemory();
+    if (memoryBudgetController != null) {
+      // Treat running low on memory like a failed allocation so the budget shrinks as well.
+      memoryBudgetController.recordAllocationFailure();
+    }
   }
 }
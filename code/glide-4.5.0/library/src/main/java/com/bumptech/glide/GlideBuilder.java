@@ -8,16 +8,21 @@ import android.support.v4.util.ArrayMap;
 import android.util.Log;
 import com.bumptech.glide.load.DecodeFormat;
 import com.bumptech.glide.load.engine.Engine;
+import com.bumptech.glide.load.engine.InFlightLimits;
 import com.bumptech.glide.load.engine.bitmap_recycle.ArrayPool;
 import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool;
 import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPoolAdapter;
 import com.bumptech.glide.load.engine.bitmap_recycle.LruArrayPool;
 import com.bumptech.glide.load.engine.bitmap_recycle.LruBitmapPool;
+import com.bumptech.glide.load.engine.cache.AdmissionPolicy;
 import com.bumptech.glide.load.engine.cache.DiskCache;
 import com.bumptech.glide.load.engine.cache.InternalCacheDiskCacheFactory;
 import com.bumptech.glide.load.engine.cache.LruResourceCache;
+import com.bumptech.glide.load.engine.cache.MemoryBudgetController;
+import com.bumptech.glide.load.engine.cache.MemoryBudgetPolicy;
 import com.bumptech.glide.load.engine.cache.MemoryCache;
 import com.bumptech.glide.load.engine.cache.MemorySizeCalculator;
+import com.bumptech.glide.load.engine.cache.TinyLfuResourceCache;
 import com.bumptech.glide.load.engine.executor.GlideExecutor;
 import com.bumptech.glide.manager.ConnectivityMonitorFactory;
 import com.bumptech.glide.manager.DefaultConnectivityMonitorFactory;
@@ -26,6 +31,7 @@ import com.bumptech.glide.manager.RequestManagerRetriever.RequestManagerFactory;
 import com.bumptech.glide.request.RequestOptions;
 import com.bumptech.glide.request.target.Target;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 /**
  * A builder class for setting default structural classes for Glide to use.
@@ -38,7 +44,13 @@ public final class GlideBuilder {
   private BitmapPool bitmapPool;
   private ArrayPool arrayPool;
   private MemoryCache memoryCache;
+  @Nullable
+  private AdmissionPolicy memoryCacheAdmissionPolicy;
   private GlideExecutor sourceExecutor;
+  @Nullable
+  private GlideExecutor sourceIoExecutor;
+  @Nullable
+  private InFlightLimits inFlightLimits;
   private GlideExecutor diskCacheExecutor;
   private DiskCache.Factory diskCacheFactory;
   private MemorySizeCalculator memorySizeCalculator;
@@ -48,7 +60,14 @@ public final class GlideBuilder {
   @Nullable
   private RequestManagerFactory requestManagerFactory;
   private GlideExecutor animationExecutor;
+  @Nullable
+  private GlideExecutor transformationExecutor;
   private boolean isActiveResourceRetentionAllowed;
+  private boolean isSizeCoalescingEnabled;
+  @Nullable
+  private Executor engineLoadExecutor;
+  @Nullable
+  private MemoryBudgetPolicy memoryBudgetPolicy;
 
   /**
    * Sets the {@link com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool} implementation to use
@@ -80,6 +99,10 @@ public final class GlideBuilder {
    * Sets the {@link com.bumptech.glide.load.engine.cache.MemoryCache} implementation to store
    * {@link com.bumptech.glide.load.engine.Resource}s that are not currently in use.
    *
+   * <p>Defaults to {@link LruResourceCache}. Applications that access the cache from many threads
+   * may prefer {@link com.bumptech.glide.load.engine.cache.StripedResourceCache}, which avoids
+   * serializing every operation on a single lock.
+   *
    * @param memoryCache The cache to use.
    * @return This builder.
    */
@@ -89,6 +112,29 @@ public final class GlideBuilder {
     return this;
   }
 
+  /**
+   * Sets an {@link AdmissionPolicy} that decides whether newly loaded
+   * {@link com.bumptech.glide.load.engine.Resource}s may displace resources that are already in the
+   * default memory cache.
+   *
+   * <p>If set, the default memory cache is a {@link TinyLfuResourceCache} using the given policy
+   * instead of an {@link LruResourceCache}. Use
+   * {@link com.bumptech.glide.load.engine.cache.TinyLfuAdmissionPolicy} to keep frequently loaded
+   * resources in memory while scrolling through long lists of resources that are only loaded once.
+   *
+   * <p>Has no effect if a custom cache is provided via {@link #setMemoryCache(MemoryCache)}.
+   *
+   * <p>Defaults to {@code null}, which means no admission policy is used.
+   *
+   * @param admissionPolicy The policy to use, or {@code null} to use a plain LRU cache.
+   * @return This builder.
+   */
+  @NonNull
+  public GlideBuilder setMemoryCacheAdmissionPolicy(@Nullable AdmissionPolicy admissionPolicy) {
+    this.memoryCacheAdmissionPolicy = admissionPolicy;
+    return this;
+  }
+
   /**
    * Sets the {@link com.bumptech.glide.load.engine.cache.DiskCache} implementation to use to store
    * {@link com.bumptech.glide.load.engine.Resource} data and thumbnails.
@@ -166,6 +212,55 @@ public final class GlideBuilder {
     return this;
   }
 
+  /**
+   * Sets a {@link GlideExecutor} to use to fetch data for
+   * {@link com.bumptech.glide.load.engine.Resource}s that are not already in the cache, leaving
+   * the source executor (see {@link #setSourceExecutor(GlideExecutor)}) to only decode it.
+   *
+   * <p>By default the same source thread fetches and then decodes data, so a few slow network
+   * requests can keep every source thread blocked while fetched data waits to be decoded. With a
+   * separate I/O executor, which can have more threads than there are cores because its threads
+   * mostly wait, fetched data is decoded as soon as a decode thread is free. If too much fetched
+   * data is waiting to be decoded, fetching threads decode data themselves.
+   *
+   * <p>Use {@link GlideExecutor#newSourceIoExecutor()} to create an executor suited to this, or,
+   * when running on a JVM with virtual threads, {@link
+   * GlideExecutor#newVirtualThreadSourceIoExecutor()}.
+   * Fetch and decode latencies are available from {@link Glide#getDecodePipelineStats()}.
+   *
+   * <p>Defaults to {@code null}, which fetches and decodes on the source executor.
+   *
+   * @param service The {@link GlideExecutor} to use, or {@code null} to fetch on the source
+   *                executor.
+   * @return This builder.
+   */
+  @NonNull
+  public GlideBuilder setSourceIoExecutor(@Nullable GlideExecutor service) {
+    this.sourceIoExecutor = service;
+    return this;
+  }
+
+  /**
+   * Sets the maximum number of loads Glide runs at once on each of its executors.
+   *
+   * <p>By default every load is queued on an executor as soon as it starts. With limits, loads
+   * beyond the limit wait until earlier loads finish, while they can still be re-prioritized or
+   * cancelled cheaply, preloads only use capacity loads for views don't need and, if too many
+   * loads are waiting, loads are failed according to
+   * {@link InFlightLimits.SheddingPolicy}. Queue depths and wait times are available from
+   * {@link Glide#getAdmissionStats()}.
+   *
+   * <p>Defaults to {@code null}, which doesn't limit the number of loads.
+   *
+   * @param inFlightLimits The limits to use, or {@code null} to start every load immediately.
+   * @return This builder.
+   */
+  @NonNull
+  public GlideBuilder setInFlightLimits(@Nullable InFlightLimits inFlightLimits) {
+    this.inFlightLimits = inFlightLimits;
+    return this;
+  }
+
   /**
    * Sets the {@link GlideExecutor} to use when retrieving
    * {@link com.bumptech.glide.load.engine.Resource}s that are currently in Glide's disk caches.
@@ -205,6 +300,36 @@ public final class GlideBuilder {
     return this;
   }
 
+  /**
+   * Sets a {@link GlideExecutor} used to transform large {@link android.graphics.Bitmap}s in
+   * parallel.
+   *
+   * <p>{@link com.bumptech.glide.load.resource.bitmap.CenterCrop},
+   * {@link com.bumptech.glide.load.resource.bitmap.FitCenter},
+   * {@link com.bumptech.glide.load.resource.bitmap.CircleCrop},
+   * {@link com.bumptech.glide.load.resource.bitmap.RoundedCorners} and exif rotation split large
+   * {@link android.graphics.Bitmap}s into horizontal stripes and draw all but one of them on this
+   * executor while the decode thread draws the remaining stripe. Each stripe runs the same draws,
+   * so the results should be identical to drawing on a single thread. This is only verified on
+   * devices, by the instrumentation {@code TransformationBenchmark}.
+   *
+   * <p>The executor belongs to the {@link Glide} instance built here and is shut down by
+   * {@link Glide#tearDown()}.
+   *
+   * <p>Use {@link GlideExecutor#newTransformationExecutor()} to create an executor suited to this.
+   *
+   * <p>Defaults to {@code null}, which transforms entirely on the decode thread.
+   *
+   * @param service The {@link GlideExecutor} to use, or {@code null} to transform on the decode
+   *                thread.
+   * @return This builder.
+   */
+  @NonNull
+  public GlideBuilder setTransformationExecutor(@Nullable GlideExecutor service) {
+    this.transformationExecutor = service;
+    return this;
+  }
+
   /**
    * Sets the default {@link RequestOptions} to use for all loads across the app.
    *
@@ -392,6 +517,75 @@ public final class GlideBuilder {
     return this;
   }
 
+  /**
+   * If set to {@code true}, lets a load use a resource for the same model, transformations and
+   * options at a slightly larger size with the same aspect ratio, either from the memory cache or
+   * by sharing an in progress load, instead of starting a second load, for example when views of
+   * nearly the same size show the same image.
+   *
+   * <p>Loads that share a resource get the larger resource, which their views scale down when
+   * they draw it, and the resource is only cached once. Loads that use a larger resource from the
+   * memory cache are counted by {@link Glide#getNearestSizeCacheHitCount()}.
+   *
+   * <p>Sharing only works in one direction. A load can join an in progress load for a slightly
+   * larger size, but a load for a larger size that starts while a smaller load is in progress
+   * can't use the smaller resource and starts its own load.
+   *
+   * <p>Defaults to {@code false}, which only shares loads of exactly the same size.
+   *
+   * @return This builder.
+   */
+  @NonNull
+  public GlideBuilder setIsSizeCoalescingEnabled(boolean isSizeCoalescingEnabled) {
+    this.isSizeCoalescingEnabled = isSizeCoalescingEnabled;
+    return this;
+  }
+
+  /**
+   * Sets an {@link Executor} that Glide's engine uses to build cache keys, check the memory caches
+   * and start or join in progress loads instead of doing so on the main thread when a request
+   * starts.
+   *
+   * <p>Results are still delivered to {@link com.bumptech.glide.request.target.Target}s on the main
+   * thread, but even loads that hit the memory cache are delivered asynchronously, usually in a
+   * later frame. A single background thread is typically enough, each load only does a small amount
+   * of work on the executor.
+   *
+   * <p>If a custom {@link MemoryCache} is set, it must be thread safe. The default implementations
+   * are.
+   *
+   * <p>Defaults to {@code null}, which does all of the above on the main thread.
+   *
+   * @param engineLoadExecutor The executor to use, or {@code null} to use the main thread.
+   * @return This builder.
+   */
+  @NonNull
+  public GlideBuilder setEngineLoadExecutor(@Nullable Executor engineLoadExecutor) {
+    this.engineLoadExecutor = engineLoadExecutor;
+    return this;
+  }
+
+  /**
+   * Sets a {@link MemoryBudgetPolicy} that periodically adjusts how Glide's memory budget is split
+   * between the {@link MemoryCache}, the {@link BitmapPool} and the {@link ArrayPool} based on
+   * their hit rates, heap usage and allocation failures.
+   *
+   * <p>{@link com.bumptech.glide.load.engine.cache.AdaptiveMemoryBudgetPolicy} is a reasonable
+   * default. The sizes chosen by the policy are relative to the sizes given by the
+   * {@link MemorySizeCalculator} and are scaled by the current
+   * {@link com.bumptech.glide.MemoryCategory}.
+   *
+   * <p>Defaults to {@code null}, which keeps the sizes fixed.
+   *
+   * @param memoryBudgetPolicy The policy to use, or {@code null} to keep sizes fixed.
+   * @return This builder.
+   */
+  @NonNull
+  public GlideBuilder setMemoryBudgetPolicy(@Nullable MemoryBudgetPolicy memoryBudgetPolicy) {
+    this.memoryBudgetPolicy = memoryBudgetPolicy;
+    return this;
+  }
+
   void setRequestManagerFactory(@Nullable RequestManagerFactory factory) {
     this.requestManagerFactory = factory;
   }
@@ -438,7 +632,12 @@ public final class GlideBuilder {
     }
 
     if (memoryCache == null) {
-      memoryCache = new LruResourceCache(memorySizeCalculator.getMemoryCacheSize());
+      int size = memorySizeCalculator.getMemoryCacheSize();
+      if (memoryCacheAdmissionPolicy != null) {
+        memoryCache = new TinyLfuResourceCache(size, memoryCacheAdmissionPolicy);
+      } else {
+        memoryCache = new LruResourceCache(size);
+      }
     }
 
     if (diskCacheFactory == null) {
@@ -454,12 +653,22 @@ public final class GlideBuilder {
               sourceExecutor,
               GlideExecutor.newUnlimitedSourceExecutor(),
               GlideExecutor.newAnimationExecutor(),
-              isActiveResourceRetentionAllowed);
+              isActiveResourceRetentionAllowed,
+              engineLoadExecutor,
+              sourceIoExecutor,
+              inFlightLimits,
+              isSizeCoalescingEnabled);
     }
 
     RequestManagerRetriever requestManagerRetriever =
         new RequestManagerRetriever(requestManagerFactory);
 
+    MemoryBudgetController memoryBudgetController = null;
+    if (memoryBudgetPolicy != null) {
+      memoryBudgetController =
+          new MemoryBudgetController(memoryCache, bitmapPool, arrayPool, memoryBudgetPolicy);
+    }
+
     return new Glide(
         context,
         engine,
@@ -470,6 +679,8 @@ public final class GlideBuilder {
         connectivityMonitorFactory,
         logLevel,
         defaultRequestOptions.lock(),
-        defaultTransitionOptions);
+        defaultTransitionOptions,
+        memoryBudgetController,
+        transformationExecutor);
   }
 }
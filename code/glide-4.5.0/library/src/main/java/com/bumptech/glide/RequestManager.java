@@ -69,6 +69,7 @@ public class RequestManager implements LifecycleListener,
   private final ConnectivityMonitor connectivityMonitor;
 
   private RequestOptions requestOptions;
+  private boolean isDeprioritizeRequestsOnDetach;
 
   public RequestManager(
       @NonNull Glide glide, @NonNull Lifecycle lifecycle,
@@ -205,6 +206,22 @@ public class RequestManager implements LifecycleListener,
     return requestTracker.isPaused();
   }
 
+  /**
+   * Sets whether loads into {@link View}s started by this {@link RequestManager} run at a lower
+   * priority while their {@link View}s are detached from the window, for example after scrolling
+   * off screen in a {@code RecyclerView}, so that loads for visible {@link View}s run first.
+   *
+   * <p>Only applies to loads started after this method is called.
+   *
+   * <p>Defaults to {@code false}.
+   *
+   * @see ViewTarget#deprioritizeOnDetach()
+   */
+  public void setDeprioritizeRequestsOnDetach(boolean isDeprioritizeRequestsOnDetach) {
+    Util.assertMainThread();
+    this.isDeprioritizeRequestsOnDetach = isDeprioritizeRequestsOnDetach;
+  }
+
   /**
    * Cancels any in progress loads, but does not clear resources of completed loads.
    *
@@ -630,6 +647,9 @@ public class RequestManager implements LifecycleListener,
   }
 
   void track(Target<?> target, Request request) {
+    if (isDeprioritizeRequestsOnDetach && target instanceof ViewTarget) {
+      ((ViewTarget<?, ?>) target).deprioritizeOnDetach();
+    }
     targetTracker.track(target);
     requestTracker.runRequest(request);
   }
@@ -0,0 +1,118 @@
+package com.bumptech.glide.load.data;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+import com.bumptech.glide.Priority;
+import com.bumptech.glide.load.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A DataFetcher that reads the entire {@link InputStream} provided by another DataFetcher, for
+ * example the response body for a url, into a {@link ByteBuffer}.
+ *
+ * <p>The buffer is sized from the stream's {@link InputStream#available()} when it's known, which
+ * for http responses is typically the content length, so that the data is read exactly once,
+ * directly into its final location. The same buffer can then be written to the disk cache and
+ * decoded without re-reading the data or copying it into a stream buffer.
+ */
+public class StreamByteBufferFetcher implements DataFetcher<ByteBuffer> {
+  private static final String TAG = "StreamBufferFetcher";
+  // Used when the stream doesn't tell us how much data is available.
+  private static final int DEFAULT_BUFFER_SIZE_BYTES = 16 * 1024;
+  // Bounds the up front allocation if the stream reports an unreasonably large size, larger
+  // streams are still read, just with more copies.
+  private static final int MAX_INITIAL_BUFFER_SIZE_BYTES = 10 * 1024 * 1024;
+
+  private final DataFetcher<InputStream> streamFetcher;
+  private volatile boolean isCancelled;
+
+  public StreamByteBufferFetcher(DataFetcher<InputStream> streamFetcher) {
+    this.streamFetcher = streamFetcher;
+  }
+
+  @Override
+  public void loadData(@NonNull Priority priority,
+      @NonNull final DataCallback<? super ByteBuffer> callback) {
+    streamFetcher.loadData(priority, new DataCallback<InputStream>() {
+      @Override
+      public void onDataReady(@Nullable InputStream data) {
+        if (data == null) {
+          callback.onDataReady(null);
+          return;
+        }
+        ByteBuffer result;
+        try {
+          result = readFully(data);
+        } catch (IOException e) {
+          if (Log.isLoggable(TAG, Log.DEBUG)) {
+            Log.d(TAG, "Failed to read stream", e);
+          }
+          callback.onLoadFailed(e);
+          return;
+        }
+        callback.onDataReady(result);
+      }
+
+      @Override
+      public void onLoadFailed(@NonNull Exception e) {
+        callback.onLoadFailed(e);
+      }
+    });
+  }
+
+  @Nullable
+  private ByteBuffer readFully(InputStream is) throws IOException {
+    // HttpUrlFetcher and the networking integrations wrap response bodies in a
+    // ContentLengthInputStream, which returns the content length from available() if the server
+    // provided one.
+    int expectedSize = is.available();
+    byte[] buffer = new byte[expectedSize > 0
+        ? Math.min(expectedSize, MAX_INITIAL_BUFFER_SIZE_BYTES) : DEFAULT_BUFFER_SIZE_BYTES];
+    int size = 0;
+    while (!isCancelled) {
+      if (size == buffer.length) {
+        // Check for the end of the stream before growing so that exactly sized buffers are never
+        // copied.
+        int next = is.read();
+        if (next == -1) {
+          break;
+        }
+        buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        buffer[size++] = (byte) next;
+      }
+      int read = is.read(buffer, size, buffer.length - size);
+      if (read == -1) {
+        break;
+      }
+      size += read;
+    }
+    return isCancelled ? null : ByteBuffer.wrap(buffer, 0, size);
+  }
+
+  @Override
+  public void cleanup() {
+    streamFetcher.cleanup();
+  }
+
+  @Override
+  public void cancel() {
+    isCancelled = true;
+    streamFetcher.cancel();
+  }
+
+  @NonNull
+  @Override
+  public Class<ByteBuffer> getDataClass() {
+    return ByteBuffer.class;
+  }
+
+  @NonNull
+  @Override
+  public DataSource getDataSource() {
+    return streamFetcher.getDataSource();
+  }
+}
@@ -1,10 +1,5 @@
 package com.bumptech.glide.load.engine;
 
-import android.os.Handler;
-import android.os.Handler.Callback;
-import android.os.Looper;
-import android.os.Message;
-import android.os.Process;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.annotation.VisibleForTesting;
@@ -12,47 +7,43 @@ import com.bumptech.glide.load.Key;
 import com.bumptech.glide.load.engine.EngineResource.ResourceListener;
 import com.bumptech.glide.util.Preconditions;
 import com.bumptech.glide.util.Synthetic;
-import com.bumptech.glide.util.Util;
 import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.concurrent.TimeUnit;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Tracks resources that are currently in use, keyed by their cache keys.
+ *
+ * <p>This class is thread safe. Resources are weakly referenced so that resources that are garbage
+ * collected without being released can be returned to the memory cache. Rather than blocking a
+ * dedicated thread on the {@link ReferenceQueue}, cleared references are drained in small batches
+ * by whichever thread next activates, deactivates or looks up a resource. Every new load does at
+ * least one of those, so cleared resources are reclaimed before they'd otherwise be needed.
+ */
 final class ActiveResources {
-  private static final int MSG_CLEAN_REF = 1;
+  private static final int MAX_DRAIN_BATCH_SIZE = 32;
 
   private final boolean isActiveResourceRetentionAllowed;
-  private final Handler mainHandler = new Handler(Looper.getMainLooper(), new Callback() {
-    @Override
-    public boolean handleMessage(Message msg) {
-      if (msg.what == MSG_CLEAN_REF) {
-        cleanupActiveReference((ResourceWeakReference) msg.obj);
-        return true;
-      }
-      return false;
-    }
-  });
   @VisibleForTesting
-  final Map<Key, ResourceWeakReference> activeEngineResources = new HashMap<>();
+  final ConcurrentMap<Key, ResourceWeakReference> activeEngineResources =
+      new ConcurrentHashMap<>();
+  private final ReferenceQueue<EngineResource<?>> resourceReferenceQueue = new ReferenceQueue<>();
+  // Releasing a resource deactivates it, which would otherwise start a nested drain.
+  private final AtomicBoolean isDraining = new AtomicBoolean();
+  // Keys of active resources, null unless size coalescing is enabled. Guarded by itself.
+  @Nullable private final NearestSizeIndex keysBySize;
 
-  private ResourceListener listener;
-
-  /**
-   * Lazily instantiate to avoid exceptions if Glide is initialized on a background thread.
-   *
-   * @see <a href="https://github.com/bumptech/glide/issues/295">#295</a>
-   */
-  @Nullable
-  private ReferenceQueue<EngineResource<?>> resourceReferenceQueue;
-  @Nullable
-  private Thread cleanReferenceQueueThread;
-  private volatile boolean isShutdown;
-  @Nullable
-  private volatile DequeuedResourceCallback cb;
+  private volatile ResourceListener listener;
 
   ActiveResources(boolean isActiveResourceRetentionAllowed) {
+    this(isActiveResourceRetentionAllowed, /*isSizeCoalescingEnabled=*/ false);
+  }
+
+  ActiveResources(boolean isActiveResourceRetentionAllowed, boolean isSizeCoalescingEnabled) {
     this.isActiveResourceRetentionAllowed = isActiveResourceRetentionAllowed;
+    keysBySize = isSizeCoalescingEnabled ? new NearestSizeIndex() : null;
   }
 
   void setListener(ResourceListener listener) {
@@ -64,110 +55,102 @@ final class ActiveResources {
         new ResourceWeakReference(
             key,
             resource,
-            getReferenceQueue(),
+            resourceReferenceQueue,
             isActiveResourceRetentionAllowed);
 
     ResourceWeakReference removed = activeEngineResources.put(key, toPut);
     if (removed != null) {
       removed.reset();
+    } else if (keysBySize != null && key instanceof EngineKey) {
+      synchronized (keysBySize) {
+        keysBySize.add((EngineKey) key);
+      }
     }
+    drainReferenceQueue();
   }
 
   void deactivate(Key key) {
     ResourceWeakReference removed = activeEngineResources.remove(key);
     if (removed != null) {
       removed.reset();
+      removeFromKeysBySize(key);
     }
+    drainReferenceQueue();
   }
 
   @Nullable
   EngineResource<?> get(Key key) {
     ResourceWeakReference activeRef = activeEngineResources.get(key);
-    if (activeRef == null) {
-      return null;
-    }
-
-    EngineResource<?> active = activeRef.get();
-    if (active == null) {
+    EngineResource<?> active = activeRef != null ? activeRef.get() : null;
+    if (activeRef != null && active == null) {
       cleanupActiveReference(activeRef);
     }
+    drainReferenceQueue();
     return active;
   }
 
-  @SuppressWarnings("WeakerAccess")
-  @Synthetic void cleanupActiveReference(@NonNull ResourceWeakReference ref) {
-    Util.assertMainThread();
-    activeEngineResources.remove(ref.key);
-
-    if (!ref.isCacheable || ref.resource == null) {
-      return;
+  /**
+   * Returns an active resource loaded for the same load as the given key at a slightly larger
+   * size, see {@link NearestSizeIndex#getNearest(EngineKey)}, or {@code null} if there isn't one
+   * or size coalescing is disabled.
+   */
+  @Nullable
+  EngineResource<?> getNearest(EngineKey key) {
+    if (keysBySize == null) {
+      return null;
     }
-    EngineResource<?> newResource =
-        new EngineResource<>(ref.resource, /*isCacheable=*/ true, /*isRecyclable=*/ false);
-    newResource.setResourceListener(ref.key, listener);
-    listener.onResourceReleased(ref.key, newResource);
-  }
-
-  private ReferenceQueue<EngineResource<?>> getReferenceQueue() {
-    if (resourceReferenceQueue == null) {
-      resourceReferenceQueue = new ReferenceQueue<>();
-      cleanReferenceQueueThread = new Thread(new Runnable() {
-        @SuppressWarnings("InfiniteLoopStatement")
-        @Override
-        public void run() {
-          Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
-          cleanReferenceQueue();
-        }
-      }, "glide-active-resources");
-      cleanReferenceQueueThread.start();
+    EngineKey nearestKey;
+    synchronized (keysBySize) {
+      nearestKey = keysBySize.getNearest(key);
     }
-    return resourceReferenceQueue;
+    return nearestKey != null ? get(nearestKey) : null;
   }
 
-  @SuppressWarnings("WeakerAccess")
-  @Synthetic void cleanReferenceQueue() {
-    while (!isShutdown) {
-      try {
-        ResourceWeakReference ref = (ResourceWeakReference) resourceReferenceQueue.remove();
-        mainHandler.obtainMessage(MSG_CLEAN_REF, ref).sendToTarget();
-
-        // This section for testing only.
-        DequeuedResourceCallback current = cb;
-        if (current != null) {
-          current.onResourceDequeued();
+  /**
+   * Cleans up at most {@link #MAX_DRAIN_BATCH_SIZE} references that have been enqueued, so that no
+   * single caller pays for a large backlog. Does nothing if another drain is already in progress.
+   */
+  @VisibleForTesting
+  void drainReferenceQueue() {
+    if (!isDraining.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      for (int i = 0; i < MAX_DRAIN_BATCH_SIZE; i++) {
+        ResourceWeakReference ref = (ResourceWeakReference) resourceReferenceQueue.poll();
+        if (ref == null) {
+          break;
         }
-        // End for testing only.
-      } catch (InterruptedException e) {
-        Thread.currentThread().interrupt();
+        cleanupActiveReference(ref);
       }
+    } finally {
+      isDraining.set(false);
     }
   }
 
-  @VisibleForTesting
-  void setDequeuedResourceCallback(DequeuedResourceCallback cb) {
-    this.cb = cb;
-  }
-
-  @VisibleForTesting
-  interface DequeuedResourceCallback {
-    void onResourceDequeued();
-  }
+  private void cleanupActiveReference(@NonNull ResourceWeakReference ref) {
+    // The reference may have already been cleaned up by another thread, deactivated or replaced
+    // by a newer resource for the same key, in which case there's nothing left to release.
+    if (!activeEngineResources.remove(ref.key, ref)) {
+      return;
+    }
+    removeFromKeysBySize(ref.key);
 
-  @VisibleForTesting
-  void shutdown() {
-    isShutdown = true;
-    if (cleanReferenceQueueThread == null) {
+    Resource<?> resource = ref.resource;
+    if (!ref.isCacheable || resource == null) {
       return;
     }
+    EngineResource<?> newResource =
+        new EngineResource<>(resource, /*isCacheable=*/ true, /*isRecyclable=*/ false);
+    newResource.setResourceListener(ref.key, listener);
+    listener.onResourceReleased(ref.key, newResource);
+  }
 
-    cleanReferenceQueueThread.interrupt();
-    try {
-      cleanReferenceQueueThread.join(TimeUnit.SECONDS.toMillis(5));
-      if (cleanReferenceQueueThread.isAlive()) {
-        throw new RuntimeException("Failed to join in time");
+  private void removeFromKeysBySize(Key key) {
+    if (keysBySize != null && key instanceof EngineKey) {
+      synchronized (keysBySize) {
+        keysBySize.remove((EngineKey) key);
       }
-    } catch (InterruptedException e) {
-      Thread.currentThread().interrupt();
     }
   }
 
@@ -176,7 +159,7 @@ final class ActiveResources {
     @SuppressWarnings("WeakerAccess") @Synthetic final Key key;
     @SuppressWarnings("WeakerAccess") @Synthetic final boolean isCacheable;
 
-    @Nullable @SuppressWarnings("WeakerAccess") @Synthetic Resource<?> resource;
+    @Nullable @SuppressWarnings("WeakerAccess") @Synthetic volatile Resource<?> resource;
 
     @Synthetic
     @SuppressWarnings("WeakerAccess")
@@ -0,0 +1,247 @@
+package com.bumptech.glide.load.engine;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import com.bumptech.glide.Priority;
+import com.bumptech.glide.load.engine.InFlightLimits.ExecutorType;
+import com.bumptech.glide.load.engine.InFlightLimits.SheddingPolicy;
+import com.bumptech.glide.util.LogTime;
+import com.bumptech.glide.util.Synthetic;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Starts {@link EngineJob}s only while fewer than the configured number of jobs are in flight on
+ * the executor they start on, holding the others until earlier jobs finish.
+ *
+ * <p>A job is in flight from when it's started until the {@link Engine} is told it completed or
+ * was cancelled. Waiting jobs are still in {@link Jobs}, so new requests for the same resource
+ * join them, and they're started in order of the highest priority any of their callbacks wants,
+ * so {@link EngineJob#setPriority} re-orders them for free.
+ *
+ * <p>Preloads start only when no other job is waiting for the same executor and, when the limit
+ * is more than one, never take the last free slot, which stays free for loads for views. A
+ * preload that a load for a view joins is no longer treated as a preload.
+ *
+ * <p>Jobs that are shed or cancelled while waiting fail without ever being queued on an executor.
+ */
+final class AdmissionController {
+  private final InFlightLimits limits;
+  private final AdmissionStats stats = new AdmissionStats();
+  private final int[] inFlightJobCounts = new int[ExecutorType.values().length];
+  private final Map<EngineJob<?>, ExecutorType> inFlightJobs = new IdentityHashMap<>();
+  private final List<WaitingJob<?>> waitingJobs = new ArrayList<>();
+  private long nextSequence;
+
+  AdmissionController(@NonNull InFlightLimits limits) {
+    this.limits = limits;
+  }
+
+  @NonNull
+  AdmissionStats getStats() {
+    return stats;
+  }
+
+  static ExecutorType getExecutorType(
+      DecodeJob<?> decodeJob, boolean useUnlimitedSourceExecutorPool, boolean useAnimationPool) {
+    if (decodeJob.willDecodeFromCache()) {
+      return ExecutorType.DISK_CACHE;
+    } else if (useUnlimitedSourceExecutorPool) {
+      return ExecutorType.SOURCE_UNLIMITED;
+    } else if (useAnimationPool) {
+      return ExecutorType.ANIMATION;
+    }
+    return ExecutorType.SOURCE;
+  }
+
+  /**
+   * Starts the given job now if there's room for it, otherwise either holds it until there is or
+   * fails it, depending on the {@link SheddingPolicy}.
+   */
+  synchronized <R> void start(EngineJob<R> engineJob, DecodeJob<R> decodeJob,
+      ExecutorType executorType, boolean isPreload) {
+    WaitingJob<R> job =
+        new WaitingJob<>(engineJob, decodeJob, executorType, isPreload, nextSequence++);
+    if (canStart(executorType, isPreload)) {
+      startJob(job);
+      return;
+    }
+    if (isPreload && limits.getSheddingPolicy() == SheddingPolicy.REJECT_PRELOADS_WHEN_SATURATED) {
+      shed(job);
+      return;
+    }
+    stats.recordWaited();
+    waitingJobs.add(job);
+    if (waitingJobs.size() > limits.getMaxWaitingJobs()) {
+      WaitingJob<?> last = getLastToStart();
+      waitingJobs.remove(last);
+      shed(last);
+    }
+    stats.setWaitingJobCount(waitingJobs.size());
+  }
+
+  /**
+   * Stops treating the given job as a preload because a load for a view joined it.
+   */
+  synchronized void onForegroundCallbackAdded(EngineJob<?> engineJob) {
+    WaitingJob<?> job = getWaitingJob(engineJob);
+    if (job != null && job.isPreload) {
+      job.isPreload = false;
+      startWaitingJobs(job.executorType);
+    }
+  }
+
+  /**
+   * Called when the given job completes or is cancelled, which frees its slot or, if it was still
+   * waiting, fails it.
+   */
+  synchronized void onJobFinished(EngineJob<?> engineJob) {
+    ExecutorType executorType = inFlightJobs.remove(engineJob);
+    if (executorType != null) {
+      int index = executorType.ordinal();
+      inFlightJobCounts[index]--;
+      stats.setInFlightJobCount(executorType, inFlightJobCounts[index]);
+      startWaitingJobs(executorType);
+      return;
+    }
+    WaitingJob<?> job = getWaitingJob(engineJob);
+    if (job != null) {
+      waitingJobs.remove(job);
+      stats.setWaitingJobCount(waitingJobs.size());
+      job.fail(new GlideException("Load was cancelled before it started"));
+    }
+  }
+
+  private boolean canStart(ExecutorType executorType, boolean isPreload) {
+    int inFlight = inFlightJobCounts[executorType.ordinal()];
+    if (!isPreload) {
+      return inFlight < limits.getMaxInFlightJobs(executorType);
+    }
+    return inFlight < getMaxInFlightPreloads(executorType) && !hasWaitingJobs(executorType);
+  }
+
+  private int getMaxInFlightPreloads(ExecutorType executorType) {
+    int max = limits.getMaxInFlightJobs(executorType);
+    return max == InFlightLimits.UNLIMITED || max == 1 ? max : max - 1;
+  }
+
+  private boolean hasWaitingJobs(ExecutorType executorType) {
+    for (int i = 0, size = waitingJobs.size(); i < size; i++) {
+      if (waitingJobs.get(i).executorType == executorType) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void startWaitingJobs(ExecutorType executorType) {
+    WaitingJob<?> next;
+    while ((next = getNextToStart(executorType)) != null) {
+      waitingJobs.remove(next);
+      stats.setWaitingJobCount(waitingJobs.size());
+      startJob(next);
+    }
+  }
+
+  @Nullable
+  private WaitingJob<?> getNextToStart(ExecutorType executorType) {
+    WaitingJob<?> next = null;
+    for (int i = 0, size = waitingJobs.size(); i < size; i++) {
+      WaitingJob<?> job = waitingJobs.get(i);
+      if (job.executorType == executorType && (next == null || startsBefore(job, next))) {
+        next = job;
+      }
+    }
+    if (next == null) {
+      return null;
+    }
+    int inFlight = inFlightJobCounts[executorType.ordinal()];
+    int max = next.isPreload
+        ? getMaxInFlightPreloads(executorType) : limits.getMaxInFlightJobs(executorType);
+    return inFlight < max ? next : null;
+  }
+
+  private WaitingJob<?> getLastToStart() {
+    WaitingJob<?> last = null;
+    for (int i = 0, size = waitingJobs.size(); i < size; i++) {
+      WaitingJob<?> job = waitingJobs.get(i);
+      if (last == null || startsBefore(last, job)) {
+        last = job;
+      }
+    }
+    return last;
+  }
+
+  private boolean startsBefore(WaitingJob<?> first, WaitingJob<?> second) {
+    if (first.isPreload != second.isPreload) {
+      return !first.isPreload;
+    }
+    int firstPriority = first.getPriority().ordinal();
+    int secondPriority = second.getPriority().ordinal();
+    if (firstPriority != secondPriority) {
+      return firstPriority < secondPriority;
+    }
+    boolean isLifo =
+        first.isPreload && limits.getSheddingPolicy() == SheddingPolicy.LIFO_PRELOADS;
+    return isLifo ? first.sequence > second.sequence : first.sequence < second.sequence;
+  }
+
+  @Nullable
+  private WaitingJob<?> getWaitingJob(EngineJob<?> engineJob) {
+    for (int i = 0, size = waitingJobs.size(); i < size; i++) {
+      WaitingJob<?> job = waitingJobs.get(i);
+      if (job.engineJob == engineJob) {
+        return job;
+      }
+    }
+    return null;
+  }
+
+  private void startJob(WaitingJob<?> job) {
+    int index = job.executorType.ordinal();
+    inFlightJobCounts[index]++;
+    stats.setInFlightJobCount(job.executorType, inFlightJobCounts[index]);
+    inFlightJobs.put(job.engineJob, job.executorType);
+    stats.recordStarted(LogTime.getElapsedMillis(job.startTime));
+    job.start();
+  }
+
+  private void shed(WaitingJob<?> job) {
+    stats.recordShed();
+    job.fail(new GlideException("Load was shed because too many loads were waiting to start"));
+  }
+
+  private static final class WaitingJob<R> {
+    @Synthetic final EngineJob<R> engineJob;
+    private final DecodeJob<R> decodeJob;
+    @Synthetic final ExecutorType executorType;
+    @Synthetic final long sequence;
+    @Synthetic final long startTime = LogTime.getLogTime();
+    @Synthetic boolean isPreload;
+
+    @Synthetic
+    WaitingJob(EngineJob<R> engineJob, DecodeJob<R> decodeJob, ExecutorType executorType,
+        boolean isPreload, long sequence) {
+      this.engineJob = engineJob;
+      this.decodeJob = decodeJob;
+      this.executorType = executorType;
+      this.isPreload = isPreload;
+      this.sequence = sequence;
+    }
+
+    Priority getPriority() {
+      Priority priority = engineJob.getHighestPriority();
+      return priority != null ? priority : decodeJob.getPriority();
+    }
+
+    void start() {
+      engineJob.start(decodeJob);
+    }
+
+    void fail(GlideException e) {
+      engineJob.failWithoutStarting(decodeJob, e);
+    }
+  }
+}
@@ -0,0 +1,126 @@
+package com.bumptech.glide.load.engine;
+
+import android.support.annotation.NonNull;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Queue depths, wait times and shedding counts for loads the {@link Engine} limits with
+ * {@link InFlightLimits}.
+ */
+public final class AdmissionStats {
+  private final AtomicIntegerArray inFlightJobCounts =
+      new AtomicIntegerArray(InFlightLimits.ExecutorType.values().length);
+  private final AtomicInteger waitingJobCount = new AtomicInteger();
+  private final AtomicInteger peakWaitingJobCount = new AtomicInteger();
+  private final AtomicLong startedCount = new AtomicLong();
+  private final AtomicLong waitedCount = new AtomicLong();
+  private final AtomicLong shedCount = new AtomicLong();
+  private final LatencyHistogram waitLatency = new LatencyHistogram();
+
+  /**
+   * Returns the number of loads currently running that started on the given executor.
+   */
+  public int getInFlightJobCount(@NonNull InFlightLimits.ExecutorType executorType) {
+    return inFlightJobCounts.get(executorType.ordinal());
+  }
+
+  /**
+   * Returns the number of loads currently waiting to start.
+   */
+  public int getWaitingJobCount() {
+    return waitingJobCount.get();
+  }
+
+  /**
+   * Returns the largest number of loads that have waited to start at once.
+   */
+  public int getPeakWaitingJobCount() {
+    return peakWaitingJobCount.get();
+  }
+
+  /**
+   * Returns the number of loads that have started.
+   */
+  public long getStartedCount() {
+    return startedCount.get();
+  }
+
+  /**
+   * Returns the number of loads that couldn't start immediately and had to wait.
+   */
+  public long getWaitedCount() {
+    return waitedCount.get();
+  }
+
+  /**
+   * Returns the number of loads that failed without starting because of the
+   * {@link InFlightLimits.SheddingPolicy}.
+   */
+  public long getShedCount() {
+    return shedCount.get();
+  }
+
+  /**
+   * Returns how long loads waited to start, including the loads that started immediately.
+   */
+  @NonNull
+  public LatencyHistogram getWaitLatency() {
+    return waitLatency;
+  }
+
+  void setInFlightJobCount(InFlightLimits.ExecutorType executorType, int count) {
+    inFlightJobCounts.set(executorType.ordinal(), count);
+  }
+
+  void setWaitingJobCount(int count) {
+    waitingJobCount.set(count);
+    int peak;
+    do {
+      peak = peakWaitingJobCount.get();
+    } while (count > peak && !peakWaitingJobCount.compareAndSet(peak, count));
+  }
+
+  void recordStarted(double waitMillis) {
+    startedCount.incrementAndGet();
+    waitLatency.record(waitMillis);
+  }
+
+  void recordWaited() {
+    waitedCount.incrementAndGet();
+  }
+
+  void recordShed() {
+    shedCount.incrementAndGet();
+  }
+
+  /**
+   * Clears every histogram and counter, but not the current in flight and waiting job counts.
+   */
+  public void reset() {
+    peakWaitingJobCount.set(waitingJobCount.get());
+    startedCount.set(0);
+    waitedCount.set(0);
+    shedCount.set(0);
+    waitLatency.reset();
+  }
+
+  @Override
+  public String toString() {
+    int[] inFlight = new int[inFlightJobCounts.length()];
+    for (int i = 0; i < inFlight.length; i++) {
+      inFlight[i] = inFlightJobCounts.get(i);
+    }
+    return "AdmissionStats{"
+        + "inFlight=" + Arrays.toString(inFlight)
+        + ", waiting=" + getWaitingJobCount()
+        + ", peakWaiting=" + getPeakWaitingJobCount()
+        + ", started=" + getStartedCount()
+        + ", waited=" + getWaitedCount()
+        + ", shed=" + getShedCount()
+        + ", wait=" + waitLatency
+        + "}";
+  }
+}
@@ -7,6 +7,7 @@ import com.bumptech.glide.load.data.DataFetcher;
 import com.bumptech.glide.load.model.ModelLoader;
 import com.bumptech.glide.load.model.ModelLoader.LoadData;
 import java.io.File;
+import java.nio.ByteBuffer;
 import java.util.List;
 
 /**
@@ -29,6 +30,9 @@ class DataCacheGenerator implements DataFetcherGenerator,
   // multiple calls to startNext.
   @SuppressWarnings("PMD.SingularField")
   private File cacheFile;
+  // The key whose cached ByteBuffer was last handed to decoders, used to fall back to the File
+  // based ModelLoaders if the ByteBuffer can't be decoded.
+  private Key bufferCacheKey;
 
   DataCacheGenerator(DecodeHelper<?> helper, FetcherReadyCallback cb) {
     this(helper.getCacheKeys(), helper, cb);
@@ -45,6 +49,14 @@ class DataCacheGenerator implements DataFetcherGenerator,
   @Override
   public boolean startNext() {
     while (modelLoaders == null || !hasNextModelLoader()) {
+      if (bufferCacheKey != null) {
+        Key originalKey = bufferCacheKey;
+        bufferCacheKey = null;
+        if (startFileModelLoaders(sourceKey, originalKey)) {
+          continue;
+        }
+      }
+
       sourceIdIndex++;
       if (sourceIdIndex >= cacheKeys.size()) {
         return false;
@@ -55,12 +67,10 @@ class DataCacheGenerator implements DataFetcherGenerator,
       // and the actions it performs are much more expensive than a single allocation.
       @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
       Key originalKey = new DataCacheKey(sourceId, helper.getSignature());
-      cacheFile = helper.getDiskCache().get(originalKey);
-      if (cacheFile != null) {
-        this.sourceKey = sourceId;
-        modelLoaders = helper.getModelLoaders(cacheFile);
-        modelLoaderIndex = 0;
+      if (startBuffer(sourceId, originalKey)) {
+        return true;
       }
+      startFileModelLoaders(sourceId, originalKey);
     }
 
     loadData = null;
@@ -78,6 +88,38 @@ class DataCacheGenerator implements DataFetcherGenerator,
     return started;
   }
 
+  /**
+   * Decodes directly from the cached {@link ByteBuffer} for the given key if there is one and it
+   * can be decoded, which avoids re-opening the cache file via the File based ModelLoaders.
+   */
+  private boolean startBuffer(Key sourceId, Key originalKey) {
+    if (!helper.hasLoadPath(ByteBuffer.class)) {
+      return false;
+    }
+    ByteBuffer buffer = helper.getDiskCache().getBuffer(originalKey);
+    if (buffer == null) {
+      return false;
+    }
+    sourceKey = sourceId;
+    bufferCacheKey = originalKey;
+    modelLoaders = null;
+    loadData = new LoadData<>(sourceId,
+        new CachedByteBufferFetcher(buffer, DataSource.DATA_DISK_CACHE));
+    loadData.fetcher.loadData(helper.getPriority(), this);
+    return true;
+  }
+
+  private boolean startFileModelLoaders(Key sourceId, Key originalKey) {
+    cacheFile = helper.getDiskCache().get(originalKey);
+    if (cacheFile == null) {
+      return false;
+    }
+    this.sourceKey = sourceId;
+    modelLoaders = helper.getModelLoaders(cacheFile);
+    modelLoaderIndex = 0;
+    return true;
+  }
+
   private boolean hasNextModelLoader() {
     return modelLoaderIndex < modelLoaders.size();
   }
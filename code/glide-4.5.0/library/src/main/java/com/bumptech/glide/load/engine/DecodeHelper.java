@@ -10,7 +10,7 @@ import com.bumptech.glide.load.ResourceEncoder;
 import com.bumptech.glide.load.Transformation;
 import com.bumptech.glide.load.engine.DecodeJob.DiskCacheProvider;
 import com.bumptech.glide.load.engine.bitmap_recycle.ArrayPool;
-import com.bumptech.glide.load.engine.cache.DiskCache;
+import com.bumptech.glide.load.engine.cache.ByteBufferDiskCache;
 import com.bumptech.glide.load.model.ModelLoader;
 import com.bumptech.glide.load.model.ModelLoader.LoadData;
 import com.bumptech.glide.load.resource.UnitTransformation;
@@ -92,7 +92,7 @@ final class DecodeHelper<Transcode> {
     isCacheKeysSet = false;
   }
 
-  DiskCache getDiskCache() {
+  ByteBufferDiskCache getDiskCache() {
     return diskCacheProvider.getDiskCache();
   }
 
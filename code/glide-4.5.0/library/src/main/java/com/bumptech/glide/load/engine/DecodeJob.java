@@ -2,6 +2,7 @@ package com.bumptech.glide.load.engine;
 
 import android.os.Build;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.support.v4.os.TraceCompat;
 import android.support.v4.util.Pools;
 import android.util.Log;
@@ -16,15 +17,20 @@ import com.bumptech.glide.load.ResourceEncoder;
 import com.bumptech.glide.load.Transformation;
 import com.bumptech.glide.load.data.DataFetcher;
 import com.bumptech.glide.load.data.DataRewinder;
+import com.bumptech.glide.load.engine.cache.ByteBufferDiskCache;
 import com.bumptech.glide.load.engine.cache.DiskCache;
+import com.bumptech.glide.load.engine.cache.WriteBehindDiskCache;
 import com.bumptech.glide.load.resource.bitmap.Downsampler;
+import com.bumptech.glide.signature.ObjectKey;
 import com.bumptech.glide.util.LogTime;
 import com.bumptech.glide.util.Synthetic;
 import com.bumptech.glide.util.pool.FactoryPools.Poolable;
 import com.bumptech.glide.util.pool.StateVerifier;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * A class responsible for decoding resources either from cached data or from the original source
@@ -40,6 +46,8 @@ class DecodeJob<R> implements DataFetcherGenerator.FetcherReadyCallback,
     Comparable<DecodeJob<?>>,
     Poolable {
   private static final String TAG = "DecodeJob";
+  // Bytes hashed at each end of cached data to tell re-written data cache entries apart.
+  private static final int IMAGE_HEADER_FINGERPRINT_BYTES = 64;
 
   private final DecodeHelper<R> decodeHelper = new DecodeHelper<>();
   private final List<Throwable> throwables = new ArrayList<>();
@@ -48,10 +56,14 @@ class DecodeJob<R> implements DataFetcherGenerator.FetcherReadyCallback,
   private final Pools.Pool<DecodeJob<?>> pool;
   private final DeferredEncodeManager<?> deferredEncodeManager = new DeferredEncodeManager<>();
   private final ReleaseManager releaseManager = new ReleaseManager();
+  // A priority requested while this job may have been running or being queued, applied the next
+  // time it's queued.
+  private final AtomicReference<Priority> pendingPriority = new AtomicReference<>();
 
   private GlideContext glideContext;
   private Key signature;
-  private Priority priority;
+  // Read by executors' queues on other threads, may be changed while this job isn't queued.
+  private volatile Priority priority;
   private EngineKey loadKey;
   private int width;
   private int height;
@@ -70,6 +82,15 @@ class DecodeJob<R> implements DataFetcherGenerator.FetcherReadyCallback,
   private Object currentData;
   private DataSource currentDataSource;
   private DataFetcher<?> currentFetcher;
+  // Null unless fetching and decoding from source run on separate executors.
+  @Nullable private DecodePipeline decodePipeline;
+  private boolean isQueuedInPipeline;
+  private boolean isQueuedToDecode;
+  private boolean holdsDecodePermit;
+  private long queuedTime;
+  // The thread that fetched data and reserved a place in the decode queue, which queues this job
+  // to decode once it has returned from run().
+  @Nullable private volatile Thread decodeReservedBy;
 
   private volatile DataFetcherGenerator currentGenerator;
   private volatile boolean isCallbackNotified;
@@ -177,6 +198,7 @@ class DecodeJob<R> implements DataFetcherGenerator.FetcherReadyCallback,
     signature = null;
     options = null;
     priority = null;
+    pendingPriority.set(null);
     loadKey = null;
     callback = null;
     stage = null;
@@ -186,6 +208,9 @@ class DecodeJob<R> implements DataFetcherGenerator.FetcherReadyCallback,
     currentData = null;
     currentDataSource = null;
     currentFetcher = null;
+    decodePipeline = null;
+    isQueuedInPipeline = false;
+    decodeReservedBy = null;
     startFetchTime = 0L;
     isCancelled = false;
     throwables.clear();
@@ -194,17 +219,73 @@ class DecodeJob<R> implements DataFetcherGenerator.FetcherReadyCallback,
 
   @Override
   public int compareTo(@NonNull DecodeJob<?> other) {
-    int result = getPriority() - other.getPriority();
+    int result = getPriorityOrdinal() - other.getPriorityOrdinal();
     if (result == 0) {
       result = order - other.order;
     }
     return result;
   }
 
-  private int getPriority() {
+  private int getPriorityOrdinal() {
     return priority.ordinal();
   }
 
+  Priority getPriority() {
+    return priority;
+  }
+
+  /**
+   * Changes the priority used to order this job relative to other jobs in an executor's queue.
+   *
+   * <p>A queue doesn't notice when the ordering of a job it contains changes, so the job must be
+   * removed from the queue before calling this method and submitted again afterwards. Fetchers that
+   * were already given a priority keep it.
+   */
+  void setPriority(Priority priority) {
+    this.priority = priority;
+  }
+
+  /**
+   * Sets a priority to apply with {@link #applyPendingPriority()} the next time this job is queued,
+   * or clears it if {@code null}.
+   *
+   * <p>Unlike {@link #setPriority(Priority)}, this is safe to call while the job is running or
+   * queued.
+   */
+  void setPendingPriority(@Nullable Priority priority) {
+    pendingPriority.set(priority);
+  }
+
+  /**
+   * Applies and clears the priority set by {@link #setPendingPriority(Priority)}, if any.
+   *
+   * <p>Like {@link #setPriority(Priority)}, must only be called while the job isn't in any queue.
+   */
+  void applyPendingPriority() {
+    Priority pending = pendingPriority.getAndSet(null);
+    if (pending != null) {
+      priority = pending;
+    }
+  }
+
+  /**
+   * Sets the pipeline used to fetch and decode data from source on separate executors.
+   */
+  void setDecodePipeline(@Nullable DecodePipeline decodePipeline) {
+    this.decodePipeline = decodePipeline;
+  }
+
+  /**
+   * Called by {@link DecodePipeline} before this job is queued on one of its executors.
+   */
+  void onQueuedInPipeline(boolean isDecode, boolean holdsDecodePermit) {
+    applyPendingPriority();
+    isQueuedInPipeline = true;
+    isQueuedToDecode = isDecode;
+    this.holdsDecodePermit = holdsDecodePermit;
+    queuedTime = LogTime.getLogTime();
+  }
+
   public void cancel() {
     isCancelled = true;
     DataFetcherGenerator local = currentGenerator;
@@ -222,13 +303,27 @@ class DecodeJob<R> implements DataFetcherGenerator.FetcherReadyCallback,
     // Methods in the try statement can invalidate currentFetcher, so set a local variable here to
     // ensure that the fetcher is cleaned up either way.
     DataFetcher<?> localFetcher = currentFetcher;
+    Thread thread = Thread.currentThread();
+    boolean isDecodeReserved = false;
     try {
+      if (isQueuedInPipeline) {
+        isQueuedInPipeline = false;
+        decodePipeline.onDequeued(
+            isQueuedToDecode, holdsDecodePermit, LogTime.getElapsedMillis(queuedTime));
+      }
       if (isCancelled) {
         notifyFailed();
         return;
       }
       runWrapped();
+      // Once runWrapped() returns, this job may have been handed off to another thread that's
+      // now running it, but only this thread sets decodeReservedBy to itself.
+      isDecodeReserved = decodeReservedBy == thread;
     } catch (Throwable t) {
+      if (decodeReservedBy == thread) {
+        decodeReservedBy = null;
+        decodePipeline.releaseReservedDecode();
+      }
       // Catch Throwable and not Exception to handle OOMs. Throwables are swallowed by our
       // usage of .submit() in GlideExecutor so we're not silently hiding crashes by doing this. We
       // are however ensuring that our callbacks are always notified when a load fails. Without this
@@ -256,6 +351,12 @@ class DecodeJob<R> implements DataFetcherGenerator.FetcherReadyCallback,
       }
       TraceCompat.endSection();
     }
+    if (isDecodeReserved) {
+      // Queue this job to decode only now that nothing above will touch it again, the decode
+      // executor may start running it right away.
+      decodeReservedBy = null;
+      decodePipeline.decodeReserved(this);
+    }
   }
 
   private void runWrapped() {
@@ -367,9 +468,22 @@ class DecodeJob<R> implements DataFetcherGenerator.FetcherReadyCallback,
     this.currentFetcher = fetcher;
     this.currentDataSource = dataSource;
     this.currentAttemptingKey = attemptedKey;
+    boolean isPipelined = decodePipeline != null && stage == Stage.SOURCE;
+    if (isPipelined) {
+      decodePipeline.onFetched(LogTime.getElapsedMillis(startFetchTime));
+    }
     if (Thread.currentThread() != currentThread) {
       runReason = RunReason.DECODE_DATA;
-      callback.reschedule(this);
+      if (isPipelined) {
+        // No thread is running this job, so it can be queued to decode right away.
+        decodePipeline.decode(this);
+      } else {
+        callback.reschedule(this);
+      }
+    } else if (isPipelined && decodePipeline.reserveDecode()) {
+      // This thread is still running this job, run() queues it once it returns.
+      runReason = RunReason.DECODE_DATA;
+      decodeReservedBy = currentThread;
     } else {
       TraceCompat.beginSection("DecodeJob.decodeFromRetrievedData");
       try {
@@ -403,14 +517,22 @@ class DecodeJob<R> implements DataFetcherGenerator.FetcherReadyCallback,
           + ", fetcher: " + currentFetcher);
     }
     Resource<R> resource = null;
+    boolean isPipelined = decodePipeline != null && stage == Stage.SOURCE;
+    long startTime = isPipelined ? LogTime.getLogTime() : 0;
     try {
       resource = decodeFromData(currentFetcher, currentData, currentDataSource);
     } catch (GlideException e) {
       e.setLoggingDetails(currentAttemptingKey, currentDataSource);
       throwables.add(e);
     }
+    if (isPipelined) {
+      decodePipeline.onDecoded(LogTime.getElapsedMillis(startTime));
+    }
     if (resource != null) {
       notifyEncodeAndRelease(resource, currentDataSource);
+    } else if (isPipelined && runReason == RunReason.DECODE_DATA) {
+      // Go back to the fetch executor to try the next source rather than fetching here.
+      reschedule();
     } else {
       runGenerators();
     }
@@ -431,12 +553,13 @@ class DecodeJob<R> implements DataFetcherGenerator.FetcherReadyCallback,
     notifyComplete(result, dataSource);
 
     stage = Stage.ENCODE;
+    boolean isEncodeQueued = false;
     try {
       if (deferredEncodeManager.hasResourceToEncode()) {
-        deferredEncodeManager.encode(diskCacheProvider, options);
+        isEncodeQueued = deferredEncodeManager.encode(diskCacheProvider, options, lockedResource);
       }
     } finally {
-      if (lockedResource != null) {
+      if (lockedResource != null && !isEncodeQueued) {
         lockedResource.unlock();
       }
     }
@@ -488,9 +611,58 @@ class DecodeJob<R> implements DataFetcherGenerator.FetcherReadyCallback,
     return options;
   }
 
+  private Options getOptionsWithImageHeaderCacheKey(
+      Options options, Object data, DataSource dataSource) {
+    // Only data from the data disk cache is known to be the same every time it's read for the same
+    // key. A remote server can return different bytes for the same url, and local loaders can for
+    // example use the same key for a thumbnail and the full size image.
+    if (dataSource != DataSource.DATA_DISK_CACHE) {
+      return options;
+    }
+    Key key = getImageHeaderCacheKey(new DataCacheKey(currentSourceKey, signature), data);
+    if (key == null) {
+      return options;
+    }
+
+    if (options == this.options) {
+      options = new Options();
+      options.putAll(this.options);
+    }
+    options.set(Downsampler.IMAGE_HEADER_CACHE_KEY, key);
+    return options;
+  }
+
+  /**
+   * Returns a key for the image header of the given data read from the data disk cache entry for
+   * the given key, or {@code null} if the data can't be told apart from other data written for the
+   * same entry.
+   *
+   * <p>Entries can be re-written by a later load, or cleared and re-fetched, without the header
+   * cache hearing about it, so the key includes the length of the cached data and a hash of the
+   * bytes at either end of it to avoid re-using a header parsed from the entry's previous contents.
+   */
+  @Nullable
+  static Key getImageHeaderCacheKey(Key dataCacheKey, Object data) {
+    if (!(data instanceof ByteBuffer)) {
+      return null;
+    }
+    ByteBuffer buffer = (ByteBuffer) data;
+    int start = buffer.position();
+    int end = buffer.limit();
+    int hash = 17;
+    for (int i = start; i < Math.min(end, start + IMAGE_HEADER_FINGERPRINT_BYTES); i++) {
+      hash = 31 * hash + buffer.get(i);
+    }
+    for (int i = Math.max(start, end - IMAGE_HEADER_FINGERPRINT_BYTES); i < end; i++) {
+      hash = 31 * hash + buffer.get(i);
+    }
+    return new DataCacheKey(dataCacheKey, new ObjectKey((end - start) + ":" + hash));
+  }
+
   private <Data, ResourceType> Resource<R> runLoadPath(Data data, DataSource dataSource,
       LoadPath<Data, ResourceType, R> path) throws GlideException {
-    Options options = getOptionsWithHardwareConfig(dataSource);
+    Options options = getOptionsWithImageHeaderCacheKey(
+        getOptionsWithHardwareConfig(dataSource), data, dataSource);
     DataRewinder<Data> rewinder = glideContext.getRegistry().getRewinder(data);
     try {
       // ResourceType in DecodeCallback below is required for compilation to work with gradle.
@@ -648,15 +820,43 @@ class DecodeJob<R> implements DataFetcherGenerator.FetcherReadyCallback,
       this.toEncode = (LockedResource<Z>) toEncode;
     }
 
-    void encode(DiskCacheProvider diskCacheProvider, Options options) {
+    /**
+     * Writes the resource to the disk cache, or queues the write if the disk cache is a
+     * {@link WriteBehindDiskCache}.
+     *
+     * <p>Returns {@code true} if the write was queued, in which case the resource to encode and
+     * the given result are unlocked once the write completes rather than before this method
+     * returns.
+     */
+    boolean encode(DiskCacheProvider diskCacheProvider, Options options,
+        @Nullable final LockedResource<?> result) {
       TraceCompat.beginSection("DecodeJob.encode");
+      boolean isQueued = false;
       try {
-        diskCacheProvider.getDiskCache().put(key,
-            new DataCacheWriter<>(encoder, toEncode, options));
+        DiskCache diskCache = diskCacheProvider.getDiskCache();
+        DataCacheWriter<Resource<Z>> writer = new DataCacheWriter<>(encoder, toEncode, options);
+        if (diskCache instanceof WriteBehindDiskCache) {
+          final LockedResource<Z> encoded = toEncode;
+          ((WriteBehindDiskCache) diskCache).enqueue(key, writer, new Runnable() {
+            @Override
+            public void run() {
+              encoded.unlock();
+              if (result != null) {
+                result.unlock();
+              }
+            }
+          });
+          isQueued = true;
+        } else {
+          diskCache.put(key, writer);
+        }
       } finally {
-        toEncode.unlock();
+        if (!isQueued) {
+          toEncode.unlock();
+        }
         TraceCompat.endSection();
       }
+      return isQueued;
     }
 
     boolean hasResourceToEncode() {
@@ -680,7 +880,7 @@ class DecodeJob<R> implements DataFetcherGenerator.FetcherReadyCallback,
   }
 
   interface DiskCacheProvider {
-    DiskCache getDiskCache();
+    ByteBufferDiskCache getDiskCache();
   }
 
   /**
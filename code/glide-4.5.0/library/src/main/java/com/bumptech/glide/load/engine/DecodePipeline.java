@@ -0,0 +1,150 @@
+package com.bumptech.glide.load.engine;
+
+import android.support.annotation.NonNull;
+import com.bumptech.glide.load.engine.executor.GlideExecutor;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Runs loads from source in two stages, fetching data on an I/O executor and decoding it on a
+ * separate decode executor, so that threads blocked on slow fetches can't keep fetched data from
+ * being decoded.
+ *
+ * <p>The number of jobs waiting to decode is bounded because each one holds on to its fetched
+ * data, often an open stream. When the decode queue is full, the fetching thread decodes the data
+ * itself, like {@link java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy}, which also slows
+ * down fetching until decoding catches up. Fetch executors that start a thread per fetch, see
+ * {@link GlideExecutor#isUnbounded()}, would decode without any limit that way, so their threads
+ * wait for room in the decode queue instead. Data from asynchronous fetchers, which don't block a
+ * fetching thread, is always queued on the decode executor.
+ */
+final class DecodePipeline {
+  /** The default maximum number of jobs waiting to decode fetched data. */
+  static final int DEFAULT_MAX_QUEUED_DECODES = 8;
+
+  private final GlideExecutor fetchExecutor;
+  private final GlideExecutor decodeExecutor;
+  private final Semaphore decodePermits;
+  private final DecodePipelineStats stats = new DecodePipelineStats();
+
+  DecodePipeline(@NonNull GlideExecutor fetchExecutor, @NonNull GlideExecutor decodeExecutor) {
+    this(fetchExecutor, decodeExecutor, DEFAULT_MAX_QUEUED_DECODES);
+  }
+
+  DecodePipeline(@NonNull GlideExecutor fetchExecutor, @NonNull GlideExecutor decodeExecutor,
+      int maxQueuedDecodes) {
+    if (maxQueuedDecodes <= 0) {
+      throw new IllegalArgumentException("Max queued decodes must be > 0");
+    }
+    this.fetchExecutor = fetchExecutor;
+    this.decodeExecutor = decodeExecutor;
+    this.decodePermits = new Semaphore(maxQueuedDecodes);
+  }
+
+  GlideExecutor getFetchExecutor() {
+    return fetchExecutor;
+  }
+
+  @NonNull
+  DecodePipelineStats getStats() {
+    return stats;
+  }
+
+  /**
+   * Queues the given job to fetch its data.
+   */
+  void fetch(DecodeJob<?> job) {
+    job.onQueuedInPipeline(/*isDecode=*/ false, /*holdsDecodePermit=*/ false);
+    fetchExecutor.execute(job);
+  }
+
+  /**
+   * Reserves a place in the decode queue for a job whose data was fetched on the thread that's
+   * running it, or returns {@code false} if the decode queue is full and the caller should decode
+   * the data itself.
+   *
+   * <p>If the fetch executor is {@link GlideExecutor#isUnbounded() unbounded}, waits for a place
+   * in the decode queue instead, unless the calling thread is interrupted.
+   *
+   * <p>The job can't be queued while the fetching thread is still running it, so the caller must
+   * call {@link #decodeReserved(DecodeJob)} once the job has returned from
+   * {@link DecodeJob#run()}, or {@link #releaseReservedDecode()} if it no longer needs to decode.
+   */
+  boolean reserveDecode() {
+    if (decodePermits.tryAcquire()) {
+      return true;
+    }
+    if (fetchExecutor.isUnbounded()) {
+      try {
+        decodePermits.acquire();
+        return true;
+      } catch (InterruptedException e) {
+        // Most likely the fetch executor is shutting down, decode here rather than wait.
+        Thread.currentThread().interrupt();
+      }
+    }
+    stats.recordInlineDecode();
+    return false;
+  }
+
+  /**
+   * Queues the given job to decode its fetched data in the place reserved by
+   * {@link #reserveDecode()}.
+   *
+   * <p>The decode executor may run the job before this method returns.
+   */
+  void decodeReserved(DecodeJob<?> job) {
+    job.onQueuedInPipeline(/*isDecode=*/ true, /*holdsDecodePermit=*/ true);
+    try {
+      decodeExecutor.execute(job);
+    } catch (RuntimeException e) {
+      decodePermits.release();
+      throw e;
+    }
+  }
+
+  /**
+   * Gives up a place in the decode queue reserved by {@link #reserveDecode()} without using it.
+   */
+  void releaseReservedDecode() {
+    decodePermits.release();
+  }
+
+  /**
+   * Queues the given job to decode data that was fetched on a thread that isn't running the job,
+   * for example a callback thread of an asynchronous fetcher.
+   *
+   * <p>That thread can't be used to decode and the job isn't holding up a fetch thread, so if the
+   * decode queue is full the job is queued on the decode executor anyway.
+   */
+  void decode(DecodeJob<?> job) {
+    if (decodePermits.tryAcquire()) {
+      decodeReserved(job);
+    } else {
+      job.onQueuedInPipeline(/*isDecode=*/ true, /*holdsDecodePermit=*/ false);
+      decodeExecutor.execute(job);
+    }
+  }
+
+  /**
+   * Called when a job queued with {@link #fetch(DecodeJob)}, {@link #decode(DecodeJob)} or
+   * {@link #decodeReserved(DecodeJob)} starts to run.
+   */
+  void onDequeued(boolean isDecode, boolean holdsDecodePermit, double waitMillis) {
+    if (holdsDecodePermit) {
+      decodePermits.release();
+    }
+    if (isDecode) {
+      stats.getDecodeQueueLatency().record(waitMillis);
+    } else {
+      stats.getFetchQueueLatency().record(waitMillis);
+    }
+  }
+
+  void onFetched(double elapsedMillis) {
+    stats.getFetchLatency().record(elapsedMillis);
+  }
+
+  void onDecoded(double elapsedMillis) {
+    stats.getDecodeLatency().record(elapsedMillis);
+  }
+}
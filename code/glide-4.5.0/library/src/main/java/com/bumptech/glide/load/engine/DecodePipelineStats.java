@@ -0,0 +1,86 @@
+package com.bumptech.glide.load.engine;
+
+import android.support.annotation.NonNull;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latencies for each stage of loads from source when fetching and decoding run on separate
+ * executors, see {@link com.bumptech.glide.GlideBuilder#setSourceIoExecutor}.
+ *
+ * <p>A load waits in the fetch queue, fetches its data on the I/O executor, waits in the decode
+ * queue and then decodes on the decode executor. When the decode queue is full, data is decoded
+ * on the I/O thread that fetched it instead, which {@link #getInlineDecodeCount()} counts.
+ */
+public final class DecodePipelineStats {
+  private final LatencyHistogram fetchQueueLatency = new LatencyHistogram();
+  private final LatencyHistogram fetchLatency = new LatencyHistogram();
+  private final LatencyHistogram decodeQueueLatency = new LatencyHistogram();
+  private final LatencyHistogram decodeLatency = new LatencyHistogram();
+  private final AtomicLong inlineDecodeCount = new AtomicLong();
+
+  /**
+   * Returns how long loads waited for an I/O thread.
+   */
+  @NonNull
+  public LatencyHistogram getFetchQueueLatency() {
+    return fetchQueueLatency;
+  }
+
+  /**
+   * Returns how long fetching data took.
+   */
+  @NonNull
+  public LatencyHistogram getFetchLatency() {
+    return fetchLatency;
+  }
+
+  /**
+   * Returns how long fetched data waited for a decode thread.
+   */
+  @NonNull
+  public LatencyHistogram getDecodeQueueLatency() {
+    return decodeQueueLatency;
+  }
+
+  /**
+   * Returns how long decoding, transforming and transcoding fetched data took.
+   */
+  @NonNull
+  public LatencyHistogram getDecodeLatency() {
+    return decodeLatency;
+  }
+
+  /**
+   * Returns the number of times data was decoded on the I/O thread because the decode queue was
+   * full.
+   */
+  public long getInlineDecodeCount() {
+    return inlineDecodeCount.get();
+  }
+
+  void recordInlineDecode() {
+    inlineDecodeCount.incrementAndGet();
+  }
+
+  /**
+   * Clears every histogram and counter.
+   */
+  public void reset() {
+    fetchQueueLatency.reset();
+    fetchLatency.reset();
+    decodeQueueLatency.reset();
+    decodeLatency.reset();
+    inlineDecodeCount.set(0);
+  }
+
+  @Override
+  public String toString() {
+    return "DecodePipelineStats{"
+        + "fetchQueue=" + fetchQueueLatency
+        + ", fetch=" + fetchLatency
+        + ", decodeQueue=" + decodeQueueLatency
+        + ", decode=" + decodeLatency
+        + ", inlineDecodes=" + getInlineDecodeCount()
+        + "}";
+  }
+}
@@ -1,5 +1,7 @@
 package com.bumptech.glide.load.engine;
 
+import android.os.Handler;
+import android.os.Looper;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.annotation.VisibleForTesting;
@@ -11,8 +13,10 @@ import com.bumptech.glide.load.DataSource;
 import com.bumptech.glide.load.Key;
 import com.bumptech.glide.load.Options;
 import com.bumptech.glide.load.Transformation;
+import com.bumptech.glide.load.engine.cache.ByteBufferDiskCache;
 import com.bumptech.glide.load.engine.cache.DiskCache;
 import com.bumptech.glide.load.engine.cache.DiskCacheAdapter;
+import com.bumptech.glide.load.engine.cache.FileDiskCacheWrapper;
 import com.bumptech.glide.load.engine.cache.MemoryCache;
 import com.bumptech.glide.load.engine.executor.GlideExecutor;
 import com.bumptech.glide.request.ResourceCallback;
@@ -22,8 +26,10 @@ import com.bumptech.glide.util.Synthetic;
 import com.bumptech.glide.util.Util;
 import com.bumptech.glide.util.pool.FactoryPools;
 import java.util.Map;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Responsible for starting loads and managing active and cached resources.
@@ -41,6 +47,17 @@ public class Engine implements EngineJobListener,
   private final LazyDiskCacheProvider diskCacheProvider;
   private final DecodeJobFactory decodeJobFactory;
   private final ActiveResources activeResources;
+  private final Handler mainHandler = new Handler(Looper.getMainLooper());
+  // Null unless loads are started off of the main thread, see AsyncLoad.
+  @Nullable private final Executor loadExecutor;
+  // Null unless fetching and decoding from source run on separate executors.
+  @Nullable private final DecodePipeline decodePipeline;
+  // Null unless the number of jobs in flight is limited.
+  @Nullable private final AdmissionController admissionController;
+  // Keys of resources in the memory cache, null unless size coalescing is enabled. Guarded by
+  // itself because the memory cache notifies the engine of evictions while holding its own lock.
+  @Nullable private final NearestSizeIndex memoryCacheKeys;
+  private final AtomicLong nearestSizeCacheHitCount = new AtomicLong();
 
   public Engine(
       MemoryCache memoryCache,
@@ -50,6 +67,51 @@ public class Engine implements EngineJobListener,
       GlideExecutor sourceUnlimitedExecutor,
       GlideExecutor animationExecutor,
       boolean isActiveResourceRetentionAllowed) {
+    this(
+        memoryCache,
+        diskCacheFactory,
+        diskCacheExecutor,
+        sourceExecutor,
+        sourceUnlimitedExecutor,
+        animationExecutor,
+        isActiveResourceRetentionAllowed,
+        /*loadExecutor=*/ null,
+        /*sourceIoExecutor=*/ null,
+        /*inFlightLimits=*/ null,
+        /*isSizeCoalescingEnabled=*/ false);
+  }
+
+  /**
+   * Creates an engine with the optional modes {@link com.bumptech.glide.GlideBuilder} can
+   * enable, which apps should set through {@link com.bumptech.glide.GlideBuilder} rather than by
+   * calling this constructor directly.
+   *
+   * @param loadExecutor If non-null, keys are built, the memory caches are checked and jobs are
+   *                     started or joined on this executor instead of on the main thread.
+   *                     {@link ResourceCallback}s are still always called on the main thread.
+   * @param sourceIoExecutor If non-null, data is fetched from source on this executor and decoded
+   *                         on {@code sourceExecutor}. Loads that use the unlimited source or the
+   *                         animation executor fetch and decode on those executors regardless.
+   * @param inFlightLimits If non-null, new jobs are held back while too many jobs are in flight
+   *                       on the executor they would start on, see {@link InFlightLimits}.
+   * @param isSizeCoalescingEnabled If {@code true}, resources for the same model, transformations
+   *                                and options at a slightly larger size with the same aspect
+   *                                ratio are used, either from the memory cache or by adding
+   *                                loads to an in progress load, instead of starting new loads.
+   */
+  @VisibleForTesting
+  public Engine(
+      MemoryCache memoryCache,
+      DiskCache.Factory diskCacheFactory,
+      GlideExecutor diskCacheExecutor,
+      GlideExecutor sourceExecutor,
+      GlideExecutor sourceUnlimitedExecutor,
+      GlideExecutor animationExecutor,
+      boolean isActiveResourceRetentionAllowed,
+      @Nullable Executor loadExecutor,
+      @Nullable GlideExecutor sourceIoExecutor,
+      @Nullable InFlightLimits inFlightLimits,
+      boolean isSizeCoalescingEnabled) {
     this(
         memoryCache,
         diskCacheFactory,
@@ -63,7 +125,11 @@ public class Engine implements EngineJobListener,
         /*engineJobFactory=*/ null,
         /*decodeJobFactory=*/ null,
         /*resourceRecycler=*/ null,
-        isActiveResourceRetentionAllowed);
+        isActiveResourceRetentionAllowed,
+        loadExecutor,
+        sourceIoExecutor,
+        inFlightLimits,
+        isSizeCoalescingEnabled);
   }
 
   @VisibleForTesting
@@ -79,12 +145,23 @@ public class Engine implements EngineJobListener,
       EngineJobFactory engineJobFactory,
       DecodeJobFactory decodeJobFactory,
       ResourceRecycler resourceRecycler,
-      boolean isActiveResourceRetentionAllowed) {
+      boolean isActiveResourceRetentionAllowed,
+      @Nullable Executor loadExecutor,
+      @Nullable GlideExecutor sourceIoExecutor,
+      @Nullable InFlightLimits inFlightLimits,
+      boolean isSizeCoalescingEnabled) {
     this.cache = cache;
+    this.loadExecutor = loadExecutor;
+    this.decodePipeline =
+        sourceIoExecutor != null ? new DecodePipeline(sourceIoExecutor, sourceExecutor) : null;
+    this.admissionController =
+        inFlightLimits != null ? new AdmissionController(inFlightLimits) : null;
+    this.memoryCacheKeys = isSizeCoalescingEnabled ? new NearestSizeIndex() : null;
     this.diskCacheProvider = new LazyDiskCacheProvider(diskCacheFactory);
 
     if (activeResources == null) {
-      activeResources = new ActiveResources(isActiveResourceRetentionAllowed);
+      activeResources =
+          new ActiveResources(isActiveResourceRetentionAllowed, isSizeCoalescingEnabled);
     }
     this.activeResources = activeResources;
     activeResources.setListener(this);
@@ -95,14 +172,19 @@ public class Engine implements EngineJobListener,
     this.keyFactory = keyFactory;
 
     if (jobs == null) {
-      jobs = new Jobs();
+      jobs = new Jobs(isSizeCoalescingEnabled);
     }
     this.jobs = jobs;
 
     if (engineJobFactory == null) {
       engineJobFactory =
           new EngineJobFactory(
-              diskCacheExecutor, sourceExecutor, sourceUnlimitedExecutor, animationExecutor, this);
+              diskCacheExecutor,
+              sourceExecutor,
+              sourceUnlimitedExecutor,
+              animationExecutor,
+              decodePipeline,
+              this);
     }
     this.engineJobFactory = engineJobFactory;
 
@@ -122,7 +204,8 @@ public class Engine implements EngineJobListener,
   /**
    * Starts a load for the given arguments.
    *
-   * <p>Must be called on the main thread.
+   * <p>Must be called on the main thread. If this engine was created with a load executor, the
+   * steps below run on that executor and the callback is later called on the main thread.
    *
    * <p>The flow for any request is as follows:
    * <ul>
@@ -164,12 +247,84 @@ public class Engine implements EngineJobListener,
       boolean useAnimationPool,
       boolean onlyRetrieveFromCache,
       ResourceCallback cb) {
+    return load(glideContext, model, signature, width, height, resourceClass, transcodeClass,
+        priority, diskCacheStrategy, transformations, isTransformationRequired,
+        isScaleOnlyOrNoTransform, options, isMemoryCacheable, useUnlimitedSourceExecutorPool,
+        useAnimationPool, onlyRetrieveFromCache, /*isPreload=*/ false, cb);
+  }
+
+  /**
+   * Starts a load for the given arguments, see
+   * {@link #load(GlideContext, Object, Key, int, int, Class, Class, Priority, DiskCacheStrategy,
+   * Map, boolean, boolean, Options, boolean, boolean, boolean, boolean, ResourceCallback)}.
+   *
+   * @param isPreload {@code true} if the load is a preload, which the {@link Engine} may start
+   *                  after other loads if it limits the number of jobs in flight.
+   */
+  public <R> LoadStatus load(
+      GlideContext glideContext,
+      Object model,
+      Key signature,
+      int width,
+      int height,
+      Class<?> resourceClass,
+      Class<R> transcodeClass,
+      Priority priority,
+      DiskCacheStrategy diskCacheStrategy,
+      Map<Class<?>, Transformation<?>> transformations,
+      boolean isTransformationRequired,
+      boolean isScaleOnlyOrNoTransform,
+      Options options,
+      boolean isMemoryCacheable,
+      boolean useUnlimitedSourceExecutorPool,
+      boolean useAnimationPool,
+      boolean onlyRetrieveFromCache,
+      boolean isPreload,
+      ResourceCallback cb) {
     Util.assertMainThread();
+    if (loadExecutor != null) {
+      AsyncLoad<R> asyncLoad = new AsyncLoad<>(glideContext, model, signature, width, height,
+          resourceClass, transcodeClass, priority, diskCacheStrategy, transformations,
+          isTransformationRequired, isScaleOnlyOrNoTransform, options, isMemoryCacheable,
+          useUnlimitedSourceExecutorPool, useAnimationPool, onlyRetrieveFromCache, isPreload, cb);
+      loadExecutor.execute(asyncLoad);
+      return asyncLoad;
+    }
     long startTime = LogTime.getLogTime();
 
     EngineKey key = keyFactory.buildKey(model, signature, width, height, transformations,
         resourceClass, transcodeClass, options);
 
+    return startLoad(glideContext, model, key, signature, width, height, resourceClass,
+        transcodeClass, priority, diskCacheStrategy, transformations, isTransformationRequired,
+        isScaleOnlyOrNoTransform, options, isMemoryCacheable, useUnlimitedSourceExecutorPool,
+        useAnimationPool, onlyRetrieveFromCache, isPreload, cb, startTime);
+  }
+
+  @Nullable
+  @Synthetic
+  synchronized <R> LoadStatus startLoad(
+      GlideContext glideContext,
+      Object model,
+      EngineKey key,
+      Key signature,
+      int width,
+      int height,
+      Class<?> resourceClass,
+      Class<R> transcodeClass,
+      Priority priority,
+      DiskCacheStrategy diskCacheStrategy,
+      Map<Class<?>, Transformation<?>> transformations,
+      boolean isTransformationRequired,
+      boolean isScaleOnlyOrNoTransform,
+      Options options,
+      boolean isMemoryCacheable,
+      boolean useUnlimitedSourceExecutorPool,
+      boolean useAnimationPool,
+      boolean onlyRetrieveFromCache,
+      boolean isPreload,
+      ResourceCallback cb,
+      long startTime) {
     EngineResource<?> active = loadFromActiveResources(key, isMemoryCacheable);
     if (active != null) {
       cb.onResourceReady(active, DataSource.MEMORY_CACHE);
@@ -188,9 +343,26 @@ public class Engine implements EngineJobListener,
       return null;
     }
 
+    EngineResource<?> nearest = loadAtNearestSize(key, isMemoryCacheable);
+    if (nearest != null) {
+      cb.onResourceReady(nearest, DataSource.MEMORY_CACHE);
+      if (Log.isLoggable(TAG, Log.VERBOSE)) {
+        logWithTimeAndKey("Loaded resource of a larger size from memory", startTime, key);
+      }
+      return null;
+    }
+
     EngineJob<?> current = jobs.get(key, onlyRetrieveFromCache);
+    if (current == null) {
+      // The resource of a shared load is only cached under the shared load's key, so it's never
+      // duplicated in the memory cache.
+      current = jobs.getCoalescable(key, onlyRetrieveFromCache);
+    }
     if (current != null) {
-      current.addCallback(cb);
+      current.addCallback(cb, priority);
+      if (admissionController != null && !isPreload) {
+        admissionController.onForegroundCallbackAdded(current);
+      }
       if (Log.isLoggable(TAG, Log.VERBOSE)) {
         logWithTimeAndKey("Added to existing load", startTime, key);
       }
@@ -226,8 +398,15 @@ public class Engine implements EngineJobListener,
 
     jobs.put(key, engineJob);
 
-    engineJob.addCallback(cb);
-    engineJob.start(decodeJob);
+    engineJob.addCallback(cb, priority);
+    if (admissionController != null) {
+      admissionController.start(engineJob, decodeJob,
+          AdmissionController.getExecutorType(
+              decodeJob, useUnlimitedSourceExecutorPool, useAnimationPool),
+          isPreload);
+    } else {
+      engineJob.start(decodeJob);
+    }
 
     if (Log.isLoggable(TAG, Log.VERBOSE)) {
       logWithTimeAndKey("Started new load", startTime, key);
@@ -265,8 +444,49 @@ public class Engine implements EngineJobListener,
     return cached;
   }
 
+  /**
+   * Returns an active resource or a resource in the memory cache that was loaded for the same
+   * model, transformations and options as the given key at a slightly larger size, or
+   * {@code null} if there isn't one.
+   *
+   * <p>The resource is used as is, views scale it down when they draw it, and it stays active
+   * under its own key.
+   */
+  @Nullable
+  private EngineResource<?> loadAtNearestSize(EngineKey key, boolean isMemoryCacheable) {
+    if (!isMemoryCacheable || memoryCacheKeys == null) {
+      return null;
+    }
+    EngineResource<?> active = activeResources.getNearest(key);
+    if (active != null) {
+      active.acquire();
+      nearestSizeCacheHitCount.incrementAndGet();
+      return active;
+    }
+    EngineKey nearestKey;
+    synchronized (memoryCacheKeys) {
+      nearestKey = memoryCacheKeys.getNearest(key);
+    }
+    if (nearestKey == null) {
+      return null;
+    }
+    EngineResource<?> cached = getEngineResourceFromCache(nearestKey);
+    if (cached != null) {
+      cached.acquire();
+      activeResources.activate(nearestKey, cached);
+      nearestSizeCacheHitCount.incrementAndGet();
+    } else {
+      // The resource was evicted without the index hearing about it, drop the stale key.
+      removeFromMemoryCacheKeys(nearestKey);
+    }
+    return cached;
+  }
+
   private EngineResource<?> getEngineResourceFromCache(Key key) {
     Resource<?> cached = cache.remove(key);
+    if (cached != null) {
+      removeFromMemoryCacheKeys(key);
+    }
 
     final EngineResource<?> result;
     if (cached == null) {
@@ -280,7 +500,7 @@ public class Engine implements EngineJobListener,
     return result;
   }
 
-  public void release(Resource<?> resource) {
+  public synchronized void release(Resource<?> resource) {
     Util.assertMainThread();
     if (resource instanceof EngineResource) {
       ((EngineResource<?>) resource).release();
@@ -291,7 +511,8 @@ public class Engine implements EngineJobListener,
 
   @SuppressWarnings("unchecked")
   @Override
-  public void onEngineJobComplete(EngineJob<?> engineJob, Key key, EngineResource<?> resource) {
+  public synchronized void onEngineJobComplete(
+      EngineJob<?> engineJob, Key key, EngineResource<?> resource) {
     Util.assertMainThread();
     // A null resource indicates that the load failed, usually due to an exception.
     if (resource != null) {
@@ -303,41 +524,100 @@ public class Engine implements EngineJobListener,
     }
 
     jobs.removeIfCurrent(key, engineJob);
+    if (admissionController != null) {
+      admissionController.onJobFinished(engineJob);
+    }
   }
 
   @Override
-  public void onEngineJobCancelled(EngineJob<?> engineJob, Key key) {
+  public synchronized void onEngineJobCancelled(EngineJob<?> engineJob, Key key) {
     Util.assertMainThread();
 
     jobs.removeIfCurrent(key, engineJob);
+    if (admissionController != null) {
+      admissionController.onJobFinished(engineJob);
+    }
   }
 
   @Override
   public void onResourceRemoved(@NonNull final Resource<?> resource) {
-    Util.assertMainThread();
-    resourceRecycler.recycle(resource);
+    // Not synchronized, the memory cache calls this while holding its own lock.
+    if (resource instanceof EngineResource) {
+      removeFromMemoryCacheKeys(((EngineResource<?>) resource).getKey());
+    }
+    if (loadExecutor == null) {
+      Util.assertMainThread();
+      resourceRecycler.recycle(resource);
+    } else {
+      resourceRecycler.recycle(resource, /*forceNextFrame=*/ !Util.isOnMainThread());
+    }
   }
 
   @Override
-  public void onResourceReleased(Key cacheKey, EngineResource<?> resource) {
-    Util.assertMainThread();
+  public synchronized void onResourceReleased(Key cacheKey, EngineResource<?> resource) {
+    if (loadExecutor == null) {
+      Util.assertMainThread();
+    }
+    // Another load may have acquired the resource again before we were notified.
+    if (resource.isAcquired()) {
+      return;
+    }
     activeResources.deactivate(cacheKey);
     if (resource.isCacheable()) {
+      // Added first because the cache may evict the resource before put returns.
+      if (memoryCacheKeys != null && cacheKey instanceof EngineKey) {
+        synchronized (memoryCacheKeys) {
+          memoryCacheKeys.add((EngineKey) cacheKey);
+        }
+      }
       cache.put(cacheKey, resource);
     } else {
       resourceRecycler.recycle(resource);
     }
   }
 
+  private void removeFromMemoryCacheKeys(Key key) {
+    if (memoryCacheKeys != null && key instanceof EngineKey) {
+      synchronized (memoryCacheKeys) {
+        memoryCacheKeys.remove((EngineKey) key);
+      }
+    }
+  }
+
+  /**
+   * Returns the number of loads that used a resource from the memory cache that was loaded at a
+   * slightly larger size, which is always zero unless size coalescing is enabled.
+   */
+  public long getNearestSizeCacheHitCount() {
+    return nearestSizeCacheHitCount.get();
+  }
+
   public void clearDiskCache() {
     diskCacheProvider.getDiskCache().clear();
   }
 
+  /**
+   * Returns latency statistics for fetching and decoding from source, or {@code null} if this
+   * engine fetches and decodes on the same executor.
+   */
+  @Nullable
+  public DecodePipelineStats getDecodePipelineStats() {
+    return decodePipeline != null ? decodePipeline.getStats() : null;
+  }
+
+  /**
+   * Returns queue depths and wait times for jobs held back by {@link InFlightLimits}, or
+   * {@code null} if this engine doesn't limit the number of jobs in flight.
+   */
+  @Nullable
+  public AdmissionStats getAdmissionStats() {
+    return admissionController != null ? admissionController.getStats() : null;
+  }
+
   @VisibleForTesting
   public void shutdown() {
     engineJobFactory.shutdown();
     diskCacheProvider.clearDiskCacheIfCreated();
-    activeResources.shutdown();
   }
 
   /**
@@ -355,12 +635,195 @@ public class Engine implements EngineJobListener,
     public void cancel() {
       engineJob.removeCallback(cb);
     }
+
+    /**
+     * Changes the priority of the load if it hasn't started yet, for example to lower the priority
+     * of loads for views that are no longer visible.
+     *
+     * <p>Loads shared by multiple requests run with the highest priority any of them wants.
+     *
+     * <p>Must be called on the main thread.
+     */
+    public void setPriority(@NonNull Priority priority) {
+      engineJob.setPriority(cb, priority);
+    }
+  }
+
+  /**
+   * Builds the key and checks the caches for a load on the engine's load executor, then delivers
+   * the result to the given callback on the main thread.
+   *
+   * <p>Acts as the {@link ResourceCallback} for the memory caches and the {@link EngineJob} so that
+   * results produced on the load executor are posted to the main thread. Cancellation and delivery
+   * both happen on the main thread, so a cancelled load never calls its callback.
+   */
+  private final class AsyncLoad<R> extends LoadStatus implements ResourceCallback, Runnable {
+    private final GlideContext glideContext;
+    private final Object model;
+    private final Key signature;
+    private final int width;
+    private final int height;
+    private final Class<?> resourceClass;
+    private final Class<R> transcodeClass;
+    // Guarded by Engine.this.
+    private Priority priority;
+    private final DiskCacheStrategy diskCacheStrategy;
+    private final Map<Class<?>, Transformation<?>> transformations;
+    private final boolean isTransformationRequired;
+    private final boolean isScaleOnlyOrNoTransform;
+    private final Options options;
+    private final boolean isMemoryCacheable;
+    private final boolean useUnlimitedSourceExecutorPool;
+    private final boolean useAnimationPool;
+    private final boolean onlyRetrieveFromCache;
+    private final boolean isPreload;
+    private final ResourceCallback cb;
+    // Guarded by Engine.this.
+    @Nullable private LoadStatus jobStatus;
+    private boolean isCancelled;
+
+    @Synthetic
+    AsyncLoad(
+        GlideContext glideContext,
+        Object model,
+        Key signature,
+        int width,
+        int height,
+        Class<?> resourceClass,
+        Class<R> transcodeClass,
+        Priority priority,
+        DiskCacheStrategy diskCacheStrategy,
+        Map<Class<?>, Transformation<?>> transformations,
+        boolean isTransformationRequired,
+        boolean isScaleOnlyOrNoTransform,
+        Options options,
+        boolean isMemoryCacheable,
+        boolean useUnlimitedSourceExecutorPool,
+        boolean useAnimationPool,
+        boolean onlyRetrieveFromCache,
+        boolean isPreload,
+        ResourceCallback cb) {
+      super(cb, /*engineJob=*/ null);
+      this.glideContext = glideContext;
+      this.model = model;
+      this.signature = signature;
+      this.width = width;
+      this.height = height;
+      this.resourceClass = resourceClass;
+      this.transcodeClass = transcodeClass;
+      this.priority = priority;
+      this.diskCacheStrategy = diskCacheStrategy;
+      this.transformations = transformations;
+      this.isTransformationRequired = isTransformationRequired;
+      this.isScaleOnlyOrNoTransform = isScaleOnlyOrNoTransform;
+      this.options = options;
+      this.isMemoryCacheable = isMemoryCacheable;
+      this.useUnlimitedSourceExecutorPool = useUnlimitedSourceExecutorPool;
+      this.useAnimationPool = useAnimationPool;
+      this.onlyRetrieveFromCache = onlyRetrieveFromCache;
+      this.isPreload = isPreload;
+      this.cb = cb;
+    }
+
+    @Override
+    public void run() {
+      long startTime = LogTime.getLogTime();
+      EngineKey key = keyFactory.buildKey(model, signature, width, height, transformations,
+          resourceClass, transcodeClass, options);
+      synchronized (Engine.this) {
+        if (isCancelled) {
+          return;
+        }
+        jobStatus = startLoad(glideContext, model, key, signature, width, height, resourceClass,
+            transcodeClass, priority, diskCacheStrategy, transformations, isTransformationRequired,
+            isScaleOnlyOrNoTransform, options, isMemoryCacheable, useUnlimitedSourceExecutorPool,
+            useAnimationPool, onlyRetrieveFromCache, isPreload, this, startTime);
+      }
+    }
+
+    @Override
+    public void cancel() {
+      Util.assertMainThread();
+      synchronized (Engine.this) {
+        isCancelled = true;
+        if (jobStatus != null) {
+          jobStatus.cancel();
+          jobStatus = null;
+        }
+      }
+    }
+
+    @Override
+    public void setPriority(@NonNull Priority priority) {
+      Util.assertMainThread();
+      synchronized (Engine.this) {
+        this.priority = priority;
+        if (jobStatus != null) {
+          jobStatus.setPriority(priority);
+        }
+      }
+    }
+
+    @Override
+    public void onResourceReady(final Resource<?> resource, final DataSource dataSource) {
+      if (Util.isOnMainThread()) {
+        deliverResource(resource, dataSource);
+      } else {
+        mainHandler.post(new Runnable() {
+          @Override
+          public void run() {
+            deliverResource(resource, dataSource);
+          }
+        });
+      }
+    }
+
+    @Override
+    public void onLoadFailed(final GlideException e) {
+      if (Util.isOnMainThread()) {
+        deliverFailure(e);
+      } else {
+        mainHandler.post(new Runnable() {
+          @Override
+          public void run() {
+            deliverFailure(e);
+          }
+        });
+      }
+    }
+
+    @Synthetic
+    void deliverResource(Resource<?> resource, DataSource dataSource) {
+      if (onDelivered()) {
+        cb.onResourceReady(resource, dataSource);
+      } else {
+        // The resource was acquired for this load, which no longer wants it.
+        release(resource);
+      }
+    }
+
+    @Synthetic
+    void deliverFailure(GlideException e) {
+      if (onDelivered()) {
+        cb.onLoadFailed(e);
+      }
+    }
+
+    /**
+     * Marks the load as complete and returns {@code true} if the callback should be notified.
+     */
+    private boolean onDelivered() {
+      synchronized (Engine.this) {
+        jobStatus = null;
+        return !isCancelled;
+      }
+    }
   }
 
   private static class LazyDiskCacheProvider implements DecodeJob.DiskCacheProvider {
 
     private final DiskCache.Factory factory;
-    private volatile DiskCache diskCache;
+    private volatile ByteBufferDiskCache diskCache;
 
     LazyDiskCacheProvider(DiskCache.Factory factory) {
       this.factory = factory;
@@ -375,14 +838,16 @@ public class Engine implements EngineJobListener,
     }
 
     @Override
-    public DiskCache getDiskCache() {
+    public ByteBufferDiskCache getDiskCache() {
       if (diskCache == null) {
         synchronized (this) {
           if (diskCache == null) {
-            diskCache = factory.build();
-          }
-          if (diskCache == null) {
-            diskCache = new DiskCacheAdapter();
+            DiskCache built = factory.build();
+            if (built == null) {
+              built = new DiskCacheAdapter();
+            }
+            // File based caches are adapted so that cached data can be decoded from ByteBuffers.
+            diskCache = FileDiskCacheWrapper.wrap(built);
           }
         }
       }
@@ -394,7 +859,7 @@ public class Engine implements EngineJobListener,
   static class DecodeJobFactory {
     @Synthetic final DecodeJob.DiskCacheProvider diskCacheProvider;
     @Synthetic final Pools.Pool<DecodeJob<?>> pool =
-        FactoryPools.simple(JOB_POOL_SIZE,
+        FactoryPools.threadSafe(JOB_POOL_SIZE,
             new FactoryPools.Factory<DecodeJob<?>>() {
           @Override
           public DecodeJob<?> create() {
@@ -452,9 +917,10 @@ public class Engine implements EngineJobListener,
     @Synthetic final GlideExecutor sourceExecutor;
     @Synthetic final GlideExecutor sourceUnlimitedExecutor;
     @Synthetic final GlideExecutor animationExecutor;
+    @Nullable @Synthetic final DecodePipeline decodePipeline;
     @Synthetic final EngineJobListener listener;
     @Synthetic final Pools.Pool<EngineJob<?>> pool =
-        FactoryPools.simple(
+        FactoryPools.threadSafe(
             JOB_POOL_SIZE,
             new FactoryPools.Factory<EngineJob<?>>() {
               @Override
@@ -464,6 +930,7 @@ public class Engine implements EngineJobListener,
                     sourceExecutor,
                     sourceUnlimitedExecutor,
                     animationExecutor,
+                    decodePipeline,
                     listener,
                     pool);
               }
@@ -474,11 +941,13 @@ public class Engine implements EngineJobListener,
         GlideExecutor sourceExecutor,
         GlideExecutor sourceUnlimitedExecutor,
         GlideExecutor animationExecutor,
+        @Nullable DecodePipeline decodePipeline,
         EngineJobListener listener) {
       this.diskCacheExecutor = diskCacheExecutor;
       this.sourceExecutor = sourceExecutor;
       this.sourceUnlimitedExecutor = sourceUnlimitedExecutor;
       this.animationExecutor = animationExecutor;
+      this.decodePipeline = decodePipeline;
       this.listener = listener;
     }
 
@@ -488,6 +957,9 @@ public class Engine implements EngineJobListener,
       shutdownAndAwaitTermination(sourceExecutor);
       shutdownAndAwaitTermination(sourceUnlimitedExecutor);
       shutdownAndAwaitTermination(animationExecutor);
+      if (decodePipeline != null) {
+        shutdownAndAwaitTermination(decodePipeline.getFetchExecutor());
+      }
     }
 
     @SuppressWarnings("unchecked")
@@ -4,8 +4,10 @@ import android.os.Handler;
 import android.os.Looper;
 import android.os.Message;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.support.annotation.VisibleForTesting;
 import android.support.v4.util.Pools;
+import com.bumptech.glide.Priority;
 import com.bumptech.glide.load.DataSource;
 import com.bumptech.glide.load.Key;
 import com.bumptech.glide.load.engine.executor.GlideExecutor;
@@ -34,6 +36,8 @@ class EngineJob<R> implements DecodeJob.Callback<R>,
   private static final int MSG_CANCELLED = 3;
 
   private final List<ResourceCallback> cbs = new ArrayList<>(2);
+  // The priority each callback in cbs wants, or null for callbacks added without one.
+  private final List<Priority> cbPriorities = new ArrayList<>(2);
   private final StateVerifier stateVerifier = StateVerifier.newInstance();
   private final Pools.Pool<EngineJob<?>> pool;
   private final EngineResourceFactory engineResourceFactory;
@@ -42,6 +46,7 @@ class EngineJob<R> implements DecodeJob.Callback<R>,
   private final GlideExecutor sourceExecutor;
   private final GlideExecutor sourceUnlimitedExecutor;
   private final GlideExecutor animationExecutor;
+  @Nullable private final DecodePipeline decodePipeline;
 
   private Key key;
   private boolean isCacheable;
@@ -58,6 +63,7 @@ class EngineJob<R> implements DecodeJob.Callback<R>,
   private List<ResourceCallback> ignoredCallbacks;
   private EngineResource<?> engineResource;
   private DecodeJob<R> decodeJob;
+  private boolean isFailedWithoutStarting;
 
   // Checked primarily on the main thread, but also on other threads in reschedule.
   private volatile boolean isCancelled;
@@ -67,6 +73,7 @@ class EngineJob<R> implements DecodeJob.Callback<R>,
       GlideExecutor sourceExecutor,
       GlideExecutor sourceUnlimitedExecutor,
       GlideExecutor animationExecutor,
+      @Nullable DecodePipeline decodePipeline,
       EngineJobListener listener,
       Pools.Pool<EngineJob<?>> pool) {
     this(
@@ -74,6 +81,7 @@ class EngineJob<R> implements DecodeJob.Callback<R>,
         sourceExecutor,
         sourceUnlimitedExecutor,
         animationExecutor,
+        decodePipeline,
         listener,
         pool,
         DEFAULT_FACTORY);
@@ -85,6 +93,7 @@ class EngineJob<R> implements DecodeJob.Callback<R>,
       GlideExecutor sourceExecutor,
       GlideExecutor sourceUnlimitedExecutor,
       GlideExecutor animationExecutor,
+      @Nullable DecodePipeline decodePipeline,
       EngineJobListener listener,
       Pools.Pool<EngineJob<?>> pool,
       EngineResourceFactory engineResourceFactory) {
@@ -92,6 +101,7 @@ class EngineJob<R> implements DecodeJob.Callback<R>,
     this.sourceExecutor = sourceExecutor;
     this.sourceUnlimitedExecutor = sourceUnlimitedExecutor;
     this.animationExecutor = animationExecutor;
+    this.decodePipeline = decodePipeline;
     this.listener = listener;
     this.pool = pool;
     this.engineResourceFactory = engineResourceFactory;
@@ -114,14 +124,52 @@ class EngineJob<R> implements DecodeJob.Callback<R>,
 
   public void start(DecodeJob<R> decodeJob) {
     this.decodeJob = decodeJob;
-    GlideExecutor executor = decodeJob.willDecodeFromCache()
-        ? diskCacheExecutor
-        : getActiveSourceExecutor();
-    executor.execute(decodeJob);
+    // Callbacks may have changed the priority while the Engine held the job back.
+    Priority highest = getHighestPriority();
+    if (highest != null && highest != decodeJob.getPriority()) {
+      decodeJob.setPriority(highest);
+    }
+    DecodePipeline pipeline = getActiveDecodePipeline();
+    decodeJob.setDecodePipeline(pipeline);
+    if (decodeJob.willDecodeFromCache()) {
+      diskCacheExecutor.execute(decodeJob);
+    } else if (pipeline != null) {
+      pipeline.fetch(decodeJob);
+    } else {
+      getActiveSourceExecutor().execute(decodeJob);
+    }
+  }
+
+  /**
+   * Fails the load with the given exception without ever queueing the given {@link DecodeJob},
+   * for loads the {@link Engine} held back and then shed or that were cancelled while held back.
+   */
+  void failWithoutStarting(DecodeJob<R> decodeJob, GlideException e) {
+    this.decodeJob = decodeJob;
+    isFailedWithoutStarting = true;
+    onLoadFailed(e);
   }
 
+  /**
+   * Adds a callback to notify when the load completes.
+   *
+   * <p>Must be called on the main thread or, if the {@link Engine} loads off of the main thread,
+   * while holding the {@link Engine}'s lock before the job is removed from {@link Jobs}.
+   */
   void addCallback(ResourceCallback cb) {
-    Util.assertMainThread();
+    addCallback(cb, /*priority=*/ null);
+  }
+
+  /**
+   * Adds a callback to notify when the load completes that wants the load to run with the given
+   * priority.
+   *
+   * <p>The load runs with the highest priority any of its callbacks want, so adding a callback
+   * with a higher priority than the current one raises the priority of the load.
+   *
+   * @see #addCallback(ResourceCallback)
+   */
+  void addCallback(ResourceCallback cb, @Nullable Priority priority) {
     stateVerifier.throwIfRecycled();
     if (hasResource) {
       cb.onResourceReady(engineResource, dataSource);
@@ -129,6 +177,8 @@ class EngineJob<R> implements DecodeJob.Callback<R>,
       cb.onLoadFailed(exception);
     } else {
       cbs.add(cb);
+      cbPriorities.add(priority);
+      updatePriority();
     }
   }
 
@@ -138,17 +188,111 @@ class EngineJob<R> implements DecodeJob.Callback<R>,
     if (hasResource || hasLoadFailed) {
       addIgnoredCallback(cb);
     } else {
-      cbs.remove(cb);
+      int index = cbs.indexOf(cb);
+      if (index != -1) {
+        cbs.remove(index);
+        cbPriorities.remove(index);
+      }
       if (cbs.isEmpty()) {
         cancel();
+      } else {
+        updatePriority();
+      }
+    }
+  }
+
+  /**
+   * Changes the priority the given callback wants the load to run with.
+   *
+   * <p>Must be called on the main thread or, if the {@link Engine} loads off of the main thread,
+   * while holding the {@link Engine}'s lock.
+   */
+  void setPriority(ResourceCallback cb, Priority priority) {
+    stateVerifier.throwIfRecycled();
+    int index = cbs.indexOf(cb);
+    if (index == -1 || hasResource || hasLoadFailed || isCancelled) {
+      return;
+    }
+    cbPriorities.set(index, priority);
+    updatePriority();
+  }
+
+  /**
+   * Re-queues the {@link DecodeJob} with the highest priority any callback wants if that differs
+   * from its current priority, or defers the change until the job is next queued if it isn't
+   * waiting in a queue now.
+   */
+  private void updatePriority() {
+    if (decodeJob == null || isCancelled) {
+      return;
+    }
+    Priority highest = getHighestPriority();
+    if (highest == null) {
+      return;
+    }
+    if (highest == decodeJob.getPriority()) {
+      // Drop any change requested earlier that hasn't been applied yet.
+      decodeJob.setPendingPriority(null);
+      return;
+    }
+    // The ordering of a job can't change while it's in a queue. If the job isn't waiting in a
+    // queue, it's running or about to be queued by another thread, and the pending priority is
+    // applied the next time it's queued.
+    decodeJob.setPendingPriority(highest);
+    GlideExecutor executor = removeQueuedDecodeJob();
+    if (executor != null) {
+      decodeJob.applyPendingPriority();
+      executor.execute(decodeJob);
+    }
+  }
+
+  /**
+   * Returns the highest priority any callback wants, or {@code null} if no callback wants one.
+   */
+  @Nullable
+  Priority getHighestPriority() {
+    Priority highest = null;
+    for (int i = 0, size = cbPriorities.size(); i < size; i++) {
+      Priority priority = cbPriorities.get(i);
+      if (priority != null && (highest == null || priority.ordinal() < highest.ordinal())) {
+        highest = priority;
       }
     }
+    return highest;
+  }
+
+  /**
+   * Removes the {@link DecodeJob} from the queue of whichever executor it's waiting on and
+   * returns that executor, or returns {@code null} if it isn't waiting on any.
+   */
+  @Nullable
+  private GlideExecutor removeQueuedDecodeJob() {
+    GlideExecutor sourceExecutor = getActiveSourceExecutor();
+    if (sourceExecutor.remove(decodeJob)) {
+      return sourceExecutor;
+    } else if (diskCacheExecutor.remove(decodeJob)) {
+      return diskCacheExecutor;
+    }
+    DecodePipeline pipeline = getActiveDecodePipeline();
+    if (pipeline != null && pipeline.getFetchExecutor().remove(decodeJob)) {
+      return pipeline.getFetchExecutor();
+    }
+    return null;
   }
 
   boolean onlyRetrieveFromCache() {
     return onlyRetrieveFromCache;
   }
 
+  /**
+   * Returns the pipeline to use for loads from source, or {@code null} if this job uses one of the
+   * special purpose unlimited or animation executors.
+   */
+  @Nullable
+  private DecodePipeline getActiveDecodePipeline() {
+    return useUnlimitedSourceGeneratorPool || useAnimationPool ? null : decodePipeline;
+  }
+
   private GlideExecutor getActiveSourceExecutor() {
     return useUnlimitedSourceGeneratorPool
         ? sourceUnlimitedExecutor : (useAnimationPool ? animationExecutor : sourceExecutor);
@@ -179,7 +323,10 @@ class EngineJob<R> implements DecodeJob.Callback<R>,
     }
 
     isCancelled = true;
-    decodeJob.cancel();
+    // The Engine may be holding the job back, in which case it hasn't been started.
+    if (decodeJob != null) {
+      decodeJob.cancel();
+    }
     // TODO: Consider trying to remove jobs that have never been run before from executor queues.
     // Removing jobs that have run before can break things. See #1996.
     listener.onEngineJobCancelled(this, key);
@@ -203,12 +350,14 @@ class EngineJob<R> implements DecodeJob.Callback<R>,
       throw new IllegalStateException("Already have resource");
     }
     engineResource = engineResourceFactory.build(resource, isCacheable);
-    hasResource = true;
 
     // Hold on to resource for duration of request so we don't recycle it in the middle of
     // notifying if it synchronously released by one of the callbacks.
     engineResource.acquire();
+    // The Engine removes this job from Jobs here, after which no more callbacks can be added, so
+    // hasResource is only set afterwards.
     listener.onEngineJobComplete(this, key, engineResource);
+    hasResource = true;
 
     //noinspection ForLoopReplaceableByForEach to improve perf
     for (int i = 0, size = cbs.size(); i < size; i++) {
@@ -237,6 +386,7 @@ class EngineJob<R> implements DecodeJob.Callback<R>,
   private void release(boolean isRemovedFromQueue) {
     Util.assertMainThread();
     cbs.clear();
+    cbPriorities.clear();
     key = null;
     engineResource = null;
     resource = null;
@@ -246,7 +396,8 @@ class EngineJob<R> implements DecodeJob.Callback<R>,
     hasLoadFailed = false;
     isCancelled = false;
     hasResource = false;
-    decodeJob.release(isRemovedFromQueue);
+    decodeJob.release(isRemovedFromQueue || isFailedWithoutStarting);
+    isFailedWithoutStarting = false;
     decodeJob = null;
     exception = null;
     dataSource = null;
@@ -268,9 +419,15 @@ class EngineJob<R> implements DecodeJob.Callback<R>,
 
   @Override
   public void reschedule(DecodeJob<?> job) {
+    job.applyPendingPriority();
     // Even if the job is cancelled here, it still needs to be scheduled so that it can clean itself
     // up.
-    getActiveSourceExecutor().execute(job);
+    DecodePipeline pipeline = getActiveDecodePipeline();
+    if (pipeline != null) {
+      pipeline.fetch(job);
+    } else {
+      getActiveSourceExecutor().execute(job);
+    }
   }
 
   @Synthetic
@@ -284,9 +441,8 @@ class EngineJob<R> implements DecodeJob.Callback<R>,
     } else if (hasLoadFailed) {
       throw new IllegalStateException("Already failed once");
     }
-    hasLoadFailed = true;
-
     listener.onEngineJobComplete(this, key, null);
+    hasLoadFailed = true;
 
     for (ResourceCallback cb : cbs) {
       if (!isInIgnoredCallbacks(cb)) {
@@ -1,6 +1,7 @@
 package com.bumptech.glide.load.engine;
 
 import android.support.annotation.NonNull;
+import android.support.annotation.VisibleForTesting;
 import com.bumptech.glide.load.Key;
 import com.bumptech.glide.load.Options;
 import com.bumptech.glide.load.Transformation;
@@ -12,6 +13,19 @@ import java.util.Map;
  * An in memory only cache key used to multiplex loads.
  */
 class EngineKey implements Key {
+  /**
+   * The largest factor by which a resource may be larger than requested in each dimension to be
+   * used in place of a resource of the requested size.
+   */
+  @VisibleForTesting
+  static final float MAX_SHARED_SIZE_MULTIPLIER = 1.25f;
+  /**
+   * The largest relative difference in aspect ratio between a resource used in place of a
+   * resource of the requested size and the requested size.
+   */
+  @VisibleForTesting
+  static final float MAX_SHARED_ASPECT_RATIO_DIFFERENCE = 0.05f;
+
   private final Object model;
   private final int width;
   private final int height;
@@ -43,6 +57,62 @@ class EngineKey implements Key {
     this.options = Preconditions.checkNotNull(options);
   }
 
+  int getWidth() {
+    return width;
+  }
+
+  int getHeight() {
+    return height;
+  }
+
+  /**
+   * Returns {@code true} if the given key is for the same load as this key, except possibly at a
+   * different size.
+   */
+  boolean equalsIgnoringSize(EngineKey other) {
+    return model.equals(other.model)
+        && signature.equals(other.signature)
+        && transformations.equals(other.transformations)
+        && resourceClass.equals(other.resourceClass)
+        && transcodeClass.equals(other.transcodeClass)
+        && options.equals(other.options);
+  }
+
+  /**
+   * Returns {@code true} if a resource loaded for the given key, which must be
+   * {@link #equalsIgnoringSize(EngineKey) equal ignoring size} to this key, can be used in place
+   * of a resource loaded for this key because it's at most slightly larger and has about the same
+   * aspect ratio.
+   */
+  boolean canUseResourceOfSize(EngineKey larger) {
+    if (width <= 0 || height <= 0) {
+      return false;
+    }
+    if (larger.width < width
+        || larger.height < height
+        || larger.width > width * MAX_SHARED_SIZE_MULTIPLIER
+        || larger.height > height * MAX_SHARED_SIZE_MULTIPLIER) {
+      return false;
+    }
+    // Compares width / height with larger.width / larger.height without dividing.
+    long cross = (long) width * larger.height;
+    long largerCross = (long) larger.width * height;
+    return Math.abs(cross - largerCross) <= MAX_SHARED_ASPECT_RATIO_DIFFERENCE * largerCross;
+  }
+
+  /**
+   * Returns a hash code consistent with {@link #equalsIgnoringSize(EngineKey)}.
+   */
+  int hashCodeIgnoringSize() {
+    int result = model.hashCode();
+    result = 31 * result + signature.hashCode();
+    result = 31 * result + transformations.hashCode();
+    result = 31 * result + resourceClass.hashCode();
+    result = 31 * result + transcodeClass.hashCode();
+    result = 31 * result + options.hashCode();
+    return result;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (o instanceof EngineKey) {
@@ -1,6 +1,5 @@
 package com.bumptech.glide.load.engine;
 
-import android.os.Looper;
 import android.support.annotation.NonNull;
 import com.bumptech.glide.load.Key;
 import com.bumptech.glide.util.Preconditions;
@@ -30,11 +29,18 @@ class EngineResource<Z> implements Resource<Z> {
     this.isRecyclable = isRecyclable;
   }
 
-  void setResourceListener(Key key, ResourceListener listener) {
+  synchronized void setResourceListener(Key key, ResourceListener listener) {
     this.key = key;
     this.listener = listener;
   }
 
+  /**
+   * Returns the key the resource is released with, or {@code null} if it hasn't been set.
+   */
+  synchronized Key getKey() {
+    return key;
+  }
+
   Resource<Z> getResource() {
     return resource;
   }
@@ -61,7 +67,7 @@ class EngineResource<Z> implements Resource<Z> {
   }
 
   @Override
-  public void recycle() {
+  public synchronized void recycle() {
     if (acquired > 0) {
       throw new IllegalStateException("Cannot recycle a resource while it is still acquired");
     }
@@ -75,46 +81,56 @@ class EngineResource<Z> implements Resource<Z> {
   }
 
   /**
-   * Increments the number of consumers using the wrapped resource. Must be called on the main
-   * thread.
+   * Increments the number of consumers using the wrapped resource.
    *
    * <p> This must be called with a number corresponding to the number of new consumers each time
    * new consumers begin using the wrapped resource. It is always safer to call acquire more often
    * than necessary. Generally external users should never call this method, the framework will take
    * care of this for you. </p>
    */
-  void acquire() {
+  synchronized void acquire() {
     if (isRecycled) {
       throw new IllegalStateException("Cannot acquire a recycled resource");
     }
-    if (!Looper.getMainLooper().equals(Looper.myLooper())) {
-      throw new IllegalThreadStateException("Must call acquire on the main thread");
-    }
     ++acquired;
   }
 
   /**
-   * Decrements the number of consumers using the wrapped resource. Must be called on the main
-   * thread.
+   * Decrements the number of consumers using the wrapped resource.
    *
    * <p>This must only be called when a consumer that called the {@link #acquire()} method is now
    * done with the resource. Generally external users should never call this method, the framework
    * will take care of this for you.
+   *
+   * <p>The listener is notified without holding this resource's lock. Another thread may acquire
+   * the resource again before the listener runs, so listeners should check {@link #isAcquired()}.
    */
   void release() {
-    if (acquired <= 0) {
-      throw new IllegalStateException("Cannot release a recycled or not yet acquired resource");
+    boolean isReleased;
+    ResourceListener toNotify;
+    Key releasedKey;
+    synchronized (this) {
+      if (acquired <= 0) {
+        throw new IllegalStateException("Cannot release a recycled or not yet acquired resource");
+      }
+      isReleased = --acquired == 0;
+      toNotify = listener;
+      releasedKey = key;
     }
-    if (!Looper.getMainLooper().equals(Looper.myLooper())) {
-      throw new IllegalThreadStateException("Must call release on the main thread");
-    }
-    if (--acquired == 0) {
-      listener.onResourceReleased(key, this);
+    if (isReleased) {
+      toNotify.onResourceReleased(releasedKey, this);
     }
   }
 
+  /**
+   * Returns {@code true} if at least one consumer is using the wrapped resource.
+   */
+  synchronized boolean isAcquired() {
+    return acquired > 0;
+  }
+
   @Override
-  public String toString() {
+  public synchronized String toString() {
     return "EngineResource{"
         + "isCacheable=" + isCacheable
         + ", listener=" + listener
@@ -0,0 +1,145 @@
+package com.bumptech.glide.load.engine;
+
+import android.support.annotation.NonNull;
+import com.bumptech.glide.util.Preconditions;
+import java.util.Arrays;
+
+/**
+ * Limits the number of loads the {@link Engine} runs at once on each of its executors, see
+ * {@link com.bumptech.glide.GlideBuilder#setInFlightLimits(InFlightLimits)}.
+ *
+ * <p>Without limits, every load is queued on its executor as soon as it starts, so a burst of
+ * loads, a fast fling for example, builds up queues that the executors take a long time to work
+ * through. With limits, loads beyond the limit wait in the {@link Engine} where they can still be
+ * joined, re-prioritized, shed or cancelled cheaply, and start as earlier loads finish.
+ *
+ * <p>Preloads, loads started with {@link com.bumptech.glide.RequestBuilder#preload()}, only start
+ * when no other load is waiting for the same executor and leave one slot free for loads for
+ * views.
+ */
+public final class InFlightLimits {
+  /** The value used for limits that haven't been set. */
+  public static final int UNLIMITED = Integer.MAX_VALUE;
+
+  /**
+   * The executor a load runs on first, which is the one its limit applies to.
+   */
+  public enum ExecutorType {
+    /** Loads that start by checking the disk cache. */
+    DISK_CACHE,
+    /** Loads that start by loading from source. */
+    SOURCE,
+    /** Loads from source that use the unlimited source executor. */
+    SOURCE_UNLIMITED,
+    /** Loads from source that use the animation executor. */
+    ANIMATION,
+  }
+
+  /**
+   * What to do with loads that can't start immediately.
+   */
+  public enum SheddingPolicy {
+    /**
+     * Waiting loads start in priority order, with loads for views before preloads and otherwise
+     * oldest first, and when too many loads are waiting, the one that would start last fails.
+     */
+    DROP_LOWEST_PRIORITY,
+    /**
+     * Like {@link #DROP_LOWEST_PRIORITY}, except that waiting preloads of the same priority start
+     * newest first, so the oldest preload is the first to fail. Preloads are usually for content
+     * just ahead of the user, older preloads have often been scrolled past.
+     */
+    LIFO_PRELOADS,
+    /**
+     * Like {@link #DROP_LOWEST_PRIORITY}, except that preloads that can't start immediately fail
+     * instead of waiting.
+     */
+    REJECT_PRELOADS_WHEN_SATURATED,
+  }
+
+  private final int[] maxInFlightJobs;
+  private final int maxWaitingJobs;
+  private final SheddingPolicy sheddingPolicy;
+
+  InFlightLimits(Builder builder) {
+    this.maxInFlightJobs = builder.maxInFlightJobs.clone();
+    this.maxWaitingJobs = builder.maxWaitingJobs;
+    this.sheddingPolicy = builder.sheddingPolicy;
+  }
+
+  /**
+   * Returns the maximum number of loads that run at once on the given executor.
+   */
+  public int getMaxInFlightJobs(@NonNull ExecutorType executorType) {
+    return maxInFlightJobs[executorType.ordinal()];
+  }
+
+  /**
+   * Returns the maximum number of loads that wait to start across all executors.
+   */
+  public int getMaxWaitingJobs() {
+    return maxWaitingJobs;
+  }
+
+  @NonNull
+  public SheddingPolicy getSheddingPolicy() {
+    return sheddingPolicy;
+  }
+
+  @Override
+  public String toString() {
+    return "InFlightLimits{"
+        + "maxInFlightJobs=" + Arrays.toString(maxInFlightJobs)
+        + ", maxWaitingJobs=" + maxWaitingJobs
+        + ", sheddingPolicy=" + sheddingPolicy
+        + "}";
+  }
+
+  /**
+   * Builds {@link InFlightLimits}, every limit is {@link #UNLIMITED} unless set.
+   */
+  public static final class Builder {
+    private final int[] maxInFlightJobs = new int[ExecutorType.values().length];
+    private int maxWaitingJobs = UNLIMITED;
+    private SheddingPolicy sheddingPolicy = SheddingPolicy.DROP_LOWEST_PRIORITY;
+
+    public Builder() {
+      Arrays.fill(maxInFlightJobs, UNLIMITED);
+    }
+
+    /**
+     * Sets the maximum number of loads that run at once on the given executor.
+     *
+     * <p>A limit close to the executor's thread count keeps the executor busy while keeping its
+     * queue short.
+     */
+    @NonNull
+    public Builder setMaxInFlightJobs(@NonNull ExecutorType executorType, int maxInFlightJobs) {
+      Preconditions.checkArgument(maxInFlightJobs > 0, "Max in flight jobs must be > 0");
+      this.maxInFlightJobs[executorType.ordinal()] = maxInFlightJobs;
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of loads that wait to start, beyond which loads are shed according
+     * to the {@link SheddingPolicy}.
+     */
+    @NonNull
+    public Builder setMaxWaitingJobs(int maxWaitingJobs) {
+      Preconditions.checkArgument(maxWaitingJobs >= 0, "Max waiting jobs must be >= 0");
+      this.maxWaitingJobs = maxWaitingJobs;
+      return this;
+    }
+
+    @NonNull
+    public Builder setSheddingPolicy(@NonNull SheddingPolicy sheddingPolicy) {
+      this.sheddingPolicy = Preconditions.checkNotNull(sheddingPolicy);
+      return this;
+    }
+
+    @NonNull
+    public InFlightLimits build() {
+      return new InFlightLimits(this);
+    }
+  }
+}
@@ -1,5 +1,6 @@
 package com.bumptech.glide.load.engine;
 
+import android.support.annotation.Nullable;
 import android.support.annotation.VisibleForTesting;
 import com.bumptech.glide.load.Key;
 import java.util.Collections;
@@ -9,6 +10,18 @@ import java.util.Map;
 final class Jobs {
   private final Map<Key, EngineJob<?>> jobs = new HashMap<>();
   private final Map<Key, EngineJob<?>> onlyCacheJobs = new HashMap<>();
+  // Null unless size coalescing is enabled.
+  @Nullable private final NearestSizeIndex keys;
+  @Nullable private final NearestSizeIndex onlyCacheKeys;
+
+  Jobs() {
+    this(/*isSizeCoalescingEnabled=*/ false);
+  }
+
+  Jobs(boolean isSizeCoalescingEnabled) {
+    keys = isSizeCoalescingEnabled ? new NearestSizeIndex() : null;
+    onlyCacheKeys = isSizeCoalescingEnabled ? new NearestSizeIndex() : null;
+  }
 
   @VisibleForTesting
   Map<Key, EngineJob<?>> getAll() {
@@ -19,18 +32,48 @@ final class Jobs {
     return getJobMap(onlyRetrieveFromCache).get(key);
   }
 
+  /**
+   * Returns an in progress job for the same load as the given key at a slightly larger size with
+   * the same aspect ratio, or {@code null} if there isn't one or size coalescing is disabled.
+   *
+   * <p>If there's more than one such job, the job closest in size is returned. Jobs for smaller
+   * sizes are never returned, a smaller resource can't be used in place of a larger one.
+   */
+  @Nullable
+  EngineJob<?> getCoalescable(EngineKey key, boolean onlyRetrieveFromCache) {
+    NearestSizeIndex keyIndex = getKeyIndex(onlyRetrieveFromCache);
+    if (keyIndex == null) {
+      return null;
+    }
+    EngineKey nearest = keyIndex.getNearest(key);
+    return nearest != null ? getJobMap(onlyRetrieveFromCache).get(nearest) : null;
+  }
+
   void put(Key key, EngineJob<?> job) {
     getJobMap(job.onlyRetrieveFromCache()).put(key, job);
+    NearestSizeIndex keyIndex = getKeyIndex(job.onlyRetrieveFromCache());
+    if (keyIndex != null && key instanceof EngineKey) {
+      keyIndex.add((EngineKey) key);
+    }
   }
 
   void removeIfCurrent(Key key, EngineJob<?> expected) {
     Map<Key, EngineJob<?>> jobMap = getJobMap(expected.onlyRetrieveFromCache());
     if (expected.equals(jobMap.get(key))) {
       jobMap.remove(key);
+      NearestSizeIndex keyIndex = getKeyIndex(expected.onlyRetrieveFromCache());
+      if (keyIndex != null && key instanceof EngineKey) {
+        keyIndex.remove((EngineKey) key);
+      }
     }
   }
 
   private Map<Key, EngineJob<?>> getJobMap(boolean onlyRetrieveFromCache) {
     return onlyRetrieveFromCache ? onlyCacheJobs : jobs;
   }
+
+  @Nullable
+  private NearestSizeIndex getKeyIndex(boolean onlyRetrieveFromCache) {
+    return onlyRetrieveFromCache ? onlyCacheKeys : keys;
+  }
 }
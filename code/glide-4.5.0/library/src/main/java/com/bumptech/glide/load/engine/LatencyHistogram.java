@@ -0,0 +1,125 @@
+package com.bumptech.glide.load.engine;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A thread safe histogram of latencies with exponentially sized buckets.
+ *
+ * <p>The first bucket holds latencies under one millisecond, bucket {@code i} holds latencies of
+ * at least {@code 2^(i - 1)} and less than {@code 2^i} milliseconds and the last bucket holds
+ * everything longer. Percentiles are reported as the upper bound of the bucket they fall in, which
+ * is accurate to within a factor of two and is enough to tell where time goes.
+ */
+public final class LatencyHistogram {
+  static final int BUCKET_COUNT = 18;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong totalMicros = new AtomicLong();
+
+  void record(double elapsedMillis) {
+    long millis = (long) Math.max(0, elapsedMillis);
+    counts.incrementAndGet(getBucket(millis));
+    count.incrementAndGet();
+    totalMicros.addAndGet((long) (Math.max(0, elapsedMillis) * 1000));
+  }
+
+  static int getBucket(long millis) {
+    if (millis <= 0) {
+      return 0;
+    }
+    return Math.min(BUCKET_COUNT - 1, Long.SIZE - Long.numberOfLeadingZeros(millis));
+  }
+
+  /**
+   * Returns the number of latencies recorded.
+   */
+  public long getCount() {
+    return count.get();
+  }
+
+  /**
+   * Returns the number of buckets.
+   */
+  public int getBucketCount() {
+    return BUCKET_COUNT;
+  }
+
+  /**
+   * Returns the number of latencies recorded in the given bucket.
+   */
+  public long getCountInBucket(int bucket) {
+    return counts.get(bucket);
+  }
+
+  /**
+   * Returns the exclusive upper bound in milliseconds of latencies in the given bucket, or
+   * {@link Long#MAX_VALUE} for the last bucket.
+   */
+  public long getBucketUpperBoundMillis(int bucket) {
+    if (bucket < 0 || bucket >= BUCKET_COUNT) {
+      throw new IllegalArgumentException("Invalid bucket: " + bucket);
+    }
+    return bucket == BUCKET_COUNT - 1 ? Long.MAX_VALUE : 1L << bucket;
+  }
+
+  /**
+   * Returns the mean of the recorded latencies in milliseconds, or 0 if none have been recorded.
+   */
+  public double getMeanMillis() {
+    long currentCount = count.get();
+    return currentCount == 0 ? 0 : totalMicros.get() / 1000d / currentCount;
+  }
+
+  /**
+   * Returns the upper bound in milliseconds of the bucket that contains the given percentile, or 0
+   * if no latencies have been recorded.
+   *
+   * @param percentile A percentile between 0 and 100.
+   */
+  public long getPercentileUpperBoundMillis(double percentile) {
+    if (percentile < 0 || percentile > 100) {
+      throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+    }
+    long total = 0;
+    long[] snapshot = new long[BUCKET_COUNT];
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      snapshot[i] = counts.get(i);
+      total += snapshot[i];
+    }
+    if (total == 0) {
+      return 0;
+    }
+    long threshold = Math.max(1, (long) Math.ceil(total * percentile / 100));
+    long seen = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      seen += snapshot[i];
+      if (seen >= threshold) {
+        return getBucketUpperBoundMillis(i);
+      }
+    }
+    return Long.MAX_VALUE;
+  }
+
+  /**
+   * Clears every bucket.
+   */
+  public void reset() {
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      counts.set(i, 0);
+    }
+    count.set(0);
+    totalMicros.set(0);
+  }
+
+  @Override
+  public String toString() {
+    return "LatencyHistogram{"
+        + "count=" + getCount()
+        + ", meanMs=" + getMeanMillis()
+        + ", p50Ms<" + getPercentileUpperBoundMillis(50)
+        + ", p99Ms<" + getPercentileUpperBoundMillis(99)
+        + "}";
+  }
+}
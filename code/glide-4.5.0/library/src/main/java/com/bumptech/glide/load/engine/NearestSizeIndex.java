@@ -0,0 +1,99 @@
+package com.bumptech.glide.load.engine;
+
+import android.support.annotation.Nullable;
+import com.bumptech.glide.util.Synthetic;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Indexes {@link EngineKey}s by everything but their size so that a key at a slightly larger size
+ * can be found for a key that isn't present.
+ *
+ * <p>Not thread safe.
+ */
+final class NearestSizeIndex {
+  private final Map<SizeIndependentKey, List<EngineKey>> keys = new HashMap<>();
+
+  /**
+   * Adds the given key, or does nothing if it's already present, so a single
+   * {@link #remove(EngineKey)} always removes it.
+   */
+  void add(EngineKey key) {
+    SizeIndependentKey indexKey = new SizeIndependentKey(key);
+    List<EngineKey> sameExceptSize = keys.get(indexKey);
+    if (sameExceptSize == null) {
+      sameExceptSize = new ArrayList<>(1);
+      keys.put(indexKey, sameExceptSize);
+    } else if (sameExceptSize.contains(key)) {
+      // There are only ever a few sizes of each load, so a list is cheaper than a set.
+      return;
+    }
+    sameExceptSize.add(key);
+  }
+
+  void remove(EngineKey key) {
+    SizeIndependentKey indexKey = new SizeIndependentKey(key);
+    List<EngineKey> sameExceptSize = keys.get(indexKey);
+    if (sameExceptSize != null && sameExceptSize.remove(key) && sameExceptSize.isEmpty()) {
+      keys.remove(indexKey);
+    }
+  }
+
+  /**
+   * Returns the smallest key whose resource can be used in place of a resource for the given key,
+   * see {@link EngineKey#canUseResourceOfSize(EngineKey)}, or {@code null} if there isn't one.
+   *
+   * <p>The given key itself is never returned.
+   */
+  @Nullable
+  EngineKey getNearest(EngineKey key) {
+    if (keys.isEmpty()) {
+      return null;
+    }
+    List<EngineKey> sameExceptSize = keys.get(new SizeIndependentKey(key));
+    if (sameExceptSize == null) {
+      return null;
+    }
+    EngineKey nearest = null;
+    for (int i = 0, size = sameExceptSize.size(); i < size; i++) {
+      EngineKey candidate = sameExceptSize.get(i);
+      if (!candidate.equals(key)
+          && key.canUseResourceOfSize(candidate)
+          && (nearest == null || getArea(candidate) < getArea(nearest))) {
+        nearest = candidate;
+      }
+    }
+    return nearest;
+  }
+
+  private static long getArea(EngineKey key) {
+    return (long) key.getWidth() * key.getHeight();
+  }
+
+  /**
+   * Wraps an {@link EngineKey} so that keys that differ only in size are equal.
+   */
+  private static final class SizeIndependentKey {
+    private final EngineKey key;
+    private final int hashCode;
+
+    @Synthetic
+    SizeIndependentKey(EngineKey key) {
+      this.key = key;
+      this.hashCode = key.hashCodeIgnoringSize();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof SizeIndependentKey
+          && key.equalsIgnoringSize(((SizeIndependentKey) o).key);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+}
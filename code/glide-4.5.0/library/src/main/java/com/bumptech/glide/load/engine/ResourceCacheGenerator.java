@@ -8,6 +8,7 @@ import com.bumptech.glide.load.data.DataFetcher;
 import com.bumptech.glide.load.model.ModelLoader;
 import com.bumptech.glide.load.model.ModelLoader.LoadData;
 import java.io.File;
+import java.nio.ByteBuffer;
 import java.util.List;
 
 /**
@@ -31,6 +32,9 @@ class ResourceCacheGenerator implements DataFetcherGenerator,
   @SuppressWarnings("PMD.SingularField")
   private File cacheFile;
   private ResourceCacheKey currentKey;
+  // Set when the cached ByteBuffer for currentKey was handed to decoders, used to fall back to the
+  // File based ModelLoaders if the ByteBuffer can't be decoded.
+  private boolean isBufferStarted;
 
   ResourceCacheGenerator(DecodeHelper<?> helper, FetcherReadyCallback cb) {
     this.helper = helper;
@@ -45,6 +49,13 @@ class ResourceCacheGenerator implements DataFetcherGenerator,
     }
     List<Class<?>> resourceClasses = helper.getRegisteredResourceClasses();
     while (modelLoaders == null || !hasNextModelLoader()) {
+      if (isBufferStarted) {
+        isBufferStarted = false;
+        if (startFileModelLoaders(sourceKey)) {
+          continue;
+        }
+      }
+
       resourceClassIndex++;
       if (resourceClassIndex >= resourceClasses.size()) {
         sourceIdIndex++;
@@ -70,12 +81,10 @@ class ResourceCacheGenerator implements DataFetcherGenerator,
               transformation,
               resourceClass,
               helper.getOptions());
-      cacheFile = helper.getDiskCache().get(currentKey);
-      if (cacheFile != null) {
-        sourceKey = sourceId;
-        modelLoaders = helper.getModelLoaders(cacheFile);
-        modelLoaderIndex = 0;
+      if (startBuffer(sourceId)) {
+        return true;
       }
+      startFileModelLoaders(sourceId);
     }
 
     loadData = null;
@@ -93,6 +102,38 @@ class ResourceCacheGenerator implements DataFetcherGenerator,
     return started;
   }
 
+  /**
+   * Decodes directly from the cached {@link ByteBuffer} for the current key if there is one and it
+   * can be decoded, which avoids re-opening the cache file via the File based ModelLoaders.
+   */
+  private boolean startBuffer(Key sourceId) {
+    if (!helper.hasLoadPath(ByteBuffer.class)) {
+      return false;
+    }
+    ByteBuffer buffer = helper.getDiskCache().getBuffer(currentKey);
+    if (buffer == null) {
+      return false;
+    }
+    sourceKey = sourceId;
+    isBufferStarted = true;
+    modelLoaders = null;
+    loadData = new LoadData<>(sourceId,
+        new CachedByteBufferFetcher(buffer, DataSource.RESOURCE_DISK_CACHE));
+    loadData.fetcher.loadData(helper.getPriority(), this);
+    return true;
+  }
+
+  private boolean startFileModelLoaders(Key sourceId) {
+    cacheFile = helper.getDiskCache().get(currentKey);
+    if (cacheFile == null) {
+      return false;
+    }
+    sourceKey = sourceId;
+    modelLoaders = helper.getModelLoaders(cacheFile);
+    modelLoaderIndex = 0;
+    return true;
+  }
+
   private boolean hasNextModelLoader() {
     return modelLoaderIndex < modelLoaders.size();
   }
@@ -15,6 +15,19 @@ class ResourceRecycler {
       new Handler(Looper.getMainLooper(), new ResourceRecyclerCallback());
 
   void recycle(Resource<?> resource) {
+    recycle(resource, /*forceNextFrame=*/ false);
+  }
+
+  /**
+   * Recycles the given resource, or posts it to be recycled on the main thread if
+   * {@code forceNextFrame} is {@code true}, which allows resources to be recycled from background
+   * threads.
+   */
+  void recycle(Resource<?> resource, boolean forceNextFrame) {
+    if (forceNextFrame) {
+      handler.obtainMessage(ResourceRecyclerCallback.RECYCLE_RESOURCE, resource).sendToTarget();
+      return;
+    }
     Util.assertMainThread();
 
     if (isRecycling) {
@@ -6,9 +6,13 @@ import com.bumptech.glide.load.DataSource;
 import com.bumptech.glide.load.Encoder;
 import com.bumptech.glide.load.Key;
 import com.bumptech.glide.load.data.DataFetcher;
+import com.bumptech.glide.load.data.StreamByteBufferFetcher;
+import com.bumptech.glide.load.engine.cache.ByteBufferDiskCache;
+import com.bumptech.glide.load.engine.cache.WriteBehindDiskCache;
 import com.bumptech.glide.load.model.ModelLoader;
 import com.bumptech.glide.load.model.ModelLoader.LoadData;
 import com.bumptech.glide.util.LogTime;
+import java.nio.ByteBuffer;
 import java.util.Collections;
 
 /**
@@ -30,6 +34,7 @@ class SourceGenerator implements DataFetcherGenerator,
   private int loadDataListIndex;
   private DataCacheGenerator sourceCacheGenerator;
   private Object dataToCache;
+  private Object cachedDataToDecode;
   private volatile ModelLoader.LoadData<?> loadData;
   private DataCacheKey originalKey;
 
@@ -46,6 +51,14 @@ class SourceGenerator implements DataFetcherGenerator,
       cacheData(data);
     }
 
+    if (cachedDataToDecode != null) {
+      Object data = cachedDataToDecode;
+      cachedDataToDecode = null;
+      cb.onDataFetcherReady(loadData.sourceKey, data, loadData.fetcher,
+          loadData.fetcher.getDataSource(), loadData.sourceKey);
+      return true;
+    }
+
     if (sourceCacheGenerator != null && sourceCacheGenerator.startNext()) {
       return true;
     }
@@ -71,14 +84,30 @@ class SourceGenerator implements DataFetcherGenerator,
 
   private void cacheData(Object dataToCache) {
     long startTime = LogTime.getLogTime();
+    // Buffers read from a stream are entirely in memory and owned by us, so they can be decoded
+    // directly after the fetcher is cleaned up, there's no point in reading back what we're about
+    // to write to the cache. Other fetchers may provide buffers backed by resources that are
+    // released by cleanup, so their data is read back from the cache as usual.
+    boolean isInMemory = loadData.fetcher instanceof StreamByteBufferFetcher;
+    boolean isQueued = false;
     try {
-      Encoder<Object> encoder = helper.getSourceEncoder(dataToCache);
+      // Write a read only view so that decoding the data can't move the writer's position.
+      Object dataToWrite =
+          isInMemory ? ((ByteBuffer) dataToCache).asReadOnlyBuffer() : dataToCache;
+      Encoder<Object> encoder = helper.getSourceEncoder(dataToWrite);
       DataCacheWriter<Object> writer =
-          new DataCacheWriter<>(encoder, dataToCache, helper.getOptions());
+          new DataCacheWriter<>(encoder, dataToWrite, helper.getOptions());
       originalKey = new DataCacheKey(loadData.sourceKey, helper.getSignature());
-      helper.getDiskCache().put(originalKey, writer);
+      ByteBufferDiskCache diskCache = helper.getDiskCache();
+      if (isInMemory && diskCache instanceof WriteBehindDiskCache) {
+        ((WriteBehindDiskCache) diskCache).enqueue(originalKey, writer, /*onComplete=*/ null);
+        isQueued = true;
+      } else {
+        diskCache.put(originalKey, writer);
+      }
       if (Log.isLoggable(TAG, Log.VERBOSE)) {
-        Log.v(TAG, "Finished encoding source to cache"
+        Log.v(TAG, (isQueued ? "Queued source to be written to cache"
+            : "Finished encoding source to cache")
             + ", key: " + originalKey
             + ", data: " + dataToCache
             + ", encoder: " + encoder
@@ -88,8 +117,12 @@ class SourceGenerator implements DataFetcherGenerator,
       loadData.fetcher.cleanup();
     }
 
-    sourceCacheGenerator =
-        new DataCacheGenerator(Collections.singletonList(loadData.sourceKey), helper, this);
+    if (isInMemory) {
+      cachedDataToDecode = dataToCache;
+    } else {
+      sourceCacheGenerator =
+          new DataCacheGenerator(Collections.singletonList(loadData.sourceKey), helper, this);
+    }
   }
 
   @Override
@@ -0,0 +1,104 @@
+package com.bumptech.glide.load.engine.bitmap_recycle;
+
+import android.support.annotation.NonNull;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread safe hit, miss, put and eviction counters for a {@link BitmapPool}.
+ *
+ * <p>Every call to {@link BitmapPool#get(int, int, android.graphics.Bitmap.Config)} or
+ * {@link BitmapPool#getDirty(int, int, android.graphics.Bitmap.Config)} records either a hit or a
+ * miss. Misses allocate a new {@link android.graphics.Bitmap}, so the miss count is a reasonable
+ * proxy for the number of allocations the pool failed to avoid.
+ */
+public final class BitmapPoolStats {
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+  private final AtomicLong putCount = new AtomicLong();
+  private final AtomicLong evictionCount = new AtomicLong();
+
+  void recordGet(boolean isHit) {
+    if (isHit) {
+      hitCount.incrementAndGet();
+    } else {
+      missCount.incrementAndGet();
+    }
+  }
+
+  void recordPut() {
+    putCount.incrementAndGet();
+  }
+
+  void recordEviction() {
+    evictionCount.incrementAndGet();
+  }
+
+  /**
+   * Returns the number of gets that were satisfied by a pooled {@link android.graphics.Bitmap}.
+   */
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  /**
+   * Returns the number of gets that couldn't be satisfied by a pooled
+   * {@link android.graphics.Bitmap}.
+   */
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  /**
+   * Returns the number of {@link android.graphics.Bitmap}s added to the pool, not including those
+   * that were rejected.
+   */
+  public long getPutCount() {
+    return putCount.get();
+  }
+
+  /**
+   * Returns the number of {@link android.graphics.Bitmap}s recycled to keep the pool under its
+   * maximum size.
+   */
+  public long getEvictionCount() {
+    return evictionCount.get();
+  }
+
+  /**
+   * Returns the ratio of hits to gets, or {@code 0} if there haven't been any gets.
+   */
+  public double getHitRate() {
+    long hits = hitCount.get();
+    long gets = hits + missCount.get();
+    return gets == 0 ? 0 : hits / (double) gets;
+  }
+
+  /**
+   * Resets all counters to zero.
+   */
+  public void reset() {
+    hitCount.set(0);
+    missCount.set(0);
+    putCount.set(0);
+    evictionCount.set(0);
+  }
+
+  @Override
+  public String toString() {
+    return "BitmapPoolStats{"
+        + "hitCount=" + hitCount
+        + ", missCount=" + missCount
+        + ", putCount=" + putCount
+        + ", evictionCount=" + evictionCount
+        + ", hitRate=" + getHitRate()
+        + '}';
+  }
+
+  /**
+   * Implemented by {@link BitmapPool}s that record {@link BitmapPoolStats}.
+   */
+  public interface Provider {
+    @NonNull
+    BitmapPoolStats getStats();
+  }
+}
@@ -31,12 +31,13 @@ public final class LruArrayPool implements ArrayPool {
   private final KeyPool keyPool = new KeyPool();
   private final Map<Class<?>, NavigableMap<Integer, Integer>> sortedSizes = new HashMap<>();
   private final Map<Class<?>, ArrayAdapterInterface<?>> adapters = new HashMap<>();
-  private final int maxSize;
+  private final int initialMaxSize;
+  private int maxSize;
   private int currentSize;
 
   @VisibleForTesting
   public LruArrayPool() {
-    maxSize = DEFAULT_SIZE;
+    this(DEFAULT_SIZE);
   }
 
   /**
@@ -45,9 +46,24 @@ public final class LruArrayPool implements ArrayPool {
    * @param maxSize The maximum size in integers of the pool.
    */
   public LruArrayPool(int maxSize) {
+    this.initialMaxSize = maxSize;
     this.maxSize = maxSize;
   }
 
+  /**
+   * Multiplies the initial size of the pool by the given multiplier to dynamically and
+   * synchronously allow users to adjust the size of the pool.
+   *
+   * @param sizeMultiplier The size multiplier to apply, must be >= 0.
+   */
+  public synchronized void setSizeMultiplier(float sizeMultiplier) {
+    if (sizeMultiplier < 0) {
+      throw new IllegalArgumentException("Multiplier must be >= 0");
+    }
+    maxSize = Math.round(initialMaxSize * sizeMultiplier);
+    evict();
+  }
+
   @Deprecated
   @Override
   public <T> void put(T array, Class<T> arrayClass) {
@@ -20,7 +20,7 @@ import java.util.Set;
  * and then uses an LRU eviction policy to evict {@link android.graphics.Bitmap}s from the least
  * recently used bucket in order to keep the pool below a given maximum size limit.
  */
-public class LruBitmapPool implements BitmapPool {
+public class LruBitmapPool implements BitmapPool, BitmapPoolStats.Provider {
   private static final String TAG = "LruBitmapPool";
   private static final Bitmap.Config DEFAULT_CONFIG = Bitmap.Config.ARGB_8888;
 
@@ -28,13 +28,10 @@ public class LruBitmapPool implements BitmapPool {
   private final Set<Bitmap.Config> allowedConfigs;
   private final long initialMaxSize;
   private final BitmapTracker tracker;
+  private final BitmapPoolStats stats = new BitmapPoolStats();
 
   private long maxSize;
   private long currentSize;
-  private int hits;
-  private int misses;
-  private int puts;
-  private int evictions;
 
   // Exposed for testing only.
   LruBitmapPool(long maxSize, LruPoolStrategy strategy, Set<Bitmap.Config> allowedConfigs) {
@@ -73,6 +70,15 @@ public class LruBitmapPool implements BitmapPool {
     return maxSize;
   }
 
+  /**
+   * Returns the hit, miss, put and eviction counters for this pool.
+   */
+  @NonNull
+  @Override
+  public BitmapPoolStats getStats() {
+    return stats;
+  }
+
   @Override
   public synchronized void setSizeMultiplier(float sizeMultiplier) {
     maxSize = Math.round(initialMaxSize * sizeMultiplier);
@@ -103,7 +109,7 @@ public class LruBitmapPool implements BitmapPool {
     strategy.put(bitmap);
     tracker.add(bitmap);
 
-    puts++;
+    stats.recordPut();
     currentSize += size;
 
     if (Log.isLoggable(TAG, Log.VERBOSE)) {
@@ -174,9 +180,9 @@ public class LruBitmapPool implements BitmapPool {
       if (Log.isLoggable(TAG, Log.DEBUG)) {
         Log.d(TAG, "Missing bitmap=" + strategy.logBitmap(width, height, config));
       }
-      misses++;
+      stats.recordGet(false);
     } else {
-      hits++;
+      stats.recordGet(true);
       currentSize -= strategy.getSize(result);
       tracker.remove(result);
       normalize(result);
@@ -238,7 +244,7 @@ public class LruBitmapPool implements BitmapPool {
       }
       tracker.remove(removed);
       currentSize -= strategy.getSize(removed);
-      evictions++;
+      stats.recordEviction();
       if (Log.isLoggable(TAG, Log.DEBUG)) {
         Log.d(TAG, "Evicting bitmap=" + strategy.logBitmap(removed));
       }
@@ -254,7 +260,8 @@ public class LruBitmapPool implements BitmapPool {
   }
 
   private void dumpUnchecked() {
-    Log.v(TAG, "Hits=" + hits + ", misses=" + misses + ", puts=" + puts + ", evictions=" + evictions
+    Log.v(TAG, "Hits=" + stats.getHitCount() + ", misses=" + stats.getMissCount()
+        + ", puts=" + stats.getPutCount() + ", evictions=" + stats.getEvictionCount()
         + ", currentSize=" + currentSize + ", maxSize=" + maxSize + "\nStrategy=" + strategy);
   }
 
@@ -269,7 +276,7 @@ public class LruBitmapPool implements BitmapPool {
   }
 
   @TargetApi(Build.VERSION_CODES.O)
-  private static Set<Bitmap.Config> getDefaultAllowedConfigs() {
+  static Set<Bitmap.Config> getDefaultAllowedConfigs() {
     Set<Bitmap.Config> configs = new HashSet<>(Arrays.asList(Bitmap.Config.values()));
     if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
       // GIFs, among other types, end up with a native Bitmap config that doesn't map to a java
@@ -0,0 +1,424 @@
+package com.bumptech.glide.load.engine.bitmap_recycle;
+
+import android.annotation.SuppressLint;
+import android.annotation.TargetApi;
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.os.Build;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+import com.bumptech.glide.util.Synthetic;
+import com.bumptech.glide.util.Util;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link BitmapPool} that splits {@link Bitmap}s into buckets by config and by power of two byte
+ * size class, each with its own lock, so that threads getting and putting different sizes or
+ * configs don't contend with each other.
+ *
+ * <p>Reuse follows the same rules as {@link SizeConfigStrategy}. A pooled {@link Bitmap} may be
+ * returned if its config is compatible with the requested config and its size is between the
+ * requested size and {@link SizeConfigStrategy#MAX_SIZE_MULTIPLE} times the requested size. Prior
+ * to KitKat {@link Bitmap}s can't be reconfigured, so they're only reused for requests with the
+ * same dimensions and config, as in {@link AttributeStrategy}.
+ *
+ * <p>The number of {@link Bitmap}s in each bucket and the age of its oldest {@link Bitmap} can be
+ * read without taking the bucket's lock, so gets skip empty buckets and eviction picks the bucket
+ * holding the least recently added {@link Bitmap} without locking every bucket. Only eviction is
+ * serialized across the pool, and it only runs once the pool is over its maximum size.
+ */
+public class ShardedBitmapPool implements BitmapPool, BitmapPoolStats.Provider {
+  private static final String TAG = "ShardedBitmapPool";
+  private static final Bitmap.Config DEFAULT_CONFIG = Bitmap.Config.ARGB_8888;
+  private static final Bitmap.Config[] CONFIGS = Bitmap.Config.values();
+  private static final int NUM_SIZE_CLASSES = Integer.SIZE;
+
+  // Indexed by getBucketIndex(Bitmap.Config, int).
+  private final Bucket[] buckets = new Bucket[(CONFIGS.length + 1) * NUM_SIZE_CLASSES];
+  private final Set<Bitmap.Config> allowedConfigs;
+  private final long initialMaxSize;
+  private final BitmapPoolStats stats = new BitmapPoolStats();
+  private final AtomicLong currentSize = new AtomicLong();
+  private final AtomicLong putSequence = new AtomicLong();
+  private final Object evictionLock = new Object();
+
+  private volatile long maxSize;
+
+  /**
+   * Constructor for ShardedBitmapPool.
+   *
+   * @param maxSize The initial maximum size of the pool in bytes.
+   */
+  public ShardedBitmapPool(long maxSize) {
+    this(maxSize, LruBitmapPool.getDefaultAllowedConfigs());
+  }
+
+  /**
+   * Constructor for ShardedBitmapPool.
+   *
+   * @param maxSize        The initial maximum size of the pool in bytes.
+   * @param allowedConfigs A white listed set of {@link android.graphics.Bitmap.Config} that are
+   *                       allowed to be put into the pool. Configs not in the allowed set will be
+   *                       rejected.
+   */
+  public ShardedBitmapPool(long maxSize, Set<Bitmap.Config> allowedConfigs) {
+    this.initialMaxSize = maxSize;
+    this.maxSize = maxSize;
+    this.allowedConfigs = allowedConfigs;
+    for (int i = 0; i < buckets.length; i++) {
+      buckets[i] = new Bucket();
+    }
+  }
+
+  @Override
+  public long getMaxSize() {
+    return maxSize;
+  }
+
+  /**
+   * Returns the number of bytes currently held by the pool.
+   */
+  public long getCurrentSize() {
+    return currentSize.get();
+  }
+
+  /**
+   * Returns the hit, miss, put and eviction counters for this pool.
+   */
+  @NonNull
+  @Override
+  public BitmapPoolStats getStats() {
+    return stats;
+  }
+
+  @Override
+  public void setSizeMultiplier(float sizeMultiplier) {
+    maxSize = Math.round(initialMaxSize * sizeMultiplier);
+    trimToSize(maxSize);
+  }
+
+  @Override
+  public void put(Bitmap bitmap) {
+    if (bitmap == null) {
+      throw new NullPointerException("Bitmap must not be null");
+    }
+    if (bitmap.isRecycled()) {
+      throw new IllegalStateException("Cannot pool recycled bitmap");
+    }
+    int size = Util.getBitmapByteSize(bitmap);
+    if (!bitmap.isMutable() || size > maxSize || !allowedConfigs.contains(bitmap.getConfig())) {
+      if (Log.isLoggable(TAG, Log.VERBOSE)) {
+        Log.v(TAG, "Reject bitmap from pool"
+                + ", bitmap: " + getBitmapString(size, bitmap.getConfig())
+                + ", is mutable: " + bitmap.isMutable()
+                + ", is allowed config: " + allowedConfigs.contains(bitmap.getConfig()));
+      }
+      bitmap.recycle();
+      return;
+    }
+
+    Entry entry = new Entry(bitmap, size, putSequence.incrementAndGet());
+    buckets[getBucketIndex(bitmap.getConfig(), getSizeClass(size))].add(entry);
+    stats.recordPut();
+    if (Log.isLoggable(TAG, Log.VERBOSE)) {
+      Log.v(TAG, "Put bitmap in pool=" + getBitmapString(size, bitmap.getConfig()));
+    }
+
+    if (currentSize.addAndGet(size) > maxSize) {
+      trimToSize(maxSize);
+    }
+  }
+
+  @Override
+  @NonNull
+  public Bitmap get(int width, int height, Bitmap.Config config) {
+    Bitmap result = getDirtyOrNull(width, height, config);
+    if (result != null) {
+      // Bitmaps in the pool contain random data that in some cases must be cleared for an image
+      // to be rendered correctly, see LruBitmapPool#get.
+      result.eraseColor(Color.TRANSPARENT);
+    } else {
+      result = createBitmap(width, height, config);
+    }
+    return result;
+  }
+
+  @NonNull
+  @Override
+  public Bitmap getDirty(int width, int height, Bitmap.Config config) {
+    Bitmap result = getDirtyOrNull(width, height, config);
+    if (result == null) {
+      result = createBitmap(width, height, config);
+    }
+    return result;
+  }
+
+  @NonNull
+  private static Bitmap createBitmap(int width, int height, @Nullable Bitmap.Config config) {
+    return Bitmap.createBitmap(width, height, config != null ? config : DEFAULT_CONFIG);
+  }
+
+  @TargetApi(Build.VERSION_CODES.O)
+  private static void assertNotHardwareConfig(Bitmap.Config config) {
+    // Avoid short circuiting on sdk int since it breaks on some versions of Android.
+    if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) {
+      return;
+    }
+
+    if (config == Bitmap.Config.HARDWARE) {
+      throw new IllegalArgumentException("Cannot create a mutable Bitmap with config: " + config
+          + ". Consider setting Downsampler#ALLOW_HARDWARE_CONFIG to false in your RequestOptions"
+          + " and/or in GlideBuilder.setDefaultRequestOptions");
+    }
+  }
+
+  @Nullable
+  private Bitmap getDirtyOrNull(int width, int height, @Nullable Bitmap.Config config) {
+    assertNotHardwareConfig(config);
+    // Config will be null for non public config types, see LruBitmapPool#getDirtyOrNull.
+    Bitmap.Config requestedConfig = config != null ? config : DEFAULT_CONFIG;
+    int size = Util.getBitmapByteSize(width, height, requestedConfig);
+
+    Entry entry;
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+      entry = removeReconfigurable(size, requestedConfig);
+    } else {
+      entry = buckets[getBucketIndex(requestedConfig, getSizeClass(size))]
+          .removeExact(width, height, requestedConfig);
+    }
+
+    if (entry == null) {
+      if (Log.isLoggable(TAG, Log.DEBUG)) {
+        Log.d(TAG, "Missing bitmap=" + getBitmapString(size, requestedConfig));
+      }
+      stats.recordGet(false);
+      return null;
+    }
+
+    stats.recordGet(true);
+    currentSize.addAndGet(-entry.size);
+    Bitmap result = entry.bitmap;
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+      reconfigure(result, width, height);
+    }
+    normalize(result);
+    return result;
+  }
+
+  @Nullable
+  private Entry removeReconfigurable(int size, Bitmap.Config config) {
+    long maxAcceptableSize = (long) size * SizeConfigStrategy.MAX_SIZE_MULTIPLE;
+    int minSizeClass = getSizeClass(size);
+    int maxSizeClass = getSizeClass((int) Math.min(maxAcceptableSize, Integer.MAX_VALUE));
+    for (Bitmap.Config possibleConfig : SizeConfigStrategy.getInConfigs(config)) {
+      for (int sizeClass = minSizeClass; sizeClass <= maxSizeClass; sizeClass++) {
+        Bucket bucket = buckets[getBucketIndex(possibleConfig, sizeClass)];
+        if (bucket.isEmpty()) {
+          continue;
+        }
+        Entry entry = bucket.removeInRange(size, maxAcceptableSize);
+        if (entry != null) {
+          return entry;
+        }
+      }
+    }
+    return null;
+  }
+
+  @TargetApi(Build.VERSION_CODES.KITKAT)
+  private static void reconfigure(Bitmap bitmap, int width, int height) {
+    bitmap.reconfigure(width, height,
+        bitmap.getConfig() != null ? bitmap.getConfig() : Bitmap.Config.ARGB_8888);
+  }
+
+  // Setting these two values provides Bitmaps that are essentially equivalent to those returned
+  // from Bitmap.createBitmap.
+  private static void normalize(Bitmap bitmap) {
+    bitmap.setHasAlpha(true);
+    maybeSetPreMultiplied(bitmap);
+  }
+
+  @TargetApi(Build.VERSION_CODES.KITKAT)
+  private static void maybeSetPreMultiplied(Bitmap bitmap) {
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+      bitmap.setPremultiplied(true);
+    }
+  }
+
+  @Override
+  public void clearMemory() {
+    if (Log.isLoggable(TAG, Log.DEBUG)) {
+      Log.d(TAG, "clearMemory");
+    }
+    trimToSize(0);
+  }
+
+  @SuppressLint("InlinedApi")
+  @Override
+  public void trimMemory(int level) {
+    if (Log.isLoggable(TAG, Log.DEBUG)) {
+      Log.d(TAG, "trimMemory, level=" + level);
+    }
+    if (level >= android.content.ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+      clearMemory();
+    } else if (level >= android.content.ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+      trimToSize(maxSize / 2);
+    }
+  }
+
+  private void trimToSize(long size) {
+    synchronized (evictionLock) {
+      while (currentSize.get() > size) {
+        Bucket oldest = null;
+        long oldestSequence = Long.MAX_VALUE;
+        for (Bucket bucket : buckets) {
+          long sequence = bucket.getOldestSequence();
+          if (sequence < oldestSequence) {
+            oldest = bucket;
+            oldestSequence = sequence;
+          }
+        }
+        if (oldest == null) {
+          // A concurrent put has counted its Bitmap but not yet added it, or a concurrent get has
+          // removed a Bitmap but not yet subtracted it, either way there's nothing to evict.
+          return;
+        }
+        Entry removed = oldest.removeOldest();
+        if (removed == null) {
+          continue;
+        }
+        currentSize.addAndGet(-removed.size);
+        stats.recordEviction();
+        if (Log.isLoggable(TAG, Log.DEBUG)) {
+          Log.d(TAG, "Evicting bitmap="
+              + getBitmapString(removed.size, removed.bitmap.getConfig()));
+        }
+        removed.bitmap.recycle();
+      }
+    }
+  }
+
+  private static int getBucketIndex(@Nullable Bitmap.Config config, int sizeClass) {
+    int configIndex = config == null ? 0 : config.ordinal() + 1;
+    return configIndex * NUM_SIZE_CLASSES + sizeClass;
+  }
+
+  private static int getSizeClass(int size) {
+    return size <= 0 ? 0 : Integer.SIZE - 1 - Integer.numberOfLeadingZeros(size);
+  }
+
+  private static String getBitmapString(int size, @Nullable Bitmap.Config config) {
+    return SizeConfigStrategy.getBitmapString(size, config);
+  }
+
+  @Override
+  public String toString() {
+    return "ShardedBitmapPool{"
+        + "currentSize=" + currentSize
+        + ", maxSize=" + maxSize
+        + ", stats=" + stats
+        + '}';
+  }
+
+  private static final class Entry {
+    @Synthetic final Bitmap bitmap;
+    @Synthetic final int size;
+    @Synthetic final long sequence;
+    @Synthetic Entry previous;
+    @Synthetic Entry next;
+
+    @Synthetic
+    Entry(Bitmap bitmap, int size, long sequence) {
+      this.bitmap = bitmap;
+      this.size = size;
+      this.sequence = sequence;
+    }
+  }
+
+  /**
+   * The {@link Bitmap}s of one config in one size class, most recently added first.
+   */
+  private static final class Bucket {
+    // Guarded by this.
+    private Entry newest;
+    private Entry oldest;
+    // Written while holding the lock, but read without it.
+    private volatile int count;
+    private volatile long oldestSequence = Long.MAX_VALUE;
+
+    @Synthetic
+    Bucket() { }
+
+    boolean isEmpty() {
+      return count == 0;
+    }
+
+    long getOldestSequence() {
+      return oldestSequence;
+    }
+
+    synchronized void add(Entry entry) {
+      entry.next = newest;
+      if (newest != null) {
+        newest.previous = entry;
+      } else {
+        oldest = entry;
+        oldestSequence = entry.sequence;
+      }
+      newest = entry;
+      count++;
+    }
+
+    @Nullable
+    synchronized Entry removeInRange(int minSize, long maxSize) {
+      for (Entry entry = newest; entry != null; entry = entry.next) {
+        if (entry.size >= minSize && entry.size <= maxSize) {
+          remove(entry);
+          return entry;
+        }
+      }
+      return null;
+    }
+
+    @Nullable
+    synchronized Entry removeExact(int width, int height, Bitmap.Config config) {
+      for (Entry entry = newest; entry != null; entry = entry.next) {
+        Bitmap bitmap = entry.bitmap;
+        if (bitmap.getWidth() == width && bitmap.getHeight() == height
+            && bitmap.getConfig() == config) {
+          remove(entry);
+          return entry;
+        }
+      }
+      return null;
+    }
+
+    @Nullable
+    synchronized Entry removeOldest() {
+      Entry entry = oldest;
+      if (entry != null) {
+        remove(entry);
+      }
+      return entry;
+    }
+
+    private void remove(Entry entry) {
+      if (entry.previous != null) {
+        entry.previous.next = entry.next;
+      } else {
+        newest = entry.next;
+      }
+      if (entry.next != null) {
+        entry.next.previous = entry.previous;
+      } else {
+        oldest = entry.previous;
+      }
+      entry.previous = null;
+      entry.next = null;
+      count--;
+      oldestSequence = oldest != null ? oldest.sequence : Long.MAX_VALUE;
+    }
+  }
+}
@@ -0,0 +1,492 @@
+package com.bumptech.glide.load.engine.bitmap_recycle;
+
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.util.Log;
+import com.bumptech.glide.util.Synthetic;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A fixed size Array Pool that groups arrays into power of two size classes and keeps a few
+ * arrays per thread so that most gets and puts don't contend on a shared lock.
+ *
+ * <p>An array of length {@code n} is kept in size class {@code floor(log2(n))}, so every array in
+ * size class {@code ceil(log2(size))} can satisfy {@link #get(int, Class)}. Arrays allocated by
+ * {@link #get(int, Class)} are rounded up to the next power of two when they're small enough to
+ * be pooled, so that once they're returned they can satisfy the same request again.
+ *
+ * <p>Each thread has a small magazine of arrays of up to {@link #STANDARD_BUFFER_SIZE_BYTES} that
+ * it has returned. Gets and puts try the calling thread's magazine first and only lock the shared
+ * free lists if it's empty or full. Arrays in magazines count towards the maximum size of the pool
+ * and are moved back to the shared free lists when the pool needs to evict them.
+ *
+ * <p>When the pool is too large, arrays are evicted from the size class that holds the most bytes,
+ * oldest first. Use {@link com.bumptech.glide.GlideBuilder#setArrayPool(ArrayPool)} to use this
+ * pool instead of {@link LruArrayPool}.
+ */
+public final class SizeClassArrayPool implements ArrayPool {
+  // 4MB.
+  private static final int DEFAULT_SIZE = 4 * 1024 * 1024;
+  /** Used to calculate the maximum % of the total pool size a single array may consume. */
+  private static final int SINGLE_ARRAY_MAX_SIZE_DIVISOR = 2;
+  /**
+   * The maximum number of size classes larger than the requested size an array may be in to be
+   * eligible to be returned from the pool, arrays may be up to 8 times larger than requested.
+   */
+  private static final int MAX_OVER_SIZE_CLASSES = 3;
+  /** The maximum number of arrays each thread keeps per size class. */
+  @VisibleForTesting
+  static final int MAGAZINE_CAPACITY = 2;
+  private static final int MAX_MAGAZINE_ARRAY_BYTES = STANDARD_BUFFER_SIZE_BYTES;
+  private static final int NUM_SIZE_CLASSES = Integer.SIZE;
+  private static final int BYTE_ARRAY = 0;
+  private static final int INT_ARRAY = 1;
+  private static final int NUM_ARRAY_TYPES = 2;
+
+  private final ArrayAdapterInterface<?>[] adapters =
+      new ArrayAdapterInterface<?>[] { new ByteArrayAdapter(), new IntegerArrayAdapter() };
+  private final int initialMaxSize;
+  private volatile int maxSize;
+  // Updated while holding the lock of whichever free list or magazine holds the array.
+  private final AtomicInteger currentSize = new AtomicInteger();
+  // Guarded by this, indexed by getIndex(int, int).
+  private final FreeList[] freeLists = new FreeList[NUM_ARRAY_TYPES * NUM_SIZE_CLASSES];
+  // Guarded by this.
+  private final List<Magazine> magazines = new ArrayList<>();
+  private final ThreadLocal<Magazine> threadMagazine = new ThreadLocal<Magazine>() {
+    @Override
+    protected Magazine initialValue() {
+      return registerMagazine();
+    }
+  };
+
+  public SizeClassArrayPool() {
+    this(DEFAULT_SIZE);
+  }
+
+  /**
+   * Constructor for a new pool.
+   *
+   * @param maxSize The maximum size in bytes of the pool.
+   */
+  public SizeClassArrayPool(int maxSize) {
+    this.initialMaxSize = maxSize;
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * Multiplies the initial size of the pool by the given multiplier to dynamically and
+   * synchronously allow users to adjust the size of the pool.
+   *
+   * @param sizeMultiplier The size multiplier to apply, must be >= 0.
+   */
+  public synchronized void setSizeMultiplier(float sizeMultiplier) {
+    if (sizeMultiplier < 0) {
+      throw new IllegalArgumentException("Multiplier must be >= 0");
+    }
+    maxSize = Math.round(initialMaxSize * sizeMultiplier);
+    evictToSize(maxSize);
+  }
+
+  @Deprecated
+  @Override
+  public <T> void put(T array, Class<T> arrayClass) {
+    put(array);
+  }
+
+  @Override
+  public <T> void put(T array) {
+    int type = getArrayType(array.getClass());
+    int length = getAdapter(type).getArrayLength(array);
+    int arrayBytes = getByteSize(type, array);
+    if (length == 0 || !isSmallEnoughForReuse(arrayBytes)) {
+      return;
+    }
+    int index = getIndex(type, getFloorSizeClass(length));
+    if (arrayBytes <= MAX_MAGAZINE_ARRAY_BYTES
+        && threadMagazine.get().offer(index, array, arrayBytes)) {
+      if (currentSize.get() > maxSize) {
+        synchronized (this) {
+          evictToSize(maxSize);
+        }
+      }
+      return;
+    }
+
+    synchronized (this) {
+      getFreeList(index).push(array, arrayBytes);
+      currentSize.addAndGet(arrayBytes);
+      evictToSize(maxSize);
+    }
+  }
+
+  @Override
+  public <T> T getExact(int size, Class<T> arrayClass) {
+    int type = getArrayType(arrayClass);
+    Object result = null;
+    if (size > 0) {
+      int index = getIndex(type, getFloorSizeClass(size));
+      result = threadMagazine.get().pollExact(index, size);
+      if (result == null) {
+        synchronized (this) {
+          FreeList freeList = freeLists[index];
+          if (freeList != null) {
+            result = freeList.removeExact(size);
+          }
+          if (result != null) {
+            currentSize.addAndGet(-getByteSize(type, result));
+          }
+        }
+      }
+    }
+    if (result == null) {
+      result = allocate(type, size);
+    }
+    return castArray(result);
+  }
+
+  @Override
+  public <T> T get(int size, Class<T> arrayClass) {
+    int type = getArrayType(arrayClass);
+    int sizeClass = getCeilingSizeClass(size);
+    Object result = threadMagazine.get().poll(getIndex(type, sizeClass));
+    if (result == null) {
+      synchronized (this) {
+        result = pollFreeLists(type, sizeClass);
+      }
+    }
+    if (result == null) {
+      result = allocate(type, getAllocationSize(type, size, sizeClass));
+    }
+    return castArray(result);
+  }
+
+  @Nullable
+  private Object pollFreeLists(int type, int sizeClass) {
+    for (int i = sizeClass; i < NUM_SIZE_CLASSES; i++) {
+      if (i > sizeClass + MAX_OVER_SIZE_CLASSES && !isNoMoreThanHalfFull()) {
+        break;
+      }
+      FreeList freeList = freeLists[getIndex(type, i)];
+      if (freeList != null && !freeList.isEmpty()) {
+        Object result = freeList.pop();
+        currentSize.addAndGet(-getByteSize(type, result));
+        return result;
+      }
+    }
+    return null;
+  }
+
+  private int getAllocationSize(int type, int size, int sizeClass) {
+    if (sizeClass >= Integer.SIZE - 1) {
+      return size;
+    }
+    int roundedSize = 1 << sizeClass;
+    long roundedBytes = (long) roundedSize * getAdapter(type).getElementSizeInBytes();
+    return roundedBytes <= maxSize / SINGLE_ARRAY_MAX_SIZE_DIVISOR ? roundedSize : size;
+  }
+
+  private Object allocate(int type, int size) {
+    ArrayAdapterInterface<?> adapter = getAdapter(type);
+    if (Log.isLoggable(adapter.getTag(), Log.VERBOSE)) {
+      Log.v(adapter.getTag(), "Allocated " + size + " bytes");
+    }
+    return adapter.newArray(size);
+  }
+
+  private boolean isSmallEnoughForReuse(int byteSize) {
+    return byteSize <= maxSize / SINGLE_ARRAY_MAX_SIZE_DIVISOR;
+  }
+
+  private boolean isNoMoreThanHalfFull() {
+    int currentSize = this.currentSize.get();
+    return currentSize <= 0 || (maxSize / currentSize >= 2);
+  }
+
+  @Override
+  public synchronized void clearMemory() {
+    evictToSize(0);
+  }
+
+  @Override
+  public synchronized void trimMemory(int level) {
+    if (level >= android.content.ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+      clearMemory();
+    } else if (level >= android.content.ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+      evictToSize(maxSize / 2);
+    }
+  }
+
+  // Must be called while holding the lock on this.
+  private void evictToSize(int size) {
+    while (currentSize.get() > size) {
+      int index = getLargestFreeList();
+      if (index == -1) {
+        // Everything left is in magazines, move it somewhere we can evict it from.
+        if (!drainMagazines()) {
+          break;
+        }
+        continue;
+      }
+      int type = index / NUM_SIZE_CLASSES;
+      Object evicted = freeLists[index].removeOldest();
+      currentSize.addAndGet(-getByteSize(type, evicted));
+      ArrayAdapterInterface<?> adapter = getAdapter(type);
+      if (Log.isLoggable(adapter.getTag(), Log.VERBOSE)) {
+        Log.v(adapter.getTag(), "evicted: " + getLength(type, evicted));
+      }
+    }
+  }
+
+  private int getLargestFreeList() {
+    int largestIndex = -1;
+    int largestBytes = 0;
+    for (int i = 0; i < freeLists.length; i++) {
+      FreeList freeList = freeLists[i];
+      if (freeList != null && freeList.getByteSize() > largestBytes) {
+        largestIndex = i;
+        largestBytes = freeList.getByteSize();
+      }
+    }
+    return largestIndex;
+  }
+
+  /**
+   * Moves the arrays in every thread's magazine to the shared free lists and returns {@code true}
+   * if there were any.
+   */
+  @VisibleForTesting
+  synchronized boolean drainMagazines() {
+    boolean drainedAny = false;
+    for (Magazine magazine : magazines) {
+      drainedAny |= magazine.drain();
+    }
+    return drainedAny;
+  }
+
+  @Synthetic
+  synchronized Magazine registerMagazine() {
+    // Threads that have died can't use their magazines again, so recycle their arrays.
+    Iterator<Magazine> iterator = magazines.iterator();
+    while (iterator.hasNext()) {
+      Magazine magazine = iterator.next();
+      if (magazine.isOwnerDead()) {
+        magazine.drain();
+        iterator.remove();
+      }
+    }
+    Magazine magazine = new Magazine(Thread.currentThread());
+    magazines.add(magazine);
+    return magazine;
+  }
+
+  @Synthetic
+  FreeList getFreeList(int index) {
+    FreeList freeList = freeLists[index];
+    if (freeList == null) {
+      freeList = new FreeList(this, index / NUM_SIZE_CLASSES);
+      freeLists[index] = freeList;
+    }
+    return freeList;
+  }
+
+  private static int getArrayType(Class<?> arrayClass) {
+    if (arrayClass.equals(byte[].class)) {
+      return BYTE_ARRAY;
+    } else if (arrayClass.equals(int[].class)) {
+      return INT_ARRAY;
+    } else {
+      throw new IllegalArgumentException("No array pool found for: "
+          + arrayClass.getSimpleName());
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private ArrayAdapterInterface<Object> getAdapter(int type) {
+    return (ArrayAdapterInterface<Object>) adapters[type];
+  }
+
+  @Synthetic
+  int getLength(int type, Object array) {
+    return getAdapter(type).getArrayLength(array);
+  }
+
+  @Synthetic
+  int getByteSize(int type, Object array) {
+    ArrayAdapterInterface<Object> adapter = getAdapter(type);
+    return adapter.getArrayLength(array) * adapter.getElementSizeInBytes();
+  }
+
+  // Our cast is safe because the array type is based on the requested class.
+  @SuppressWarnings({"unchecked", "TypeParameterUnusedInFormals"})
+  private static <T> T castArray(Object array) {
+    return (T) array;
+  }
+
+  private static int getIndex(int type, int sizeClass) {
+    return type * NUM_SIZE_CLASSES + sizeClass;
+  }
+
+  private static int getFloorSizeClass(int length) {
+    return Integer.SIZE - 1 - Integer.numberOfLeadingZeros(length);
+  }
+
+  private static int getCeilingSizeClass(int size) {
+    return size <= 1 ? 0 : Integer.SIZE - Integer.numberOfLeadingZeros(size - 1);
+  }
+
+  @VisibleForTesting
+  int getCurrentSize() {
+    return currentSize.get();
+  }
+
+  /**
+   * The arrays of one type in one size class, oldest first.
+   */
+  private static final class FreeList {
+    private final SizeClassArrayPool pool;
+    private final int type;
+    private Object[] arrays = new Object[4];
+    private int count;
+    private int byteSize;
+
+    @Synthetic
+    FreeList(SizeClassArrayPool pool, int type) {
+      this.pool = pool;
+      this.type = type;
+    }
+
+    boolean isEmpty() {
+      return count == 0;
+    }
+
+    int getByteSize() {
+      return byteSize;
+    }
+
+    void push(Object array, int arrayBytes) {
+      if (count == arrays.length) {
+        Object[] grown = new Object[arrays.length * 2];
+        System.arraycopy(arrays, 0, grown, 0, count);
+        arrays = grown;
+      }
+      arrays[count++] = array;
+      byteSize += arrayBytes;
+    }
+
+    Object pop() {
+      return remove(count - 1);
+    }
+
+    Object removeOldest() {
+      return remove(0);
+    }
+
+    @Nullable
+    Object removeExact(int length) {
+      for (int i = count - 1; i >= 0; i--) {
+        if (pool.getLength(type, arrays[i]) == length) {
+          return remove(i);
+        }
+      }
+      return null;
+    }
+
+    private Object remove(int position) {
+      Object result = arrays[position];
+      count--;
+      System.arraycopy(arrays, position + 1, arrays, position, count - position);
+      arrays[count] = null;
+      byteSize -= pool.getByteSize(type, result);
+      return result;
+    }
+  }
+
+  /**
+   * The arrays returned by one thread, up to {@link #MAGAZINE_CAPACITY} per size class.
+   *
+   * <p>Only the owning thread adds or removes arrays, other threads only drain magazines, so the
+   * lock is almost never contended.
+   */
+  private final class Magazine {
+    private final WeakReference<Thread> owner;
+    private final Object[][] arrays = new Object[NUM_ARRAY_TYPES * NUM_SIZE_CLASSES][];
+    private final int[] counts = new int[NUM_ARRAY_TYPES * NUM_SIZE_CLASSES];
+
+    @Synthetic
+    Magazine(Thread owner) {
+      this.owner = new WeakReference<>(owner);
+    }
+
+    synchronized boolean offer(int index, Object array, int arrayBytes) {
+      Object[] slots = arrays[index];
+      if (slots == null) {
+        slots = new Object[MAGAZINE_CAPACITY];
+        arrays[index] = slots;
+      }
+      if (counts[index] == MAGAZINE_CAPACITY) {
+        return false;
+      }
+      slots[counts[index]++] = array;
+      currentSize.addAndGet(arrayBytes);
+      return true;
+    }
+
+    @Nullable
+    synchronized Object poll(int index) {
+      if (counts[index] == 0) {
+        return null;
+      }
+      return remove(index, counts[index] - 1);
+    }
+
+    @Nullable
+    synchronized Object pollExact(int index, int length) {
+      int type = index / NUM_SIZE_CLASSES;
+      for (int i = counts[index] - 1; i >= 0; i--) {
+        if (getLength(type, arrays[index][i]) == length) {
+          return remove(index, i);
+        }
+      }
+      return null;
+    }
+
+    private Object remove(int index, int position) {
+      Object[] slots = arrays[index];
+      Object result = slots[position];
+      int count = --counts[index];
+      System.arraycopy(slots, position + 1, slots, position, count - position);
+      slots[count] = null;
+      currentSize.addAndGet(-getByteSize(index / NUM_SIZE_CLASSES, result));
+      return result;
+    }
+
+    /**
+     * Moves every array in this magazine to the pool's free lists and returns {@code true} if there
+     * were any. Must be called while holding the lock on the pool.
+     */
+    synchronized boolean drain() {
+      boolean drainedAny = false;
+      for (int index = 0; index < counts.length; index++) {
+        Object[] slots = arrays[index];
+        int type = index / NUM_SIZE_CLASSES;
+        for (int i = 0; i < counts[index]; i++) {
+          getFreeList(index).push(slots[i], getByteSize(type, slots[i]));
+          slots[i] = null;
+          drainedAny = true;
+        }
+        counts[index] = 0;
+      }
+      return drainedAny;
+    }
+
+    boolean isOwnerDead() {
+      Thread thread = owner.get();
+      return thread == null || !thread.isAlive();
+    }
+  }
+}
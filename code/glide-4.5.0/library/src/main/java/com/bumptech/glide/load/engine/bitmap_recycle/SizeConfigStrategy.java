@@ -25,7 +25,7 @@ import java.util.TreeMap;
  */
 @RequiresApi(Build.VERSION_CODES.KITKAT)
 public class SizeConfigStrategy implements LruPoolStrategy {
-  private static final int MAX_SIZE_MULTIPLE = 8;
+  static final int MAX_SIZE_MULTIPLE = 8;
   private static final Bitmap.Config[] ARGB_8888_IN_CONFIGS =
       new Bitmap.Config[] {
           Bitmap.Config.ARGB_8888,
@@ -231,7 +231,7 @@ public class SizeConfigStrategy implements LruPoolStrategy {
     return "[" + size + "](" + config + ")";
   }
 
-  private static Bitmap.Config[] getInConfigs(Bitmap.Config requested) {
+  static Bitmap.Config[] getInConfigs(Bitmap.Config requested) {
     switch (requested) {
       case ARGB_8888:
         return ARGB_8888_IN_CONFIGS;
@@ -0,0 +1,80 @@
+package com.bumptech.glide.load.engine.cache;
+
+import android.support.annotation.NonNull;
+
+/**
+ * The default {@link MemoryBudgetPolicy}, which shrinks every budget under memory pressure and
+ * otherwise moves memory from whichever of the memory cache and the bitmap pool has the lower hit
+ * rate to the other.
+ *
+ * <ul>
+ *   <li>Any allocation failure halves every multiplier.
+ *   <li>A heap more than {@link #HIGH_HEAP_USED_FRACTION} full reduces every multiplier by one
+ *       step.
+ *   <li>Otherwise, if both the memory cache and the bitmap pool have seen enough requests to
+ *       compare their hit rates and the rates differ by more than
+ *       {@link #MIN_HIT_RATE_DIFFERENCE}, one step moves from the lower to the higher.
+ *   <li>A heap less than {@link #LOW_HEAP_USED_FRACTION} full lets multipliers that were reduced
+ *       under pressure grow back by one step at a time, up to 1.
+ * </ul>
+ *
+ * <p>Multipliers never go below {@link #MIN_MULTIPLIER} or above {@link #MAX_MULTIPLIER}.
+ */
+public final class AdaptiveMemoryBudgetPolicy implements MemoryBudgetPolicy {
+  static final float MIN_MULTIPLIER = 0.25f;
+  static final float MAX_MULTIPLIER = 1.5f;
+  static final float STEP = 0.1f;
+  static final float HIGH_HEAP_USED_FRACTION = 0.85f;
+  static final float LOW_HEAP_USED_FRACTION = 0.6f;
+  static final double MIN_HIT_RATE_DIFFERENCE = 0.1;
+  static final int MIN_REQUESTS = 20;
+
+  @NonNull
+  @Override
+  public MemoryBudget update(@NonNull MemorySignals signals, @NonNull MemoryBudget current) {
+    float memoryCache = current.getMemoryCacheMultiplier();
+    float bitmapPool = current.getBitmapPoolMultiplier();
+    float arrayPool = current.getArrayPoolMultiplier();
+
+    if (signals.getAllocationFailureCount() > 0) {
+      memoryCache /= 2;
+      bitmapPool /= 2;
+      arrayPool /= 2;
+    } else if (signals.getHeapUsedFraction() > HIGH_HEAP_USED_FRACTION) {
+      memoryCache -= STEP;
+      bitmapPool -= STEP;
+      arrayPool -= STEP;
+    } else {
+      if (signals.getMemoryCacheLookupCount() >= MIN_REQUESTS
+          && signals.getBitmapPoolGetCount() >= MIN_REQUESTS) {
+        double difference = signals.getMemoryCacheHitRate() - signals.getBitmapPoolHitRate();
+        if (difference > MIN_HIT_RATE_DIFFERENCE && memoryCache < MAX_MULTIPLIER
+            && bitmapPool > MIN_MULTIPLIER) {
+          memoryCache += STEP;
+          bitmapPool -= STEP;
+        } else if (difference < -MIN_HIT_RATE_DIFFERENCE && bitmapPool < MAX_MULTIPLIER
+            && memoryCache > MIN_MULTIPLIER) {
+          memoryCache -= STEP;
+          bitmapPool += STEP;
+        }
+      }
+      if (signals.getHeapUsedFraction() < LOW_HEAP_USED_FRACTION) {
+        memoryCache = growTowardsDefault(memoryCache);
+        bitmapPool = growTowardsDefault(bitmapPool);
+        arrayPool = growTowardsDefault(arrayPool);
+      }
+    }
+
+    return new MemoryBudget(clamp(memoryCache), clamp(bitmapPool), clamp(arrayPool));
+  }
+
+  private static float growTowardsDefault(float multiplier) {
+    return multiplier < 1f ? Math.min(1f, multiplier + STEP) : multiplier;
+  }
+
+  private static float clamp(float multiplier) {
+    // Round to avoid accumulating floating point error after many steps.
+    float rounded = Math.round(multiplier * 1000) / 1000f;
+    return Math.max(MIN_MULTIPLIER, Math.min(MAX_MULTIPLIER, rounded));
+  }
+}
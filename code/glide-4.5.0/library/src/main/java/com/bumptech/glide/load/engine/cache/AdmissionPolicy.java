@@ -0,0 +1,28 @@
+package com.bumptech.glide.load.engine.cache;
+
+import android.support.annotation.NonNull;
+import com.bumptech.glide.load.Key;
+
+/**
+ * Decides whether a newly cached resource is valuable enough to displace a resource that's
+ * already in a {@link MemoryCache}.
+ *
+ * <p>Implementations are used by a single cache and are only called while that cache's lock is
+ * held, so they don't need to be thread safe.
+ *
+ * @see TinyLfuAdmissionPolicy
+ * @see TinyLfuResourceCache
+ */
+public interface AdmissionPolicy {
+
+  /**
+   * Records that the resource with the given key was requested or added.
+   */
+  void record(@NonNull Key key);
+
+  /**
+   * Returns {@code true} if the resource for {@code candidate} should be kept instead of the
+   * resource for {@code victim}, and {@code false} if the candidate should be dropped.
+   */
+  boolean admit(@NonNull Key candidate, @NonNull Key victim);
+}
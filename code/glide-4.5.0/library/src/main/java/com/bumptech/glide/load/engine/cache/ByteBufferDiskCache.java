@@ -0,0 +1,28 @@
+package com.bumptech.glide.load.engine.cache;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import com.bumptech.glide.load.Key;
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link DiskCache} that can return cached data as a {@link ByteBuffer}, which lets decoders
+ * read directly from a memory mapped region instead of re-opening a {@link java.io.File}.
+ *
+ * <p>{@link DiskCache} implementations that only return {@link java.io.File}s can be used via
+ * {@link FileDiskCacheWrapper}.
+ */
+public interface ByteBufferDiskCache extends DiskCache {
+
+  /**
+   * Returns a read only {@link ByteBuffer} containing the data for the given key, or {@code null}
+   * if the key is not in the cache.
+   *
+   * <p>The returned buffer starts at position {@code 0} and contains exactly the cached data. It
+   * may be shared with other callers, so it should not be modified.
+   *
+   * @param key The key in the cache.
+   */
+  @Nullable
+  ByteBuffer getBuffer(@NonNull Key key);
+}
@@ -0,0 +1,45 @@
+package com.bumptech.glide.load.engine.cache;
+
+import android.os.Process;
+import android.support.annotation.NonNull;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates the executors disk cache implementations use for their own background work.
+ */
+final class DiskCacheExecutors {
+  private static final long KEEP_ALIVE_TIME_MS = TimeUnit.SECONDS.toMillis(10);
+
+  private DiskCacheExecutors() {
+    // Utility class.
+  }
+
+  /**
+   * Returns an executor that runs tasks one at a time on a background priority thread with the
+   * given name, which is only kept alive while there's work to do.
+   */
+  static Executor newSingleThreadExecutor(final String threadName) {
+    return new ThreadPoolExecutor(
+        0 /* corePoolSize */,
+        1 /* maximumPoolSize */,
+        KEEP_ALIVE_TIME_MS,
+        TimeUnit.MILLISECONDS,
+        new LinkedBlockingQueue<Runnable>(),
+        new ThreadFactory() {
+          @Override
+          public Thread newThread(@NonNull final Runnable runnable) {
+            return new Thread(new Runnable() {
+              @Override
+              public void run() {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                runnable.run();
+              }
+            }, threadName);
+          }
+        });
+  }
+}
@@ -1,96 +1,86 @@
 package com.bumptech.glide.load.engine.cache;
 
+import android.support.annotation.VisibleForTesting;
 import com.bumptech.glide.util.Preconditions;
-import com.bumptech.glide.util.Synthetic;
-import java.util.ArrayDeque;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Queue;
-import java.util.concurrent.locks.Lock;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Keeps a map of keys to locks that allows locks to be removed from the map when no longer in use
  * so the size of the collection is bounded.
  *
- * <p> This class will be accessed by multiple threads in a thread pool and ensures that the
- *  number of threads interested in each lock is updated atomically so that when the count reaches
- *  0, the lock can safely be removed from the map. </p>
+ * <p> This class will be accessed by multiple threads in a thread pool. Rather than guarding the
+ * map with a single monitor, each lock counts the threads interested in it and the count is only
+ * ever incremented from a non zero value. Once the count reaches 0 the lock can't be acquired
+ * again and is removed from the map, so threads writing different keys never block each other.
+ * </p>
  */
 final class DiskCacheWriteLocker {
-  private final Map<String, WriteLock> locks = new HashMap<>();
-  private final WriteLockPool writeLockPool = new WriteLockPool();
+  private final ConcurrentMap<String, WriteLock> locks = new ConcurrentHashMap<>();
 
   void acquire(String safeKey) {
     WriteLock writeLock;
-    synchronized (this) {
+    while (true) {
       writeLock = locks.get(safeKey);
       if (writeLock == null) {
-        writeLock = writeLockPool.obtain();
-        locks.put(safeKey, writeLock);
+        WriteLock created = new WriteLock();
+        writeLock = locks.putIfAbsent(safeKey, created);
+        if (writeLock == null) {
+          writeLock = created;
+          break;
+        }
+      }
+      if (writeLock.retain()) {
+        break;
       }
-      writeLock.interestedThreads++;
+      // The lock was released by its last interested thread but hasn't been removed yet. Locks
+      // are never reused, so removing it here is safe even if the releasing thread gets there
+      // first.
+      locks.remove(safeKey, writeLock);
     }
 
     writeLock.lock.lock();
   }
 
   void release(String safeKey) {
-    WriteLock writeLock;
-    synchronized (this) {
-      writeLock = Preconditions.checkNotNull(locks.get(safeKey));
-      if (writeLock.interestedThreads < 1) {
-        throw new IllegalStateException("Cannot release a lock that is not held"
-            + ", safeKey: " + safeKey
-            + ", interestedThreads: " + writeLock.interestedThreads);
-      }
-
-      writeLock.interestedThreads--;
-      if (writeLock.interestedThreads == 0) {
-        WriteLock removed = locks.remove(safeKey);
-        if (!removed.equals(writeLock)) {
-          throw new IllegalStateException("Removed the wrong lock"
-              + ", expected to remove: " + writeLock
-              + ", but actually removed: " + removed
-              + ", safeKey: " + safeKey);
-        }
-        writeLockPool.offer(removed);
-      }
+    WriteLock writeLock = Preconditions.checkNotNull(locks.get(safeKey));
+    int interestedThreads = writeLock.interestedThreads.get();
+    if (interestedThreads < 1) {
+      throw new IllegalStateException("Cannot release a lock that is not held"
+          + ", safeKey: " + safeKey
+          + ", interestedThreads: " + interestedThreads);
     }
 
     writeLock.lock.unlock();
+    if (writeLock.interestedThreads.decrementAndGet() == 0) {
+      locks.remove(safeKey, writeLock);
+    }
   }
 
-  private static class WriteLock  {
-    final Lock lock = new ReentrantLock();
-    int interestedThreads;
-
-    @Synthetic
-    WriteLock() { }
+  @VisibleForTesting
+  int getLockCount() {
+    return locks.size();
   }
 
-  private static class WriteLockPool {
-    private static final int MAX_POOL_SIZE = 10;
-    private final Queue<WriteLock> pool = new ArrayDeque<>();
-
-    @Synthetic
-    WriteLockPool() { }
+  private static final class WriteLock {
+    final ReentrantLock lock = new ReentrantLock();
+    // Starts at 1 for the thread that creates the lock.
+    final AtomicInteger interestedThreads = new AtomicInteger(1);
 
-    WriteLock obtain() {
-      WriteLock result;
-      synchronized (pool) {
-        result = pool.poll();
-      }
-      if (result == null) {
-        result = new WriteLock();
-      }
-      return result;
-    }
-
-    void offer(WriteLock writeLock) {
-      synchronized (pool) {
-        if (pool.size() < MAX_POOL_SIZE) {
-          pool.offer(writeLock);
+    /**
+     * Registers another interested thread, or returns {@code false} if the lock has already been
+     * released by every interested thread and must not be used again.
+     */
+    boolean retain() {
+      while (true) {
+        int current = interestedThreads.get();
+        if (current == 0) {
+          return false;
+        }
+        if (interestedThreads.compareAndSet(current, current + 1)) {
+          return true;
         }
       }
     }
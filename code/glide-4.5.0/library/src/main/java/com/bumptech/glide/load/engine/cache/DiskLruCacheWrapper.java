@@ -20,7 +20,6 @@ import java.io.IOException;
 public class DiskLruCacheWrapper implements DiskCache {
   private static final String TAG = "DiskLruCacheWrapper";
 
-  private static final int APP_VERSION = 1;
   private static final int VALUE_COUNT = 1;
   private static DiskLruCacheWrapper wrapper;
 
@@ -64,6 +63,22 @@ public class DiskLruCacheWrapper implements DiskCache {
     return new DiskLruCacheWrapper(directory, maxSize);
   }
 
+  /**
+   * Create a new DiskCache in the given directory with a specified max size that names entries
+   * using the given {@link SafeKeyGenerator.Digest}.
+   *
+   * <p>Changing the digest for an existing directory discards the entries written with the
+   * previous digest.
+   *
+   * @param directory The directory for the disk cache
+   * @param maxSize   The max size for the disk cache
+   * @param digest    The digest used to generate file names for keys
+   * @return The new disk cache with the given arguments
+   */
+  public static DiskCache create(File directory, long maxSize, SafeKeyGenerator.Digest digest) {
+    return new DiskLruCacheWrapper(directory, maxSize, new SafeKeyGenerator(digest));
+  }
+
   /**
    * @deprecated Do not extend this class.
    */
@@ -71,14 +86,21 @@ public class DiskLruCacheWrapper implements DiskCache {
   // Deprecated public API.
   @SuppressWarnings({"WeakerAccess", "DeprecatedIsStillUsed"})
   protected DiskLruCacheWrapper(File directory, long maxSize) {
+    this(directory, maxSize, new SafeKeyGenerator());
+  }
+
+  private DiskLruCacheWrapper(File directory, long maxSize, SafeKeyGenerator safeKeyGenerator) {
     this.directory = directory;
     this.maxSize = maxSize;
-    this.safeKeyGenerator = new SafeKeyGenerator();
+    this.safeKeyGenerator = safeKeyGenerator;
   }
 
   private synchronized DiskLruCache getDiskCache() throws IOException {
     if (diskLruCache == null) {
-      diskLruCache = DiskLruCache.open(directory, APP_VERSION, VALUE_COUNT, maxSize);
+      // DiskLruCache discards caches written with a different app version, so entries named by a
+      // different digest are never read back.
+      diskLruCache = DiskLruCache.open(
+          directory, safeKeyGenerator.getCacheFormatVersion(), VALUE_COUNT, maxSize);
     }
     return diskLruCache;
   }
@@ -0,0 +1,74 @@
+package com.bumptech.glide.load.engine.cache;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.util.ByteBufferUtil;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Adapts a {@link DiskCache} that only returns {@link File}s to {@link ByteBufferDiskCache} by
+ * memory mapping the returned files.
+ */
+public final class FileDiskCacheWrapper implements ByteBufferDiskCache {
+  private static final String TAG = "FileDiskCacheWrapper";
+  private final DiskCache wrapped;
+
+  /**
+   * Returns the given cache if it already implements {@link ByteBufferDiskCache}, or a
+   * {@link FileDiskCacheWrapper} wrapping it otherwise.
+   */
+  @NonNull
+  public static ByteBufferDiskCache wrap(@NonNull DiskCache diskCache) {
+    if (diskCache instanceof ByteBufferDiskCache) {
+      return (ByteBufferDiskCache) diskCache;
+    }
+    return new FileDiskCacheWrapper(diskCache);
+  }
+
+  private FileDiskCacheWrapper(DiskCache wrapped) {
+    this.wrapped = wrapped;
+  }
+
+  @Nullable
+  @Override
+  public ByteBuffer getBuffer(@NonNull Key key) {
+    File file = wrapped.get(key);
+    if (file == null) {
+      return null;
+    }
+    try {
+      return ByteBufferUtil.fromFile(file).asReadOnlyBuffer();
+    } catch (IOException e) {
+      // The file may have been evicted or written empty, treat it as a cache miss.
+      if (Log.isLoggable(TAG, Log.DEBUG)) {
+        Log.d(TAG, "Unable to map cached file", e);
+      }
+      return null;
+    }
+  }
+
+  @Nullable
+  @Override
+  public File get(Key key) {
+    return wrapped.get(key);
+  }
+
+  @Override
+  public void put(Key key, Writer writer) {
+    wrapped.put(key, writer);
+  }
+
+  @Override
+  public void delete(Key key) {
+    wrapped.delete(key);
+  }
+
+  @Override
+  public void clear() {
+    wrapped.clear();
+  }
+}
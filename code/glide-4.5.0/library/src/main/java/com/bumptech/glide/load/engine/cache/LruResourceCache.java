@@ -10,7 +10,9 @@ import com.bumptech.glide.util.LruCache;
 /**
  * An LRU in memory cache for {@link com.bumptech.glide.load.engine.Resource}s.
  */
-public class LruResourceCache extends LruCache<Key, Resource<?>> implements MemoryCache {
+public class LruResourceCache extends LruCache<Key, Resource<?>> implements MemoryCache,
+    MemoryCacheStats.Provider {
+  private final MemoryCacheStats stats = new MemoryCacheStats();
   private ResourceRemovedListener listener;
 
   /**
@@ -22,13 +24,31 @@ public class LruResourceCache extends LruCache<Key, Resource<?>> implements Memo
     super(size);
   }
 
+  /**
+   * Returns the hit, miss and eviction counters for this cache.
+   */
+  @NonNull
+  @Override
+  public MemoryCacheStats getStats() {
+    return stats;
+  }
+
   @Override
   public void setResourceRemovedListener(@NonNull ResourceRemovedListener listener) {
     this.listener = listener;
   }
 
+  @Nullable
+  @Override
+  public synchronized Resource<?> remove(@NonNull Key key) {
+    Resource<?> removed = super.remove(key);
+    stats.recordLookup(removed != null);
+    return removed;
+  }
+
   @Override
   protected void onItemEvicted(@NonNull Key key, @Nullable Resource<?> item) {
+    stats.recordEviction();
     if (listener != null && item != null) {
       listener.onResourceRemoved(item);
     }
@@ -0,0 +1,70 @@
+package com.bumptech.glide.load.engine.cache;
+
+/**
+ * The multipliers applied to the initial sizes of the memory cache, the bitmap pool and the array
+ * pool by a {@link MemoryBudgetController}.
+ *
+ * <p>The initial sizes are usually those calculated by {@link MemorySizeCalculator}, so a budget
+ * of {@link #DEFAULT} uses exactly the calculated sizes.
+ */
+public final class MemoryBudget {
+  /** A budget that uses the initial size of every cache and pool. */
+  public static final MemoryBudget DEFAULT = new MemoryBudget(1f, 1f, 1f);
+
+  private final float memoryCacheMultiplier;
+  private final float bitmapPoolMultiplier;
+  private final float arrayPoolMultiplier;
+
+  public MemoryBudget(
+      float memoryCacheMultiplier, float bitmapPoolMultiplier, float arrayPoolMultiplier) {
+    if (memoryCacheMultiplier < 0 || bitmapPoolMultiplier < 0 || arrayPoolMultiplier < 0) {
+      throw new IllegalArgumentException("Multipliers must be >= 0"
+          + ", memoryCacheMultiplier: " + memoryCacheMultiplier
+          + ", bitmapPoolMultiplier: " + bitmapPoolMultiplier
+          + ", arrayPoolMultiplier: " + arrayPoolMultiplier);
+    }
+    this.memoryCacheMultiplier = memoryCacheMultiplier;
+    this.bitmapPoolMultiplier = bitmapPoolMultiplier;
+    this.arrayPoolMultiplier = arrayPoolMultiplier;
+  }
+
+  public float getMemoryCacheMultiplier() {
+    return memoryCacheMultiplier;
+  }
+
+  public float getBitmapPoolMultiplier() {
+    return bitmapPoolMultiplier;
+  }
+
+  public float getArrayPoolMultiplier() {
+    return arrayPoolMultiplier;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (o instanceof MemoryBudget) {
+      MemoryBudget other = (MemoryBudget) o;
+      return Float.compare(memoryCacheMultiplier, other.memoryCacheMultiplier) == 0
+          && Float.compare(bitmapPoolMultiplier, other.bitmapPoolMultiplier) == 0
+          && Float.compare(arrayPoolMultiplier, other.arrayPoolMultiplier) == 0;
+    }
+    return false;
+  }
+
+  @Override
+  public int hashCode() {
+    int result = Float.floatToIntBits(memoryCacheMultiplier);
+    result = 31 * result + Float.floatToIntBits(bitmapPoolMultiplier);
+    result = 31 * result + Float.floatToIntBits(arrayPoolMultiplier);
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    return "MemoryBudget{"
+        + "memoryCacheMultiplier=" + memoryCacheMultiplier
+        + ", bitmapPoolMultiplier=" + bitmapPoolMultiplier
+        + ", arrayPoolMultiplier=" + arrayPoolMultiplier
+        + '}';
+  }
+}
@@ -0,0 +1,237 @@
+package com.bumptech.glide.load.engine.cache;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.util.Log;
+import com.bumptech.glide.load.engine.bitmap_recycle.ArrayPool;
+import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool;
+import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPoolStats;
+import com.bumptech.glide.load.engine.bitmap_recycle.LruArrayPool;
+import com.bumptech.glide.load.engine.bitmap_recycle.SizeClassArrayPool;
+import com.bumptech.glide.util.Preconditions;
+import com.bumptech.glide.util.Synthetic;
+import com.bumptech.glide.util.Util;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Periodically samples the hit rates of the memory cache and the bitmap pool, heap usage and
+ * allocation failures, asks a {@link MemoryBudgetPolicy} for a new {@link MemoryBudget} and applies
+ * it to the memory cache and pools with their {@code setSizeMultiplier} methods.
+ *
+ * <p>Hit rates are read from {@link MemoryCacheStats} and {@link BitmapPoolStats}, so they're only
+ * available for caches and pools that expose them through {@code MemoryCacheStats.Provider} or
+ * {@link BitmapPoolStats.Provider}. The array pool's size can only be changed if
+ * it's an {@link LruArrayPool} or a {@link SizeClassArrayPool}.
+ *
+ * <p>The budget is multiplied by the base multiplier set by {@link #setBaseMultiplier(float)},
+ * which {@link com.bumptech.glide.Glide} uses to apply its
+ * {@link com.bumptech.glide.MemoryCategory}. Samples are taken and budgets are applied on the main
+ * thread.
+ */
+public final class MemoryBudgetController implements Runnable {
+  private static final String TAG = "MemoryBudget";
+  /** The default time between samples. */
+  public static final long DEFAULT_UPDATE_INTERVAL_MS = 10_000;
+
+  private final MemoryCache memoryCache;
+  private final BitmapPool bitmapPool;
+  private final ArrayPool arrayPool;
+  private final MemoryBudgetPolicy policy;
+  private final HeapInfo heapInfo;
+  private final Handler handler;
+  private final long updateIntervalMs;
+  private final AtomicInteger allocationFailureCount = new AtomicInteger();
+
+  private MemoryBudget budget = MemoryBudget.DEFAULT;
+  private float baseMultiplier = 1f;
+  private long lastMemoryCacheHitCount;
+  private long lastMemoryCacheMissCount;
+  private long lastBitmapPoolHitCount;
+  private long lastBitmapPoolMissCount;
+  private volatile boolean isStarted;
+
+  interface HeapInfo {
+    long getUsedBytes();
+    long getMaxBytes();
+  }
+
+  public MemoryBudgetController(
+      @NonNull MemoryCache memoryCache,
+      @NonNull BitmapPool bitmapPool,
+      @NonNull ArrayPool arrayPool,
+      @NonNull MemoryBudgetPolicy policy) {
+    this(memoryCache, bitmapPool, arrayPool, policy, new RuntimeHeapInfo(),
+        new Handler(Looper.getMainLooper()), DEFAULT_UPDATE_INTERVAL_MS);
+  }
+
+  @VisibleForTesting
+  MemoryBudgetController(
+      MemoryCache memoryCache,
+      BitmapPool bitmapPool,
+      ArrayPool arrayPool,
+      MemoryBudgetPolicy policy,
+      HeapInfo heapInfo,
+      Handler handler,
+      long updateIntervalMs) {
+    this.memoryCache = memoryCache;
+    this.bitmapPool = bitmapPool;
+    this.arrayPool = arrayPool;
+    this.policy = policy;
+    this.heapInfo = heapInfo;
+    this.handler = handler;
+    this.updateIntervalMs = updateIntervalMs;
+  }
+
+  /**
+   * Starts sampling periodically, may be called on any thread.
+   */
+  public void start() {
+    if (!isStarted) {
+      isStarted = true;
+      handler.postDelayed(this, updateIntervalMs);
+    }
+  }
+
+  /**
+   * Stops sampling, may be called on any thread.
+   */
+  public void stop() {
+    isStarted = false;
+    handler.removeCallbacks(this);
+  }
+
+  @Override
+  public void run() {
+    update();
+    if (isStarted) {
+      handler.postDelayed(this, updateIntervalMs);
+    }
+  }
+
+  /**
+   * Records an allocation that failed because too little memory was available, which the policy
+   * sees in the next sample.
+   *
+   * <p>{@link com.bumptech.glide.load.resource.bitmap.Downsampler} calls this when a decode runs
+   * out of memory, and {@link com.bumptech.glide.Glide#onLowMemory()} when the system runs low on
+   * memory. May be called on any thread.
+   */
+  public void recordAllocationFailure() {
+    allocationFailureCount.incrementAndGet();
+  }
+
+  /**
+   * Sets the multiplier that every multiplier in the budget is multiplied by, and applies it
+   * immediately.
+   */
+  public void setBaseMultiplier(float baseMultiplier) {
+    Util.assertMainThread();
+    this.baseMultiplier = baseMultiplier;
+    apply();
+  }
+
+  /**
+   * Returns the budget chosen by the policy, not including the base multiplier.
+   */
+  @NonNull
+  public MemoryBudget getBudget() {
+    return budget;
+  }
+
+  /**
+   * Takes a sample, asks the policy for a new budget and applies it if it has changed.
+   */
+  public void update() {
+    Util.assertMainThread();
+    MemorySignals signals = sample();
+    MemoryBudget updated = Preconditions.checkNotNull(policy.update(signals, budget));
+    if (Log.isLoggable(TAG, Log.VERBOSE)) {
+      Log.v(TAG, "Sampled " + signals + ", budget: " + updated);
+    }
+    if (!updated.equals(budget)) {
+      budget = updated;
+      apply();
+    }
+  }
+
+  private MemorySignals sample() {
+    MemorySignals.Builder builder = new MemorySignals.Builder();
+
+    MemoryCacheStats memoryCacheStats = getStats(memoryCache);
+    if (memoryCacheStats != null) {
+      long hits = memoryCacheStats.getHitCount();
+      long misses = memoryCacheStats.getMissCount();
+      // Counters may have been reset since the previous sample.
+      builder.setMemoryCacheCounts(
+          getDelta(hits, lastMemoryCacheHitCount), getDelta(misses, lastMemoryCacheMissCount));
+      lastMemoryCacheHitCount = hits;
+      lastMemoryCacheMissCount = misses;
+    }
+
+    BitmapPoolStats bitmapPoolStats = getStats(bitmapPool);
+    if (bitmapPoolStats != null) {
+      long hits = bitmapPoolStats.getHitCount();
+      long misses = bitmapPoolStats.getMissCount();
+      builder.setBitmapPoolCounts(
+          getDelta(hits, lastBitmapPoolHitCount), getDelta(misses, lastBitmapPoolMissCount));
+      lastBitmapPoolHitCount = hits;
+      lastBitmapPoolMissCount = misses;
+    }
+
+    long maxBytes = heapInfo.getMaxBytes();
+    if (maxBytes > 0) {
+      builder.setHeapUsedFraction(heapInfo.getUsedBytes() / (float) maxBytes);
+    }
+    return builder
+        .setAllocationFailureCount(allocationFailureCount.getAndSet(0))
+        .build();
+  }
+
+  private void apply() {
+    // memory cache needs to be trimmed before bitmap pool to trim re-pooled Bitmaps too. See #687.
+    memoryCache.setSizeMultiplier(baseMultiplier * budget.getMemoryCacheMultiplier());
+    bitmapPool.setSizeMultiplier(baseMultiplier * budget.getBitmapPoolMultiplier());
+    float arrayPoolMultiplier = baseMultiplier * budget.getArrayPoolMultiplier();
+    if (arrayPool instanceof LruArrayPool) {
+      ((LruArrayPool) arrayPool).setSizeMultiplier(arrayPoolMultiplier);
+    } else if (arrayPool instanceof SizeClassArrayPool) {
+      ((SizeClassArrayPool) arrayPool).setSizeMultiplier(arrayPoolMultiplier);
+    }
+  }
+
+  private static long getDelta(long current, long previous) {
+    return current >= previous ? current - previous : current;
+  }
+
+  @Nullable
+  private static MemoryCacheStats getStats(MemoryCache memoryCache) {
+    return memoryCache instanceof MemoryCacheStats.Provider
+        ? ((MemoryCacheStats.Provider) memoryCache).getStats() : null;
+  }
+
+  @Nullable
+  private static BitmapPoolStats getStats(BitmapPool bitmapPool) {
+    return bitmapPool instanceof BitmapPoolStats.Provider
+        ? ((BitmapPoolStats.Provider) bitmapPool).getStats() : null;
+  }
+
+  private static final class RuntimeHeapInfo implements HeapInfo {
+    private final Runtime runtime = Runtime.getRuntime();
+
+    @Synthetic
+    RuntimeHeapInfo() { }
+
+    @Override
+    public long getUsedBytes() {
+      return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @Override
+    public long getMaxBytes() {
+      return runtime.maxMemory();
+    }
+  }
+}
@@ -0,0 +1,23 @@
+package com.bumptech.glide.load.engine.cache;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Chooses how much memory the memory cache, the bitmap pool and the array pool may use based on
+ * how they've performed recently.
+ *
+ * <p>Policies are called periodically by a {@link MemoryBudgetController} and by
+ * {@link MemoryBudgetSimulator}. To be evaluated offline, policies should only depend on the
+ * arguments they're given, not on the time or other global state.
+ */
+public interface MemoryBudgetPolicy {
+
+  /**
+   * Returns the budget to use until the next sample.
+   *
+   * @param signals Observations made since the previous sample.
+   * @param current The budget in use since the previous sample.
+   */
+  @NonNull
+  MemoryBudget update(@NonNull MemorySignals signals, @NonNull MemoryBudget current);
+}
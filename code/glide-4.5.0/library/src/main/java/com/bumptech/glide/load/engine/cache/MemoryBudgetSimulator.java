@@ -0,0 +1,297 @@
+package com.bumptech.glide.load.engine.cache;
+
+import android.support.annotation.NonNull;
+import com.bumptech.glide.util.Preconditions;
+import com.bumptech.glide.util.Synthetic;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Replays a {@link MemoryTrace} against simple models of the memory cache and the bitmap pool to
+ * evaluate how a {@link MemoryBudgetPolicy} would behave, without a device or real allocations.
+ *
+ * <p>The memory cache is modeled as a least recently used cache of keys and sizes, like
+ * {@link LruResourceCache}. The bitmap pool is modeled as a least recently used set of sizes that
+ * can satisfy gets for sizes up to {@link #MAX_SIZE_MULTIPLE} times smaller, like
+ * {@link com.bumptech.glide.load.engine.bitmap_recycle.LruBitmapPool} on KitKat and above. The
+ * array pool isn't modeled, but its multiplier is recorded.
+ *
+ * <p>Simulations are deterministic: the same trace and policy always produce the same result.
+ */
+public final class MemoryBudgetSimulator {
+  static final int MAX_SIZE_MULTIPLE = 8;
+
+  private final long memoryCacheSize;
+  private final long bitmapPoolSize;
+
+  /**
+   * @param memoryCacheSize The size of the memory cache in bytes with a multiplier of 1.
+   * @param bitmapPoolSize  The size of the bitmap pool in bytes with a multiplier of 1.
+   */
+  public MemoryBudgetSimulator(long memoryCacheSize, long bitmapPoolSize) {
+    Preconditions.checkArgument(memoryCacheSize >= 0, "Memory cache size must be >= 0");
+    Preconditions.checkArgument(bitmapPoolSize >= 0, "Bitmap pool size must be >= 0");
+    this.memoryCacheSize = memoryCacheSize;
+    this.bitmapPoolSize = bitmapPoolSize;
+  }
+
+  /**
+   * Replays the given trace, starting from {@link MemoryBudget#DEFAULT} and asking the given policy
+   * for a new budget at every sample.
+   */
+  @NonNull
+  public Result run(@NonNull MemoryTrace trace, @NonNull MemoryBudgetPolicy policy) {
+    SimulatedMemoryCache memoryCache = new SimulatedMemoryCache(memoryCacheSize);
+    SimulatedBitmapPool bitmapPool = new SimulatedBitmapPool(bitmapPoolSize);
+    MemoryBudget budget = MemoryBudget.DEFAULT;
+    List<MemoryBudget> history = new ArrayList<>();
+    history.add(budget);
+
+    long memoryCacheHits = 0;
+    long memoryCacheMisses = 0;
+    long bitmapPoolHits = 0;
+    long bitmapPoolMisses = 0;
+    long sampleMemoryCacheHits = 0;
+    long sampleMemoryCacheMisses = 0;
+    long sampleBitmapPoolHits = 0;
+    long sampleBitmapPoolMisses = 0;
+
+    for (MemoryTrace.Event event : trace.getEvents()) {
+      switch (event.type) {
+        case MemoryTrace.LOOKUP:
+          if (memoryCache.lookup(event.key, event.size)) {
+            memoryCacheHits++;
+            sampleMemoryCacheHits++;
+          } else {
+            memoryCacheMisses++;
+            sampleMemoryCacheMisses++;
+          }
+          break;
+        case MemoryTrace.BITMAP_GET:
+          if (bitmapPool.get(event.size)) {
+            bitmapPoolHits++;
+            sampleBitmapPoolHits++;
+          } else {
+            bitmapPoolMisses++;
+            sampleBitmapPoolMisses++;
+          }
+          break;
+        case MemoryTrace.BITMAP_PUT:
+          bitmapPool.put(event.size);
+          break;
+        case MemoryTrace.SAMPLE:
+          MemorySignals signals = new MemorySignals.Builder()
+              .setMemoryCacheCounts(sampleMemoryCacheHits, sampleMemoryCacheMisses)
+              .setBitmapPoolCounts(sampleBitmapPoolHits, sampleBitmapPoolMisses)
+              .setHeapUsedFraction(event.heapUsedFraction)
+              .setAllocationFailureCount(event.allocationFailureCount)
+              .build();
+          budget = Preconditions.checkNotNull(policy.update(signals, budget));
+          history.add(budget);
+          memoryCache.setSizeMultiplier(budget.getMemoryCacheMultiplier());
+          bitmapPool.setSizeMultiplier(budget.getBitmapPoolMultiplier());
+          sampleMemoryCacheHits = 0;
+          sampleMemoryCacheMisses = 0;
+          sampleBitmapPoolHits = 0;
+          sampleBitmapPoolMisses = 0;
+          break;
+        default:
+          throw new IllegalStateException("Unrecognized event type: " + event.type);
+      }
+    }
+    return new Result(
+        memoryCacheHits, memoryCacheMisses, bitmapPoolHits, bitmapPoolMisses, history);
+  }
+
+  /**
+   * The outcome of a simulation.
+   */
+  public static final class Result {
+    private final long memoryCacheHitCount;
+    private final long memoryCacheMissCount;
+    private final long bitmapPoolHitCount;
+    private final long bitmapPoolMissCount;
+    private final List<MemoryBudget> budgets;
+
+    @Synthetic
+    Result(long memoryCacheHitCount, long memoryCacheMissCount, long bitmapPoolHitCount,
+        long bitmapPoolMissCount, List<MemoryBudget> budgets) {
+      this.memoryCacheHitCount = memoryCacheHitCount;
+      this.memoryCacheMissCount = memoryCacheMissCount;
+      this.bitmapPoolHitCount = bitmapPoolHitCount;
+      this.bitmapPoolMissCount = bitmapPoolMissCount;
+      this.budgets = Collections.unmodifiableList(budgets);
+    }
+
+    public long getMemoryCacheHitCount() {
+      return memoryCacheHitCount;
+    }
+
+    public long getMemoryCacheMissCount() {
+      return memoryCacheMissCount;
+    }
+
+    public double getMemoryCacheHitRate() {
+      return getRate(memoryCacheHitCount, memoryCacheMissCount);
+    }
+
+    public long getBitmapPoolHitCount() {
+      return bitmapPoolHitCount;
+    }
+
+    public long getBitmapPoolMissCount() {
+      return bitmapPoolMissCount;
+    }
+
+    public double getBitmapPoolHitRate() {
+      return getRate(bitmapPoolHitCount, bitmapPoolMissCount);
+    }
+
+    /**
+     * Returns the initial budget followed by the budget chosen at each sample in the trace.
+     */
+    @NonNull
+    public List<MemoryBudget> getBudgets() {
+      return budgets;
+    }
+
+    /**
+     * Returns the budget in effect at the end of the trace.
+     */
+    @NonNull
+    public MemoryBudget getFinalBudget() {
+      return budgets.get(budgets.size() - 1);
+    }
+
+    private static double getRate(long hits, long misses) {
+      long total = hits + misses;
+      return total == 0 ? 0 : hits / (double) total;
+    }
+
+    @Override
+    public String toString() {
+      return "Result{"
+          + "memoryCacheHitRate=" + getMemoryCacheHitRate()
+          + ", bitmapPoolHitRate=" + getBitmapPoolHitRate()
+          + ", finalBudget=" + getFinalBudget()
+          + "}";
+    }
+  }
+
+  private static final class SimulatedMemoryCache {
+    private final Map<String, Integer> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final long initialMaxSize;
+    private long maxSize;
+    private long currentSize;
+
+    @Synthetic
+    SimulatedMemoryCache(long maxSize) {
+      this.initialMaxSize = maxSize;
+      this.maxSize = maxSize;
+    }
+
+    @Synthetic
+    boolean lookup(String key, int size) {
+      if (entries.get(key) != null) {
+        return true;
+      }
+      if (size <= maxSize) {
+        entries.put(key, size);
+        currentSize += size;
+        trimToSize();
+      }
+      return false;
+    }
+
+    @Synthetic
+    void setSizeMultiplier(float multiplier) {
+      maxSize = Math.round(initialMaxSize * multiplier);
+      trimToSize();
+    }
+
+    private void trimToSize() {
+      Iterator<Integer> iterator = entries.values().iterator();
+      while (currentSize > maxSize && iterator.hasNext()) {
+        currentSize -= iterator.next();
+        iterator.remove();
+      }
+    }
+  }
+
+  private static final class SimulatedBitmapPool {
+    private final NavigableMap<Integer, ArrayDeque<Long>> sequencesBySize = new TreeMap<>();
+    // Insertion ordered, so the first entry is the least recently put.
+    private final Map<Long, Integer> sizesBySequence = new LinkedHashMap<>();
+    private final long initialMaxSize;
+    private long maxSize;
+    private long currentSize;
+    private long nextSequence;
+
+    @Synthetic
+    SimulatedBitmapPool(long maxSize) {
+      this.initialMaxSize = maxSize;
+      this.maxSize = maxSize;
+    }
+
+    @Synthetic
+    boolean get(int size) {
+      Map.Entry<Integer, ArrayDeque<Long>> entry = sequencesBySize.ceilingEntry(size);
+      if (entry == null || entry.getKey() > (long) size * MAX_SIZE_MULTIPLE) {
+        return false;
+      }
+      // Most recently put first, like LruBitmapPool's GroupedLinkedMap.
+      Long sequence = entry.getValue().removeLast();
+      if (entry.getValue().isEmpty()) {
+        sequencesBySize.remove(entry.getKey());
+      }
+      sizesBySequence.remove(sequence);
+      currentSize -= entry.getKey();
+      return true;
+    }
+
+    @Synthetic
+    void put(int size) {
+      if (size > maxSize) {
+        return;
+      }
+      long sequence = nextSequence++;
+      ArrayDeque<Long> sequences = sequencesBySize.get(size);
+      if (sequences == null) {
+        sequences = new ArrayDeque<>();
+        sequencesBySize.put(size, sequences);
+      }
+      sequences.addLast(sequence);
+      sizesBySequence.put(sequence, size);
+      currentSize += size;
+      trimToSize();
+    }
+
+    @Synthetic
+    void setSizeMultiplier(float multiplier) {
+      maxSize = Math.round(initialMaxSize * multiplier);
+      trimToSize();
+    }
+
+    private void trimToSize() {
+      Iterator<Map.Entry<Long, Integer>> iterator = sizesBySequence.entrySet().iterator();
+      while (currentSize > maxSize && iterator.hasNext()) {
+        Map.Entry<Long, Integer> oldest = iterator.next();
+        iterator.remove();
+        int size = oldest.getValue();
+        ArrayDeque<Long> sequences = sequencesBySize.get(size);
+        sequences.remove(oldest.getKey());
+        if (sequences.isEmpty()) {
+          sequencesBySize.remove(size);
+        }
+        currentSize -= size;
+      }
+    }
+  }
+}
@@ -0,0 +1,105 @@
+package com.bumptech.glide.load.engine.cache;
+
+import android.support.annotation.NonNull;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread safe hit, miss and eviction counters for a {@link MemoryCache}.
+ *
+ * <p>{@link com.bumptech.glide.load.engine.Engine} looks up resources in the memory cache with
+ * {@link MemoryCache#remove(com.bumptech.glide.load.Key)}, so caches record a hit or a miss for
+ * every call to {@code remove}. Comparing {@link #getHitRate()} across cache implementations for
+ * the same sequence of loads is a simple way to compare eviction and admission policies.
+ */
+public final class MemoryCacheStats {
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+  private final AtomicLong evictionCount = new AtomicLong();
+  private final AtomicLong rejectionCount = new AtomicLong();
+
+  void recordLookup(boolean isHit) {
+    if (isHit) {
+      hitCount.incrementAndGet();
+    } else {
+      missCount.incrementAndGet();
+    }
+  }
+
+  void recordEviction() {
+    evictionCount.incrementAndGet();
+  }
+
+  void recordRejection() {
+    rejectionCount.incrementAndGet();
+  }
+
+  /**
+   * Returns the number of lookups that found a resource.
+   */
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  /**
+   * Returns the number of lookups that did not find a resource.
+   */
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  /**
+   * Returns the number of resources removed by the cache rather than by a caller, including
+   * resources that were replaced or that were too large to be cached.
+   */
+  public long getEvictionCount() {
+    return evictionCount.get();
+  }
+
+  /**
+   * Returns the number of resources that were dropped by an admission policy instead of displacing
+   * a resource already in the cache.
+   *
+   * <p>Always zero for caches without an admission policy.
+   */
+  public long getRejectionCount() {
+    return rejectionCount.get();
+  }
+
+  /**
+   * Returns the ratio of hits to lookups, or {@code 0} if there haven't been any lookups.
+   */
+  public double getHitRate() {
+    long hits = hitCount.get();
+    long lookups = hits + missCount.get();
+    return lookups == 0 ? 0 : hits / (double) lookups;
+  }
+
+  /**
+   * Resets all counters to zero.
+   */
+  public void reset() {
+    hitCount.set(0);
+    missCount.set(0);
+    evictionCount.set(0);
+    rejectionCount.set(0);
+  }
+
+  @Override
+  public String toString() {
+    return "MemoryCacheStats{"
+        + "hitCount=" + hitCount
+        + ", missCount=" + missCount
+        + ", evictionCount=" + evictionCount
+        + ", rejectionCount=" + rejectionCount
+        + ", hitRate=" + getHitRate()
+        + '}';
+  }
+
+  /**
+   * Implemented by {@link MemoryCache}s that record {@link MemoryCacheStats}.
+   */
+  interface Provider {
+    @NonNull
+    MemoryCacheStats getStats();
+  }
+}
@@ -0,0 +1,146 @@
+package com.bumptech.glide.load.engine.cache;
+
+import android.support.annotation.NonNull;
+
+/**
+ * The observations a {@link MemoryBudgetPolicy} uses to choose a {@link MemoryBudget}.
+ *
+ * <p>Counts and rates only cover the period since the previous sample, so a policy sees how the
+ * current budget is performing rather than an average over the lifetime of the app.
+ */
+public final class MemorySignals {
+  private final long memoryCacheHitCount;
+  private final long memoryCacheMissCount;
+  private final long bitmapPoolHitCount;
+  private final long bitmapPoolMissCount;
+  private final float heapUsedFraction;
+  private final int allocationFailureCount;
+
+  // Package private to avoid PMD warning.
+  MemorySignals(Builder builder) {
+    memoryCacheHitCount = builder.memoryCacheHitCount;
+    memoryCacheMissCount = builder.memoryCacheMissCount;
+    bitmapPoolHitCount = builder.bitmapPoolHitCount;
+    bitmapPoolMissCount = builder.bitmapPoolMissCount;
+    heapUsedFraction = builder.heapUsedFraction;
+    allocationFailureCount = builder.allocationFailureCount;
+  }
+
+  /**
+   * Returns the number of lookups that were found in the memory cache.
+   */
+  public long getMemoryCacheHitCount() {
+    return memoryCacheHitCount;
+  }
+
+  /**
+   * Returns the number of memory cache lookups, or {@code 0} if the memory cache doesn't record
+   * {@link MemoryCacheStats}.
+   */
+  public long getMemoryCacheLookupCount() {
+    return memoryCacheHitCount + memoryCacheMissCount;
+  }
+
+  /**
+   * Returns the ratio of memory cache hits to lookups, or {@code 0} if there weren't any lookups.
+   */
+  public double getMemoryCacheHitRate() {
+    return getRate(memoryCacheHitCount, getMemoryCacheLookupCount());
+  }
+
+  /**
+   * Returns the number of {@link android.graphics.Bitmap}s that were reused from the bitmap pool.
+   */
+  public long getBitmapPoolHitCount() {
+    return bitmapPoolHitCount;
+  }
+
+  /**
+   * Returns the number of gets from the bitmap pool, or {@code 0} if the pool doesn't record
+   * {@link com.bumptech.glide.load.engine.bitmap_recycle.BitmapPoolStats}.
+   */
+  public long getBitmapPoolGetCount() {
+    return bitmapPoolHitCount + bitmapPoolMissCount;
+  }
+
+  /**
+   * Returns the ratio of bitmap pool hits to gets, or {@code 0} if there weren't any gets.
+   */
+  public double getBitmapPoolHitRate() {
+    return getRate(bitmapPoolHitCount, getBitmapPoolGetCount());
+  }
+
+  /**
+   * Returns the fraction of the maximum heap size that was in use when the sample was taken,
+   * between 0 and 1.
+   */
+  public float getHeapUsedFraction() {
+    return heapUsedFraction;
+  }
+
+  /**
+   * Returns the number of allocation failures reported since the previous sample.
+   */
+  public int getAllocationFailureCount() {
+    return allocationFailureCount;
+  }
+
+  private static double getRate(long hits, long total) {
+    return total == 0 ? 0 : hits / (double) total;
+  }
+
+  @Override
+  public String toString() {
+    return "MemorySignals{"
+        + "memoryCacheHitCount=" + memoryCacheHitCount
+        + ", memoryCacheMissCount=" + memoryCacheMissCount
+        + ", bitmapPoolHitCount=" + bitmapPoolHitCount
+        + ", bitmapPoolMissCount=" + bitmapPoolMissCount
+        + ", heapUsedFraction=" + heapUsedFraction
+        + ", allocationFailureCount=" + allocationFailureCount
+        + '}';
+  }
+
+  /**
+   * Constructs {@link MemorySignals}, all values default to zero.
+   */
+  public static final class Builder {
+    long memoryCacheHitCount;
+    long memoryCacheMissCount;
+    long bitmapPoolHitCount;
+    long bitmapPoolMissCount;
+    float heapUsedFraction;
+    int allocationFailureCount;
+
+    @NonNull
+    public Builder setMemoryCacheCounts(long hitCount, long missCount) {
+      this.memoryCacheHitCount = hitCount;
+      this.memoryCacheMissCount = missCount;
+      return this;
+    }
+
+    @NonNull
+    public Builder setBitmapPoolCounts(long hitCount, long missCount) {
+      this.bitmapPoolHitCount = hitCount;
+      this.bitmapPoolMissCount = missCount;
+      return this;
+    }
+
+    @NonNull
+    public Builder setHeapUsedFraction(float heapUsedFraction) {
+      this.heapUsedFraction = heapUsedFraction;
+      return this;
+    }
+
+    @NonNull
+    public Builder setAllocationFailureCount(int allocationFailureCount) {
+      this.allocationFailureCount = allocationFailureCount;
+      return this;
+    }
+
+    @NonNull
+    public MemorySignals build() {
+      return new MemorySignals(this);
+    }
+  }
+}
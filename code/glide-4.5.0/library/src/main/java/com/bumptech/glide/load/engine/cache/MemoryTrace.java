@@ -0,0 +1,210 @@
+package com.bumptech.glide.load.engine.cache;
+
+import android.support.annotation.NonNull;
+import com.bumptech.glide.util.Synthetic;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A recorded sequence of memory cache lookups, bitmap pool gets and puts and samples that
+ * {@link MemoryBudgetSimulator} can replay to evaluate a {@link MemoryBudgetPolicy} offline.
+ *
+ * <p>Traces can be written to and read from a simple line based text format:
+ *
+ * <pre>
+ * # Comments and blank lines are ignored.
+ * L key sizeInBytes                 A memory cache lookup, the resource is cached if it's missing.
+ * G sizeInBytes                     A bitmap pool get.
+ * P sizeInBytes                     A bitmap pool put.
+ * S heapUsedFraction failureCount   A sample, the policy is asked for a new budget.
+ * </pre>
+ *
+ * <p>Keys may not contain whitespace.
+ */
+public final class MemoryTrace {
+  static final char LOOKUP = 'L';
+  static final char BITMAP_GET = 'G';
+  static final char BITMAP_PUT = 'P';
+  static final char SAMPLE = 'S';
+
+  private final List<Event> events;
+
+  @Synthetic
+  MemoryTrace(List<Event> events) {
+    this.events = Collections.unmodifiableList(new ArrayList<>(events));
+  }
+
+  /**
+   * Returns the number of events in the trace.
+   */
+  public int size() {
+    return events.size();
+  }
+
+  List<Event> getEvents() {
+    return events;
+  }
+
+  /**
+   * Writes this trace in the text format described in the class documentation.
+   */
+  public void write(@NonNull Writer writer) throws IOException {
+    for (Event event : events) {
+      switch (event.type) {
+        case LOOKUP:
+          writer.write(LOOKUP + " " + event.key + " " + event.size + "\n");
+          break;
+        case BITMAP_GET:
+        case BITMAP_PUT:
+          writer.write(event.type + " " + event.size + "\n");
+          break;
+        case SAMPLE:
+          writer.write(String.format(Locale.US, "%c %s %d%n", SAMPLE,
+              Float.toString(event.heapUsedFraction), event.allocationFailureCount));
+          break;
+        default:
+          throw new IllegalStateException("Unrecognized event type: " + event.type);
+      }
+    }
+    writer.flush();
+  }
+
+  /**
+   * Reads a trace in the text format described in the class documentation.
+   *
+   * @throws IOException If the trace can't be read or is malformed.
+   */
+  @NonNull
+  public static MemoryTrace read(@NonNull Reader reader) throws IOException {
+    Builder builder = new Builder();
+    BufferedReader bufferedReader = new BufferedReader(reader);
+    String line;
+    int lineNumber = 0;
+    while ((line = bufferedReader.readLine()) != null) {
+      lineNumber++;
+      line = line.trim();
+      if (line.isEmpty() || line.charAt(0) == '#') {
+        continue;
+      }
+      String[] parts = line.split("\\s+");
+      try {
+        if (parts[0].length() != 1) {
+          throw new IOException("Unrecognized event on line " + lineNumber + ": " + line);
+        }
+        switch (parts[0].charAt(0)) {
+          case LOOKUP:
+            checkPartCount(parts, 3, lineNumber);
+            builder.addLookup(parts[1], Integer.parseInt(parts[2]));
+            break;
+          case BITMAP_GET:
+            checkPartCount(parts, 2, lineNumber);
+            builder.addBitmapGet(Integer.parseInt(parts[1]));
+            break;
+          case BITMAP_PUT:
+            checkPartCount(parts, 2, lineNumber);
+            builder.addBitmapPut(Integer.parseInt(parts[1]));
+            break;
+          case SAMPLE:
+            checkPartCount(parts, 3, lineNumber);
+            builder.addSample(Float.parseFloat(parts[1]), Integer.parseInt(parts[2]));
+            break;
+          default:
+            throw new IOException("Unrecognized event on line " + lineNumber + ": " + line);
+        }
+      } catch (NumberFormatException e) {
+        throw new IOException("Invalid number on line " + lineNumber + ": " + line, e);
+      }
+    }
+    return builder.build();
+  }
+
+  private static void checkPartCount(String[] parts, int expected, int lineNumber)
+      throws IOException {
+    if (parts.length != expected) {
+      throw new IOException("Expected " + expected + " values on line " + lineNumber
+          + ", but found: " + parts.length);
+    }
+  }
+
+  static final class Event {
+    final char type;
+    final String key;
+    final int size;
+    final float heapUsedFraction;
+    final int allocationFailureCount;
+
+    @Synthetic
+    Event(char type, String key, int size, float heapUsedFraction, int allocationFailureCount) {
+      this.type = type;
+      this.key = key;
+      this.size = size;
+      this.heapUsedFraction = heapUsedFraction;
+      this.allocationFailureCount = allocationFailureCount;
+    }
+  }
+
+  /**
+   * Builds a {@link MemoryTrace} one event at a time.
+   */
+  public static final class Builder {
+    private final List<Event> events = new ArrayList<>();
+
+    /**
+     * Adds a memory cache lookup of a resource of the given size.
+     */
+    @NonNull
+    public Builder addLookup(@NonNull String key, int size) {
+      if (key.isEmpty() || key.matches(".*\\s.*")) {
+        throw new IllegalArgumentException("Keys must be non empty and not contain whitespace");
+      }
+      events.add(new Event(LOOKUP, key, checkSize(size), 0, 0));
+      return this;
+    }
+
+    /**
+     * Adds a bitmap pool get for a {@link android.graphics.Bitmap} of the given size.
+     */
+    @NonNull
+    public Builder addBitmapGet(int size) {
+      events.add(new Event(BITMAP_GET, null, checkSize(size), 0, 0));
+      return this;
+    }
+
+    /**
+     * Adds a bitmap pool put of a {@link android.graphics.Bitmap} of the given size.
+     */
+    @NonNull
+    public Builder addBitmapPut(int size) {
+      events.add(new Event(BITMAP_PUT, null, checkSize(size), 0, 0));
+      return this;
+    }
+
+    /**
+     * Adds a sample with the given heap usage and number of allocation failures since the
+     * previous sample.
+     */
+    @NonNull
+    public Builder addSample(float heapUsedFraction, int allocationFailureCount) {
+      events.add(new Event(SAMPLE, null, 0, heapUsedFraction, allocationFailureCount));
+      return this;
+    }
+
+    @NonNull
+    public MemoryTrace build() {
+      return new MemoryTrace(events);
+    }
+
+    private static int checkSize(int size) {
+      if (size <= 0) {
+        throw new IllegalArgumentException("Size must be > 0, but was: " + size);
+      }
+      return size;
+    }
+  }
+}
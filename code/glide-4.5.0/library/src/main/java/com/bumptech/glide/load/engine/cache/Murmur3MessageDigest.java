@@ -0,0 +1,171 @@
+package com.bumptech.glide.load.engine.cache;
+
+import java.security.MessageDigest;
+
+/**
+ * A {@link MessageDigest} that computes the 128 bit x64 variant of MurmurHash3 with a seed of 0.
+ *
+ * <p>MurmurHash3 isn't a cryptographic hash, but it's far cheaper to compute than SHA-256 and its
+ * 128 bit output makes accidental collisions between disk cache keys vanishingly unlikely.
+ *
+ * <p>The digest is the first 64 bit half of the hash followed by the second, each in little endian
+ * byte order, which matches the byte order used by other common implementations.
+ */
+final class Murmur3MessageDigest extends MessageDigest {
+  static final String ALGORITHM = "MURMUR3-128";
+  private static final int DIGEST_LENGTH = 16;
+  private static final int BLOCK_SIZE = 16;
+  private static final long C1 = 0x87c37b91114253d5L;
+  private static final long C2 = 0x4cf5ad432745937fL;
+
+  private final byte[] block = new byte[BLOCK_SIZE];
+  private int blockLength;
+  private long totalLength;
+  private long h1;
+  private long h2;
+
+  Murmur3MessageDigest() {
+    super(ALGORITHM);
+  }
+
+  @Override
+  protected int engineGetDigestLength() {
+    return DIGEST_LENGTH;
+  }
+
+  @Override
+  protected void engineUpdate(byte input) {
+    block[blockLength++] = input;
+    totalLength++;
+    if (blockLength == BLOCK_SIZE) {
+      processBlock(block, 0);
+      blockLength = 0;
+    }
+  }
+
+  @Override
+  protected void engineUpdate(byte[] input, int offset, int len) {
+    totalLength += len;
+    int end = offset + len;
+    if (blockLength > 0) {
+      int toCopy = Math.min(BLOCK_SIZE - blockLength, len);
+      System.arraycopy(input, offset, block, blockLength, toCopy);
+      blockLength += toCopy;
+      offset += toCopy;
+      if (blockLength < BLOCK_SIZE) {
+        return;
+      }
+      processBlock(block, 0);
+      blockLength = 0;
+    }
+    while (end - offset >= BLOCK_SIZE) {
+      processBlock(input, offset);
+      offset += BLOCK_SIZE;
+    }
+    blockLength = end - offset;
+    System.arraycopy(input, offset, block, 0, blockLength);
+  }
+
+  @Override
+  protected byte[] engineDigest() {
+    byte[] result = new byte[DIGEST_LENGTH];
+    finish(result, 0);
+    return result;
+  }
+
+  @Override
+  protected int engineDigest(byte[] buf, int offset, int len) {
+    if (len < DIGEST_LENGTH) {
+      throw new IllegalArgumentException("Output buffer too small, need: " + DIGEST_LENGTH
+          + ", but was: " + len);
+    }
+    finish(buf, offset);
+    return DIGEST_LENGTH;
+  }
+
+  @Override
+  protected void engineReset() {
+    blockLength = 0;
+    totalLength = 0;
+    h1 = 0;
+    h2 = 0;
+  }
+
+  private void processBlock(byte[] bytes, int offset) {
+    long k1 = getLongLittleEndian(bytes, offset);
+    long k2 = getLongLittleEndian(bytes, offset + 8);
+
+    h1 ^= mixK1(k1);
+    h1 = Long.rotateLeft(h1, 27);
+    h1 += h2;
+    h1 = h1 * 5 + 0x52dce729;
+
+    h2 ^= mixK2(k2);
+    h2 = Long.rotateLeft(h2, 31);
+    h2 += h1;
+    h2 = h2 * 5 + 0x38495ab5;
+  }
+
+  private void finish(byte[] out, int offset) {
+    long k1 = 0;
+    long k2 = 0;
+    for (int i = blockLength - 1; i >= 8; i--) {
+      k2 = (k2 << 8) | (block[i] & 0xFFL);
+    }
+    for (int i = Math.min(blockLength, 8) - 1; i >= 0; i--) {
+      k1 = (k1 << 8) | (block[i] & 0xFFL);
+    }
+    h1 ^= mixK1(k1);
+    h2 ^= mixK2(k2);
+
+    h1 ^= totalLength;
+    h2 ^= totalLength;
+    h1 += h2;
+    h2 += h1;
+    h1 = fmix64(h1);
+    h2 = fmix64(h2);
+    h1 += h2;
+    h2 += h1;
+
+    putLongLittleEndian(h1, out, offset);
+    putLongLittleEndian(h2, out, offset + 8);
+    engineReset();
+  }
+
+  private static long mixK1(long k1) {
+    k1 *= C1;
+    k1 = Long.rotateLeft(k1, 31);
+    k1 *= C2;
+    return k1;
+  }
+
+  private static long mixK2(long k2) {
+    k2 *= C2;
+    k2 = Long.rotateLeft(k2, 33);
+    k2 *= C1;
+    return k2;
+  }
+
+  private static long fmix64(long k) {
+    k ^= k >>> 33;
+    k *= 0xff51afd7ed558ccdL;
+    k ^= k >>> 33;
+    k *= 0xc4ceb9fe1a85ec53L;
+    k ^= k >>> 33;
+    return k;
+  }
+
+  private static long getLongLittleEndian(byte[] bytes, int offset) {
+    long result = 0;
+    for (int i = 7; i >= 0; i--) {
+      result = (result << 8) | (bytes[offset + i] & 0xFFL);
+    }
+    return result;
+  }
+
+  private static void putLongLittleEndian(long value, byte[] out, int offset) {
+    for (int i = 0; i < 8; i++) {
+      out[offset + i] = (byte) (value >>> (8 * i));
+    }
+  }
+}
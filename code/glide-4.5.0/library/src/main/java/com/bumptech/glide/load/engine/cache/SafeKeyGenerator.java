@@ -1,69 +1,216 @@
 package com.bumptech.glide.load.engine.cache;
 
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.support.v4.util.Pools;
 import com.bumptech.glide.load.Key;
-import com.bumptech.glide.util.LruCache;
 import com.bumptech.glide.util.Preconditions;
 import com.bumptech.glide.util.Synthetic;
-import com.bumptech.glide.util.Util;
 import com.bumptech.glide.util.pool.FactoryPools;
 import com.bumptech.glide.util.pool.StateVerifier;
+import java.security.DigestException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A class that generates and caches safe and unique string file names from {@link
  * com.bumptech.glide.load.Key}s.
+ *
+ * <p>Safe keys are the lower case hex encoding of a {@link Digest} of the key, SHA-256 by default.
+ * Recently generated safe keys are cached so that repeated lookups for the same key, which happen
+ * for every disk cache get, put and delete, usually only cost a concurrent map lookup.
  */
 // Public API.
 @SuppressWarnings("WeakerAccess")
 public class SafeKeyGenerator {
-  private final LruCache<Key, String> loadIdToSafeHash = new LruCache<>(1000);
-  private final Pools.Pool<PoolableDigestContainer> digestPool = FactoryPools.threadSafe(10,
-      new FactoryPools.Factory<PoolableDigestContainer>() {
-        @Override
-        public PoolableDigestContainer create() {
-          try {
-            return new PoolableDigestContainer(MessageDigest.getInstance("SHA-256"));
-          } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException(e);
+  /**
+   * Generates safe keys using SHA-256, the default.
+   */
+  public static final Digest SHA_256 = new Digest() {
+    @NonNull
+    @Override
+    public MessageDigest newMessageDigest() {
+      try {
+        return MessageDigest.getInstance("SHA-256");
+      } catch (NoSuchAlgorithmException e) {
+        throw new RuntimeException(e);
+      }
+    }
+
+    @Override
+    public int getCacheFormatVersion() {
+      // Matches the version used by disk caches written before the digest could be changed.
+      return 1;
+    }
+  };
+
+  /**
+   * Generates safe keys using the 128 bit variant of MurmurHash3, which is much faster than
+   * SHA-256 but isn't a cryptographic hash.
+   */
+  public static final Digest MURMUR3_128 = new Digest() {
+    @NonNull
+    @Override
+    public MessageDigest newMessageDigest() {
+      return new Murmur3MessageDigest();
+    }
+
+    @Override
+    public int getCacheFormatVersion() {
+      return 2;
+    }
+  };
+
+  // Keys are cached in two generations of up to this many keys each.
+  private static final int MAX_KEYS_PER_GENERATION = 500;
+  private static final char[] HEX_CHAR_ARRAY = "0123456789abcdef".toCharArray();
+
+  private final Digest digest;
+  private final Pools.Pool<PoolableDigestContainer> digestPool;
+  private volatile Generation current = new Generation();
+  private volatile Generation previous = new Generation();
+
+  /**
+   * Chooses the hash function used to generate safe keys.
+   *
+   * <p>Disk caches use {@link #getCacheFormatVersion()} to discard entries written with a different
+   * digest, so implementations with different output must return different versions.
+   */
+  public interface Digest {
+    /**
+     * Returns a new {@link MessageDigest}. Instances are reused, but never by more than one thread
+     * at a time.
+     */
+    @NonNull
+    MessageDigest newMessageDigest();
+
+    /**
+     * Returns a version that uniquely identifies the safe keys generated with this digest.
+     */
+    int getCacheFormatVersion();
+  }
+
+  public SafeKeyGenerator() {
+    this(SHA_256);
+  }
+
+  public SafeKeyGenerator(@NonNull final Digest digest) {
+    this.digest = Preconditions.checkNotNull(digest);
+    digestPool = FactoryPools.threadSafe(10,
+        new FactoryPools.Factory<PoolableDigestContainer>() {
+          @Override
+          public PoolableDigestContainer create() {
+            return new PoolableDigestContainer(digest.newMessageDigest());
           }
-        }
-      });
+        });
+  }
+
+  /**
+   * Returns the version of the {@link Digest} used to generate safe keys.
+   */
+  public int getCacheFormatVersion() {
+    return digest.getCacheFormatVersion();
+  }
 
   public String getSafeKey(Key key) {
-    String safeKey;
-    synchronized (loadIdToSafeHash) {
-      safeKey = loadIdToSafeHash.get(key);
+    // Hits in the current generation, the common case, don't write to either map.
+    Generation current = this.current;
+    String safeKey = current.get(key);
+    if (safeKey != null) {
+      return safeKey;
     }
+    safeKey = previous.get(key);
     if (safeKey == null) {
       safeKey = calculateHexStringDigest(key);
     }
-    synchronized (loadIdToSafeHash) {
-      loadIdToSafeHash.put(key, safeKey);
+    if (current.put(key, safeKey) > MAX_KEYS_PER_GENERATION) {
+      startNewGeneration(current);
     }
     return safeKey;
   }
 
+  /**
+   * Drops the oldest generation, so keys that haven't been requested during the last full
+   * generation are evicted, approximating an LRU cache without ordering every access.
+   */
+  private synchronized void startNewGeneration(Generation full) {
+    if (current == full) {
+      previous = full;
+      current = new Generation();
+    }
+  }
+
   private String calculateHexStringDigest(Key key) {
     PoolableDigestContainer container = Preconditions.checkNotNull(digestPool.acquire());
     try {
       key.updateDiskCacheKey(container.messageDigest);
       // calling digest() will automatically reset()
-      return Util.sha256BytesToHex(container.messageDigest.digest());
+      return container.digestToHex();
     } finally {
       digestPool.release(container);
     }
   }
 
+  private static final class Generation {
+    private final ConcurrentMap<Key, String> safeKeys = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    @Synthetic
+    Generation() { }
+
+    @Nullable
+    String get(Key key) {
+      return safeKeys.get(key);
+    }
+
+    /**
+     * Adds the given safe key and returns the number of keys in this generation afterwards.
+     */
+    int put(Key key, String safeKey) {
+      return safeKeys.putIfAbsent(key, safeKey) == null ? size.incrementAndGet() : size.get();
+    }
+  }
+
   private static final class PoolableDigestContainer implements FactoryPools.Poolable {
 
     @Synthetic final MessageDigest messageDigest;
     private final StateVerifier stateVerifier = StateVerifier.newInstance();
+    // Reused for every digest so that only the resulting String is allocated.
+    @Nullable private final byte[] digestBytes;
+    private final char[] hexChars;
 
     PoolableDigestContainer(MessageDigest messageDigest) {
       this.messageDigest = messageDigest;
+      int digestLength = messageDigest.getDigestLength();
+      // Providers may not know the length up front, in which case digest() allocates instead.
+      digestBytes = digestLength > 0 ? new byte[digestLength] : null;
+      hexChars = new char[digestLength * 2];
+    }
+
+    String digestToHex() {
+      byte[] bytes;
+      int length;
+      if (digestBytes != null) {
+        bytes = digestBytes;
+        try {
+          length = messageDigest.digest(digestBytes, 0, digestBytes.length);
+        } catch (DigestException e) {
+          throw new RuntimeException(e);
+        }
+      } else {
+        bytes = messageDigest.digest();
+        length = bytes.length;
+      }
+      char[] chars = hexChars.length >= length * 2 ? hexChars : new char[length * 2];
+      for (int i = 0; i < length; i++) {
+        int v = bytes[i] & 0xFF;
+        chars[i * 2] = HEX_CHAR_ARRAY[v >>> 4];
+        chars[i * 2 + 1] = HEX_CHAR_ARRAY[v & 0x0F];
+      }
+      return new String(chars, 0, length * 2);
     }
 
     @NonNull
@@ -0,0 +1,815 @@
+package com.bumptech.glide.load.engine.cache;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.util.Log;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.util.ByteBufferUtil;
+import com.bumptech.glide.util.Synthetic;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link DiskCache} that packs entries in to large append only segment files instead of using
+ * one file per entry, which makes caching many small resources like thumbnails much cheaper.
+ *
+ * <p>The location of each entry is kept in a memory mapped {@link SegmentIndex}. Entries are read
+ * without copying as slices of memory mapped segments, see {@link #getBuffer(Key)}. Deleted and
+ * replaced entries leave holes in their segments that are reclaimed by compaction on a background
+ * thread once less than half of a segment is live. When the cache grows beyond its maximum size,
+ * the oldest segment is dropped. Entries in that segment that were read since they were written
+ * are given a second chance and copied in to the newest segment, as long as doing so frees at least
+ * half of the segment.
+ *
+ * <p>{@link #get(Key)} is supported for compatibility with code that expects a {@link File}, but
+ * it has to copy the entry in to a separate file, so {@link #getBuffer(Key)} should be preferred.
+ *
+ * <p>There must be no more than one active instance for a given directory at a time.
+ */
+public class SegmentDiskCache implements ByteBufferDiskCache {
+  private static final String TAG = "SegmentDiskCache";
+  /** 4 MB segments. */
+  public static final int DEFAULT_SEGMENT_SIZE = 4 * 1024 * 1024;
+  private static final String INDEX_FILE_NAME = "segments.index";
+  private static final String INDEX_FILE_NAME_TMP = "segments.index.tmp";
+  private static final String SEGMENT_PREFIX = "segment-";
+  private static final String SEGMENT_SUFFIX = ".seg";
+  private static final String TEMP_DIRECTORY = "tmp";
+  private static final String EXTRACTED_DIRECTORY = "files";
+  private static final float COMPACTION_THRESHOLD = 0.5f;
+  private static final int MAX_EXTRACTED_FILES = 32;
+
+  private final SafeKeyGenerator safeKeyGenerator;
+  private final DiskCacheWriteLocker writeLocker = new DiskCacheWriteLocker();
+  private final AtomicInteger tempFileCounter = new AtomicInteger();
+  private final Map<String, Location> locations = new ConcurrentHashMap<>();
+  private final Map<Integer, Segment> segments = new ConcurrentHashMap<>();
+  // Oldest first, guarded by this.
+  private final ArrayDeque<Segment> sealedSegments = new ArrayDeque<>();
+  private final Map<String, File> extractedFiles =
+      new LinkedHashMap<String, File>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, File> eldest) {
+          if (size() > MAX_EXTRACTED_FILES) {
+            deleteQuietly(eldest.getValue());
+            return true;
+          }
+          return false;
+        }
+      };
+  private final File directory;
+  private final File tempDirectory;
+  private final File extractedDirectory;
+  private final long maxSize;
+  private final int segmentSize;
+  private final Executor compactionExecutor;
+  private final Runnable compactionRunnable = new Runnable() {
+    @Override
+    public void run() {
+      compact();
+    }
+  };
+
+  private volatile boolean isOpen;
+  // Guarded by this.
+  private SegmentIndex index;
+  private Segment activeSegment;
+  private long currentSize;
+  private boolean isCompactionScheduled;
+
+  /**
+   * Create a new DiskCache in the given directory with a specified max size.
+   *
+   * @param directory The directory for the disk cache
+   * @param maxSize   The max size for the disk cache
+   * @return The new disk cache with the given arguments
+   */
+  @NonNull
+  public static SegmentDiskCache create(@NonNull File directory, long maxSize) {
+    return create(directory, maxSize, SafeKeyGenerator.SHA_256);
+  }
+
+  /**
+   * Create a new DiskCache in the given directory with a specified max size that names entries
+   * using the given {@link SafeKeyGenerator.Digest}.
+   *
+   * <p>Changing the digest for an existing directory discards the entries written with the
+   * previous digest.
+   *
+   * @param directory The directory for the disk cache
+   * @param maxSize   The max size for the disk cache
+   * @param digest    The digest used to generate keys for entries
+   * @return The new disk cache with the given arguments
+   */
+  @NonNull
+  public static SegmentDiskCache create(
+      @NonNull File directory, long maxSize, @NonNull SafeKeyGenerator.Digest digest) {
+    return new SegmentDiskCache(
+        directory, maxSize, DEFAULT_SEGMENT_SIZE,
+        DiskCacheExecutors.newSingleThreadExecutor("glide-disk-cache-compaction"), digest);
+  }
+
+  @VisibleForTesting
+  SegmentDiskCache(
+      @NonNull File directory, long maxSize, int segmentSize,
+      @NonNull Executor compactionExecutor) {
+    this(directory, maxSize, segmentSize, compactionExecutor, SafeKeyGenerator.SHA_256);
+  }
+
+  @VisibleForTesting
+  SegmentDiskCache(
+      @NonNull File directory, long maxSize, int segmentSize,
+      @NonNull Executor compactionExecutor, @NonNull SafeKeyGenerator.Digest digest) {
+    if (segmentSize <= 0) {
+      throw new IllegalArgumentException("Segment size must be > 0");
+    }
+    this.safeKeyGenerator = new SafeKeyGenerator(digest);
+    this.directory = directory;
+    this.tempDirectory = new File(directory, TEMP_DIRECTORY);
+    this.extractedDirectory = new File(directory, EXTRACTED_DIRECTORY);
+    this.maxSize = maxSize;
+    this.segmentSize = segmentSize;
+    this.compactionExecutor = compactionExecutor;
+  }
+
+  /**
+   * Returns a read only view of the data for the given key backed directly by the memory mapped
+   * segment that contains it, or {@code null} if the key isn't in the cache.
+   */
+  @Nullable
+  @Override
+  public ByteBuffer getBuffer(@NonNull Key key) {
+    return getBuffer(safeKeyGenerator.getSafeKey(key));
+  }
+
+  /**
+   * Returns a file containing the data for the given key.
+   *
+   * <p>Entries are stored in shared segment files, so this copies the entry in to a separate file
+   * that is only kept until a limited number of newer entries have been requested via this method.
+   */
+  @Nullable
+  @Override
+  public File get(Key key) {
+    String safeKey = safeKeyGenerator.getSafeKey(key);
+    ByteBuffer buffer = getBuffer(safeKey);
+    if (buffer == null) {
+      return null;
+    }
+
+    File result;
+    synchronized (extractedFiles) {
+      result = extractedFiles.get(safeKey);
+    }
+    if (result != null && result.exists()) {
+      return result;
+    }
+
+    result = new File(extractedDirectory, safeKey);
+    File temp = newTempFile(safeKey);
+    try {
+      ByteBufferUtil.toFile(buffer, temp);
+      if (!temp.renameTo(result)) {
+        throw new IOException("Failed to rename: " + temp + " to: " + result);
+      }
+    } catch (IOException e) {
+      if (Log.isLoggable(TAG, Log.WARN)) {
+        Log.w(TAG, "Unable to copy entry out of disk cache", e);
+      }
+      deleteQuietly(temp);
+      return null;
+    }
+    synchronized (extractedFiles) {
+      extractedFiles.put(safeKey, result);
+    }
+    return result;
+  }
+
+  @Override
+  public void put(Key key, Writer writer) {
+    // Like DiskLruCacheWrapper, puts block so that data is available when put completes.
+    String safeKey = safeKeyGenerator.getSafeKey(key);
+    writeLocker.acquire(safeKey);
+    try {
+      if (Log.isLoggable(TAG, Log.VERBOSE)) {
+        Log.v(TAG, "Put: Obtained: " + safeKey + " for for Key: " + key);
+      }
+      File temp = null;
+      try {
+        ensureOpen();
+        if (locations.containsKey(safeKey)) {
+          return;
+        }
+        // Encode outside of the lock so that writers for different keys don't block each other.
+        temp = newTempFile(safeKey);
+        if (writer.write(temp) && temp.exists()) {
+          append(safeKey, temp);
+        }
+      } catch (IOException e) {
+        if (Log.isLoggable(TAG, Log.WARN)) {
+          Log.w(TAG, "Unable to put to disk cache", e);
+        }
+      } finally {
+        if (temp != null) {
+          deleteQuietly(temp);
+        }
+      }
+    } finally {
+      writeLocker.release(safeKey);
+    }
+  }
+
+  @Override
+  public void delete(Key key) {
+    String safeKey = safeKeyGenerator.getSafeKey(key);
+    try {
+      ensureOpen();
+      synchronized (this) {
+        Location removed = locations.remove(safeKey);
+        if (removed != null) {
+          onLocationRemoved(safeKey, removed);
+          index.appendTombstone(safeKey);
+          maybeScheduleCompaction();
+        }
+      }
+    } catch (IOException e) {
+      if (Log.isLoggable(TAG, Log.WARN)) {
+        Log.w(TAG, "Unable to delete from disk cache", e);
+      }
+    }
+    removeExtractedFile(safeKey);
+  }
+
+  @Override
+  public synchronized void clear() {
+    close();
+    deleteContents(directory);
+    synchronized (extractedFiles) {
+      extractedFiles.clear();
+    }
+  }
+
+  @VisibleForTesting
+  synchronized long getCurrentSize() {
+    return currentSize;
+  }
+
+  @VisibleForTesting
+  synchronized int getSegmentCount() {
+    return segments.size();
+  }
+
+  @VisibleForTesting
+  synchronized int getIndexRecordCount() {
+    return index != null ? index.getRecordCount() : 0;
+  }
+
+  @Nullable
+  private ByteBuffer getBuffer(String safeKey) {
+    try {
+      ensureOpen();
+      Location location = locations.get(safeKey);
+      if (location == null) {
+        return null;
+      }
+      Segment segment = segments.get(location.segmentId);
+      if (segment == null) {
+        // The segment was dropped after we looked up the location.
+        return null;
+      }
+      ByteBuffer result = segment.slice(location.offset, location.length);
+      location.isAccessed = true;
+      return result;
+    } catch (IOException e) {
+      if (Log.isLoggable(TAG, Log.WARN)) {
+        Log.w(TAG, "Unable to get from disk cache", e);
+      }
+      return null;
+    }
+  }
+
+  private void ensureOpen() throws IOException {
+    if (!isOpen) {
+      open();
+    }
+  }
+
+  private synchronized void open() throws IOException {
+    if (isOpen) {
+      return;
+    }
+    if (!directory.mkdirs() && !directory.isDirectory()) {
+      throw new IOException("Unable to create disk cache directory: " + directory);
+    }
+    deleteContents(tempDirectory);
+    deleteContents(extractedDirectory);
+    if (!tempDirectory.mkdirs() && !tempDirectory.isDirectory()) {
+      throw new IOException("Unable to create temp directory: " + tempDirectory);
+    }
+    if (!extractedDirectory.mkdirs() && !extractedDirectory.isDirectory()) {
+      throw new IOException("Unable to create directory: " + extractedDirectory);
+    }
+
+    List<Segment> existing = new ArrayList<>();
+    int maxSegmentId = -1;
+    File[] files = directory.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        int id = parseSegmentId(file.getName());
+        if (id >= 0) {
+          Segment segment = Segment.sealed(id, file);
+          segments.put(id, segment);
+          existing.add(segment);
+          maxSegmentId = Math.max(maxSegmentId, id);
+        }
+      }
+    }
+
+    // A rewrite that didn't finish leaves the previous index in place.
+    deleteQuietly(new File(directory, INDEX_FILE_NAME_TMP));
+    index = new SegmentIndex(
+        new File(directory, INDEX_FILE_NAME), safeKeyGenerator.getCacheFormatVersion());
+    try {
+      index.open(new SegmentIndex.Visitor() {
+        @Override
+        public void onRecord(@NonNull String safeKey, int segmentId, int offset, int length) {
+          restore(safeKey, segmentId, offset, length);
+        }
+      });
+    } catch (IOException e) {
+      index.close();
+      locations.clear();
+      segments.clear();
+      throw e;
+    }
+
+    // Segments are created with increasing ids, so sorting by id sorts from oldest to newest.
+    Collections.sort(existing, new Comparator<Segment>() {
+      @Override
+      public int compare(Segment first, Segment second) {
+        return first.id < second.id ? -1 : (first.id == second.id ? 0 : 1);
+      }
+    });
+    for (Segment segment : existing) {
+      if (segment.keys.isEmpty()) {
+        segments.remove(segment.id);
+        segment.delete();
+      } else {
+        sealedSegments.add(segment);
+        currentSize += segment.length;
+      }
+    }
+
+    activeSegment = newActiveSegment(maxSegmentId + 1);
+    isOpen = true;
+    trimToSize();
+    maybeScheduleCompaction();
+  }
+
+  @Synthetic
+  void restore(String safeKey, int segmentId, int offset, int length) {
+    Location previous = locations.remove(safeKey);
+    if (previous != null) {
+      onLocationRemoved(safeKey, previous);
+    }
+    if (length == SegmentIndex.TOMBSTONE) {
+      return;
+    }
+    Segment segment = segments.get(segmentId);
+    if (segment == null || offset < 0 || length < 0 || (long) offset + length > segment.length) {
+      return;
+    }
+    addLocation(safeKey, new Location(segmentId, offset, length), segment);
+  }
+
+  private synchronized void close() {
+    if (index != null) {
+      index.close();
+      index = null;
+    }
+    for (Segment segment : segments.values()) {
+      segment.close();
+    }
+    segments.clear();
+    sealedSegments.clear();
+    locations.clear();
+    activeSegment = null;
+    currentSize = 0;
+    isOpen = false;
+  }
+
+  private synchronized void append(String safeKey, File file) throws IOException {
+    // The cache may have been cleared while the writer was running.
+    ensureOpen();
+    long length = file.length();
+    if (length > Integer.MAX_VALUE) {
+      throw new IOException("Entry too large for disk cache: " + length);
+    }
+    Segment segment = prepareActiveSegment(length);
+    int offset = (int) segment.length;
+    FileInputStream is = new FileInputStream(file);
+    try {
+      segment.append(is.getChannel(), length);
+    } finally {
+      try {
+        is.close();
+      } catch (IOException e) {
+        // Ignored.
+      }
+    }
+    onAppended(safeKey, segment, offset, (int) length);
+    trimToSize();
+    maybeScheduleCompaction();
+  }
+
+  private Segment prepareActiveSegment(long length) throws IOException {
+    if (activeSegment.length > 0 && activeSegment.length + length > segmentSize) {
+      activeSegment.seal();
+      sealedSegments.add(activeSegment);
+      activeSegment = newActiveSegment(activeSegment.id + 1);
+    }
+    return activeSegment;
+  }
+
+  private Location onAppended(String safeKey, Segment segment, int offset, int length)
+      throws IOException {
+    currentSize += length;
+    index.append(safeKey, segment.id, offset, length);
+    Location previous = locations.remove(safeKey);
+    if (previous != null) {
+      onLocationRemoved(safeKey, previous);
+    }
+    Location location = new Location(segment.id, offset, length);
+    addLocation(safeKey, location, segment);
+    return location;
+  }
+
+  private void addLocation(String safeKey, Location location, Segment segment) {
+    locations.put(safeKey, location);
+    segment.keys.add(safeKey);
+    segment.liveBytes += location.length;
+  }
+
+  private void onLocationRemoved(String safeKey, Location location) {
+    Segment segment = segments.get(location.segmentId);
+    if (segment != null) {
+      segment.keys.remove(safeKey);
+      segment.liveBytes -= location.length;
+    }
+  }
+
+  /**
+   * Drops the oldest segments until the cache fits within its maximum size.
+   */
+  private void trimToSize() throws IOException {
+    while (currentSize > maxSize && !sealedSegments.isEmpty()) {
+      Segment oldest = sealedSegments.poll();
+      long accessedBytes = 0;
+      for (String safeKey : oldest.keys) {
+        Location location = locations.get(safeKey);
+        if (location != null && location.isAccessed) {
+          accessedBytes += location.length;
+        }
+      }
+      boolean isSecondChanceAllowed = accessedBytes <= oldest.length / 2;
+      for (String safeKey : new ArrayList<>(oldest.keys)) {
+        Location location = locations.remove(safeKey);
+        if (location == null) {
+          continue;
+        }
+        if (isSecondChanceAllowed && location.isAccessed) {
+          relocate(safeKey, location, oldest);
+        } else {
+          removeExtractedFile(safeKey);
+        }
+      }
+      dropSegment(oldest);
+    }
+  }
+
+  private void maybeScheduleCompaction() {
+    if (!isCompactionScheduled && (findSparseSegment() != null || isIndexSparse())) {
+      isCompactionScheduled = true;
+      compactionExecutor.execute(compactionRunnable);
+    }
+  }
+
+  @Synthetic
+  void compact() {
+    try {
+      while (compactNextSegment()) {
+        // Release the lock between segments so that reads and writes aren't blocked for long.
+      }
+    } catch (IOException e) {
+      if (Log.isLoggable(TAG, Log.WARN)) {
+        Log.w(TAG, "Unable to compact disk cache", e);
+      }
+      synchronized (this) {
+        isCompactionScheduled = false;
+      }
+    }
+  }
+
+  private synchronized boolean compactNextSegment() throws IOException {
+    if (!isOpen) {
+      isCompactionScheduled = false;
+      return false;
+    }
+    Segment sparse = findSparseSegment();
+    if (sparse == null) {
+      if (isIndexSparse()) {
+        rewriteIndex();
+      }
+      isCompactionScheduled = false;
+      return false;
+    }
+    if (Log.isLoggable(TAG, Log.DEBUG)) {
+      Log.d(TAG, "Compacting segment: " + sparse.id + ", live bytes: " + sparse.liveBytes
+          + ", total bytes: " + sparse.length);
+    }
+    sealedSegments.remove(sparse);
+    for (String safeKey : new ArrayList<>(sparse.keys)) {
+      Location location = locations.remove(safeKey);
+      if (location != null) {
+        relocate(safeKey, location, sparse).isAccessed = location.isAccessed;
+      }
+    }
+    dropSegment(sparse);
+    return true;
+  }
+
+  @Nullable
+  private Segment findSparseSegment() {
+    for (Segment segment : sealedSegments) {
+      if (segment.liveBytes < segment.length * COMPACTION_THRESHOLD) {
+        return segment;
+      }
+    }
+    return null;
+  }
+
+  private boolean isIndexSparse() {
+    return index.getRecordCount() > 2 * locations.size() + 64;
+  }
+
+  /**
+   * Writes only the live entries to a new index and renames it over the current one, like
+   * {@link com.bumptech.glide.disklrucache.DiskLruCache} does with its journal, so that a crash
+   * part way through leaves the previous index intact.
+   */
+  private void rewriteIndex() throws IOException {
+    File indexFile = new File(directory, INDEX_FILE_NAME);
+    File tempFile = new File(directory, INDEX_FILE_NAME_TMP);
+    deleteQuietly(tempFile);
+    SegmentIndex rewritten =
+        new SegmentIndex(tempFile, safeKeyGenerator.getCacheFormatVersion());
+    try {
+      rewritten.open(SegmentIndex.IGNORE_RECORDS);
+      for (Map.Entry<String, Location> entry : locations.entrySet()) {
+        Location location = entry.getValue();
+        rewritten.append(entry.getKey(), location.segmentId, location.offset, location.length);
+      }
+      rewritten.flush();
+    } catch (IOException e) {
+      rewritten.close();
+      deleteQuietly(tempFile);
+      throw e;
+    }
+    rewritten.close();
+
+    index.close();
+    boolean isRenamed = tempFile.renameTo(indexFile);
+    if (!isRenamed) {
+      deleteQuietly(tempFile);
+    }
+    // Either way, reopen whichever index is now in place. Its records already match locations.
+    index.open(SegmentIndex.IGNORE_RECORDS);
+    if (!isRenamed) {
+      throw new IOException("Failed to rename: " + tempFile + " to: " + indexFile);
+    }
+  }
+
+  /**
+   * Copies an entry whose location has already been removed from the given segment in to the
+   * active segment.
+   */
+  private Location relocate(String safeKey, Location location, Segment from)
+      throws IOException {
+    from.keys.remove(safeKey);
+    from.liveBytes -= location.length;
+    ByteBuffer data = from.slice(location.offset, location.length);
+    Segment segment = prepareActiveSegment(location.length);
+    int offset = (int) segment.length;
+    segment.append(data);
+    return onAppended(safeKey, segment, offset, location.length);
+  }
+
+  private void dropSegment(Segment segment) {
+    segments.remove(segment.id);
+    currentSize -= segment.length;
+    segment.delete();
+  }
+
+  private Segment newActiveSegment(int id) throws IOException {
+    Segment segment =
+        Segment.active(id, new File(directory, SEGMENT_PREFIX + id + SEGMENT_SUFFIX));
+    segments.put(id, segment);
+    return segment;
+  }
+
+  private File newTempFile(String safeKey) {
+    return new File(tempDirectory, safeKey + "." + tempFileCounter.getAndIncrement());
+  }
+
+  private void removeExtractedFile(String safeKey) {
+    File removed;
+    synchronized (extractedFiles) {
+      removed = extractedFiles.remove(safeKey);
+    }
+    if (removed != null) {
+      deleteQuietly(removed);
+    }
+  }
+
+  private static int parseSegmentId(String name) {
+    if (!name.startsWith(SEGMENT_PREFIX) || !name.endsWith(SEGMENT_SUFFIX)) {
+      return -1;
+    }
+    try {
+      return Integer.parseInt(
+          name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  private static void deleteContents(File directory) {
+    File[] files = directory.listFiles();
+    if (files == null) {
+      return;
+    }
+    for (File file : files) {
+      if (file.isDirectory()) {
+        deleteContents(file);
+      }
+      deleteQuietly(file);
+    }
+  }
+
+  @Synthetic
+  static void deleteQuietly(File file) {
+    if (!file.delete() && file.exists() && Log.isLoggable(TAG, Log.WARN)) {
+      Log.w(TAG, "Failed to delete: " + file);
+    }
+  }
+
+  private static final class Location {
+    @Synthetic final int segmentId;
+    @Synthetic final int offset;
+    @Synthetic final int length;
+    @Synthetic volatile boolean isAccessed;
+
+    @Synthetic
+    Location(int segmentId, int offset, int length) {
+      this.segmentId = segmentId;
+      this.offset = offset;
+      this.length = length;
+    }
+  }
+
+  /**
+   * A single segment file. Only the active segment is appended to, once sealed a segment is
+   * mapped in to memory in its entirety the first time it's read from.
+   */
+  private static final class Segment {
+    @Synthetic final int id;
+    private final File file;
+    // Guarded by the cache.
+    @Synthetic final Set<String> keys = new HashSet<>();
+    @Synthetic long length;
+    @Synthetic long liveBytes;
+
+    // Guarded by this.
+    private RandomAccessFile randomAccessFile;
+    private FileChannel channel;
+    private volatile MappedByteBuffer mapped;
+
+    static Segment sealed(int id, File file) {
+      Segment segment = new Segment(id, file);
+      segment.length = file.length();
+      return segment;
+    }
+
+    static Segment active(int id, File file) throws IOException {
+      Segment segment = new Segment(id, file);
+      segment.randomAccessFile = new RandomAccessFile(file, "rw");
+      segment.randomAccessFile.setLength(0);
+      segment.channel = segment.randomAccessFile.getChannel();
+      return segment;
+    }
+
+    private Segment(int id, File file) {
+      this.id = id;
+      this.file = file;
+    }
+
+    ByteBuffer slice(int offset, int length) throws IOException {
+      MappedByteBuffer local = mapped;
+      if (local == null) {
+        synchronized (this) {
+          if (channel != null) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+          }
+          if (mapped == null) {
+            RandomAccessFile raf = new RandomAccessFile(file, "r");
+            try {
+              mapped = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+            } finally {
+              raf.close();
+            }
+          }
+          local = mapped;
+        }
+      }
+      ByteBuffer result = local.duplicate();
+      result.limit(offset + length);
+      result.position(offset);
+      return result.slice();
+    }
+
+    // Called with the cache lock held.
+    void append(FileChannel source, long count) throws IOException {
+      long position = length;
+      long transferred = 0;
+      while (transferred < count) {
+        long result = channel.transferFrom(source, position + transferred, count - transferred);
+        if (result <= 0) {
+          throw new IOException("Failed to copy entry in to segment: " + file);
+        }
+        transferred += result;
+      }
+      length += count;
+    }
+
+    // Called with the cache lock held.
+    void append(ByteBuffer source) throws IOException {
+      long position = length;
+      int count = source.remaining();
+      while (source.hasRemaining()) {
+        position += channel.write(source, position);
+      }
+      length += count;
+    }
+
+    synchronized void seal() {
+      closeChannel();
+    }
+
+    synchronized void close() {
+      closeChannel();
+      mapped = null;
+    }
+
+    void delete() {
+      close();
+      deleteQuietly(file);
+    }
+
+    private void closeChannel() {
+      if (channel != null) {
+        try {
+          channel.close();
+        } catch (IOException e) {
+          // Ignored.
+        }
+        channel = null;
+      }
+      if (randomAccessFile != null) {
+        try {
+          randomAccessFile.close();
+        } catch (IOException e) {
+          // Ignored.
+        }
+        randomAccessFile = null;
+      }
+    }
+  }
+}
@@ -0,0 +1,61 @@
+package com.bumptech.glide.load.engine.cache;
+
+import java.io.File;
+
+/**
+ * Creates a {@link SegmentDiskCache} in the specified disk cache directory.
+ *
+ * <p>The segment based cache stores many small entries more efficiently than the
+ * {@link com.bumptech.glide.disklrucache.DiskLruCache} based cache created by
+ * {@link DiskLruCacheFactory}. The two caches use different formats, so they must not share a
+ * directory.
+ */
+// Public API.
+@SuppressWarnings("unused")
+public class SegmentDiskCacheFactory implements DiskCache.Factory {
+  /** The default directory name, different from the {@link DiskLruCacheFactory} default. */
+  public static final String DEFAULT_SEGMENT_DISK_CACHE_DIR = "image_manager_segment_disk_cache";
+
+  private final long diskCacheSize;
+  private final DiskLruCacheFactory.CacheDirectoryGetter cacheDirectoryGetter;
+
+  public SegmentDiskCacheFactory(final String diskCacheFolder, long diskCacheSize) {
+    this(new DiskLruCacheFactory.CacheDirectoryGetter() {
+      @Override
+      public File getCacheDirectory() {
+        return new File(diskCacheFolder);
+      }
+    }, diskCacheSize);
+  }
+
+  /**
+   * When using this constructor
+   * {@link DiskLruCacheFactory.CacheDirectoryGetter#getCacheDirectory()} will be called out of UI
+   * thread, allowing to do I/O access without performance impacts.
+   *
+   * @param cacheDirectoryGetter Interface called out of UI thread to get the cache folder.
+   * @param diskCacheSize        Desired max bytes size for the disk cache.
+   */
+  // Public API.
+  @SuppressWarnings("WeakerAccess")
+  public SegmentDiskCacheFactory(
+      DiskLruCacheFactory.CacheDirectoryGetter cacheDirectoryGetter, long diskCacheSize) {
+    this.diskCacheSize = diskCacheSize;
+    this.cacheDirectoryGetter = cacheDirectoryGetter;
+  }
+
+  @Override
+  public DiskCache build() {
+    File cacheDir = cacheDirectoryGetter.getCacheDirectory();
+
+    if (cacheDir == null) {
+      return null;
+    }
+
+    if (!cacheDir.mkdirs() && (!cacheDir.exists() || !cacheDir.isDirectory())) {
+      return null;
+    }
+
+    return SegmentDiskCache.create(cacheDir, diskCacheSize);
+  }
+}
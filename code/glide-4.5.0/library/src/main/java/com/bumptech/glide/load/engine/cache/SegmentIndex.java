@@ -0,0 +1,184 @@
+package com.bumptech.glide.load.engine.cache;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.VisibleForTesting;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * An append only log of the locations of {@link SegmentDiskCache} entries, stored in a memory
+ * mapped file.
+ *
+ * <p>Each record maps a safe key to a segment id, offset and length. Later records for a key
+ * replace earlier ones and records with a length of {@link #TOMBSTONE} mark deleted keys. The
+ * record count in the header is only updated after a record is written, so a partially written
+ * record is ignored when the index is read back. The header also records the
+ * {@link SafeKeyGenerator#getCacheFormatVersion() key format} of the safe keys, so changing the
+ * digest used to generate them discards the index and with it every segment.
+ *
+ * <p>This class is not thread safe, {@link SegmentDiskCache} only accesses it while holding its
+ * lock.
+ */
+final class SegmentIndex {
+  static final int TOMBSTONE = -1;
+  @VisibleForTesting
+  static final int VERSION = 1;
+  @VisibleForTesting
+  static final int MAX_KEY_LENGTH = 64;
+  private static final int MAGIC = 0x474c5349;
+  private static final int HEADER_SIZE = 16;
+  private static final int COUNT_OFFSET = 8;
+  private static final int KEY_FORMAT_OFFSET = 12;
+  // Key length (2) + key (64) + segment id (4) + offset (4) + length (4), padded to 80.
+  private static final int RECORD_SIZE = 80;
+  private static final int INITIAL_CAPACITY = 256;
+
+  interface Visitor {
+    void onRecord(@NonNull String safeKey, int segmentId, int offset, int length);
+  }
+
+  static final Visitor IGNORE_RECORDS = new Visitor() {
+    @Override
+    public void onRecord(@NonNull String safeKey, int segmentId, int offset, int length) {
+      // Ignored.
+    }
+  };
+
+  private final File file;
+  private final int keyFormatVersion;
+  private RandomAccessFile randomAccessFile;
+  private FileChannel channel;
+  private MappedByteBuffer buffer;
+  private int capacity;
+  private int recordCount;
+
+  SegmentIndex(@NonNull File file, int keyFormatVersion) {
+    this.file = file;
+    this.keyFormatVersion = keyFormatVersion;
+  }
+
+  /**
+   * Opens the index and replays every record to the given visitor in the order the records were
+   * written.
+   *
+   * <p>Indexes written by a different version of this class or with a different key format are
+   * discarded.
+   */
+  void open(@NonNull Visitor visitor) throws IOException {
+    randomAccessFile = new RandomAccessFile(file, "rw");
+    channel = randomAccessFile.getChannel();
+    long existingLength = channel.size();
+    int existingCapacity = (int) Math.max(0, (existingLength - HEADER_SIZE) / RECORD_SIZE);
+    map(Math.max(INITIAL_CAPACITY, existingCapacity));
+
+    if (existingLength < HEADER_SIZE
+        || buffer.getInt(0) != MAGIC
+        || buffer.getInt(4) != VERSION
+        || buffer.getInt(KEY_FORMAT_OFFSET) != keyFormatVersion) {
+      buffer.putInt(0, MAGIC);
+      buffer.putInt(4, VERSION);
+      buffer.putInt(KEY_FORMAT_OFFSET, keyFormatVersion);
+      setRecordCount(0);
+      return;
+    }
+
+    int count = Math.min(buffer.getInt(COUNT_OFFSET), existingCapacity);
+    char[] chars = new char[MAX_KEY_LENGTH];
+    for (int i = 0; i < count; i++) {
+      int position = positionOf(i);
+      int keyLength = buffer.getShort(position);
+      if (keyLength <= 0 || keyLength > MAX_KEY_LENGTH) {
+        // The index is corrupt, ignore everything after the last valid record.
+        count = i;
+        break;
+      }
+      for (int j = 0; j < keyLength; j++) {
+        chars[j] = (char) buffer.get(position + 2 + j);
+      }
+      int valuePosition = position + 2 + MAX_KEY_LENGTH;
+      visitor.onRecord(
+          new String(chars, 0, keyLength),
+          buffer.getInt(valuePosition),
+          buffer.getInt(valuePosition + 4),
+          buffer.getInt(valuePosition + 8));
+    }
+    setRecordCount(count);
+  }
+
+  void append(@NonNull String safeKey, int segmentId, int offset, int length)
+      throws IOException {
+    int keyLength = safeKey.length();
+    if (keyLength == 0 || keyLength > MAX_KEY_LENGTH) {
+      throw new IllegalArgumentException("Invalid safe key: " + safeKey);
+    }
+    if (recordCount == capacity) {
+      map(capacity * 2);
+    }
+    int position = positionOf(recordCount);
+    buffer.putShort(position, (short) keyLength);
+    for (int i = 0; i < keyLength; i++) {
+      buffer.put(position + 2 + i, (byte) safeKey.charAt(i));
+    }
+    int valuePosition = position + 2 + MAX_KEY_LENGTH;
+    buffer.putInt(valuePosition, segmentId);
+    buffer.putInt(valuePosition + 4, offset);
+    buffer.putInt(valuePosition + 8, length);
+    setRecordCount(recordCount + 1);
+  }
+
+  void appendTombstone(@NonNull String safeKey) throws IOException {
+    append(safeKey, TOMBSTONE, 0, TOMBSTONE);
+  }
+
+  /**
+   * Writes every record to the underlying file, so that it survives a crash of the device, not
+   * just of the process.
+   */
+  void flush() {
+    buffer.force();
+  }
+
+  int getRecordCount() {
+    return recordCount;
+  }
+
+  void close() {
+    buffer = null;
+    capacity = 0;
+    recordCount = 0;
+    if (channel != null) {
+      try {
+        channel.close();
+      } catch (IOException e) {
+        // Ignored.
+      }
+      channel = null;
+    }
+    if (randomAccessFile != null) {
+      try {
+        randomAccessFile.close();
+      } catch (IOException e) {
+        // Ignored.
+      }
+      randomAccessFile = null;
+    }
+  }
+
+  private void setRecordCount(int recordCount) {
+    this.recordCount = recordCount;
+    buffer.putInt(COUNT_OFFSET, recordCount);
+  }
+
+  private void map(int newCapacity) throws IOException {
+    long size = HEADER_SIZE + (long) newCapacity * RECORD_SIZE;
+    buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    capacity = newCapacity;
+  }
+
+  private static int positionOf(int record) {
+    return HEADER_SIZE + record * RECORD_SIZE;
+  }
+}
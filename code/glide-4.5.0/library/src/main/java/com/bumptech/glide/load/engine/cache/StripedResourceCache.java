@@ -0,0 +1,349 @@
+package com.bumptech.glide.load.engine.cache;
+
+import android.annotation.SuppressLint;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.load.engine.Resource;
+import com.bumptech.glide.util.Synthetic;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A concurrent in memory cache for {@link com.bumptech.glide.load.engine.Resource}s that shards
+ * keys across a fixed number of independently locked segments.
+ *
+ * <p>Unlike {@link LruResourceCache}, which serializes every operation on a single monitor, this
+ * cache only locks the segment that owns a given key, so puts and removes for different keys
+ * rarely contend. Each segment evicts using the CLOCK (second chance) algorithm, which
+ * approximates LRU without re-ordering entries on every access. The byte budget is global: when a
+ * put pushes the total size over the maximum size, segments are visited round robin and asked to
+ * give up their oldest unreferenced entries until the cache fits again.
+ *
+ * <p>{@link ResourceRemovedListener}s are always called without any segment lock held, so it's
+ * safe for a listener to put the removed resource back in to the cache.
+ *
+ * <p>To use this cache instead of the default, pass it to
+ * {@link com.bumptech.glide.GlideBuilder#setMemoryCache(MemoryCache)}:
+ * <pre>
+ * {@code
+ * MemorySizeCalculator calculator = new MemorySizeCalculator.Builder(context).build();
+ * builder.setMemoryCache(new StripedResourceCache(calculator.getMemoryCacheSize()));
+ * }
+ * </pre>
+ */
+public class StripedResourceCache implements MemoryCache,
+    MemoryCacheStats.Provider {
+  private static final int MAX_SEGMENT_COUNT = 1 << 16;
+
+  private final Segment[] segments;
+  private final int segmentMask;
+  private final long initialMaxSize;
+  private final AtomicLong currentSize = new AtomicLong();
+  private final AtomicInteger evictionCursor = new AtomicInteger();
+  private final MemoryCacheStats stats = new MemoryCacheStats();
+  private volatile long maxSize;
+  private volatile ResourceRemovedListener listener;
+
+  /**
+   * Constructor for StripedResourceCache that uses a segment count based on the number of
+   * available processors.
+   *
+   * @param size The maximum size in bytes the in memory cache can use.
+   */
+  public StripedResourceCache(long size) {
+    this(size, getDefaultConcurrencyLevel());
+  }
+
+  /**
+   * Constructor for StripedResourceCache.
+   *
+   * @param size The maximum size in bytes the in memory cache can use.
+   * @param concurrencyLevel The expected number of threads that will access the cache
+   *                         concurrently, rounded up to the nearest power of two to determine the
+   *                         number of segments.
+   */
+  public StripedResourceCache(long size, int concurrencyLevel) {
+    if (concurrencyLevel <= 0) {
+      throw new IllegalArgumentException("Concurrency level must be > 0");
+    }
+    initialMaxSize = size;
+    maxSize = size;
+
+    int segmentCount = 1;
+    while (segmentCount < concurrencyLevel && segmentCount < MAX_SEGMENT_COUNT) {
+      segmentCount <<= 1;
+    }
+    segmentMask = segmentCount - 1;
+    segments = new Segment[segmentCount];
+    for (int i = 0; i < segmentCount; i++) {
+      segments[i] = new Segment();
+    }
+  }
+
+  /**
+   * Returns the hit, miss and eviction counters for this cache.
+   */
+  @NonNull
+  @Override
+  public MemoryCacheStats getStats() {
+    return stats;
+  }
+
+  @Override
+  public void setResourceRemovedListener(@NonNull ResourceRemovedListener listener) {
+    this.listener = listener;
+  }
+
+  @Override
+  public long getCurrentSize() {
+    return currentSize.get();
+  }
+
+  @Override
+  public long getMaxSize() {
+    return maxSize;
+  }
+
+  @Override
+  public void setSizeMultiplier(float multiplier) {
+    if (multiplier < 0) {
+      throw new IllegalArgumentException("Multiplier must be >= 0");
+    }
+    maxSize = Math.round(initialMaxSize * multiplier);
+    trimToSize(maxSize);
+  }
+
+  /**
+   * Returns the resource for the given key without removing it, or {@code null} if no such
+   * resource exists.
+   *
+   * <p>Marks the entry as recently used so that it's skipped by the next eviction pass.
+   */
+  @Nullable
+  public Resource<?> get(@NonNull Key key) {
+    return segmentFor(key).get(key);
+  }
+
+  /**
+   * Returns {@code true} if there is a resource for the given key in the cache.
+   */
+  public boolean contains(@NonNull Key key) {
+    return segmentFor(key).get(key) != null;
+  }
+
+  @Nullable
+  @Override
+  public Resource<?> remove(@NonNull Key key) {
+    Entry removed = segmentFor(key).remove(key);
+    stats.recordLookup(removed != null);
+    if (removed == null) {
+      return null;
+    }
+    currentSize.addAndGet(-removed.size);
+    return removed.resource;
+  }
+
+  @Nullable
+  @Override
+  public Resource<?> put(@NonNull Key key, @Nullable Resource<?> resource) {
+    if (resource == null) {
+      Entry removed = segmentFor(key).remove(key);
+      if (removed == null) {
+        return null;
+      }
+      currentSize.addAndGet(-removed.size);
+      return removed.resource;
+    }
+
+    int size = resource.getSize();
+    if (size >= maxSize) {
+      notifyRemoved(resource);
+      return null;
+    }
+
+    Entry old = segmentFor(key).put(key, resource, size);
+    currentSize.addAndGet(old == null ? size : size - old.size);
+    if (old != null && !old.resource.equals(resource)) {
+      notifyRemoved(old.resource);
+    }
+    trimToSize(maxSize);
+
+    return old != null ? old.resource : null;
+  }
+
+  @Override
+  public void clearMemory() {
+    trimToSize(0);
+  }
+
+  @SuppressLint("InlinedApi")
+  @Override
+  public void trimMemory(int level) {
+    if (level >= android.content.ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+      // Nearing middle of list of cached background apps
+      // Evict our entire bitmap cache
+      clearMemory();
+    } else if (level >= android.content.ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+      // Entering list of cached background apps
+      // Evict oldest half of our bitmap cache
+      trimToSize(getMaxSize() / 2);
+    }
+  }
+
+  @VisibleForTesting
+  int getSegmentCount() {
+    return segments.length;
+  }
+
+  /**
+   * Evicts entries, visiting segments round robin, until the total size of the cache is less than
+   * or equal to the given size.
+   */
+  @SuppressWarnings("WeakerAccess")
+  protected void trimToSize(long size) {
+    int emptySegmentsInARow = 0;
+    while (currentSize.get() > size && emptySegmentsInARow < segments.length) {
+      Segment segment = segments[evictionCursor.getAndIncrement() & segmentMask];
+      Entry evicted = segment.evict();
+      if (evicted == null) {
+        emptySegmentsInARow++;
+        continue;
+      }
+      emptySegmentsInARow = 0;
+      currentSize.addAndGet(-evicted.size);
+      notifyRemoved(evicted.resource);
+    }
+  }
+
+  private void notifyRemoved(@NonNull Resource<?> resource) {
+    stats.recordEviction();
+    ResourceRemovedListener current = listener;
+    if (current != null) {
+      current.onResourceRemoved(resource);
+    }
+  }
+
+  private Segment segmentFor(Key key) {
+    // Spread the hash so that keys whose hash codes only differ in the high bits don't all land in
+    // the same segment.
+    int hash = key.hashCode();
+    hash ^= (hash >>> 20) ^ (hash >>> 12);
+    hash ^= (hash >>> 7) ^ (hash >>> 4);
+    return segments[hash & segmentMask];
+  }
+
+  private static int getDefaultConcurrencyLevel() {
+    return Math.max(1, Runtime.getRuntime().availableProcessors() * 2);
+  }
+
+  /**
+   * A single lock protected shard of the cache that keeps its entries in a circular list and
+   * evicts using a CLOCK hand.
+   */
+  private static final class Segment {
+    private final Map<Key, Entry> entries = new HashMap<>();
+    @Nullable
+    private Entry hand;
+
+    @Nullable
+    synchronized Resource<?> get(Key key) {
+      Entry entry = entries.get(key);
+      if (entry == null) {
+        return null;
+      }
+      entry.isReferenced = true;
+      return entry.resource;
+    }
+
+    @Nullable
+    synchronized Entry remove(Key key) {
+      Entry entry = entries.remove(key);
+      if (entry != null) {
+        unlink(entry);
+      }
+      return entry;
+    }
+
+    @Nullable
+    synchronized Entry put(Key key, Resource<?> resource, int size) {
+      Entry entry = new Entry(key, resource, size);
+      Entry old = entries.put(key, entry);
+      if (old != null) {
+        unlink(old);
+      }
+      link(entry);
+      return old;
+    }
+
+    /**
+     * Removes and returns the first entry under the CLOCK hand that hasn't been referenced since
+     * the hand last passed it, or {@code null} if the segment is empty.
+     */
+    @Nullable
+    synchronized Entry evict() {
+      while (hand != null) {
+        Entry candidate = hand;
+        if (candidate.isReferenced) {
+          candidate.isReferenced = false;
+          hand = candidate.next;
+        } else {
+          entries.remove(candidate.key);
+          unlink(candidate);
+          return candidate;
+        }
+      }
+      return null;
+    }
+
+    /**
+     * Inserts the given entry immediately behind the hand so that it's the last entry the hand
+     * will visit.
+     */
+    private void link(Entry entry) {
+      if (hand == null) {
+        entry.next = entry;
+        entry.prev = entry;
+        hand = entry;
+      } else {
+        entry.next = hand;
+        entry.prev = hand.prev;
+        hand.prev.next = entry;
+        hand.prev = entry;
+      }
+    }
+
+    private void unlink(Entry entry) {
+      if (entry.next == entry) {
+        hand = null;
+      } else {
+        entry.prev.next = entry.next;
+        entry.next.prev = entry.prev;
+        if (hand == entry) {
+          hand = entry.next;
+        }
+      }
+      entry.next = null;
+      entry.prev = null;
+    }
+  }
+
+  private static final class Entry {
+    @Synthetic final Key key;
+    @Synthetic final Resource<?> resource;
+    @Synthetic final int size;
+    @Synthetic boolean isReferenced;
+    @Synthetic Entry next;
+    @Synthetic Entry prev;
+
+    @Synthetic
+    Entry(Key key, Resource<?> resource, int size) {
+      this.key = key;
+      this.resource = resource;
+      this.size = size;
+    }
+  }
+}
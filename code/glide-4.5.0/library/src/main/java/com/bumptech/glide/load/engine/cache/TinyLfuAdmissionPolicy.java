@@ -0,0 +1,122 @@
+package com.bumptech.glide.load.engine.cache;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.VisibleForTesting;
+import com.bumptech.glide.load.Key;
+
+/**
+ * An {@link AdmissionPolicy} that admits a candidate only if it has been requested more often
+ * than the victim it would replace.
+ *
+ * <p>Request frequencies are estimated with a count-min sketch of four bit counters, so the
+ * policy uses a small, fixed amount of memory regardless of how many distinct keys it sees. To
+ * keep the estimates biased towards recent history, all counters are halved every time the
+ * number of recorded requests reaches ten times the width of the sketch.
+ */
+public final class TinyLfuAdmissionPolicy implements AdmissionPolicy {
+  private static final int DEFAULT_EXPECTED_ENTRIES = 1024;
+  private static final int SAMPLE_SIZE_MULTIPLIER = 10;
+  @VisibleForTesting
+  static final int MAX_FREQUENCY = 15;
+  private static final long[] SEEDS = new long[] {
+      0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+  private static final long RESET_MASK = 0x7777777777777777L;
+  private static final long ONE_MASK = 0x1111111111111111L;
+
+  private final long[] table;
+  private final int tableMask;
+  private final int sampleSize;
+  private int additions;
+
+  /**
+   * Creates a policy sized for a cache with a typical number of entries.
+   */
+  public TinyLfuAdmissionPolicy() {
+    this(DEFAULT_EXPECTED_ENTRIES);
+  }
+
+  /**
+   * Creates a policy sized for a cache that usually contains around the given number of entries.
+   *
+   * @param expectedEntries The approximate number of resources the cache will hold at once.
+   */
+  public TinyLfuAdmissionPolicy(int expectedEntries) {
+    if (expectedEntries <= 0) {
+      throw new IllegalArgumentException("Expected entries must be > 0");
+    }
+    int tableSize = Integer.highestOneBit(Math.max(1, expectedEntries - 1)) << 1;
+    table = new long[tableSize];
+    tableMask = tableSize - 1;
+    sampleSize = SAMPLE_SIZE_MULTIPLIER * tableSize;
+  }
+
+  @Override
+  public void record(@NonNull Key key) {
+    int hash = spread(key.hashCode());
+    // Each long holds sixteen counters, each of the four rows uses a different group of four.
+    int start = (hash & 3) << 2;
+    boolean added = false;
+    for (int i = 0; i < SEEDS.length; i++) {
+      added |= incrementAt(indexOf(hash, i), start + i);
+    }
+    if (added && ++additions == sampleSize) {
+      reset();
+    }
+  }
+
+  @Override
+  public boolean admit(@NonNull Key candidate, @NonNull Key victim) {
+    return frequency(candidate) > frequency(victim);
+  }
+
+  /**
+   * Returns the estimated number of times the given key has been recorded, up to
+   * {@link #MAX_FREQUENCY}.
+   */
+  @VisibleForTesting
+  int frequency(@NonNull Key key) {
+    int hash = spread(key.hashCode());
+    int start = (hash & 3) << 2;
+    int frequency = Integer.MAX_VALUE;
+    for (int i = 0; i < SEEDS.length; i++) {
+      int index = indexOf(hash, i);
+      int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+      frequency = Math.min(frequency, count);
+    }
+    return frequency;
+  }
+
+  private boolean incrementAt(int index, int counter) {
+    int offset = counter << 2;
+    long mask = 0xfL << offset;
+    if ((table[index] & mask) != mask) {
+      table[index] += 1L << offset;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Halves every counter so that old requests gradually stop counting towards admission.
+   */
+  private void reset() {
+    int oddCounters = 0;
+    for (int i = 0; i < table.length; i++) {
+      oddCounters += Long.bitCount(table[i] & ONE_MASK);
+      table[i] = (table[i] >>> 1) & RESET_MASK;
+    }
+    additions = (additions >>> 1) - (oddCounters >>> 2);
+  }
+
+  private int indexOf(int hash, int row) {
+    long result = (hash + SEEDS[row]) * SEEDS[row];
+    result += result >>> 32;
+    return ((int) result) & tableMask;
+  }
+
+  private static int spread(int hash) {
+    hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+    hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+    return (hash >>> 16) ^ hash;
+  }
+}
@@ -0,0 +1,392 @@
+package com.bumptech.glide.load.engine.cache;
+
+import android.annotation.SuppressLint;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.load.engine.Resource;
+import com.bumptech.glide.util.Synthetic;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An in memory cache for {@link com.bumptech.glide.load.engine.Resource}s that uses the W-TinyLFU
+ * policy so that a burst of resources that are only loaded once, like those seen while flinging
+ * through a long list, can't flush out resources that are loaded repeatedly.
+ *
+ * <p>The cache is split in to three regions, each with its own byte budget:
+ * <ul>
+ *   <li>A small window LRU that every new resource enters first.</li>
+ *   <li>A probation LRU for resources that have left the window.</li>
+ *   <li>A protected LRU for resources that were requested again while in probation.</li>
+ * </ul>
+ *
+ * <p>When a resource is pushed out of the window and the main region (probation and protected) is
+ * full, the {@link AdmissionPolicy} decides whether it displaces the least recently used resource
+ * in probation or whether it's dropped instead.
+ *
+ * <p>{@link com.bumptech.glide.load.engine.Engine} removes resources from the cache when they're
+ * requested and puts them back once they're released. To let those resources skip the window
+ * when they return, the keys of recently removed resources from the main region are remembered
+ * and put straight back in to the protected region.
+ *
+ * <p>Like {@link LruResourceCache}, all operations are synchronized on the cache.
+ */
+public class TinyLfuResourceCache implements MemoryCache,
+    MemoryCacheStats.Provider {
+  @VisibleForTesting
+  static final float WINDOW_PERCENTAGE = 0.01f;
+  @VisibleForTesting
+  static final float PROTECTED_PERCENTAGE = 0.8f;
+  private static final int MAX_RETURNING_KEYS = 512;
+
+  private final long initialMaxSize;
+  private final AdmissionPolicy admissionPolicy;
+  private final MemoryCacheStats stats = new MemoryCacheStats();
+  private final Map<Key, Entry> entries = new HashMap<>();
+  private final Region window = new Region();
+  private final Region probation = new Region();
+  private final Region protectedRegion = new Region();
+  private final Map<Key, Boolean> returningKeys =
+      new LinkedHashMap<Key, Boolean>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Boolean> eldest) {
+          return size() > MAX_RETURNING_KEYS;
+        }
+      };
+  private long maxSize;
+  private long windowMaxSize;
+  private long protectedMaxSize;
+  private ResourceRemovedListener listener;
+
+  /**
+   * Constructor for TinyLfuResourceCache that uses a {@link TinyLfuAdmissionPolicy}.
+   *
+   * @param size The maximum size in bytes the in memory cache can use.
+   */
+  public TinyLfuResourceCache(long size) {
+    this(size, new TinyLfuAdmissionPolicy());
+  }
+
+  /**
+   * Constructor for TinyLfuResourceCache.
+   *
+   * @param size The maximum size in bytes the in memory cache can use.
+   * @param admissionPolicy The policy that decides whether resources leaving the window replace
+   *                        resources in the main region.
+   */
+  public TinyLfuResourceCache(long size, @NonNull AdmissionPolicy admissionPolicy) {
+    this.initialMaxSize = size;
+    this.admissionPolicy = admissionPolicy;
+    setMaxSize(size);
+  }
+
+  /**
+   * Returns the hit, miss and eviction counters for this cache.
+   */
+  @NonNull
+  @Override
+  public MemoryCacheStats getStats() {
+    return stats;
+  }
+
+  @Override
+  public void setResourceRemovedListener(@NonNull ResourceRemovedListener listener) {
+    this.listener = listener;
+  }
+
+  @Override
+  public synchronized long getCurrentSize() {
+    return window.size + probation.size + protectedRegion.size;
+  }
+
+  @Override
+  public synchronized long getMaxSize() {
+    return maxSize;
+  }
+
+  @Override
+  public synchronized void setSizeMultiplier(float multiplier) {
+    if (multiplier < 0) {
+      throw new IllegalArgumentException("Multiplier must be >= 0");
+    }
+    setMaxSize(Math.round(initialMaxSize * multiplier));
+    trimToSize(maxSize);
+  }
+
+  /**
+   * Returns the resource for the given key without removing it, or {@code null} if no such
+   * resource exists.
+   */
+  @Nullable
+  public synchronized Resource<?> get(@NonNull Key key) {
+    admissionPolicy.record(key);
+    Entry entry = entries.get(key);
+    if (entry == null) {
+      return null;
+    }
+    onAccess(entry);
+    return entry.resource;
+  }
+
+  /**
+   * Returns {@code true} if there is a resource for the given key in the cache.
+   */
+  public synchronized boolean contains(@NonNull Key key) {
+    return entries.containsKey(key);
+  }
+
+  @Nullable
+  @Override
+  public synchronized Resource<?> remove(@NonNull Key key) {
+    admissionPolicy.record(key);
+    Entry entry = entries.remove(key);
+    stats.recordLookup(entry != null);
+    if (entry == null) {
+      return null;
+    }
+    Region region = entry.region;
+    region.unlink(entry);
+    if (region != window) {
+      returningKeys.put(key, Boolean.TRUE);
+    }
+    return entry.resource;
+  }
+
+  @Nullable
+  @Override
+  public synchronized Resource<?> put(@NonNull Key key, @Nullable Resource<?> resource) {
+    if (resource == null) {
+      Entry removed = entries.remove(key);
+      if (removed != null) {
+        removed.region.unlink(removed);
+        return removed.resource;
+      }
+      return null;
+    }
+
+    admissionPolicy.record(key);
+    int size = resource.getSize();
+    if (size >= maxSize) {
+      onRemoved(resource);
+      return null;
+    }
+
+    Entry old = entries.remove(key);
+    Region target = window;
+    if (old != null) {
+      if (old.region != window) {
+        target = protectedRegion;
+      }
+      old.region.unlink(old);
+      if (!old.resource.equals(resource)) {
+        onRemoved(old.resource);
+      }
+    } else if (returningKeys.remove(key) != null) {
+      target = protectedRegion;
+    }
+
+    Entry entry = new Entry(key, resource, size);
+    entries.put(key, entry);
+    target.linkLast(entry);
+
+    demoteProtected();
+    evictFromWindow();
+    trimToSize(maxSize);
+
+    return old != null ? old.resource : null;
+  }
+
+  @Override
+  public void clearMemory() {
+    trimToSize(0);
+  }
+
+  @SuppressLint("InlinedApi")
+  @Override
+  public void trimMemory(int level) {
+    if (level >= android.content.ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+      // Nearing middle of list of cached background apps
+      // Evict our entire bitmap cache
+      clearMemory();
+    } else if (level >= android.content.ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+      // Entering list of cached background apps
+      // Evict oldest half of our bitmap cache
+      trimToSize(getMaxSize() / 2);
+    }
+  }
+
+  /**
+   * Evicts resources until the total size of the cache is less than or equal to the given size,
+   * starting with probation, followed by the window and finally the protected region.
+   */
+  @SuppressWarnings("WeakerAccess")
+  protected synchronized void trimToSize(long size) {
+    while (getCurrentSize() > size) {
+      Entry victim = probation.first();
+      if (victim == null) {
+        victim = window.first();
+      }
+      if (victim == null) {
+        victim = protectedRegion.first();
+      }
+      if (victim == null) {
+        break;
+      }
+      evict(victim);
+    }
+  }
+
+  private void setMaxSize(long size) {
+    maxSize = size;
+    windowMaxSize = Math.min(size, Math.max(1, Math.round(size * WINDOW_PERCENTAGE)));
+    protectedMaxSize = Math.round((size - windowMaxSize) * PROTECTED_PERCENTAGE);
+  }
+
+  private void onAccess(Entry entry) {
+    if (entry.region == probation) {
+      probation.unlink(entry);
+      protectedRegion.linkLast(entry);
+      demoteProtected();
+    } else {
+      entry.region.moveToLast(entry);
+    }
+  }
+
+  /**
+   * Moves the least recently used resources in the protected region to probation until the
+   * protected region fits within its budget.
+   */
+  private void demoteProtected() {
+    while (protectedRegion.size > protectedMaxSize) {
+      Entry demoted = protectedRegion.first();
+      if (demoted == null) {
+        break;
+      }
+      protectedRegion.unlink(demoted);
+      probation.linkLast(demoted);
+    }
+  }
+
+  /**
+   * Moves resources out of the window until it fits within its budget, dropping either the
+   * resource leaving the window or probation's least recently used resource if there's no room.
+   */
+  private void evictFromWindow() {
+    long mainMaxSize = maxSize - windowMaxSize;
+    while (window.size > windowMaxSize) {
+      Entry candidate = window.first();
+      window.unlink(candidate);
+
+      boolean isAdmitted = true;
+      while (probation.size + protectedRegion.size + candidate.size > mainMaxSize) {
+        Entry victim = probation.first();
+        if (victim == null) {
+          victim = protectedRegion.first();
+        }
+        if (victim == null) {
+          break;
+        }
+        if (!admissionPolicy.admit(candidate.key, victim.key)) {
+          isAdmitted = false;
+          break;
+        }
+        evict(victim);
+      }
+
+      if (isAdmitted) {
+        probation.linkLast(candidate);
+      } else {
+        entries.remove(candidate.key);
+        stats.recordRejection();
+        onRemoved(candidate.resource);
+      }
+    }
+  }
+
+  private void evict(Entry entry) {
+    entries.remove(entry.key);
+    entry.region.unlink(entry);
+    onRemoved(entry.resource);
+  }
+
+  private void onRemoved(Resource<?> resource) {
+    stats.recordEviction();
+    if (listener != null) {
+      listener.onResourceRemoved(resource);
+    }
+  }
+
+  @VisibleForTesting
+  synchronized boolean isInWindow(Key key) {
+    Entry entry = entries.get(key);
+    return entry != null && entry.region == window;
+  }
+
+  @VisibleForTesting
+  synchronized boolean isProtected(Key key) {
+    Entry entry = entries.get(key);
+    return entry != null && entry.region == protectedRegion;
+  }
+
+  /**
+   * A doubly linked list of entries in least to most recently used order along with the sum of
+   * their sizes.
+   */
+  private static final class Region {
+    private final Entry head = new Entry(null, null, 0);
+    @Synthetic long size;
+
+    @Synthetic
+    Region() {
+      head.next = head;
+      head.prev = head;
+    }
+
+    @Nullable
+    Entry first() {
+      return head.next == head ? null : head.next;
+    }
+
+    void linkLast(Entry entry) {
+      entry.region = this;
+      entry.prev = head.prev;
+      entry.next = head;
+      head.prev.next = entry;
+      head.prev = entry;
+      size += entry.size;
+    }
+
+    void unlink(Entry entry) {
+      entry.prev.next = entry.next;
+      entry.next.prev = entry.prev;
+      entry.next = null;
+      entry.prev = null;
+      entry.region = null;
+      size -= entry.size;
+    }
+
+    void moveToLast(Entry entry) {
+      unlink(entry);
+      linkLast(entry);
+    }
+  }
+
+  private static final class Entry {
+    @Synthetic final Key key;
+    @Synthetic final Resource<?> resource;
+    @Synthetic final int size;
+    @Synthetic Region region;
+    @Synthetic Entry next;
+    @Synthetic Entry prev;
+
+    @Synthetic
+    Entry(Key key, Resource<?> resource, int size) {
+      this.key = key;
+      this.resource = resource;
+      this.size = size;
+    }
+  }
+}
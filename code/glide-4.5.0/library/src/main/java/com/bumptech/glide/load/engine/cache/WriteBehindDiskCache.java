@@ -0,0 +1,343 @@
+package com.bumptech.glide.load.engine.cache;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.util.Log;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.util.Synthetic;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wraps a {@link ByteBufferDiskCache} so that writes can be queued and performed later on a
+ * dedicated writer thread instead of on the thread that decoded the resource.
+ *
+ * <p>Writes are only deferred when they're added via {@link #enqueue(Key, Writer, Runnable)},
+ * {@link #put(Key, Writer)} still writes synchronously. Queued writes are drained in batches in
+ * the order they were added. The queue is bounded, once it's full {@link #enqueue(Key, Writer,
+ * Runnable)} performs the write on the calling thread so that producers can't outrun the disk.
+ *
+ * <p>Reads see queued writes. If a queued write for the requested key hasn't started yet, the
+ * reading thread performs it before reading, if it's already in progress, the reading thread waits
+ * for it to finish. Queuing a write for a key that already has a queued or in progress write
+ * cancels the new write, because the disk cache only ever keeps the first value written for a key.
+ * {@link #delete(Key)} and {@link #clear()} cancel queued writes.
+ */
+public final class WriteBehindDiskCache implements ByteBufferDiskCache {
+  private static final String TAG = "WriteBehindDiskCache";
+  /** The default maximum number of queued writes. */
+  public static final int DEFAULT_MAX_QUEUE_SIZE = 32;
+  private static final int MAX_BATCH_SIZE = 8;
+
+  private final ByteBufferDiskCache wrapped;
+  private final int maxQueueSize;
+  private final Executor writerExecutor;
+  private final Runnable drainRunnable = new Runnable() {
+    @Override
+    public void run() {
+      drain();
+    }
+  };
+
+  // Guarded by this. Insertion ordered so that writes are performed in the order they're queued.
+  private final Map<Key, PendingWrite> queued = new LinkedHashMap<>();
+  private final Map<Key, PendingWrite> inProgress = new HashMap<>();
+  private boolean isDrainScheduled;
+  private int maxQueueDepth;
+  private long completedWriteCount;
+  private long totalWriteLatencyNanos;
+  private long callerRunsCount;
+  private long cancelledWriteCount;
+
+  /**
+   * Wraps the given cache with a queue of up to {@link #DEFAULT_MAX_QUEUE_SIZE} writes.
+   */
+  public WriteBehindDiskCache(@NonNull DiskCache wrapped) {
+    this(wrapped, DEFAULT_MAX_QUEUE_SIZE);
+  }
+
+  /**
+   * Wraps the given cache.
+   *
+   * @param wrapped The cache to write to.
+   * @param maxQueueSize The maximum number of writes that can be queued before
+   *                     {@link #enqueue(Key, Writer, Runnable)} writes synchronously.
+   */
+  public WriteBehindDiskCache(@NonNull DiskCache wrapped, int maxQueueSize) {
+    this(wrapped, maxQueueSize,
+        DiskCacheExecutors.newSingleThreadExecutor("glide-disk-cache-writer"));
+  }
+
+  @VisibleForTesting
+  WriteBehindDiskCache(
+      @NonNull DiskCache wrapped, int maxQueueSize, @NonNull Executor writerExecutor) {
+    if (maxQueueSize <= 0) {
+      throw new IllegalArgumentException("Max queue size must be > 0");
+    }
+    this.wrapped = FileDiskCacheWrapper.wrap(wrapped);
+    this.maxQueueSize = maxQueueSize;
+    this.writerExecutor = writerExecutor;
+  }
+
+  /**
+   * Queues a write of the given key.
+   *
+   * <p>Any data referenced by the {@link Writer} must remain valid until {@code onComplete} is
+   * called, which happens once the write finishes, fails or is cancelled. {@code onComplete} may be
+   * called on any thread, including the calling thread before this method returns.
+   *
+   * @param key The key to write to.
+   * @param writer Writes the data for the key.
+   * @param onComplete Called once the {@link Writer} is no longer needed.
+   */
+  public void enqueue(@NonNull Key key, @NonNull Writer writer, @Nullable Runnable onComplete) {
+    PendingWrite write = new PendingWrite(key, writer, onComplete);
+    boolean isDuplicate = false;
+    boolean isQueueFull = false;
+    boolean scheduleDrain = false;
+    synchronized (this) {
+      if (queued.containsKey(key) || inProgress.containsKey(key)) {
+        isDuplicate = true;
+        cancelledWriteCount++;
+      } else if (queued.size() >= maxQueueSize) {
+        isQueueFull = true;
+        callerRunsCount++;
+        inProgress.put(key, write);
+      } else {
+        queued.put(key, write);
+        maxQueueDepth = Math.max(maxQueueDepth, queued.size());
+        if (!isDrainScheduled) {
+          isDrainScheduled = true;
+          scheduleDrain = true;
+        }
+      }
+    }
+
+    if (isDuplicate) {
+      write.complete();
+    } else if (isQueueFull) {
+      perform(write);
+    } else if (scheduleDrain) {
+      writerExecutor.execute(drainRunnable);
+    }
+  }
+
+  @Nullable
+  @Override
+  public ByteBuffer getBuffer(@NonNull Key key) {
+    flush(key);
+    return wrapped.getBuffer(key);
+  }
+
+  @Nullable
+  @Override
+  public File get(Key key) {
+    flush(key);
+    return wrapped.get(key);
+  }
+
+  @Override
+  public void put(Key key, Writer writer) {
+    flush(key);
+    wrapped.put(key, writer);
+  }
+
+  @Override
+  public void delete(Key key) {
+    PendingWrite cancelled;
+    PendingWrite current;
+    synchronized (this) {
+      cancelled = queued.remove(key);
+      if (cancelled != null) {
+        cancelledWriteCount++;
+      }
+      current = inProgress.get(key);
+    }
+    if (cancelled != null) {
+      cancelled.complete();
+    }
+    if (current != null) {
+      current.await();
+    }
+    wrapped.delete(key);
+  }
+
+  @Override
+  public void clear() {
+    List<PendingWrite> cancelled;
+    List<PendingWrite> current;
+    synchronized (this) {
+      cancelled = new ArrayList<>(queued.values());
+      queued.clear();
+      cancelledWriteCount += cancelled.size();
+      current = new ArrayList<>(inProgress.values());
+    }
+    for (PendingWrite write : cancelled) {
+      write.complete();
+    }
+    for (PendingWrite write : current) {
+      write.await();
+    }
+    wrapped.clear();
+  }
+
+  /**
+   * Returns the number of writes that are queued and haven't started yet.
+   */
+  public synchronized int getQueueDepth() {
+    return queued.size();
+  }
+
+  /**
+   * Returns the largest number of writes that have been queued at once.
+   */
+  public synchronized int getMaxQueueDepth() {
+    return maxQueueDepth;
+  }
+
+  /**
+   * Returns the number of writes that have finished, including those that failed.
+   */
+  public synchronized long getCompletedWriteCount() {
+    return completedWriteCount;
+  }
+
+  /**
+   * Returns the average time in milliseconds between a write being queued and finishing.
+   */
+  public synchronized double getAverageWriteLatencyMillis() {
+    if (completedWriteCount == 0) {
+      return 0;
+    }
+    return totalWriteLatencyNanos / (double) completedWriteCount
+        / TimeUnit.MILLISECONDS.toNanos(1);
+  }
+
+  /**
+   * Returns the number of writes that were performed on the calling thread because the queue was
+   * full.
+   */
+  public synchronized long getCallerRunsCount() {
+    return callerRunsCount;
+  }
+
+  /**
+   * Returns the number of queued writes that were cancelled.
+   */
+  public synchronized long getCancelledWriteCount() {
+    return cancelledWriteCount;
+  }
+
+  /**
+   * Makes sure any queued write for the given key has finished, performing it on the calling
+   * thread if it hasn't started yet.
+   */
+  private void flush(Key key) {
+    PendingWrite toPerform;
+    PendingWrite toAwait = null;
+    synchronized (this) {
+      toPerform = queued.remove(key);
+      if (toPerform != null) {
+        inProgress.put(key, toPerform);
+      } else {
+        toAwait = inProgress.get(key);
+      }
+    }
+    if (toPerform != null) {
+      perform(toPerform);
+    } else if (toAwait != null) {
+      toAwait.await();
+    }
+  }
+
+  @Synthetic
+  void drain() {
+    List<PendingWrite> batch = new ArrayList<>(MAX_BATCH_SIZE);
+    while (true) {
+      synchronized (this) {
+        Iterator<PendingWrite> iterator = queued.values().iterator();
+        while (iterator.hasNext() && batch.size() < MAX_BATCH_SIZE) {
+          PendingWrite write = iterator.next();
+          iterator.remove();
+          inProgress.put(write.key, write);
+          batch.add(write);
+        }
+        if (batch.isEmpty()) {
+          isDrainScheduled = false;
+          return;
+        }
+      }
+      for (PendingWrite write : batch) {
+        perform(write);
+      }
+      batch.clear();
+    }
+  }
+
+  private void perform(PendingWrite write) {
+    try {
+      wrapped.put(write.key, write.writer);
+    } catch (RuntimeException e) {
+      // Writers for synchronous puts may throw to the caller, but there's no caller to throw to
+      // here.
+      if (Log.isLoggable(TAG, Log.WARN)) {
+        Log.w(TAG, "Failed to write: " + write.key, e);
+      }
+    } finally {
+      synchronized (this) {
+        inProgress.remove(write.key);
+        completedWriteCount++;
+        totalWriteLatencyNanos += System.nanoTime() - write.startTime;
+      }
+      write.complete();
+    }
+  }
+
+  private static final class PendingWrite {
+    @Synthetic final Key key;
+    @Synthetic final Writer writer;
+    @Synthetic final long startTime = System.nanoTime();
+    @Nullable private final Runnable onComplete;
+    private boolean isComplete;
+
+    @Synthetic
+    PendingWrite(Key key, Writer writer, @Nullable Runnable onComplete) {
+      this.key = key;
+      this.writer = writer;
+      this.onComplete = onComplete;
+    }
+
+    void complete() {
+      synchronized (this) {
+        isComplete = true;
+        notifyAll();
+      }
+      if (onComplete != null) {
+        onComplete.run();
+      }
+    }
+
+    synchronized void await() {
+      boolean isInterrupted = false;
+      while (!isComplete) {
+        try {
+          wait();
+        } catch (InterruptedException e) {
+          isInterrupted = true;
+        }
+      }
+      if (isInterrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+}
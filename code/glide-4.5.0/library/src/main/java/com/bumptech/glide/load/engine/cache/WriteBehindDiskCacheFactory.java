@@ -0,0 +1,45 @@
+package com.bumptech.glide.load.engine.cache;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * Wraps the {@link DiskCache} created by another {@link DiskCache.Factory} in a
+ * {@link WriteBehindDiskCache} so that transformed resources are written to the disk cache on a
+ * dedicated writer thread instead of on the thread that decoded them.
+ *
+ * <p>For example:
+ * <pre>
+ * {@code
+ * builder.setDiskCache(
+ *     new WriteBehindDiskCacheFactory(new InternalCacheDiskCacheFactory(context)));
+ * }
+ * </pre>
+ */
+// Public API.
+@SuppressWarnings("unused")
+public final class WriteBehindDiskCacheFactory implements DiskCache.Factory {
+  private final DiskCache.Factory wrapped;
+  private final int maxQueueSize;
+
+  public WriteBehindDiskCacheFactory(@NonNull DiskCache.Factory wrapped) {
+    this(wrapped, WriteBehindDiskCache.DEFAULT_MAX_QUEUE_SIZE);
+  }
+
+  /**
+   * @param wrapped The factory that creates the cache to write to.
+   * @param maxQueueSize The maximum number of writes that can be queued before writes are
+   *                     performed on the decoding thread again.
+   */
+  public WriteBehindDiskCacheFactory(@NonNull DiskCache.Factory wrapped, int maxQueueSize) {
+    this.wrapped = wrapped;
+    this.maxQueueSize = maxQueueSize;
+  }
+
+  @Nullable
+  @Override
+  public DiskCache build() {
+    DiskCache diskCache = wrapped.build();
+    return diskCache == null ? null : new WriteBehindDiskCache(diskCache, maxQueueSize);
+  }
+}
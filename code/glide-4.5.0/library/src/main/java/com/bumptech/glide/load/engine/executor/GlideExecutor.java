@@ -12,6 +12,7 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadFactory;
@@ -20,7 +21,8 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 /**
- * A prioritized {@link ThreadPoolExecutor} for running jobs in Glide.
+ * A prioritized {@link ThreadPoolExecutor}, or a prioritized work stealing executor, for running
+ * jobs in Glide.
  */
 public final class GlideExecutor implements ExecutorService {
   /**
@@ -51,6 +53,21 @@ public final class GlideExecutor implements ExecutorService {
 
   private static final String ANIMATION_EXECUTOR_NAME = "animation";
 
+  private static final String TRANSFORMATION_EXECUTOR_NAME = "transformation";
+
+  /**
+   * The default thread name prefix for executors used only to fetch data not found in cache.
+   */
+  private static final String DEFAULT_SOURCE_IO_EXECUTOR_NAME = "source-io";
+
+  /**
+   * The default thread count for executors used only to fetch data not found in cache.
+   *
+   * <p>Fetching data mostly blocks on I/O, so the thread count doesn't depend on the number of
+   * cores.
+   */
+  private static final int DEFAULT_SOURCE_IO_EXECUTOR_THREADS = 4;
+
   /**
    * The default keep alive time for threads in our cached thread pools in milliseconds.
    */
@@ -64,6 +81,7 @@ public final class GlideExecutor implements ExecutorService {
   private static volatile int bestThreadCount;
 
   private final ExecutorService delegate;
+  private final boolean isUnbounded;
 
   /**
    * Returns a new fixed thread pool with the default thread count returned from
@@ -194,6 +212,181 @@ public final class GlideExecutor implements ExecutorService {
             new DefaultThreadFactory(name, uncaughtThrowableStrategy, false)));
   }
 
+  /**
+   * Returns a new work stealing thread pool with one thread per core, the
+   * {@link #DEFAULT_SOURCE_EXECUTOR_NAME} thread name prefix and the
+   * {@link com.bumptech.glide.load.engine.executor.GlideExecutor.UncaughtThrowableStrategy#DEFAULT}
+   * uncaught throwable strategy.
+   *
+   * <p>Each thread has its own priority queue and idle threads steal work from busy threads, so
+   * submitting and running jobs doesn't contend on a single lock. Unlike
+   * {@link #newSourceExecutor()}, the thread count isn't limited to four, which suits CPU bound
+   * decoding, especially when blocking fetches run on a separate executor from
+   * {@link #newSourceIoExecutor()}.
+   *
+   * <p>Source executors allow network operations on their threads.
+   */
+  public static GlideExecutor newWorkStealingSourceExecutor() {
+    return newWorkStealingSourceExecutor(
+        RuntimeCompat.availableProcessors(),
+        DEFAULT_SOURCE_EXECUTOR_NAME,
+        UncaughtThrowableStrategy.DEFAULT);
+  }
+
+  /**
+   * Returns a new work stealing thread pool with the given thread count, thread name prefix,
+   * and {@link com.bumptech.glide.load.engine.executor.GlideExecutor.UncaughtThrowableStrategy}.
+   *
+   * <p>Source executors allow network operations on their threads.
+   *
+   * @param threadCount The number of threads.
+   * @param name The prefix for each thread name.
+   * @param uncaughtThrowableStrategy The {@link
+   * com.bumptech.glide.load.engine.executor.GlideExecutor.UncaughtThrowableStrategy} to use to
+   *                                  handle uncaught exceptions.
+   * @see #newWorkStealingSourceExecutor()
+   */
+  // Public API.
+  @SuppressWarnings("WeakerAccess")
+  public static GlideExecutor newWorkStealingSourceExecutor(
+      int threadCount, String name, UncaughtThrowableStrategy uncaughtThrowableStrategy) {
+    return new GlideExecutor(
+        new WorkStealingExecutor(
+            threadCount, new DefaultThreadFactory(name, uncaughtThrowableStrategy, false)));
+  }
+
+  /**
+   * Returns a new work stealing thread pool with the default thread count returned from
+   * {@link #calculateBestThreadCount()}, the {@link #DEFAULT_DISK_CACHE_EXECUTOR_NAME} thread name
+   * prefix, and the
+   * {@link com.bumptech.glide.load.engine.executor.GlideExecutor.UncaughtThrowableStrategy#DEFAULT}
+   * uncaught throwable strategy.
+   *
+   * <p>Disk cache executors do not allow network operations on their threads.
+   *
+   * @see #newWorkStealingSourceExecutor()
+   */
+  public static GlideExecutor newWorkStealingDiskCacheExecutor() {
+    return newWorkStealingDiskCacheExecutor(
+        calculateBestThreadCount(),
+        DEFAULT_DISK_CACHE_EXECUTOR_NAME,
+        UncaughtThrowableStrategy.DEFAULT);
+  }
+
+  /**
+   * Returns a new work stealing thread pool with the given thread count, thread name prefix,
+   * and {@link com.bumptech.glide.load.engine.executor.GlideExecutor.UncaughtThrowableStrategy}.
+   *
+   * <p>Disk cache executors do not allow network operations on their threads.
+   *
+   * @param threadCount The number of threads.
+   * @param name The prefix for each thread name.
+   * @param uncaughtThrowableStrategy The {@link
+   * com.bumptech.glide.load.engine.executor.GlideExecutor.UncaughtThrowableStrategy} to use to
+   *                                  handle uncaught exceptions.
+   * @see #newWorkStealingSourceExecutor()
+   */
+  // Public API.
+  @SuppressWarnings("WeakerAccess")
+  public static GlideExecutor newWorkStealingDiskCacheExecutor(
+      int threadCount, String name, UncaughtThrowableStrategy uncaughtThrowableStrategy) {
+    return new GlideExecutor(
+        new WorkStealingExecutor(
+            threadCount, new DefaultThreadFactory(name, uncaughtThrowableStrategy, true)));
+  }
+
+  /**
+   * Returns a new small work stealing thread pool with the
+   * {@link #DEFAULT_SOURCE_IO_EXECUTOR_NAME} thread name prefix and the
+   * {@link com.bumptech.glide.load.engine.executor.GlideExecutor.UncaughtThrowableStrategy#DEFAULT}
+   * uncaught throwable strategy for fetching data that blocks on I/O, like network requests.
+   *
+   * <p>Keeping blocking fetches on their own threads means slow requests can't occupy every
+   * thread that could otherwise be decoding.
+   *
+   * <p>Source I/O executors allow network operations on their threads.
+   */
+  public static GlideExecutor newSourceIoExecutor() {
+    return newSourceIoExecutor(
+        DEFAULT_SOURCE_IO_EXECUTOR_THREADS,
+        DEFAULT_SOURCE_IO_EXECUTOR_NAME,
+        UncaughtThrowableStrategy.DEFAULT);
+  }
+
+  /**
+   * Returns a new work stealing thread pool for fetching data that blocks on I/O with the given
+   * thread count, thread name prefix, and
+   * {@link com.bumptech.glide.load.engine.executor.GlideExecutor.UncaughtThrowableStrategy}.
+   *
+   * <p>Source I/O executors allow network operations on their threads.
+   *
+   * @param threadCount The number of threads.
+   * @param name The prefix for each thread name.
+   * @param uncaughtThrowableStrategy The {@link
+   * com.bumptech.glide.load.engine.executor.GlideExecutor.UncaughtThrowableStrategy} to use to
+   *                                  handle uncaught exceptions.
+   */
+  // Public API.
+  @SuppressWarnings("WeakerAccess")
+  public static GlideExecutor newSourceIoExecutor(
+      int threadCount, String name, UncaughtThrowableStrategy uncaughtThrowableStrategy) {
+    return new GlideExecutor(
+        new WorkStealingExecutor(
+            threadCount, new DefaultThreadFactory(name, uncaughtThrowableStrategy, false)));
+  }
+
+  /**
+   * Returns {@code true} if Glide is running on a JVM with virtual threads (Java 21 and later), in
+   * which case {@link #newVirtualThreadSourceIoExecutor()} runs fetches on virtual threads.
+   *
+   * <p>Always returns {@code false} on Android.
+   */
+  public static boolean isVirtualThreadSupported() {
+    return VirtualThreads.isAvailable();
+  }
+
+  /**
+   * Returns a new executor that runs each fetch on its own virtual thread if virtual threads are
+   * supported (see {@link #isVirtualThreadSupported()}) or a new executor from
+   * {@link #newSourceIoExecutor()} otherwise.
+   *
+   * <p>Blocking fetchers, like those making network requests, hold a platform thread for the
+   * whole request. A virtual thread only holds one while it isn't blocked, so JVM hosts can fetch
+   * many images at once. Set the result with
+   * {@link com.bumptech.glide.GlideBuilder#setSourceIoExecutor(GlideExecutor)} so that fetched
+   * data is still decoded on the bounded source executor. Since there's no limit to the number of
+   * fetches, a fetch that finds the decode queue full waits for room in it instead of decoding the
+   * data on its own thread.
+   *
+   * <p>Virtual threads don't support thread priorities or StrictMode and fetches on them run in
+   * submission order rather than in priority order.
+   */
+  public static GlideExecutor newVirtualThreadSourceIoExecutor() {
+    return newVirtualThreadSourceIoExecutor(
+        DEFAULT_SOURCE_IO_EXECUTOR_NAME, UncaughtThrowableStrategy.DEFAULT);
+  }
+
+  /**
+   * Returns a new executor that runs each fetch on its own virtual thread with the given thread
+   * name prefix and {@link UncaughtThrowableStrategy} if virtual threads are supported, or a new
+   * executor from {@link #newSourceIoExecutor(int, String, UncaughtThrowableStrategy)} with the
+   * default thread count otherwise.
+   *
+   * @see #newVirtualThreadSourceIoExecutor()
+   */
+  // Public API.
+  @SuppressWarnings("WeakerAccess")
+  public static GlideExecutor newVirtualThreadSourceIoExecutor(
+      String name, UncaughtThrowableStrategy uncaughtThrowableStrategy) {
+    ExecutorService virtualThreadExecutor =
+        VirtualThreads.newThreadPerTaskExecutor(name, uncaughtThrowableStrategy);
+    if (virtualThreadExecutor == null) {
+      return newSourceIoExecutor(
+          DEFAULT_SOURCE_IO_EXECUTOR_THREADS, name, uncaughtThrowableStrategy);
+    }
+    return new GlideExecutor(virtualThreadExecutor, /*isUnbounded=*/ true);
+  }
+
   /**
    * Returns a new unlimited thread pool with zero core thread count to make sure no threads are
    * created by default, {@link #KEEP_ALIVE_TIME_MS} keep alive
@@ -218,7 +411,8 @@ public final class GlideExecutor implements ExecutorService {
         new DefaultThreadFactory(
             SOURCE_UNLIMITED_EXECUTOR_NAME,
             UncaughtThrowableStrategy.DEFAULT,
-            false)));
+            false)),
+        /*isUnbounded=*/ true);
   }
 
   /**
@@ -258,9 +452,54 @@ public final class GlideExecutor implements ExecutorService {
                 true)));
   }
 
+  /**
+   * Returns a new thread pool with one thread per core, up to
+   * {@link #calculateBestThreadCount()} threads, that draws stripes of large
+   * {@link android.graphics.Bitmap}s in parallel for
+   * {@link com.bumptech.glide.load.resource.bitmap.TransformationUtils}.
+   *
+   * <p>Threads are started when needed and time out after {@link #KEEP_ALIVE_TIME_MS} when idle.
+   *
+   * @see com.bumptech.glide.GlideBuilder#setTransformationExecutor(GlideExecutor)
+   */
+  public static GlideExecutor newTransformationExecutor() {
+    return newTransformationExecutor(calculateBestThreadCount(), UncaughtThrowableStrategy.DEFAULT);
+  }
+
+  /**
+   * Returns a new thread pool with the given thread count and {@link UncaughtThrowableStrategy}
+   * that draws stripes of large {@link android.graphics.Bitmap}s in parallel.
+   *
+   * @see #newTransformationExecutor()
+   */
+  // Public API.
+  @SuppressWarnings("WeakerAccess")
+  public static GlideExecutor newTransformationExecutor(
+      int threadCount, UncaughtThrowableStrategy uncaughtThrowableStrategy) {
+    ThreadPoolExecutor executor =
+        new ThreadPoolExecutor(
+            threadCount /* corePoolSize */,
+            threadCount /* maximumPoolSize */,
+            KEEP_ALIVE_TIME_MS,
+            TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<Runnable>(),
+            new DefaultThreadFactory(
+                TRANSFORMATION_EXECUTOR_NAME,
+                uncaughtThrowableStrategy,
+                true));
+    executor.allowCoreThreadTimeOut(true);
+    return new GlideExecutor(executor);
+  }
+
   @VisibleForTesting
   GlideExecutor(ExecutorService delegate) {
+    this(delegate, /*isUnbounded=*/ false);
+  }
+
+  @VisibleForTesting
+  GlideExecutor(ExecutorService delegate, boolean isUnbounded) {
     this.delegate = delegate;
+    this.isUnbounded = isUnbounded;
   }
 
   @Override
@@ -343,6 +582,30 @@ public final class GlideExecutor implements ExecutorService {
     return delegate.awaitTermination(timeout, unit);
   }
 
+  /**
+   * Removes the given task if it is still waiting to run and returns {@code true}, or returns
+   * {@code false} if it is running, has finished or was never submitted to this executor.
+   *
+   * <p>Tasks ordered by a priority that changes must be removed before the change and submitted
+   * again afterwards so that the queue sees their new priority.
+   */
+  public boolean remove(@NonNull Runnable task) {
+    if (delegate instanceof ThreadPoolExecutor) {
+      return ((ThreadPoolExecutor) delegate).remove(task);
+    } else if (delegate instanceof WorkStealingExecutor) {
+      return ((WorkStealingExecutor) delegate).remove(task);
+    }
+    return false;
+  }
+
+  /**
+   * Returns {@code true} if this executor starts a new thread for each task instead of queueing
+   * tasks for a fixed number of threads, so there's no limit to how many tasks run at once.
+   */
+  public boolean isUnbounded() {
+    return isUnbounded;
+  }
+
   @Override
   public String toString() {
     return delegate.toString();
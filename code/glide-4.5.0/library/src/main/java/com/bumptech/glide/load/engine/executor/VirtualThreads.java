@@ -0,0 +1,121 @@
+package com.bumptech.glide.load.engine.executor;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates executors that run each task on a new virtual thread when Glide runs on a JVM that has
+ * them (Java 21 and later).
+ *
+ * <p>Glide is compiled against Android, which doesn't have virtual threads, so the Java 21 APIs
+ * are looked up reflectively once. Everywhere else, including on Android, {@link #isAvailable()}
+ * returns {@code false}.
+ */
+final class VirtualThreads {
+  private static final String TAG = "GlideExecutor";
+
+  private VirtualThreads() {
+    // Utility class.
+  }
+
+  static boolean isAvailable() {
+    return Holder.NEW_THREAD_PER_TASK_EXECUTOR != null;
+  }
+
+  /**
+   * Returns an executor that starts a new virtual thread named with the given prefix for each
+   * task, or {@code null} if virtual threads aren't available.
+   */
+  @Nullable
+  static ExecutorService newThreadPerTaskExecutor(@NonNull String name,
+      @NonNull final GlideExecutor.UncaughtThrowableStrategy uncaughtThrowableStrategy) {
+    if (!isAvailable()) {
+      return null;
+    }
+    try {
+      // Thread.ofVirtual().name("glide-" + name + "-virtual-thread-", 0).factory()
+      Object builder = Holder.OF_VIRTUAL.invoke(null);
+      builder = Holder.NAME.invoke(builder, "glide-" + name + "-virtual-thread-", 0L);
+      final ThreadFactory virtualThreadFactory = (ThreadFactory) Holder.FACTORY.invoke(builder);
+      ThreadFactory threadFactory = new ThreadFactory() {
+        @Override
+        public Thread newThread(@NonNull final Runnable runnable) {
+          return virtualThreadFactory.newThread(new Runnable() {
+            @Override
+            public void run() {
+              try {
+                runnable.run();
+              } catch (Throwable t) {
+                uncaughtThrowableStrategy.handle(t);
+              }
+            }
+          });
+        }
+      };
+      return (ExecutorService) Holder.NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, threadFactory);
+    } catch (IllegalAccessException e) {
+      logCreateFailed(e);
+    } catch (InvocationTargetException e) {
+      logCreateFailed(e);
+    }
+    return null;
+  }
+
+  private static void logCreateFailed(Exception e) {
+    if (Log.isLoggable(TAG, Log.WARN)) {
+      Log.w(TAG, "Failed to create virtual thread executor", e);
+    }
+  }
+
+  /**
+   * Looks up the Java 21 methods the first time they're needed.
+   */
+  private static final class Holder {
+    @Nullable static final Method OF_VIRTUAL;
+    @Nullable static final Method NAME;
+    @Nullable static final Method FACTORY;
+    @Nullable static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+
+    static {
+      Method[] methods = findMethods();
+      OF_VIRTUAL = methods != null ? methods[0] : null;
+      NAME = methods != null ? methods[1] : null;
+      FACTORY = methods != null ? methods[2] : null;
+      NEW_THREAD_PER_TASK_EXECUTOR = methods != null ? methods[3] : null;
+    }
+
+    private Holder() {
+      // Utility class.
+    }
+
+    // Catches each exception separately because multi-catch of reflection exceptions requires
+    // API 19.
+    @Nullable
+    private static Method[] findMethods() {
+      try {
+        Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+        Method ofVirtual = Thread.class.getMethod("ofVirtual");
+        Method name = builderClass.getMethod("name", String.class, long.class);
+        Method factory = builderClass.getMethod("factory");
+        Method newThreadPerTaskExecutor = Class.forName("java.util.concurrent.Executors")
+            .getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+        // Java 19 and 20 have these methods, but they throw unless preview features are enabled.
+        ofVirtual.invoke(null);
+        return new Method[] {ofVirtual, name, factory, newThreadPerTaskExecutor};
+      } catch (ClassNotFoundException e) {
+        return null;
+      } catch (NoSuchMethodException e) {
+        return null;
+      } catch (IllegalAccessException e) {
+        return null;
+      } catch (InvocationTargetException e) {
+        return null;
+      }
+    }
+  }
+}
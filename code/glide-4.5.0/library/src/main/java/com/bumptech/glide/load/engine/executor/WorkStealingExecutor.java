@@ -0,0 +1,412 @@
+package com.bumptech.glide.load.engine.executor;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import com.bumptech.glide.util.Synthetic;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A fixed size {@link java.util.concurrent.ExecutorService} that gives each worker thread its own
+ * priority queue and lets idle workers steal from the others.
+ *
+ * <p>A {@link java.util.concurrent.ThreadPoolExecutor} backed by a
+ * {@link java.util.concurrent.PriorityBlockingQueue} serializes every submission and every take
+ * on the queue's single lock. Here submissions from outside the executor go to the least loaded
+ * of two queues, submissions from a worker go to that worker's own queue and each queue has its
+ * own lock, so threads rarely contend.
+ *
+ * <p>Tasks that implement {@link Comparable}, like
+ * {@link com.bumptech.glide.load.engine.DecodeJob}, are ordered by their natural ordering and then
+ * in submission order. Other tasks run in submission order. Each time a worker is ready for a task
+ * it compares the first task in its own queue with the first task in every other queue and runs,
+ * stealing if necessary, whichever has the highest priority. Priority therefore holds across the
+ * whole executor rather than only within each queue. Only the first tasks are compared, so this
+ * costs one peek per non-empty queue, not a scan of every queued task.
+ *
+ * <p>Like {@link java.util.concurrent.ThreadPoolExecutor}, threads are started lazily, one per
+ * submission, until the pool is full, and a thread that throws is replaced.
+ */
+final class WorkStealingExecutor extends AbstractExecutorService {
+  private static final int RUNNING = 0;
+  private static final int SHUTDOWN = 1;
+  private static final int STOP = 2;
+
+  private final ThreadFactory threadFactory;
+  private final WorkQueue[] queues;
+  private final Thread[] threads;
+  private final ThreadLocal<WorkQueue> localQueue = new ThreadLocal<>();
+  private final AtomicLong nextSequence = new AtomicLong();
+  private final AtomicInteger nextQueueIndex = new AtomicInteger();
+  private final Object idleLock = new Object();
+
+  private volatile int state = RUNNING;
+  private volatile int startedCount;
+  // Guarded by this.
+  private int liveCount;
+  // Written while holding idleLock.
+  private volatile int idleCount;
+
+  WorkStealingExecutor(int threadCount, @NonNull ThreadFactory threadFactory) {
+    if (threadCount <= 0) {
+      throw new IllegalArgumentException("Thread count must be > 0, but was: " + threadCount);
+    }
+    this.threadFactory = threadFactory;
+    queues = new WorkQueue[threadCount];
+    for (int i = 0; i < threadCount; i++) {
+      queues[i] = new WorkQueue();
+    }
+    threads = new Thread[threadCount];
+  }
+
+  @Override
+  public void execute(@NonNull Runnable command) {
+    if (command == null) {
+      throw new NullPointerException();
+    }
+    if (state != RUNNING) {
+      throw new RejectedExecutionException("Executor has been shut down");
+    }
+    Task task = new Task(command, nextSequence.getAndIncrement());
+    WorkQueue queue = localQueue.get();
+    if (queue == null) {
+      if (startedCount < queues.length && startWorker(task)) {
+        return;
+      }
+      queue = selectQueue();
+    }
+    queue.offer(task);
+    if (state != RUNNING && queue.remove(task)) {
+      throw new RejectedExecutionException("Executor has been shut down");
+    }
+    signalWork();
+  }
+
+  private WorkQueue selectQueue() {
+    int started = Math.max(1, startedCount);
+    int index = (nextQueueIndex.getAndIncrement() & Integer.MAX_VALUE) % started;
+    WorkQueue first = queues[index];
+    WorkQueue second = queues[(index + 1) % started];
+    return second.size < first.size ? second : first;
+  }
+
+  /**
+   * Starts a new thread that runs the given task first, like
+   * {@link java.util.concurrent.ThreadPoolExecutor} does for its core threads.
+   */
+  private synchronized boolean startWorker(Task firstTask) {
+    if (state == RUNNING && startedCount < queues.length) {
+      int index = startedCount;
+      if (startThread(index, firstTask)) {
+        startedCount = index + 1;
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // Guarded by this.
+  private boolean startThread(int index, @Nullable Task firstTask) {
+    Thread thread = threadFactory.newThread(new Worker(index, firstTask));
+    if (thread == null) {
+      return false;
+    }
+    threads[index] = thread;
+    liveCount++;
+    thread.start();
+    return true;
+  }
+
+  private void signalWork() {
+    if (idleCount > 0) {
+      synchronized (idleLock) {
+        idleLock.notify();
+      }
+    }
+  }
+
+  private void wakeAll() {
+    synchronized (idleLock) {
+      idleLock.notifyAll();
+    }
+  }
+
+  @Synthetic
+  void runWorker(int index, @Nullable Task firstTask) {
+    WorkQueue own = queues[index];
+    localQueue.set(own);
+    Task task = firstTask;
+    boolean completedAbruptly = true;
+    try {
+      while (true) {
+        if (task == null) {
+          task = takeHighestPriority(index);
+        }
+        if (task != null) {
+          if (state < STOP) {
+            // Clear interrupts left over from a previous task, like ThreadPoolExecutor.
+            Thread.interrupted();
+          }
+          Runnable command = task.command;
+          task = null;
+          command.run();
+          continue;
+        }
+        if (state == STOP || (state == SHUTDOWN && !hasQueuedTasks())) {
+          break;
+        }
+        awaitWork();
+      }
+      completedAbruptly = false;
+    } finally {
+      onWorkerExit(index, completedAbruptly);
+    }
+  }
+
+  private void awaitWork() {
+    synchronized (idleLock) {
+      idleCount++;
+      try {
+        if (state == RUNNING && !hasQueuedTasks()) {
+          idleLock.wait();
+        }
+      } catch (InterruptedException e) {
+        // Either shutdownNow was called, which the caller will notice, or the interrupt was
+        // meant for a task that has already finished.
+      } finally {
+        idleCount--;
+      }
+    }
+  }
+
+  /**
+   * Removes and returns the highest priority first task of the given worker's own queue and every
+   * other queue, preferring the worker's own queue on ties, or returns {@code null} if every queue
+   * is empty.
+   */
+  @Nullable
+  private Task takeHighestPriority(int index) {
+    WorkQueue own = queues[index];
+    Task best = own.size > 0 ? own.peek() : null;
+    WorkQueue source = best != null ? own : null;
+    int started = startedCount;
+    for (int i = 1; i < started; i++) {
+      WorkQueue queue = queues[(index + i) % started];
+      if (queue.size == 0) {
+        continue;
+      }
+      Task head = queue.peek();
+      if (head != null && (best == null || head.compareTo(best) < 0)) {
+        best = head;
+        source = queue;
+      }
+    }
+    if (source == null) {
+      return null;
+    }
+    Task result = source.poll();
+    // Another worker may have emptied the other queue since it was peeked.
+    return result != null || source == own ? result : own.poll();
+  }
+
+  private boolean hasQueuedTasks() {
+    for (WorkQueue queue : queues) {
+      if (queue.size > 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private synchronized void onWorkerExit(int index, boolean completedAbruptly) {
+    liveCount--;
+    threads[index] = null;
+    if (completedAbruptly && state != STOP) {
+      // Keep the queue served, the throwable is handled by the thread factory's threads.
+      startThread(index, null);
+    }
+    if (liveCount == 0 && state != RUNNING) {
+      notifyAll();
+    }
+  }
+
+  @Override
+  public void shutdown() {
+    synchronized (this) {
+      if (state == RUNNING) {
+        state = SHUTDOWN;
+      }
+    }
+    wakeAll();
+  }
+
+  @NonNull
+  @Override
+  public List<Runnable> shutdownNow() {
+    List<Runnable> result = new ArrayList<>();
+    synchronized (this) {
+      state = STOP;
+      for (WorkQueue queue : queues) {
+        queue.drainTo(result);
+      }
+      for (Thread thread : threads) {
+        if (thread != null) {
+          thread.interrupt();
+        }
+      }
+    }
+    wakeAll();
+    return result;
+  }
+
+  @Override
+  public boolean isShutdown() {
+    return state != RUNNING;
+  }
+
+  @Override
+  public synchronized boolean isTerminated() {
+    return state != RUNNING && liveCount == 0;
+  }
+
+  @Override
+  public synchronized boolean awaitTermination(long timeout, @NonNull TimeUnit unit)
+      throws InterruptedException {
+    long remainingMs = unit.toMillis(timeout);
+    long deadline = System.currentTimeMillis() + remainingMs;
+    while (!isTerminated()) {
+      if (remainingMs <= 0) {
+        return false;
+      }
+      wait(remainingMs);
+      remainingMs = deadline - System.currentTimeMillis();
+    }
+    return true;
+  }
+
+  /**
+   * Removes the given command if it is waiting in any queue, like
+   * {@link java.util.concurrent.ThreadPoolExecutor#remove(Runnable)}.
+   */
+  boolean remove(@NonNull Runnable command) {
+    for (WorkQueue queue : queues) {
+      if (queue.size > 0 && queue.removeCommand(command)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @VisibleForTesting
+  int getStartedThreadCount() {
+    return startedCount;
+  }
+
+  @Override
+  public String toString() {
+    return "WorkStealingExecutor{"
+        + "threads=" + queues.length
+        + ", started=" + startedCount
+        + ", state=" + state
+        + "}";
+  }
+
+  private final class Worker implements Runnable {
+    private final int index;
+    @Nullable private final Task firstTask;
+
+    @Synthetic
+    Worker(int index, @Nullable Task firstTask) {
+      this.index = index;
+      this.firstTask = firstTask;
+    }
+
+    @Override
+    public void run() {
+      runWorker(index, firstTask);
+    }
+  }
+
+  private static final class Task implements Comparable<Task> {
+    @Synthetic final Runnable command;
+    private final long sequence;
+
+    @Synthetic
+    Task(Runnable command, long sequence) {
+      this.command = command;
+      this.sequence = sequence;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public int compareTo(@NonNull Task other) {
+      if (command instanceof Comparable && command.getClass() == other.command.getClass()) {
+        int result = ((Comparable<Object>) command).compareTo(other.command);
+        if (result != 0) {
+          return result;
+        }
+      }
+      return sequence < other.sequence ? -1 : (sequence == other.sequence ? 0 : 1);
+    }
+  }
+
+  private static final class WorkQueue {
+    private final PriorityQueue<Task> tasks = new PriorityQueue<>();
+    // Read without the lock to choose queues cheaply.
+    @Synthetic volatile int size;
+
+    @Synthetic
+    WorkQueue() { }
+
+    synchronized void offer(Task task) {
+      tasks.offer(task);
+      size = tasks.size();
+    }
+
+    @Nullable
+    synchronized Task poll() {
+      Task result = tasks.poll();
+      size = tasks.size();
+      return result;
+    }
+
+    @Nullable
+    synchronized Task peek() {
+      return tasks.peek();
+    }
+
+    synchronized boolean remove(Task task) {
+      boolean result = tasks.remove(task);
+      size = tasks.size();
+      return result;
+    }
+
+    synchronized boolean removeCommand(Runnable command) {
+      for (Iterator<Task> iterator = tasks.iterator(); iterator.hasNext(); ) {
+        if (iterator.next().command == command) {
+          iterator.remove();
+          size = tasks.size();
+          return true;
+        }
+      }
+      return false;
+    }
+
+    synchronized void drainTo(List<Runnable> result) {
+      for (Task task : tasks) {
+        result.add(task.command);
+      }
+      tasks.clear();
+      size = 0;
+    }
+  }
+}
@@ -0,0 +1,63 @@
+package com.bumptech.glide.load.model;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.data.StreamByteBufferFetcher;
+import com.bumptech.glide.load.model.stream.HttpGlideUrlLoader;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Loads the response body for {@link GlideUrl}s (http/https URLS) into a single
+ * {@link ByteBuffer} if {@link HttpGlideUrlLoader#BUFFER_RESPONSE} is set.
+ *
+ * <p>Wraps whichever {@link ModelLoader} is registered for {@link GlideUrl}s and
+ * {@link InputStream}s, so the response is still fetched by the app's networking library if one
+ * replaces {@link HttpGlideUrlLoader}. Registered ahead of the {@link InputStream} loaders, loads
+ * that don't set the option return {@code null} here and fall back to {@link InputStream}s.
+ */
+public class ByteBufferGlideUrlLoader implements ModelLoader<GlideUrl, ByteBuffer> {
+  private final ModelLoader<GlideUrl, InputStream> streamLoader;
+
+  public ByteBufferGlideUrlLoader(ModelLoader<GlideUrl, InputStream> streamLoader) {
+    this.streamLoader = streamLoader;
+  }
+
+  @Nullable
+  @Override
+  public LoadData<ByteBuffer> buildLoadData(@NonNull GlideUrl model, int width, int height,
+      @NonNull Options options) {
+    if (!options.get(HttpGlideUrlLoader.BUFFER_RESPONSE)) {
+      return null;
+    }
+    LoadData<InputStream> streamData = streamLoader.buildLoadData(model, width, height, options);
+    if (streamData == null) {
+      return null;
+    }
+    return new LoadData<>(streamData.sourceKey, streamData.alternateKeys,
+        new StreamByteBufferFetcher(streamData.fetcher));
+  }
+
+  @Override
+  public boolean handles(@NonNull GlideUrl model) {
+    return streamLoader.handles(model);
+  }
+
+  /**
+   * Factory for {@link ByteBufferGlideUrlLoader}.
+   */
+  public static class Factory implements ModelLoaderFactory<GlideUrl, ByteBuffer> {
+
+    @NonNull
+    @Override
+    public ModelLoader<GlideUrl, ByteBuffer> build(MultiModelLoaderFactory multiFactory) {
+      return new ByteBufferGlideUrlLoader(multiFactory.build(GlideUrl.class, InputStream.class));
+    }
+
+    @Override
+    public void teardown() {
+      // Do nothing.
+    }
+  }
+}
@@ -9,6 +9,7 @@ import android.text.TextUtils;
 import com.bumptech.glide.load.Options;
 import java.io.File;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 /**
  * A model loader for handling certain string models. Handles paths, urls, and any uri string with a
@@ -76,6 +77,25 @@ public class StringLoader<Data> implements ModelLoader<String, Data> {
     }
   }
 
+  /**
+   * Factory for loading {@link ByteBuffer}s from Strings.
+   *
+   * @see com.bumptech.glide.load.model.stream.HttpGlideUrlLoader#BUFFER_RESPONSE
+   */
+  public static class ByteBufferFactory implements ModelLoaderFactory<String, ByteBuffer> {
+
+    @NonNull
+    @Override
+    public ModelLoader<String, ByteBuffer> build(MultiModelLoaderFactory multiFactory) {
+      return new StringLoader<>(multiFactory.build(Uri.class, ByteBuffer.class));
+    }
+
+    @Override
+    public void teardown() {
+      // Do nothing.
+    }
+  }
+
   /**
    * Factory for loading {@link ParcelFileDescriptor}s from Strings.
    */
@@ -4,6 +4,7 @@ import android.net.Uri;
 import android.support.annotation.NonNull;
 import com.bumptech.glide.load.Options;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
@@ -61,4 +62,24 @@ public class UrlUriLoader<Data> implements ModelLoader<Uri, Data> {
       // Do nothing.
     }
   }
+
+  /**
+   * Loads {@link java.nio.ByteBuffer ByteBuffers} from {@link android.net.Uri Uris} with http
+   * or https schemes.
+   *
+   * @see com.bumptech.glide.load.model.stream.HttpGlideUrlLoader#BUFFER_RESPONSE
+   */
+  public static class ByteBufferFactory implements ModelLoaderFactory<Uri, ByteBuffer> {
+
+    @NonNull
+    @Override
+    public ModelLoader<Uri, ByteBuffer> build(MultiModelLoaderFactory multiFactory) {
+      return new UrlUriLoader<>(multiFactory.build(GlideUrl.class, ByteBuffer.class));
+    }
+
+    @Override
+    public void teardown() {
+      // Do nothing.
+    }
+  }
 }
@@ -28,6 +28,26 @@ public class HttpGlideUrlLoader implements ModelLoader<GlideUrl, InputStream> {
   public static final Option<Integer> TIMEOUT = Option.memory(
       "com.bumptech.glide.load.model.stream.HttpGlideUrlLoader.Timeout", 2500);
 
+  /**
+   * A boolean option that, if {@code true}, reads the entire response body for http and https
+   * urls into a single {@link java.nio.ByteBuffer} rather than providing an
+   * {@link java.io.InputStream}.
+   *
+   * <p>The buffer is written to the disk cache and decoded directly, so the body is only read
+   * once and isn't re-read from the cache file or copied into a stream buffer. The trade off is
+   * that the entire body is held in memory until the decode completes.
+   *
+   * <p>The response is still fetched by whichever {@link ModelLoader} is registered for
+   * {@link GlideUrl}s and {@link InputStream}s, including the ones provided by the networking
+   * integration libraries, the stream it returns is just read into the buffer up front.
+   *
+   * <p>Defaults to {@code false}.
+   *
+   * @see com.bumptech.glide.load.model.ByteBufferGlideUrlLoader
+   */
+  public static final Option<Boolean> BUFFER_RESPONSE = Option.memory(
+      "com.bumptech.glide.load.model.stream.HttpGlideUrlLoader.BufferResponse", false);
+
   @Nullable private final ModelCache<GlideUrl, GlideUrl> modelCache;
 
   public HttpGlideUrlLoader() {
@@ -90,11 +90,18 @@ public abstract class BitmapTransformation implements Transformation<Bitmap> {
           "Cannot apply transformation on width: " + outWidth + " or height: " + outHeight
               + " less than or equal to zero and not Target.SIZE_ORIGINAL");
     }
-    BitmapPool bitmapPool = Glide.get(context).getBitmapPool();
+    Glide glide = Glide.get(context);
+    BitmapPool bitmapPool = glide.getBitmapPool();
     Bitmap toTransform = resource.get();
     int targetWidth = outWidth == Target.SIZE_ORIGINAL ? toTransform.getWidth() : outWidth;
     int targetHeight = outHeight == Target.SIZE_ORIGINAL ? toTransform.getHeight() : outHeight;
-    Bitmap transformed = transform(bitmapPool, toTransform, targetWidth, targetHeight);
+    Bitmap transformed;
+    TransformationUtils.setStripeExecutor(glide.getTransformationExecutor());
+    try {
+      transformed = transform(bitmapPool, toTransform, targetWidth, targetHeight);
+    } finally {
+      TransformationUtils.setStripeExecutor(null);
+    }
 
     final Resource<Bitmap> result;
     if (toTransform.equals(transformed)) {
@@ -0,0 +1,36 @@
+package com.bumptech.glide.load.resource.bitmap;
+
+import android.graphics.Bitmap;
+import android.support.annotation.NonNull;
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.ResourceDecoder;
+import com.bumptech.glide.load.engine.Resource;
+import com.bumptech.glide.util.ByteBufferUtil;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Decodes a single {@link ImageTile} from {@link java.nio.ByteBuffer ByteBuffers}.
+ *
+ * @see TiledBitmapDecoder
+ */
+public class ByteBufferTiledBitmapDecoder implements ResourceDecoder<ByteBuffer, Bitmap> {
+  private final TiledBitmapDecoder tiledBitmapDecoder;
+
+  public ByteBufferTiledBitmapDecoder(TiledBitmapDecoder tiledBitmapDecoder) {
+    this.tiledBitmapDecoder = tiledBitmapDecoder;
+  }
+
+  @Override
+  public boolean handles(@NonNull ByteBuffer source, @NonNull Options options)
+      throws IOException {
+    return options.get(TiledBitmapDecoder.TILE) != null
+        && tiledBitmapDecoder.handles(ByteBufferUtil.toStream(source), options);
+  }
+
+  @Override
+  public Resource<Bitmap> decode(@NonNull ByteBuffer source, int width, int height,
+      @NonNull Options options) throws IOException {
+    return tiledBitmapDecoder.decode(ByteBufferUtil.toStream(source), width, height, options);
+  }
+}
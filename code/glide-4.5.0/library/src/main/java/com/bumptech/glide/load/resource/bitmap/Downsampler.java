@@ -12,11 +12,13 @@ import com.bumptech.glide.load.DecodeFormat;
 import com.bumptech.glide.load.ImageHeaderParser;
 import com.bumptech.glide.load.ImageHeaderParser.ImageType;
 import com.bumptech.glide.load.ImageHeaderParserUtils;
+import com.bumptech.glide.load.Key;
 import com.bumptech.glide.load.Option;
 import com.bumptech.glide.load.Options;
 import com.bumptech.glide.load.engine.Resource;
 import com.bumptech.glide.load.engine.bitmap_recycle.ArrayPool;
 import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool;
+import com.bumptech.glide.load.engine.cache.MemoryBudgetController;
 import com.bumptech.glide.load.resource.bitmap.DownsampleStrategy.SampleSizeRounding;
 import com.bumptech.glide.request.RequestOptions;
 import com.bumptech.glide.request.target.Target;
@@ -33,6 +35,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.Executor;
 
 /**
  * Downsamples, decodes, and rotates images according to their exif orientation.
@@ -90,6 +93,17 @@ public final class Downsampler {
       Option.memory(
           "com.bumtpech.glide.load.resource.bitmap.Downsampler.AllowHardwareDecode", null);
 
+  /**
+   * A key identifying the data being decoded, used to re-use the image header parsed the last
+   * time the same data was decoded, or {@code null} if the data can't be identified.
+   *
+   * <p>Set by Glide for {@link java.nio.ByteBuffer}s loaded from the data disk cache, keyed by the
+   * cache entry and the length and ends of the data so that re-written entries get a new key. Two
+   * sets of data must only ever share a key if their bytes are identical.
+   */
+  public static final Option<Key> IMAGE_HEADER_CACHE_KEY =
+      Option.memory("com.bumptech.glide.load.resource.bitmap.Downsampler.ImageHeaderCacheKey");
+
   private static final String WBMP_MIME_TYPE = "image/vnd.wap.wbmp";
   private static final String ICO_MIME_TYPE = "image/x-ico";
   private static final Set<String> NO_DOWNSAMPLE_PRE_N_MIME_TYPES =
@@ -130,13 +144,32 @@ public final class Downsampler {
   private final ArrayPool byteArrayPool;
   private final List<ImageHeaderParser> parsers;
   private final HardwareConfigState hardwareConfigState = HardwareConfigState.getInstance();
+  private final ImageHeaderCache imageHeaderCache = new ImageHeaderCache();
+  @Nullable private final MemoryBudgetController memoryBudgetController;
+  @Nullable private final Executor transformationExecutor;
 
   public Downsampler(List<ImageHeaderParser> parsers, DisplayMetrics displayMetrics,
       BitmapPool bitmapPool, ArrayPool byteArrayPool) {
+    this(parsers, displayMetrics, bitmapPool, byteArrayPool, /*memoryBudgetController=*/ null,
+        /*transformationExecutor=*/ null);
+  }
+
+  /**
+   * Creates a downsampler that, if {@code memoryBudgetController} is non-null, reports decodes that
+   * run out of memory to it with {@link MemoryBudgetController#recordAllocationFailure()} and, if
+   * {@code transformationExecutor} is non-null, rotates large images in parallel on it, see
+   * {@link TransformationUtils#rotateImageExif(BitmapPool, Bitmap, int)}.
+   */
+  public Downsampler(List<ImageHeaderParser> parsers, DisplayMetrics displayMetrics,
+      BitmapPool bitmapPool, ArrayPool byteArrayPool,
+      @Nullable MemoryBudgetController memoryBudgetController,
+      @Nullable Executor transformationExecutor) {
     this.parsers = parsers;
     this.displayMetrics = Preconditions.checkNotNull(displayMetrics);
     this.bitmapPool = Preconditions.checkNotNull(bitmapPool);
     this.byteArrayPool = Preconditions.checkNotNull(byteArrayPool);
+    this.memoryBudgetController = memoryBudgetController;
+    this.transformationExecutor = transformationExecutor;
   }
 
   public boolean handles(@SuppressWarnings("unused") InputStream is) {
@@ -205,27 +238,55 @@ public final class Downsampler {
     }
 
     try {
-      Bitmap result = decodeFromWrappedStreams(is, bitmapFactoryOptions,
+      ImageHeader header = imageHeaderCache.get(options);
+      if (header == null) {
+        header = probeHeader(is, bitmapFactoryOptions, callbacks);
+        imageHeaderCache.put(options, header);
+      } else {
+        // Match the state a bounds only decode would have left behind.
+        bitmapFactoryOptions.outWidth = header.getWidth();
+        bitmapFactoryOptions.outHeight = header.getHeight();
+        bitmapFactoryOptions.outMimeType = header.getMimeType();
+      }
+      Bitmap result = decodeFromWrappedStreams(is, header, bitmapFactoryOptions,
           downsampleStrategy, decodeFormat, isHardwareConfigAllowed, requestedWidth,
           requestedHeight, fixBitmapToRequestedDimensions, callbacks);
       return BitmapResource.obtain(result, bitmapPool);
+    } catch (OutOfMemoryError e) {
+      if (memoryBudgetController != null) {
+        memoryBudgetController.recordAllocationFailure();
+      }
+      throw e;
     } finally {
       releaseOptions(bitmapFactoryOptions);
       byteArrayPool.put(bytesForOptions);
     }
   }
 
-  private Bitmap decodeFromWrappedStreams(InputStream is,
+  /**
+   * Reads everything we need to know about the image from its header at once: the bounds, type
+   * and exif orientation.
+   */
+  private ImageHeader probeHeader(InputStream is, BitmapFactory.Options options,
+      DecodeCallbacks callbacks) throws IOException {
+    int[] sourceDimensions = getDimensions(is, options, callbacks, bitmapPool);
+    String mimeType = options.outMimeType;
+    int orientation = ImageHeaderParserUtils.getOrientation(parsers, is, byteArrayPool);
+    ImageType imageType = ImageHeaderParserUtils.getType(parsers, is, byteArrayPool);
+    return new ImageHeader(
+        imageType, orientation, sourceDimensions[0], sourceDimensions[1], mimeType);
+  }
+
+  private Bitmap decodeFromWrappedStreams(InputStream is, ImageHeader header,
       BitmapFactory.Options options, DownsampleStrategy downsampleStrategy,
       DecodeFormat decodeFormat, boolean isHardwareConfigAllowed, int requestedWidth,
       int requestedHeight, boolean fixBitmapToRequestedDimensions,
       DecodeCallbacks callbacks) throws IOException {
     long startTime = LogTime.getLogTime();
 
-    int[] sourceDimensions = getDimensions(is, options, callbacks, bitmapPool);
-    int sourceWidth = sourceDimensions[0];
-    int sourceHeight = sourceDimensions[1];
-    String sourceMimeType = options.outMimeType;
+    int sourceWidth = header.getWidth();
+    int sourceHeight = header.getHeight();
+    String sourceMimeType = header.getMimeType();
 
     // If we failed to obtain the image dimensions, we may end up with an incorrectly sized Bitmap,
     // so we want to use a mutable Bitmap type. One way this can happen is if the image header is so
@@ -235,14 +296,14 @@ public final class Downsampler {
       isHardwareConfigAllowed = false;
     }
 
-    int orientation = ImageHeaderParserUtils.getOrientation(parsers, is, byteArrayPool);
+    int orientation = header.getOrientation();
     int degreesToRotate = TransformationUtils.getExifOrientationDegrees(orientation);
     boolean isExifOrientationRequired = TransformationUtils.isExifOrientationRequired(orientation);
 
     int targetWidth = requestedWidth == Target.SIZE_ORIGINAL ? sourceWidth : requestedWidth;
     int targetHeight = requestedHeight == Target.SIZE_ORIGINAL ? sourceHeight : requestedHeight;
 
-    ImageType imageType = ImageHeaderParserUtils.getType(parsers, is, byteArrayPool);
+    ImageType imageType = header.getType();
 
     calculateScaling(
         imageType,
@@ -257,7 +318,7 @@ public final class Downsampler {
         targetHeight,
         options);
     calculateConfig(
-        is,
+        imageType,
         decodeFormat,
         isHardwareConfigAllowed,
         isExifOrientationRequired,
@@ -312,7 +373,12 @@ public final class Downsampler {
       // the expected density dpi.
       downsampled.setDensity(displayMetrics.densityDpi);
 
-      rotated = TransformationUtils.rotateImageExif(bitmapPool, downsampled, orientation);
+      TransformationUtils.setStripeExecutor(transformationExecutor);
+      try {
+        rotated = TransformationUtils.rotateImageExif(bitmapPool, downsampled, orientation);
+      } finally {
+        TransformationUtils.setStripeExecutor(null);
+      }
       if (!downsampled.equals(rotated)) {
         bitmapPool.put(downsampled);
       }
@@ -504,7 +570,7 @@ public final class Downsampler {
 
   @SuppressWarnings("deprecation")
   private void calculateConfig(
-      InputStream is,
+      ImageType imageType,
       DecodeFormat format,
       boolean isHardwareConfigAllowed,
       boolean isExifOrientationRequired,
@@ -530,16 +596,7 @@ public final class Downsampler {
       return;
     }
 
-    boolean hasAlpha = false;
-    try {
-      hasAlpha = ImageHeaderParserUtils.getType(parsers, is, byteArrayPool).hasAlpha();
-    } catch (IOException e) {
-      if (Log.isLoggable(TAG, Log.DEBUG)) {
-        Log.d(TAG, "Cannot determine whether the image has alpha or not from header"
-            + ", format " + format, e);
-      }
-    }
-
+    boolean hasAlpha = imageType.hasAlpha();
     optionsWithScaling.inPreferredConfig =
         hasAlpha ? Bitmap.Config.ARGB_8888 : Bitmap.Config.RGB_565;
     if (optionsWithScaling.inPreferredConfig == Config.RGB_565) {
@@ -0,0 +1,268 @@
+package com.bumptech.glide.load.resource.bitmap;
+
+import android.graphics.Bitmap;
+import android.graphics.Matrix;
+import android.graphics.RectF;
+import android.support.annotation.NonNull;
+import com.bumptech.glide.load.Transformation;
+import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool;
+import com.bumptech.glide.util.Preconditions;
+import com.bumptech.glide.util.Synthetic;
+import com.bumptech.glide.util.Util;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Applies a sequence of {@link CenterCrop}, {@link CenterInside}, {@link FitCenter},
+ * {@link CircleCrop} and/or {@link RoundedCorners} transformations to {@link Bitmap}s, drawing the
+ * final {@link Bitmap} in a single pass.
+ *
+ * <p>Applied one after another, for example via a
+ * {@link com.bumptech.glide.load.MultiTransformation}, each of these transformations obtains a
+ * {@link Bitmap} from the {@link BitmapPool} and redraws the whole image. Here the scales and
+ * translations of the transformations are concatenated into a single {@link Matrix} and a circle
+ * or rounded corners mask, if any, is applied in the same draw, so no intermediate
+ * {@link Bitmap}s are allocated and the image is only resampled once.
+ *
+ * <p>The size, config and alpha of the result match applying the transformations one after
+ * another to the requested size. Pixels differ slightly because they're only filtered once, so
+ * this class has its own cache keys and isn't used unless it's requested explicitly:
+ * <pre>
+ * {@code
+ * Transformation<Bitmap> fused =
+ *     new FusedBitmapTransformation(new CenterCrop(), new RoundedCorners(8));
+ * Glide.with(fragment)
+ *     .load(url)
+ *     .apply(bitmapTransform(fused))
+ *     .into(imageView);
+ * }
+ * </pre>
+ *
+ * <p>Masks are drawn in the coordinates of the result, so a mask can only be fused if it's
+ * followed by transformations that don't change the image, {@code CircleCrop} followed by
+ * {@code CenterCrop} to a different size for example can't be. Transformations that can't be
+ * fused are applied one after another.
+ */
+public final class FusedBitmapTransformation extends BitmapTransformation {
+  private static final String ID =
+      "com.bumptech.glide.load.resource.bitmap.FusedBitmapTransformation";
+  private static final byte[] ID_BYTES = ID.getBytes(CHARSET);
+
+  private final List<Transformation<Bitmap>> transformations;
+
+  @SafeVarargs
+  @SuppressWarnings("varargs")
+  public FusedBitmapTransformation(@NonNull Transformation<Bitmap>... transformations) {
+    Preconditions.checkArgument(canFuse(transformations),
+        "Only CenterCrop, CenterInside, FitCenter, CircleCrop and RoundedCorners can be fused, but"
+            + " given: " + Arrays.toString(transformations));
+    this.transformations = Arrays.asList(transformations);
+  }
+
+  /**
+   * Returns {@code true} if the given transformations are non empty and can be used to create a
+   * {@link FusedBitmapTransformation}.
+   *
+   * <p>Subclasses of {@link CenterCrop}, {@link CenterInside}, {@link FitCenter} and
+   * {@link CircleCrop} can't be fused because they may override how the image is transformed.
+   */
+  @SafeVarargs
+  public static boolean canFuse(@NonNull Transformation<Bitmap>... transformations) {
+    if (transformations.length == 0) {
+      return false;
+    }
+    for (Transformation<Bitmap> transformation : transformations) {
+      Class<?> transformationClass = transformation.getClass();
+      if (transformationClass != CenterCrop.class
+          && transformationClass != CenterInside.class
+          && transformationClass != FitCenter.class
+          && transformationClass != CircleCrop.class
+          && transformationClass != RoundedCorners.class) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  protected Bitmap transform(
+      @NonNull BitmapPool pool, @NonNull Bitmap toTransform, int outWidth, int outHeight) {
+    Plan plan = new Plan(toTransform.getWidth(), toTransform.getHeight());
+    for (Transformation<Bitmap> transformation : transformations) {
+      if (!plan.append(transformation, outWidth, outHeight)) {
+        return transformSequentially(pool, toTransform, outWidth, outHeight);
+      }
+    }
+    return plan.draw(pool, toTransform);
+  }
+
+  // Bitmap doesn't implement equals, so == and .equals are equivalent here.
+  @SuppressWarnings("PMD.CompareObjectsWithEquals")
+  private Bitmap transformSequentially(
+      @NonNull BitmapPool pool, @NonNull Bitmap toTransform, int outWidth, int outHeight) {
+    Bitmap previous = toTransform;
+    for (Transformation<Bitmap> transformation : transformations) {
+      Bitmap transformed =
+          ((BitmapTransformation) transformation).transform(pool, previous, outWidth, outHeight);
+      if (previous != toTransform && previous != transformed) {
+        pool.put(previous);
+      }
+      previous = transformed;
+    }
+    return previous;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (o instanceof FusedBitmapTransformation) {
+      FusedBitmapTransformation other = (FusedBitmapTransformation) o;
+      return transformations.equals(other.transformations);
+    }
+    return false;
+  }
+
+  @Override
+  public int hashCode() {
+    return Util.hashCode(ID.hashCode(), transformations.hashCode());
+  }
+
+  @Override
+  public void updateDiskCacheKey(@NonNull MessageDigest messageDigest) {
+    messageDigest.update(ID_BYTES);
+    for (Transformation<Bitmap> transformation : transformations) {
+      transformation.updateDiskCacheKey(messageDigest);
+    }
+  }
+
+  /**
+   * Accumulates the size, {@link Matrix} and mask that applying a sequence of transformations to
+   * an image of a given size would produce.
+   */
+  private static final class Plan {
+    private static final int MASK_NONE = 0;
+    private static final int MASK_CIRCLE = 1;
+    private static final int MASK_ROUNDED_CORNERS = 2;
+
+    private final Matrix matrix = new Matrix();
+    private int width;
+    private int height;
+    private int mask = MASK_NONE;
+    private int roundingRadius;
+
+    @Synthetic
+    Plan(int width, int height) {
+      this.width = width;
+      this.height = height;
+    }
+
+    /**
+     * Adds the given transformation and returns {@code true}, or returns {@code false} if it can't
+     * be fused with the transformations before it.
+     */
+    boolean append(Transformation<Bitmap> transformation, int targetWidth, int targetHeight) {
+      if (transformation instanceof CenterCrop) {
+        return centerCrop(targetWidth, targetHeight);
+      } else if (transformation instanceof CenterInside) {
+        return centerInside(targetWidth, targetHeight);
+      } else if (transformation instanceof FitCenter) {
+        return fitCenter(targetWidth, targetHeight);
+      } else if (transformation instanceof CircleCrop) {
+        return circleCrop(targetWidth, targetHeight);
+      } else if (transformation instanceof RoundedCorners) {
+        return setMask(MASK_ROUNDED_CORNERS, ((RoundedCorners) transformation).getRoundingRadius());
+      }
+      return false;
+    }
+
+    // Matches TransformationUtils#centerCrop.
+    private boolean centerCrop(int targetWidth, int targetHeight) {
+      if (width == targetWidth && height == targetHeight) {
+        return true;
+      }
+      Matrix centerCrop = new Matrix();
+      TransformationUtils.initializeMatrixForCenterCrop(
+          width, height, targetWidth, targetHeight, centerCrop);
+      return concat(centerCrop, targetWidth, targetHeight);
+    }
+
+    // Matches TransformationUtils#centerInside.
+    private boolean centerInside(int targetWidth, int targetHeight) {
+      if (width <= targetWidth && height <= targetHeight) {
+        return true;
+      }
+      return fitCenter(targetWidth, targetHeight);
+    }
+
+    // Matches TransformationUtils#fitCenter.
+    private boolean fitCenter(int targetWidth, int targetHeight) {
+      if (width == targetWidth && height == targetHeight) {
+        return true;
+      }
+      float minPercentage =
+          Math.min(targetWidth / (float) width, targetHeight / (float) height);
+      if (Math.round(minPercentage * width) == width
+          && Math.round(minPercentage * height) == height) {
+        return true;
+      }
+      Matrix fitCenter = new Matrix();
+      fitCenter.setScale(minPercentage, minPercentage);
+      return concat(
+          fitCenter, (int) (minPercentage * width), (int) (minPercentage * height));
+    }
+
+    // Matches TransformationUtils#circleCrop.
+    private boolean circleCrop(int targetWidth, int targetHeight) {
+      int destMinEdge = Math.min(targetWidth, targetHeight);
+      Matrix circleCrop = new Matrix();
+      circleCrop.setRectToRect(
+          new RectF(0, 0, width, height),
+          TransformationUtils.getCircleCropDestRect(width, height, destMinEdge),
+          Matrix.ScaleToFit.FILL);
+      return concat(circleCrop, destMinEdge, destMinEdge) && setMask(MASK_CIRCLE, 0);
+    }
+
+    private boolean concat(Matrix transformationMatrix, int newWidth, int newHeight) {
+      if (mask != MASK_NONE) {
+        return false;
+      }
+      matrix.postConcat(transformationMatrix);
+      width = newWidth;
+      height = newHeight;
+      return true;
+    }
+
+    private boolean setMask(int mask, int roundingRadius) {
+      if (this.mask != MASK_NONE) {
+        return false;
+      }
+      this.mask = mask;
+      this.roundingRadius = roundingRadius;
+      return true;
+    }
+
+    Bitmap draw(@NonNull BitmapPool pool, @NonNull Bitmap inBitmap) {
+      final Bitmap result;
+      if (mask == MASK_NONE) {
+        if (matrix.isIdentity() && width == inBitmap.getWidth()
+            && height == inBitmap.getHeight()) {
+          return inBitmap;
+        }
+        result = pool.get(width, height, TransformationUtils.getSafeConfig(inBitmap));
+        // We don't add or remove alpha, so keep the alpha setting of the Bitmap we were given.
+        TransformationUtils.setAlpha(inBitmap, result);
+        TransformationUtils.applyMatrix(inBitmap, result, matrix);
+      } else {
+        // Alpha is required for masks.
+        result = pool.get(width, height, Bitmap.Config.ARGB_8888);
+        result.setHasAlpha(true);
+        if (mask == MASK_CIRCLE) {
+          TransformationUtils.drawCircleCrop(inBitmap, result, matrix);
+        } else {
+          TransformationUtils.drawRoundedCorners(inBitmap, result, matrix, roundingRadius);
+        }
+      }
+      return result;
+    }
+  }
+}
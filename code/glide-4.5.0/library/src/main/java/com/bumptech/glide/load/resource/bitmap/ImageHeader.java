@@ -0,0 +1,79 @@
+package com.bumptech.glide.load.resource.bitmap;
+
+import android.support.annotation.Nullable;
+import com.bumptech.glide.load.ImageHeaderParser.ImageType;
+
+/**
+ * The immutable result of probing an image's header once, containing everything
+ * {@link Downsampler} needs to know about the image before decoding it.
+ */
+final class ImageHeader {
+  private final ImageType type;
+  private final int orientation;
+  private final int width;
+  private final int height;
+  @Nullable private final String mimeType;
+
+  ImageHeader(ImageType type, int orientation, int width, int height,
+      @Nullable String mimeType) {
+    this.type = type;
+    this.orientation = orientation;
+    this.width = width;
+    this.height = height;
+    this.mimeType = mimeType;
+  }
+
+  ImageType getType() {
+    return type;
+  }
+
+  boolean hasAlpha() {
+    return type.hasAlpha();
+  }
+
+  /**
+   * Returns the exif orientation, or {@link
+   * com.bumptech.glide.load.ImageHeaderParser#UNKNOWN_ORIENTATION}.
+   */
+  int getOrientation() {
+    return orientation;
+  }
+
+  /**
+   * Returns the width of the image or -1 if the width couldn't be determined.
+   */
+  int getWidth() {
+    return width;
+  }
+
+  /**
+   * Returns the height of the image or -1 if the height couldn't be determined.
+   */
+  int getHeight() {
+    return height;
+  }
+
+  @Nullable
+  String getMimeType() {
+    return mimeType;
+  }
+
+  /**
+   * Returns {@code true} if the dimensions of the image were determined and the header can be
+   * re-used for later decodes of the same data.
+   */
+  boolean isComplete() {
+    return width > 0 && height > 0;
+  }
+
+  @Override
+  public String toString() {
+    return "ImageHeader{"
+        + "type=" + type
+        + ", orientation=" + orientation
+        + ", width=" + width
+        + ", height=" + height
+        + ", mimeType=" + mimeType
+        + '}';
+  }
+}
@@ -0,0 +1,34 @@
+package com.bumptech.glide.load.resource.bitmap;
+
+import android.support.annotation.Nullable;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.util.LruCache;
+
+/**
+ * Caches {@link ImageHeader}s for recently decoded data by the key provided in
+ * {@link Downsampler#IMAGE_HEADER_CACHE_KEY} so that decoding the same data again, at the same or
+ * a different size, doesn't have to re-parse the header.
+ *
+ * <p>Thread safe.
+ */
+final class ImageHeaderCache {
+  // Headers are small, this is just enough to cover the images on screen and a few pages of
+  // prefetching in a typical list.
+  private static final int MAX_SIZE = 100;
+
+  private final LruCache<Key, ImageHeader> headers = new LruCache<>(MAX_SIZE);
+
+  @Nullable
+  ImageHeader get(Options options) {
+    Key key = options.get(Downsampler.IMAGE_HEADER_CACHE_KEY);
+    return key != null ? headers.get(key) : null;
+  }
+
+  void put(Options options, ImageHeader header) {
+    Key key = options.get(Downsampler.IMAGE_HEADER_CACHE_KEY);
+    if (key != null && header.isComplete()) {
+      headers.put(key, header);
+    }
+  }
+}
@@ -0,0 +1,213 @@
+package com.bumptech.glide.load.resource.bitmap;
+
+import android.graphics.Rect;
+import android.support.annotation.NonNull;
+import com.bumptech.glide.Priority;
+import com.bumptech.glide.util.Preconditions;
+import com.bumptech.glide.util.Synthetic;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * An immutable rectangular region of an image, in the coordinates of the full size image, and the
+ * sample size at which the region should be decoded.
+ *
+ * <p>Used with {@link TiledBitmapDecoder#TILE} to decode only part of very large images. Tiles
+ * are part of the cache keys for the decoded resources, so each tile is cached separately in both
+ * the memory and disk caches. The original data is shared by all tiles of an image in the disk
+ * cache.
+ */
+public final class ImageTile {
+  private final int left;
+  private final int top;
+  private final int right;
+  private final int bottom;
+  private final int sampleSize;
+
+  /**
+   * @param left       The left edge of the region in the full size image, inclusive.
+   * @param top        The top edge of the region in the full size image, inclusive.
+   * @param right      The right edge of the region in the full size image, exclusive.
+   * @param bottom     The bottom edge of the region in the full size image, exclusive.
+   * @param sampleSize The power of two sample size to decode the region at, see
+   *                   {@link android.graphics.BitmapFactory.Options#inSampleSize}.
+   */
+  public ImageTile(int left, int top, int right, int bottom, int sampleSize) {
+    Preconditions.checkArgument(left >= 0 && top >= 0, "Tile must not start before the image");
+    Preconditions.checkArgument(right > left && bottom > top, "Tile must not be empty");
+    Preconditions.checkArgument(
+        sampleSize > 0 && Integer.bitCount(sampleSize) == 1,
+        "Sample size must be a positive power of two");
+    this.left = left;
+    this.top = top;
+    this.right = right;
+    this.bottom = bottom;
+    this.sampleSize = sampleSize;
+  }
+
+  /**
+   * Returns the tiles of a grid of {@code tileSize} x {@code tileSize} tiles, measured in pixels
+   * of the decoded tile, that intersect the given region of an image.
+   *
+   * <p>Tiles are returned in the order they should be loaded, closest to the center of the region
+   * first. Tiles on the bottom and right edges of the image are clipped to the image bounds.
+   *
+   * @param imageWidth  The width of the full size image.
+   * @param imageHeight The height of the full size image.
+   * @param region      The visible region, in the coordinates of the full size image.
+   * @param tileSize    The width and height of each decoded tile.
+   * @param sampleSize  The power of two sample size to decode tiles at, see
+   *                    {@link #getSampleSize(float)}.
+   */
+  @NonNull
+  public static List<ImageTile> forRegion(int imageWidth, int imageHeight, @NonNull Rect region,
+      int tileSize, int sampleSize) {
+    Preconditions.checkArgument(tileSize > 0, "Tile size must be positive");
+    int sourceTileSize = tileSize * sampleSize;
+    int left = Math.max(0, region.left);
+    int top = Math.max(0, region.top);
+    int right = Math.min(imageWidth, region.right);
+    int bottom = Math.min(imageHeight, region.bottom);
+    if (left >= right || top >= bottom) {
+      return Collections.emptyList();
+    }
+
+    List<ImageTile> result = new ArrayList<>();
+    for (int tileTop = top - top % sourceTileSize; tileTop < bottom;
+        tileTop += sourceTileSize) {
+      for (int tileLeft = left - left % sourceTileSize; tileLeft < right;
+          tileLeft += sourceTileSize) {
+        result.add(new ImageTile(tileLeft, tileTop,
+            Math.min(tileLeft + sourceTileSize, imageWidth),
+            Math.min(tileTop + sourceTileSize, imageHeight), sampleSize));
+      }
+    }
+    Collections.sort(result, new DistanceComparator(region.centerX(), region.centerY()));
+    return result;
+  }
+
+  /**
+   * Returns the largest power of two sample size that decodes an image with at least as many
+   * pixels as it will be displayed with at the given scale, where a scale of 1 displays the full
+   * size image pixel for pixel.
+   */
+  public static int getSampleSize(float scale) {
+    Preconditions.checkArgument(scale > 0, "Scale must be positive");
+    int sampleSize = 1;
+    while (sampleSize * 2 * scale <= 1f) {
+      sampleSize *= 2;
+    }
+    return sampleSize;
+  }
+
+  /**
+   * Returns the priority a request for this tile should use when displayed in the given region.
+   *
+   * <p>The tile containing the center of the region is loaded first, then tiles entirely within
+   * the region, then tiles that are only partially visible and finally tiles that aren't visible
+   * at all.
+   */
+  @NonNull
+  public Priority getPriority(@NonNull Rect region) {
+    if (contains(region.centerX(), region.centerY())) {
+      return Priority.IMMEDIATE;
+    } else if (region.contains(left, top, right, bottom)) {
+      return Priority.HIGH;
+    } else if (region.intersects(left, top, right, bottom)) {
+      return Priority.NORMAL;
+    }
+    return Priority.LOW;
+  }
+
+  public int getLeft() {
+    return left;
+  }
+
+  public int getTop() {
+    return top;
+  }
+
+  public int getRight() {
+    return right;
+  }
+
+  public int getBottom() {
+    return bottom;
+  }
+
+  public int getSampleSize() {
+    return sampleSize;
+  }
+
+  /**
+   * Returns a new {@link Rect} containing the bounds of this tile in the full size image.
+   */
+  @NonNull
+  public Rect toRect() {
+    return new Rect(left, top, right, bottom);
+  }
+
+  private boolean contains(int x, int y) {
+    return x >= left && x < right && y >= top && y < bottom;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (o instanceof ImageTile) {
+      ImageTile other = (ImageTile) o;
+      return left == other.left
+          && top == other.top
+          && right == other.right
+          && bottom == other.bottom
+          && sampleSize == other.sampleSize;
+    }
+    return false;
+  }
+
+  @Override
+  public int hashCode() {
+    int result = left;
+    result = 31 * result + top;
+    result = 31 * result + right;
+    result = 31 * result + bottom;
+    result = 31 * result + sampleSize;
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    return "ImageTile{"
+        + "left=" + left
+        + ", top=" + top
+        + ", right=" + right
+        + ", bottom=" + bottom
+        + ", sampleSize=" + sampleSize
+        + '}';
+  }
+
+  private static final class DistanceComparator implements Comparator<ImageTile> {
+    private final int centerX;
+    private final int centerY;
+
+    @Synthetic
+    DistanceComparator(int centerX, int centerY) {
+      this.centerX = centerX;
+      this.centerY = centerY;
+    }
+
+    @Override
+    public int compare(ImageTile first, ImageTile second) {
+      long firstDistance = getSquaredDistance(first);
+      long secondDistance = getSquaredDistance(second);
+      return firstDistance < secondDistance ? -1 : (firstDistance == secondDistance ? 0 : 1);
+    }
+
+    private long getSquaredDistance(ImageTile tile) {
+      long dx = (tile.left + tile.right) / 2 - centerX;
+      long dy = (tile.top + tile.bottom) / 2 - centerY;
+      return dx * dx + dy * dy;
+    }
+  }
+}
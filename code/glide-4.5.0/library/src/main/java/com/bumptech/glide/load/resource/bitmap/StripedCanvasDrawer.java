@@ -0,0 +1,166 @@
+package com.bumptech.glide.load.resource.bitmap;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import com.bumptech.glide.util.Preconditions;
+import com.bumptech.glide.util.Synthetic;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Draws into large {@link Bitmap}s in parallel by splitting them into horizontal stripes and
+ * running the same draws for each stripe on its own thread.
+ *
+ * <p>Each stripe runs the draws on its own {@link Canvas} clipped to the stripe's rows. The clip is
+ * pixel aligned, so every pixel is produced by exactly the same draws as it would be by a single
+ * un-clipped {@link Canvas} and the result should be identical to drawing the whole
+ * {@link Bitmap} on one thread. Robolectric doesn't rasterize, so the unit tests only cover how
+ * stripes are split and scheduled; identical output is checked on devices by the instrumentation
+ * {@code TransformationBenchmark}.
+ *
+ * <p>The calling thread draws the first stripe itself and then waits for the others, so stripes
+ * never wait on other work in the {@link Executor} and the {@link Executor} can be shared.
+ */
+final class StripedCanvasDrawer {
+  // Handing a stripe to another thread costs more than drawing a small stripe, so Bitmaps are only
+  // split into stripes of at least this many pixels.
+  @VisibleForTesting
+  static final int MIN_PIXELS_PER_STRIPE = 512 * 1024;
+
+  /**
+   * A sequence of draws that can be run more than once, and concurrently, on different
+   * {@link Canvas}es for the same {@link Bitmap}.
+   */
+  interface DrawOperation {
+    void draw(@NonNull Canvas canvas);
+  }
+
+  private final Executor executor;
+  private final int maxStripes;
+
+  StripedCanvasDrawer(@NonNull Executor executor, int maxStripes) {
+    Preconditions.checkArgument(maxStripes > 0, "maxStripes must be > 0");
+    this.executor = Preconditions.checkNotNull(executor);
+    this.maxStripes = maxStripes;
+  }
+
+  void draw(@NonNull Bitmap target, @NonNull DrawOperation operation) {
+    int width = target.getWidth();
+    int height = target.getHeight();
+    int stripeCount = getStripeCount(width, height, maxStripes);
+    if (stripeCount == 1) {
+      drawSerially(target, operation);
+      return;
+    }
+
+    CountDownLatch latch = new CountDownLatch(stripeCount - 1);
+    AtomicReference<Throwable> failure = new AtomicReference<>();
+    for (int i = 1; i < stripeCount; i++) {
+      Rect stripe = new Rect(0, getStripeTop(i, stripeCount, height), width,
+          getStripeTop(i + 1, stripeCount, height));
+      StripeTask task = new StripeTask(target, operation, stripe, latch, failure);
+      try {
+        executor.execute(task);
+      } catch (RejectedExecutionException e) {
+        task.run();
+      }
+    }
+    try {
+      drawStripe(target, operation,
+          new Rect(0, 0, width, getStripeTop(1, stripeCount, height)));
+    } finally {
+      // The other stripes are still drawing into the Bitmap, it can't be returned or put back in
+      // the pool until they finish, even if this thread is interrupted or failed.
+      awaitUninterruptibly(latch);
+    }
+
+    Throwable throwable = failure.get();
+    if (throwable instanceof RuntimeException) {
+      throw (RuntimeException) throwable;
+    } else if (throwable instanceof Error) {
+      throw (Error) throwable;
+    }
+  }
+
+  static void drawSerially(@NonNull Bitmap target, @NonNull DrawOperation operation) {
+    drawStripe(target, operation, null /*stripe*/);
+  }
+
+  @Synthetic
+  static void drawStripe(
+      @NonNull Bitmap target, @NonNull DrawOperation operation, @Nullable Rect stripe) {
+    Canvas canvas = new Canvas(target);
+    if (stripe != null) {
+      canvas.clipRect(stripe);
+    }
+    operation.draw(canvas);
+    // Avoids warnings in M+.
+    canvas.setBitmap(null);
+  }
+
+  @VisibleForTesting
+  static int getStripeCount(int width, int height, int maxStripes) {
+    long pixels = (long) width * height;
+    long stripes = Math.min(pixels / MIN_PIXELS_PER_STRIPE, Math.min(maxStripes, height));
+    return (int) Math.max(1, stripes);
+  }
+
+  /**
+   * Returns the first row of the given stripe, or {@code height} for {@code stripe ==
+   * stripeCount}. Stripe heights differ by at most one row.
+   */
+  @VisibleForTesting
+  static int getStripeTop(int stripe, int stripeCount, int height) {
+    return (int) ((long) height * stripe / stripeCount);
+  }
+
+  private static void awaitUninterruptibly(CountDownLatch latch) {
+    boolean interrupted = false;
+    while (true) {
+      try {
+        latch.await();
+        break;
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static final class StripeTask implements Runnable {
+    private final Bitmap target;
+    private final DrawOperation operation;
+    private final Rect stripe;
+    private final CountDownLatch latch;
+    private final AtomicReference<Throwable> failure;
+
+    @Synthetic
+    StripeTask(Bitmap target, DrawOperation operation, Rect stripe, CountDownLatch latch,
+        AtomicReference<Throwable> failure) {
+      this.target = target;
+      this.operation = operation;
+      this.stripe = stripe;
+      this.latch = latch;
+      this.failure = failure;
+    }
+
+    @Override
+    public void run() {
+      try {
+        drawStripe(target, operation, stripe);
+      } catch (Throwable t) {
+        failure.compareAndSet(null, t);
+      } finally {
+        latch.countDown();
+      }
+    }
+  }
+}
@@ -0,0 +1,193 @@
+package com.bumptech.glide.load.resource.bitmap;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Rect;
+import android.os.Build;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+import com.bumptech.glide.load.DecodeFormat;
+import com.bumptech.glide.load.ImageHeaderParser;
+import com.bumptech.glide.load.ImageHeaderParser.ImageType;
+import com.bumptech.glide.load.ImageHeaderParserUtils;
+import com.bumptech.glide.load.Option;
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.ResourceDecoder;
+import com.bumptech.glide.load.engine.Resource;
+import com.bumptech.glide.load.engine.bitmap_recycle.ArrayPool;
+import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool;
+import com.bumptech.glide.util.LogTime;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.List;
+
+/**
+ * Decodes a single {@link ImageTile} of a JPEG or PNG image from an {@link InputStream} using
+ * {@link BitmapRegionDecoder} so that only the pixels in the tile are decoded.
+ *
+ * <p>Only handles loads that set {@link #TILE}, all other loads are left to
+ * {@link StreamBitmapDecoder}. The requested width and height are ignored in favor of the tile's
+ * sample size and {@link DownsampleStrategy}s are not applied.
+ *
+ * <p>Tiles are decoded without applying the image's exif orientation, so tile coordinates are in
+ * the coordinates of the image as it is encoded.
+ */
+public class TiledBitmapDecoder implements ResourceDecoder<InputStream, Bitmap> {
+  private static final String TAG = "TiledBitmapDecoder";
+
+  /**
+   * The {@link ImageTile} to decode, or {@code null} to decode the entire image using
+   * {@link Downsampler}.
+   *
+   * <p>The tile is included in the disk cache key so that each tile is cached separately.
+   */
+  public static final Option<ImageTile> TILE = Option.disk(
+      "com.bumptech.glide.load.resource.bitmap.TiledBitmapDecoder.Tile",
+      new Option.CacheKeyUpdater<ImageTile>() {
+        private final ByteBuffer buffer = ByteBuffer.allocate(5 * Integer.SIZE / Byte.SIZE);
+        @Override
+        public void update(byte[] keyBytes, ImageTile value, MessageDigest messageDigest) {
+          if (value == null) {
+            return;
+          }
+          messageDigest.update(keyBytes);
+          synchronized (buffer) {
+            buffer.position(0);
+            messageDigest.update(buffer
+                .putInt(value.getLeft())
+                .putInt(value.getTop())
+                .putInt(value.getRight())
+                .putInt(value.getBottom())
+                .putInt(value.getSampleSize())
+                .array());
+          }
+        }
+      });
+
+  private final List<ImageHeaderParser> parsers;
+  private final BitmapPool bitmapPool;
+  private final ArrayPool arrayPool;
+
+  public TiledBitmapDecoder(
+      List<ImageHeaderParser> parsers, BitmapPool bitmapPool, ArrayPool arrayPool) {
+    this.parsers = parsers;
+    this.bitmapPool = bitmapPool;
+    this.arrayPool = arrayPool;
+  }
+
+  @Override
+  public boolean handles(@NonNull InputStream source, @NonNull Options options)
+      throws IOException {
+    return options.get(TILE) != null
+        && isSupported(ImageHeaderParserUtils.getType(parsers, source, arrayPool));
+  }
+
+  @Override
+  public Resource<Bitmap> decode(@NonNull InputStream source, int width, int height,
+      @NonNull Options options) throws IOException {
+    ImageTile tile = options.get(TILE);
+    if (tile == null) {
+      throw new IllegalArgumentException("Cannot decode a tile without a tile option");
+    }
+    // Allows us to read the image header and then reset to decode the image.
+    RecyclableBufferedInputStream bufferedStream = null;
+    if (!source.markSupported()) {
+      bufferedStream = new RecyclableBufferedInputStream(source, arrayPool);
+      source = bufferedStream;
+    }
+    try {
+      return decodeTile(source, tile, options);
+    } finally {
+      if (bufferedStream != null) {
+        bufferedStream.release();
+      }
+    }
+  }
+
+  private Resource<Bitmap> decodeTile(InputStream source, ImageTile tile, Options options)
+      throws IOException {
+    ImageType imageType = ImageHeaderParserUtils.getType(parsers, source, arrayPool);
+    Bitmap.Config config = getConfig(imageType, options.get(Downsampler.DECODE_FORMAT));
+
+    long startTime = LogTime.getLogTime();
+    BitmapRegionDecoder regionDecoder =
+        BitmapRegionDecoder.newInstance(source, /*isShareable=*/ false);
+    try {
+      Rect region = tile.toRect();
+      if (!region.intersect(0, 0, regionDecoder.getWidth(), regionDecoder.getHeight())) {
+        throw new IOException("Tile: " + tile + " is outside of image with size: ["
+            + regionDecoder.getWidth() + "x" + regionDecoder.getHeight() + "]");
+      }
+      Bitmap result = decodeRegion(regionDecoder, region, tile.getSampleSize(), config);
+      if (Log.isLoggable(TAG, Log.VERBOSE)) {
+        Log.v(TAG, "Decoded " + tile + " from image with size: ["
+            + regionDecoder.getWidth() + "x" + regionDecoder.getHeight() + "]"
+            + " to: [" + result.getWidth() + "x" + result.getHeight() + "]"
+            + " in " + LogTime.getElapsedMillis(startTime));
+      }
+      return BitmapResource.obtain(result, bitmapPool);
+    } finally {
+      regionDecoder.recycle();
+    }
+  }
+
+  private Bitmap decodeRegion(BitmapRegionDecoder regionDecoder, Rect region, int sampleSize,
+      Bitmap.Config config) throws IOException {
+    BitmapFactory.Options decodeOptions = new BitmapFactory.Options();
+    decodeOptions.inSampleSize = sampleSize;
+    decodeOptions.inPreferredConfig = config;
+    // BitmapRegionDecoder only re-uses Bitmaps that are at least as large as the decoded region on
+    // KitKat and above, on earlier versions the sizes would have to match exactly.
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+      decodeOptions.inBitmap = bitmapPool.getDirty(
+          divideRoundingUp(region.width(), sampleSize),
+          divideRoundingUp(region.height(), sampleSize),
+          config);
+    }
+
+    Bitmap result;
+    try {
+      result = regionDecoder.decodeRegion(region, decodeOptions);
+    } catch (IllegalArgumentException e) {
+      if (decodeOptions.inBitmap == null) {
+        throw new IOException("Failed to decode region: " + region, e);
+      }
+      if (Log.isLoggable(TAG, Log.DEBUG)) {
+        Log.d(TAG, "Failed to decode with inBitmap, trying again without Bitmap re-use", e);
+      }
+      bitmapPool.put(decodeOptions.inBitmap);
+      decodeOptions.inBitmap = null;
+      result = regionDecoder.decodeRegion(region, decodeOptions);
+    }
+
+    if (result == null) {
+      if (decodeOptions.inBitmap != null) {
+        bitmapPool.put(decodeOptions.inBitmap);
+      }
+      throw new IOException("Failed to decode region: " + region);
+    }
+    if (decodeOptions.inBitmap != null && decodeOptions.inBitmap != result) {
+      bitmapPool.put(decodeOptions.inBitmap);
+    }
+    return result;
+  }
+
+  private static Bitmap.Config getConfig(ImageType imageType, @Nullable DecodeFormat format) {
+    return format == DecodeFormat.PREFER_RGB_565 && !imageType.hasAlpha()
+        ? Bitmap.Config.RGB_565 : Bitmap.Config.ARGB_8888;
+  }
+
+  private static int divideRoundingUp(int value, int divisor) {
+    return (value + divisor - 1) / divisor;
+  }
+
+  private static boolean isSupported(ImageType imageType) {
+    return imageType == ImageType.JPEG
+        || imageType == ImageType.PNG
+        || imageType == ImageType.PNG_A;
+  }
+}
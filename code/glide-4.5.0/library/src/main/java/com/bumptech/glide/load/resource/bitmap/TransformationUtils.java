@@ -13,15 +13,19 @@ import android.graphics.Shader;
 import android.media.ExifInterface;
 import android.os.Build;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.support.annotation.VisibleForTesting;
 import android.util.Log;
 import com.bumptech.glide.load.Transformation;
 import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool;
+import com.bumptech.glide.load.engine.executor.GlideExecutor;
+import com.bumptech.glide.load.resource.bitmap.StripedCanvasDrawer.DrawOperation;
 import com.bumptech.glide.util.Preconditions;
 import com.bumptech.glide.util.Synthetic;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
@@ -89,6 +93,11 @@ public final class TransformationUtils {
       MODELS_REQUIRING_BITMAP_LOCK.contains(Build.MODEL)
           ? new ReentrantLock() : new NoLock();
 
+  // Set only while a BitmapTransformation or Downsampler with a transformation executor is running
+  // on the thread, so each Glide instance's executor is only used for its own transformations.
+  private static final ThreadLocal<StripedCanvasDrawer> STRIPED_CANVAS_DRAWER =
+      new ThreadLocal<>();
+
   static {
     CIRCLE_CROP_BITMAP_PAINT = new Paint(CIRCLE_CROP_PAINT_FLAGS);
     CIRCLE_CROP_BITMAP_PAINT.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.SRC_IN));
@@ -103,6 +112,45 @@ public final class TransformationUtils {
     return BITMAP_DRAWABLE_LOCK;
   }
 
+  /**
+   * Sets an {@link Executor} used on the calling thread to draw large {@link Bitmap}s in
+   * {@link #centerCrop(BitmapPool, Bitmap, int, int)},
+   * {@link #fitCenter(BitmapPool, Bitmap, int, int)},
+   * {@link #rotateImageExif(BitmapPool, Bitmap, int)},
+   * {@link #circleCrop(BitmapPool, Bitmap, int, int)} and
+   * {@link #roundedCorners(BitmapPool, Bitmap, int)} in parallel, or {@code null} to draw them
+   * entirely on the calling thread.
+   *
+   * <p>{@link BitmapTransformation} and {@link Downsampler} set
+   * {@link com.bumptech.glide.Glide#getTransformationExecutor()} for the duration of each
+   * transformation and clear it afterwards. Calls made directly to this class draw on the calling
+   * thread.
+   *
+   * <p>Large {@link Bitmap}s are split into up to
+   * {@link GlideExecutor#calculateBestThreadCount()} horizontal stripes, one of which is drawn on
+   * the calling thread while the others are drawn on the given {@link Executor}. Stripes are drawn
+   * with exactly the same draws, so the result should be identical to drawing the {@link Bitmap}
+   * on a single thread. Robolectric doesn't rasterize, so this is only verified on devices by the
+   * instrumentation {@code TransformationBenchmark}. {@link Bitmap}s are still obtained from and
+   * returned to the {@link BitmapPool} as usual.
+   *
+   * <p>Ignored on devices where drawing isn't thread safe, see {@link #getBitmapDrawableLock()}.
+   */
+  static void setStripeExecutor(@Nullable Executor executor) {
+    if (executor == null || MODELS_REQUIRING_BITMAP_LOCK.contains(Build.MODEL)) {
+      STRIPED_CANVAS_DRAWER.remove();
+    } else {
+      STRIPED_CANVAS_DRAWER.set(
+          new StripedCanvasDrawer(executor, GlideExecutor.calculateBestThreadCount()));
+    }
+  }
+
+  @VisibleForTesting
+  @Nullable
+  static StripedCanvasDrawer getStripedCanvasDrawer() {
+    return STRIPED_CANVAS_DRAWER.get();
+  }
+
   /**
    * A potentially expensive operation to crop the given Bitmap so that it fills the given
    * dimensions. This operation is significantly less expensive in terms of memory if a mutable
@@ -119,30 +167,35 @@ public final class TransformationUtils {
     if (inBitmap.getWidth() == width && inBitmap.getHeight() == height) {
       return inBitmap;
     }
+    Matrix m = new Matrix();
+    initializeMatrixForCenterCrop(inBitmap.getWidth(), inBitmap.getHeight(), width, height, m);
+
+    Bitmap result = pool.get(width, height, getSafeConfig(inBitmap));
+    // We don't add or remove alpha, so keep the alpha setting of the Bitmap we were given.
+    TransformationUtils.setAlpha(inBitmap, result);
+
+    applyMatrix(inBitmap, result, m);
+    return result;
+  }
+
+  static void initializeMatrixForCenterCrop(
+      int inWidth, int inHeight, int width, int height, Matrix matrix) {
     // From ImageView/Bitmap.createScaledBitmap.
     final float scale;
     final float dx;
     final float dy;
-    Matrix m = new Matrix();
-    if (inBitmap.getWidth() * height > width * inBitmap.getHeight()) {
-      scale = (float) height / (float) inBitmap.getHeight();
-      dx = (width - inBitmap.getWidth() * scale) * 0.5f;
+    if (inWidth * height > width * inHeight) {
+      scale = (float) height / (float) inHeight;
+      dx = (width - inWidth * scale) * 0.5f;
       dy = 0;
     } else {
-      scale = (float) width / (float) inBitmap.getWidth();
+      scale = (float) width / (float) inWidth;
       dx = 0;
-      dy = (height - inBitmap.getHeight() * scale) * 0.5f;
+      dy = (height - inHeight * scale) * 0.5f;
     }
 
-    m.setScale(scale, scale);
-    m.postTranslate((int) (dx + 0.5f), (int) (dy + 0.5f));
-
-    Bitmap result = pool.get(width, height, getSafeConfig(inBitmap));
-    // We don't add or remove alpha, so keep the alpha setting of the Bitmap we were given.
-    TransformationUtils.setAlpha(inBitmap, result);
-
-    applyMatrix(inBitmap, result, m);
-    return result;
+    matrix.setScale(scale, scale);
+    matrix.postTranslate((int) (dx + 0.5f), (int) (dy + 0.5f));
   }
 
   /**
@@ -365,39 +418,26 @@ public final class TransformationUtils {
   public static Bitmap circleCrop(@NonNull BitmapPool pool, @NonNull Bitmap inBitmap,
       int destWidth, int destHeight) {
     int destMinEdge = Math.min(destWidth, destHeight);
-    float radius = destMinEdge / 2f;
-
-    int srcWidth = inBitmap.getWidth();
-    int srcHeight = inBitmap.getHeight();
-
-    float scaleX = destMinEdge / (float) srcWidth;
-    float scaleY = destMinEdge / (float) srcHeight;
-    float maxScale = Math.max(scaleX, scaleY);
+    final float radius = destMinEdge / 2f;
 
-    float scaledWidth = maxScale * srcWidth;
-    float scaledHeight = maxScale * srcHeight;
-    float left = (destMinEdge - scaledWidth) / 2f;
-    float top = (destMinEdge - scaledHeight) / 2f;
-
-    RectF destRect = new RectF(left, top, left + scaledWidth, top + scaledHeight);
+    final RectF destRect =
+        getCircleCropDestRect(inBitmap.getWidth(), inBitmap.getHeight(), destMinEdge);
 
     // Alpha is required for this transformation.
-    Bitmap toTransform = getAlphaSafeBitmap(pool, inBitmap);
+    final Bitmap toTransform = getAlphaSafeBitmap(pool, inBitmap);
 
     Bitmap result = pool.get(destMinEdge, destMinEdge, Bitmap.Config.ARGB_8888);
     result.setHasAlpha(true);
 
-    BITMAP_DRAWABLE_LOCK.lock();
-    try {
-      Canvas canvas = new Canvas(result);
-      // Draw a circle
-      canvas.drawCircle(radius, radius, radius, CIRCLE_CROP_SHAPE_PAINT);
-      // Draw the bitmap in the circle
-      canvas.drawBitmap(toTransform, null, destRect, CIRCLE_CROP_BITMAP_PAINT);
-      clear(canvas);
-    } finally {
-      BITMAP_DRAWABLE_LOCK.unlock();
-    }
+    draw(result, new DrawOperation() {
+      @Override
+      public void draw(@NonNull Canvas canvas) {
+        // Draw a circle
+        canvas.drawCircle(radius, radius, radius, CIRCLE_CROP_SHAPE_PAINT);
+        // Draw the bitmap in the circle
+        canvas.drawBitmap(toTransform, null, destRect, CIRCLE_CROP_BITMAP_PAINT);
+      }
+    });
 
     if (!toTransform.equals(inBitmap)) {
       pool.put(toTransform);
@@ -406,6 +446,35 @@ public final class TransformationUtils {
     return result;
   }
 
+  static RectF getCircleCropDestRect(int srcWidth, int srcHeight, int destMinEdge) {
+    float scaleX = destMinEdge / (float) srcWidth;
+    float scaleY = destMinEdge / (float) srcHeight;
+    float maxScale = Math.max(scaleX, scaleY);
+
+    float scaledWidth = maxScale * srcWidth;
+    float scaledHeight = maxScale * srcHeight;
+    float left = (destMinEdge - scaledWidth) / 2f;
+    float top = (destMinEdge - scaledHeight) / 2f;
+
+    return new RectF(left, top, left + scaledWidth, top + scaledHeight);
+  }
+
+  /**
+   * Draws the given {@link Bitmap} into the given square ARGB_8888 target with the given
+   * {@link Matrix}, masked to a circle that fills the target.
+   */
+  static void drawCircleCrop(@NonNull final Bitmap inBitmap, @NonNull Bitmap targetBitmap,
+      @NonNull final Matrix matrix) {
+    final float radius = targetBitmap.getWidth() / 2f;
+    draw(targetBitmap, new DrawOperation() {
+      @Override
+      public void draw(@NonNull Canvas canvas) {
+        canvas.drawCircle(radius, radius, radius, CIRCLE_CROP_SHAPE_PAINT);
+        canvas.drawBitmap(inBitmap, matrix, CIRCLE_CROP_BITMAP_PAINT);
+      }
+    });
+  }
+
   private static Bitmap getAlphaSafeBitmap(@NonNull BitmapPool pool,
       @NonNull Bitmap maybeAlphaSafe) {
     if (Bitmap.Config.ARGB_8888.equals(maybeAlphaSafe.getConfig())) {
@@ -458,7 +527,7 @@ public final class TransformationUtils {
    * @throws IllegalArgumentException if roundingRadius, width or height is 0 or less.
    */
   public static Bitmap roundedCorners(
-      @NonNull BitmapPool pool, @NonNull Bitmap inBitmap, int roundingRadius) {
+      @NonNull BitmapPool pool, @NonNull Bitmap inBitmap, final int roundingRadius) {
     Preconditions.checkArgument(roundingRadius > 0, "roundingRadius must be greater than 0.");
 
     // Alpha is required for this transformation.
@@ -470,19 +539,17 @@ public final class TransformationUtils {
 
     BitmapShader shader = new BitmapShader(toTransform, Shader.TileMode.CLAMP,
         Shader.TileMode.CLAMP);
-    Paint paint = new Paint();
+    final Paint paint = new Paint();
     paint.setAntiAlias(true);
     paint.setShader(shader);
-    RectF rect = new RectF(0, 0, result.getWidth(), result.getHeight());
-    BITMAP_DRAWABLE_LOCK.lock();
-    try {
-      Canvas canvas = new Canvas(result);
-      canvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
-      canvas.drawRoundRect(rect, roundingRadius, roundingRadius, paint);
-      clear(canvas);
-    } finally {
-      BITMAP_DRAWABLE_LOCK.unlock();
-    }
+    final RectF rect = new RectF(0, 0, result.getWidth(), result.getHeight());
+    draw(result, new DrawOperation() {
+      @Override
+      public void draw(@NonNull Canvas canvas) {
+        canvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
+        canvas.drawRoundRect(rect, roundingRadius, roundingRadius, paint);
+      }
+    });
 
     if (!toTransform.equals(inBitmap)) {
       pool.put(toTransform);
@@ -491,22 +558,52 @@ public final class TransformationUtils {
     return result;
   }
 
-  // Avoids warnings in M+.
-  private static void clear(Canvas canvas) {
-    canvas.setBitmap(null);
+  /**
+   * Draws the given {@link Bitmap} into the given ARGB_8888 target with the given {@link Matrix},
+   * masked to a rectangle with rounded corners that fills the target.
+   */
+  static void drawRoundedCorners(@NonNull Bitmap inBitmap, @NonNull Bitmap targetBitmap,
+      @NonNull Matrix matrix, final int roundingRadius) {
+    BitmapShader shader = new BitmapShader(inBitmap, Shader.TileMode.CLAMP,
+        Shader.TileMode.CLAMP);
+    shader.setLocalMatrix(matrix);
+    // Match roundedCorners unless the shader scales or moves the Bitmap, in which case filter it.
+    final Paint paint =
+        new Paint(matrix.isIdentity() ? Paint.ANTI_ALIAS_FLAG : CIRCLE_CROP_PAINT_FLAGS);
+    paint.setShader(shader);
+    final RectF rect = new RectF(0, 0, targetBitmap.getWidth(), targetBitmap.getHeight());
+    draw(targetBitmap, new DrawOperation() {
+      @Override
+      public void draw(@NonNull Canvas canvas) {
+        canvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
+        canvas.drawRoundRect(rect, roundingRadius, roundingRadius, paint);
+      }
+    });
   }
 
-  private static Bitmap.Config getSafeConfig(Bitmap bitmap) {
+  static Bitmap.Config getSafeConfig(Bitmap bitmap) {
     return bitmap.getConfig() != null ? bitmap.getConfig() : Bitmap.Config.ARGB_8888;
   }
 
-  private static void applyMatrix(@NonNull Bitmap inBitmap, @NonNull Bitmap targetBitmap,
-      Matrix matrix) {
+  static void applyMatrix(@NonNull final Bitmap inBitmap, @NonNull Bitmap targetBitmap,
+      final Matrix matrix) {
+    draw(targetBitmap, new DrawOperation() {
+      @Override
+      public void draw(@NonNull Canvas canvas) {
+        canvas.drawBitmap(inBitmap, matrix, DEFAULT_PAINT);
+      }
+    });
+  }
+
+  private static void draw(@NonNull Bitmap targetBitmap, @NonNull DrawOperation operation) {
+    StripedCanvasDrawer drawer = STRIPED_CANVAS_DRAWER.get();
     BITMAP_DRAWABLE_LOCK.lock();
     try {
-      Canvas canvas = new Canvas(targetBitmap);
-      canvas.drawBitmap(inBitmap, matrix, DEFAULT_PAINT);
-      clear(canvas);
+      if (drawer != null) {
+        drawer.draw(targetBitmap, operation);
+      } else {
+        StripedCanvasDrawer.drawSerially(targetBitmap, operation);
+      }
     } finally {
       BITMAP_DRAWABLE_LOCK.unlock();
     }
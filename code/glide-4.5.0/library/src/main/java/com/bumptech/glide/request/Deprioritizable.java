@@ -0,0 +1,18 @@
+package com.bumptech.glide.request;
+
+/**
+ * Implemented by Glide's own {@link Request}s that can lower the priority of their loads in
+ * progress.
+ *
+ * <p>This is kept separate from {@link Request} so that adding it doesn't break other
+ * implementations of {@link Request}, use {@link Deprioritizer} to call it.
+ */
+interface Deprioritizable {
+
+  /**
+   * Lowers the priority of any load this request has in progress if {@code isDeprioritized} is
+   * {@code true}, or restores its original priority otherwise, for example so that loads for views
+   * that are no longer visible run after loads for views that are.
+   */
+  void setDeprioritized(boolean isDeprioritized);
+}
@@ -0,0 +1,27 @@
+package com.bumptech.glide.request;
+
+import android.support.annotation.Nullable;
+
+/**
+ * Lowers or restores the priority of the loads in progress for {@link Request}s.
+ *
+ * <p>Only Glide's own requests support this, other {@link Request}s are left unchanged.
+ */
+public final class Deprioritizer {
+
+  private Deprioritizer() {
+    // Utility class.
+  }
+
+  /**
+   * Lowers the priority of any load the given request has in progress if
+   * {@code isDeprioritized} is {@code true}, or restores its original priority otherwise.
+   *
+   * <p>Does nothing if the request is {@code null} or doesn't support changing its priority.
+   */
+  public static void setDeprioritized(@Nullable Request request, boolean isDeprioritized) {
+    if (request instanceof Deprioritizable) {
+      ((Deprioritizable) request).setDeprioritized(isDeprioritized);
+    }
+  }
+}
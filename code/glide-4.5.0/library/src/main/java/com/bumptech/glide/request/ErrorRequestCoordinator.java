@@ -7,7 +7,8 @@ import android.support.annotation.Nullable;
  * if the single primary request fails.
  */
 public final class ErrorRequestCoordinator implements RequestCoordinator,
-    Request {
+    Request,
+    Deprioritizable {
 
   @Nullable
   private final RequestCoordinator parent;
@@ -86,6 +87,12 @@ public final class ErrorRequestCoordinator implements RequestCoordinator,
     error.recycle();
   }
 
+  @Override
+  public void setDeprioritized(boolean isDeprioritized) {
+    Deprioritizer.setDeprioritized(primary, isDeprioritized);
+    Deprioritizer.setDeprioritized(error, isDeprioritized);
+  }
+
   @Override
   public boolean isEquivalentTo(Request o) {
     if (o instanceof ErrorRequestCoordinator) {
@@ -27,6 +27,8 @@ import com.bumptech.glide.load.resource.bitmap.DownsampleStrategy;
 import com.bumptech.glide.load.resource.bitmap.Downsampler;
 import com.bumptech.glide.load.resource.bitmap.DrawableTransformation;
 import com.bumptech.glide.load.resource.bitmap.FitCenter;
+import com.bumptech.glide.load.resource.bitmap.FusedBitmapTransformation;
+import com.bumptech.glide.load.resource.bitmap.RoundedCorners;
 import com.bumptech.glide.load.resource.bitmap.VideoDecoder;
 import com.bumptech.glide.load.resource.gif.GifDrawable;
 import com.bumptech.glide.load.resource.gif.GifDrawableTransformation;
@@ -1195,6 +1197,10 @@ public class RequestOptions implements Cloneable {
    *
    * <p>This will override previous calls to {@link #dontTransform()}.
    *
+   * <p>To apply Glide's {@link CenterCrop}, {@link CenterInside}, {@link FitCenter},
+   * {@link CircleCrop} and {@link RoundedCorners} transformations in a single draw, pass a
+   * {@link FusedBitmapTransformation} to {@link #transform(Transformation)} instead.
+   *
    * @param transformations One or more {@link Transformation}s for {@link Bitmap}s.
    * @see #optionalTransform(Transformation)
    * @see #optionalTransform(Class, Transformation)
@@ -15,6 +15,7 @@ import com.bumptech.glide.load.engine.Engine;
 import com.bumptech.glide.load.engine.GlideException;
 import com.bumptech.glide.load.engine.Resource;
 import com.bumptech.glide.load.resource.drawable.DrawableDecoderCompat;
+import com.bumptech.glide.request.target.PreloadTarget;
 import com.bumptech.glide.request.target.SizeReadyCallback;
 import com.bumptech.glide.request.target.Target;
 import com.bumptech.glide.request.transition.Transition;
@@ -32,6 +33,7 @@ import com.bumptech.glide.util.pool.StateVerifier;
  * @param <R> The type of the resource that will be transcoded from the loaded resource.
  */
 public final class SingleRequest<R> implements Request,
+    Deprioritizable,
     SizeReadyCallback,
     ResourceCallback,
     FactoryPools.Poolable {
@@ -108,6 +110,7 @@ public final class SingleRequest<R> implements Request,
   private TransitionFactory<? super R> animationFactory;
   private Resource<R> resource;
   private Engine.LoadStatus loadStatus;
+  private boolean isDeprioritized;
   private long startTime;
   private Status status;
   private Drawable errorDrawable;
@@ -214,6 +217,7 @@ public final class SingleRequest<R> implements Request,
     requestCoordinator = null;
     animationFactory = null;
     loadStatus = null;
+    isDeprioritized = false;
     errorDrawable = null;
     placeholderDrawable = null;
     fallbackDrawable = null;
@@ -341,6 +345,22 @@ public final class SingleRequest<R> implements Request,
     status = Status.PAUSED;
   }
 
+  @Override
+  public void setDeprioritized(boolean isDeprioritized) {
+    stateVerifier.throwIfRecycled();
+    if (this.isDeprioritized == isDeprioritized) {
+      return;
+    }
+    this.isDeprioritized = isDeprioritized;
+    if (loadStatus != null) {
+      loadStatus.setPriority(getLoadPriority());
+    }
+  }
+
+  private Priority getLoadPriority() {
+    return isDeprioritized ? Priority.LOW : priority;
+  }
+
   private void releaseResource(Resource<?> resource) {
     engine.release(resource);
     this.resource = null;
@@ -456,7 +476,7 @@ public final class SingleRequest<R> implements Request,
         this.height,
         requestOptions.getResourceClass(),
         transcodeClass,
-        priority,
+        getLoadPriority(),
         requestOptions.getDiskCacheStrategy(),
         requestOptions.getTransformations(),
         requestOptions.isTransformationRequired(),
@@ -466,6 +486,7 @@ public final class SingleRequest<R> implements Request,
         requestOptions.getUseUnlimitedSourceGeneratorsPool(),
         requestOptions.getUseAnimationPool(),
         requestOptions.getOnlyRetrieveFromCache(),
+        /*isPreload=*/ target instanceof PreloadTarget,
         this);
 
     // This is a hack that's only useful for testing right now where loads complete synchronously
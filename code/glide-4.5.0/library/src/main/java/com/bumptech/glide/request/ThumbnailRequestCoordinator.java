@@ -8,7 +8,8 @@ import android.support.annotation.VisibleForTesting;
  * version of an image and the full size version of the image at the same time.
  */
 public class ThumbnailRequestCoordinator implements RequestCoordinator,
-    Request {
+    Request,
+    Deprioritizable {
   @Nullable private final RequestCoordinator parent;
 
   private Request full;
@@ -179,6 +180,12 @@ public class ThumbnailRequestCoordinator implements RequestCoordinator,
     thumb.recycle();
   }
 
+  @Override
+  public void setDeprioritized(boolean isDeprioritized) {
+    Deprioritizer.setDeprioritized(full, isDeprioritized);
+    Deprioritizer.setDeprioritized(thumb, isDeprioritized);
+  }
+
   @Override
   public boolean isEquivalentTo(Request o) {
     if (o instanceof ThumbnailRequestCoordinator) {
@@ -14,6 +14,7 @@ import android.view.View.OnAttachStateChangeListener;
 import android.view.ViewGroup.LayoutParams;
 import android.view.ViewTreeObserver;
 import android.view.WindowManager;
+import com.bumptech.glide.request.Deprioritizer;
 import com.bumptech.glide.request.Request;
 import com.bumptech.glide.util.Preconditions;
 import com.bumptech.glide.util.Synthetic;
@@ -52,6 +53,8 @@ public abstract class ViewTarget<T extends View, Z> extends BaseTarget<Z> {
   private OnAttachStateChangeListener attachStateListener;
   private boolean isClearedByUs;
   private boolean isAttachStateListenerAdded;
+  private boolean isClearOnDetach;
+  private boolean isDeprioritizeOnDetach;
 
 
   /**
@@ -105,22 +108,70 @@ public abstract class ViewTarget<T extends View, Z> extends BaseTarget<Z> {
   @NonNull
   @SuppressWarnings({"UnusedReturnValue", "WeakerAccess"})
   public final ViewTarget<T, Z> clearOnDetach() {
+    isClearOnDetach = true;
+    maybeCreateAttachStateListener();
+    return this;
+  }
+
+  /**
+   * Lowers the priority of the {@link View}'s {@link Request} when the {@link View} is detached
+   * from its {@link android.view.Window} and restores it when the {@link View} is re-attached.
+   *
+   * <p>Scrolling views like {@code RecyclerView} detach views as they scroll off screen, so loads
+   * for views that are still on screen run before loads for views that scrolled off but haven't
+   * been re-bound yet. Unlike {@link #clearOnDetach()}, loads keep running
+   * and their results stay in memory.
+   *
+   * @see com.bumptech.glide.RequestManager#setDeprioritizeRequestsOnDetach(boolean)
+   */
+  // Public API.
+  @NonNull
+  @SuppressWarnings({"UnusedReturnValue", "WeakerAccess"})
+  public final ViewTarget<T, Z> deprioritizeOnDetach() {
+    isDeprioritizeOnDetach = true;
+    maybeCreateAttachStateListener();
+    return this;
+  }
+
+  private void maybeCreateAttachStateListener() {
     if (attachStateListener != null) {
-      return this;
+      return;
     }
     attachStateListener = new OnAttachStateChangeListener() {
       @Override
       public void onViewAttachedToWindow(View v) {
-        resumeMyRequest();
+        onViewAttached();
       }
 
       @Override
       public void onViewDetachedFromWindow(View v) {
-        pauseMyRequest();
+        onViewDetached();
       }
     };
     maybeAddAttachStateListener();
-    return this;
+  }
+
+  @Synthetic
+  void onViewAttached() {
+    if (isClearOnDetach) {
+      resumeMyRequest();
+    }
+    if (isDeprioritizeOnDetach) {
+      setMyRequestDeprioritized(false);
+    }
+  }
+
+  @Synthetic
+  void onViewDetached() {
+    if (isClearOnDetach) {
+      pauseMyRequest();
+    } else if (isDeprioritizeOnDetach) {
+      setMyRequestDeprioritized(true);
+    }
+  }
+
+  private void setMyRequestDeprioritized(boolean isDeprioritized) {
+    Deprioritizer.setDeprioritized(getRequest(), isDeprioritized);
   }
 
   @SuppressWarnings("WeakerAccess")
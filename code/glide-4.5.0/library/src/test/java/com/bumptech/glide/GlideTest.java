@@ -175,6 +175,17 @@ public class GlideTest {
     verify(bitmapPool).setSizeMultiplier(eq(memoryCategory.getMultiplier()));
   }
 
+  @Test
+  public void testTearDown_shutsDownTransformationExecutor() {
+    GlideExecutor transformationExecutor = GlideExecutor.newTransformationExecutor();
+    Glide.init(context, new GlideBuilder().setTransformationExecutor(transformationExecutor));
+    assertThat(Glide.get(context).getTransformationExecutor()).isSameAs(transformationExecutor);
+
+    Glide.tearDown();
+
+    assertThat(transformationExecutor.isShutdown()).isTrue();
+  }
+
   @Test
   public void testCanIncreaseMemoryCategory() {
     MemoryCategory memoryCategory = MemoryCategory.NORMAL;
@@ -233,6 +244,27 @@ public class GlideTest {
     verify(memoryCache).clearMemory();
   }
 
+  @Test
+  public void getDecodePipelineStats_withoutSourceIoExecutor_returnsNull() {
+    Glide glide =
+        new GlideBuilder()
+            .setMemoryCache(memoryCache)
+            .build(context);
+
+    assertThat(glide.getDecodePipelineStats()).isNull();
+  }
+
+  @Test
+  public void getDecodePipelineStats_withSourceIoExecutor_returnsStats() {
+    Glide glide =
+        new GlideBuilder()
+            .setMemoryCache(memoryCache)
+            .setSourceIoExecutor(MockGlideExecutor.newMainThreadExecutor())
+            .build(context);
+
+    assertThat(glide.getDecodePipelineStats()).isNotNull();
+  }
+
   @Test
   public void testTrimMemory() {
     Glide glide =
@@ -0,0 +1,147 @@
+package com.bumptech.glide.load.data;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.bumptech.glide.Priority;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.model.GlideUrl;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 18)
+public class StreamByteBufferFetcherTest {
+  @Mock private HttpURLConnection urlConnection;
+  @Mock private HttpUrlFetcher.HttpUrlConnectionFactory connectionFactory;
+  @Mock private GlideUrl glideUrl;
+  @Mock private DataFetcher.DataCallback<ByteBuffer> callback;
+
+  private StreamByteBufferFetcher fetcher;
+
+  @Before
+  public void setUp() throws IOException {
+    MockitoAnnotations.initMocks(this);
+    URL url = new URL("http://www.google.com");
+
+    when(connectionFactory.build(eq(url))).thenReturn(urlConnection);
+    when(urlConnection.getResponseCode()).thenReturn(200);
+    when(glideUrl.toURL()).thenReturn(url);
+
+    fetcher = new StreamByteBufferFetcher(
+        new HttpUrlFetcher(glideUrl, /*timeout=*/ 100, connectionFactory));
+  }
+
+  @Test
+  public void loadData_withContentLength_returnsExactlySizedBuffer() throws IOException {
+    byte[] body = newBody(1000);
+    setBody(body, /*contentLength=*/ body.length);
+
+    ByteBuffer result = loadData();
+
+    assertThat(getBytes(result)).isEqualTo(body);
+    assertThat(result.array().length).isEqualTo(body.length);
+  }
+
+  @Test
+  public void loadData_withoutContentLength_returnsEntireBody() throws IOException {
+    byte[] body = newBody(100 * 1024);
+    setBody(body, /*contentLength=*/ -1);
+
+    assertThat(getBytes(loadData())).isEqualTo(body);
+  }
+
+  @Test
+  public void loadData_withEmptyBody_returnsEmptyBuffer() throws IOException {
+    setBody(new byte[0], /*contentLength=*/ 0);
+
+    assertThat(loadData().remaining()).isEqualTo(0);
+  }
+
+  @Test
+  public void loadData_withFailedRead_notifiesFailure() throws IOException {
+    when(urlConnection.getInputStream()).thenReturn(new InputStream() {
+      @Override
+      public int read() throws IOException {
+        throw new IOException("test");
+      }
+    });
+
+    fetcher.loadData(Priority.NORMAL, callback);
+
+    verify(callback).onLoadFailed(any(IOException.class));
+  }
+
+  @Test
+  public void loadData_whenCancelledBeforeStart_returnsNull() throws IOException {
+    setBody(newBody(10), /*contentLength=*/ 10);
+    fetcher.cancel();
+
+    fetcher.loadData(Priority.NORMAL, callback);
+
+    verify(callback).onDataReady(isNull(ByteBuffer.class));
+  }
+
+  @Test
+  public void getDataSource_returnsStreamFetcherDataSource() {
+    assertThat(fetcher.getDataSource()).isEqualTo(DataSource.REMOTE);
+  }
+
+  @Test
+  public void cleanup_disconnects() throws IOException {
+    setBody(newBody(10), /*contentLength=*/ 10);
+    fetcher.loadData(Priority.NORMAL, callback);
+
+    fetcher.cleanup();
+
+    verify(urlConnection).disconnect();
+  }
+
+  private ByteBuffer loadData() {
+    fetcher.loadData(Priority.NORMAL, callback);
+    ArgumentCaptor<ByteBuffer> captor = ArgumentCaptor.forClass(ByteBuffer.class);
+    verify(callback).onDataReady(captor.capture());
+    return captor.getValue();
+  }
+
+  private void setBody(byte[] body, int contentLength) throws IOException {
+    when(urlConnection.getInputStream()).thenReturn(new ByteArrayInputStream(body) {
+      @Override
+      public synchronized int available() {
+        // Mimic a network stream that only has a little data buffered at a time.
+        return Math.min(super.available(), 512);
+      }
+    });
+    when(urlConnection.getContentLength()).thenReturn(contentLength);
+  }
+
+  private static byte[] getBytes(ByteBuffer buffer) {
+    byte[] result = new byte[buffer.remaining()];
+    buffer.get(result);
+    return result;
+  }
+
+  private static byte[] newBody(int size) {
+    byte[] result = new byte[size];
+    for (int i = 0; i < size; i++) {
+      result[i] = (byte) i;
+    }
+    return result;
+  }
+}
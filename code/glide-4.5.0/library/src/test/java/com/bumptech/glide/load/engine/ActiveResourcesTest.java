@@ -3,17 +3,22 @@ package com.bumptech.glide.load.engine;
 import static com.google.common.truth.Truth.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
-import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 import com.bumptech.glide.load.Key;
-import com.bumptech.glide.load.engine.ActiveResources.DequeuedResourceCallback;
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.Transformation;
 import com.bumptech.glide.load.engine.ActiveResources.ResourceWeakReference;
 import com.bumptech.glide.load.engine.EngineResource.ResourceListener;
-import com.bumptech.glide.tests.GlideShadowLooper;
+import com.bumptech.glide.signature.ObjectKey;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
-import org.junit.After;
+import java.util.concurrent.TimeUnit;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -21,11 +26,8 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.robolectric.RobolectricTestRunner;
-import org.robolectric.annotation.Config;
-import org.robolectric.shadows.ShadowLooper;
 
 @RunWith(RobolectricTestRunner.class)
-@Config(shadows = GlideShadowLooper.class)
 public class ActiveResourcesTest {
 
   @Mock private ResourceListener listener;
@@ -39,13 +41,6 @@ public class ActiveResourcesTest {
     MockitoAnnotations.initMocks(this);
     resources = new ActiveResources(/*isActiveResourceRetentionAllowed=*/ true);
     resources.setListener(listener);
-
-    reset(GlideShadowLooper.queue);
-  }
-
-  @After
-  public void tearDown() {
-    resources.shutdown();
   }
 
   @Test
@@ -150,7 +145,7 @@ public class ActiveResourcesTest {
     ResourceWeakReference weakRef = resources.activeEngineResources.get(key);
     resources.deactivate(key);
 
-    enqueueAndWaitForRef(weakRef);
+    enqueueAndDrain(weakRef);
 
     verify(listener, never()).onResourceReleased(any(Key.class), any(EngineResource.class));
   }
@@ -162,7 +157,7 @@ public class ActiveResourcesTest {
     resources.activate(key, engineResource);
 
     ResourceWeakReference weakRef = resources.activeEngineResources.get(key);
-    enqueueAndWaitForRef(weakRef);
+    enqueueAndDrain(weakRef);
 
     ArgumentCaptor<EngineResource<?>> captor = getEngineResourceCaptor();
 
@@ -184,7 +179,7 @@ public class ActiveResourcesTest {
 
     ResourceWeakReference weakRef = resources.activeEngineResources.get(key);
     weakRef.enqueue();
-    enqueueAndWaitForRef(weakRef);
+    enqueueAndDrain(weakRef);
 
     verify(listener, never()).onResourceReleased(any(Key.class), any(EngineResource.class));
   }
@@ -197,7 +192,7 @@ public class ActiveResourcesTest {
     resources.activate(key, engineResource);
 
     ResourceWeakReference weakRef = resources.activeEngineResources.get(key);
-    enqueueAndWaitForRef(weakRef);
+    enqueueAndDrain(weakRef);
 
     assertThat(resources.get(key)).isNull();
   }
@@ -209,7 +204,7 @@ public class ActiveResourcesTest {
     resources.activate(key, engineResource);
 
     ResourceWeakReference weakRef = resources.activeEngineResources.get(key);
-    enqueueAndWaitForRef(weakRef);
+    enqueueAndDrain(weakRef);
 
     assertThat(resources.get(key)).isNull();
   }
@@ -248,7 +243,7 @@ public class ActiveResourcesTest {
 
     resources.get(key);
 
-    enqueueAndWaitForRef(weakRef);
+    enqueueAndDrain(weakRef);
 
     ArgumentCaptor<EngineResource<?>> captor = getEngineResourceCaptor();
     verify(listener).onResourceReleased(eq(key), captor.capture());
@@ -262,12 +257,11 @@ public class ActiveResourcesTest {
     resources.activate(key, engineResource);
 
     ResourceWeakReference weakRef = resources.activeEngineResources.get(key);
-    CountDownLatch latch = getLatchForClearedRef();
     weakRef.enqueue();
 
     resources.get(key);
 
-    waitForLatch(latch);
+    resources.drainReferenceQueue();
 
     verify(listener, never()).onResourceReleased(any(Key.class), any(EngineResource.class));
   }
@@ -279,12 +273,11 @@ public class ActiveResourcesTest {
     resources.activate(key, engineResource);
 
     ResourceWeakReference weakRef = resources.activeEngineResources.get(key);
-    CountDownLatch latch = getLatchForClearedRef();
     weakRef.enqueue();
 
     resources.deactivate(key);
 
-    waitForLatch(latch);
+    resources.drainReferenceQueue();
 
     verify(listener, never()).onResourceReleased(any(Key.class), any(EngineResource.class));
   }
@@ -296,14 +289,13 @@ public class ActiveResourcesTest {
     resources.activate(key, first);
 
     ResourceWeakReference weakRef = resources.activeEngineResources.get(key);
-    CountDownLatch latch = getLatchForClearedRef();
     weakRef.enqueue();
 
     EngineResource<Object> second =
         new EngineResource<>(resource, /*isCacheable=*/ true, /*isRecyclable=*/ true);
     resources.activate(key, second);
 
-    waitForLatch(latch);
+    resources.drainReferenceQueue();
 
     verify(listener, never()).onResourceReleased(any(Key.class), any(EngineResource.class));
   }
@@ -350,40 +342,165 @@ public class ActiveResourcesTest {
     resources.activate(key, engineResource);
 
     ResourceWeakReference weakRef = resources.activeEngineResources.get(key);
-    CountDownLatch latch = getLatchForClearedRef();
     weakRef.enqueue();
 
     resources.get(key);
 
-    waitForLatch(latch);
+    resources.drainReferenceQueue();
 
     verify(listener, never()).onResourceReleased(any(Key.class), any(EngineResource.class));
   }
 
-  private void enqueueAndWaitForRef(ResourceWeakReference ref) {
-    CountDownLatch latch = getLatchForClearedRef();
-    ref.enqueue();
-    waitForLatch(latch);
+  @Test
+  public void activate_withQueuedReferenceForOtherKey_notifiesListener() {
+    EngineResource<Object> engineResource =
+        new EngineResource<>(resource, /*isCacheable=*/ true, /*isRecyclable=*/ true);
+    resources.activate(key, engineResource);
+    resources.activeEngineResources.get(key).enqueue();
+
+    resources.activate(mock(Key.class),
+        new EngineResource<>(resource, /*isCacheable=*/ true, /*isRecyclable=*/ true));
+
+    verify(listener).onResourceReleased(eq(key), any(EngineResource.class));
+    assertThat(resources.get(key)).isNull();
   }
 
-  private void waitForLatch(CountDownLatch latch) {
-     try {
-      latch.await();
-    } catch (InterruptedException e) {
-      throw new RuntimeException(e);
+  @Test
+  public void get_withClearedAndQueuedReference_notifiesListenerOnce() {
+    EngineResource<Object> engineResource =
+        new EngineResource<>(resource, /*isCacheable=*/ true, /*isRecyclable=*/ true);
+    resources.activate(key, engineResource);
+    ResourceWeakReference weakRef = resources.activeEngineResources.get(key);
+    weakRef.clear();
+    weakRef.enqueue();
+
+    resources.get(key);
+
+    verify(listener, times(1)).onResourceReleased(eq(key), any(EngineResource.class));
+  }
+
+  @Test
+  public void drainReferenceQueue_withManyQueuedReferences_drainsInBatches() {
+    int count = 40;
+    List<ResourceWeakReference> refs = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      resources.activate(mock(Key.class),
+          new EngineResource<>(resource, /*isCacheable=*/ true, /*isRecyclable=*/ true));
+    }
+    refs.addAll(resources.activeEngineResources.values());
+    for (ResourceWeakReference ref : refs) {
+      ref.enqueue();
+    }
+
+    resources.drainReferenceQueue();
+    assertThat(resources.activeEngineResources).hasSize(count - 32);
+
+    resources.drainReferenceQueue();
+    assertThat(resources.activeEngineResources).isEmpty();
+    verify(listener, times(count)).onResourceReleased(any(Key.class), any(EngineResource.class));
+  }
+
+  @Test
+  public void activateAndGet_fromMultipleThreads_keepsResourcesForEachKey()
+      throws InterruptedException {
+    final int threadCount = 8;
+    final int iterations = 500;
+    final CountDownLatch done = new CountDownLatch(threadCount);
+    final List<Throwable> errors = new ArrayList<>();
+    for (int i = 0; i < threadCount; i++) {
+      final Key threadKey = mock(Key.class);
+      new Thread(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            for (int j = 0; j < iterations; j++) {
+              EngineResource<Object> engineResource =
+                  new EngineResource<>(resource, /*isCacheable=*/ true, /*isRecyclable=*/ true);
+              resources.activate(threadKey, engineResource);
+              if (resources.get(threadKey) != engineResource) {
+                throw new AssertionError("Missing resource for key: " + threadKey);
+              }
+              resources.deactivate(threadKey);
+            }
+          } catch (Throwable t) {
+            synchronized (errors) {
+              errors.add(t);
+            }
+          } finally {
+            done.countDown();
+          }
+        }
+      }).start();
     }
-    ShadowLooper.getShadowMainLooper().runToEndOfTasks();
-  }
-
-  private CountDownLatch getLatchForClearedRef() {
-    final CountDownLatch toWait = new CountDownLatch(1);
-    resources.setDequeuedResourceCallback(new DequeuedResourceCallback() {
-      @Override
-      public void onResourceDequeued() {
-        toWait.countDown();
-      }
-    });
-    return toWait;
+
+    assertThat(done.await(30, TimeUnit.SECONDS)).isTrue();
+    assertThat(errors).isEmpty();
+    assertThat(resources.activeEngineResources).isEmpty();
+  }
+
+  @Test
+  public void getNearest_withSizeCoalescingDisabled_returnsNull() {
+    EngineResource<Object> engineResource =
+        new EngineResource<>(resource, /*isCacheable=*/ true, /*isRecyclable=*/ true);
+    resources.activate(newKey(110, 110), engineResource);
+
+    assertThat(resources.getNearest(newKey(100, 100))).isNull();
+  }
+
+  @Test
+  public void getNearest_withSlightlyLargerActiveResource_returnsResource() {
+    resources = new ActiveResources(
+        /*isActiveResourceRetentionAllowed=*/ true, /*isSizeCoalescingEnabled=*/ true);
+    EngineResource<Object> engineResource =
+        new EngineResource<>(resource, /*isCacheable=*/ true, /*isRecyclable=*/ true);
+    resources.activate(newKey(110, 110), engineResource);
+
+    assertThat(resources.getNearest(newKey(100, 100))).isEqualTo(engineResource);
+  }
+
+  @Test
+  public void getNearest_afterLargerResourceDeactivated_returnsNull() {
+    resources = new ActiveResources(
+        /*isActiveResourceRetentionAllowed=*/ true, /*isSizeCoalescingEnabled=*/ true);
+    EngineResource<Object> engineResource =
+        new EngineResource<>(resource, /*isCacheable=*/ true, /*isRecyclable=*/ true);
+    EngineKey larger = newKey(110, 110);
+    resources.activate(larger, engineResource);
+    resources.activate(larger, engineResource);
+    resources.deactivate(larger);
+
+    assertThat(resources.getNearest(newKey(100, 100))).isNull();
+  }
+
+  @Test
+  public void getNearest_afterLargerResourceCleanedUp_returnsNull() {
+    resources = new ActiveResources(
+        /*isActiveResourceRetentionAllowed=*/ true, /*isSizeCoalescingEnabled=*/ true);
+    resources.setListener(listener);
+    EngineResource<Object> engineResource =
+        new EngineResource<>(resource, /*isCacheable=*/ true, /*isRecyclable=*/ true);
+    EngineKey larger = newKey(110, 110);
+    resources.activate(larger, engineResource);
+    enqueueAndDrain(resources.activeEngineResources.get(larger));
+
+    assertThat(resources.getNearest(newKey(100, 100))).isNull();
+  }
+
+  private static EngineKey newKey(int width, int height) {
+    return new EngineKey(
+        "model",
+        new ObjectKey("signature"),
+        width,
+        height,
+        Collections.<Class<?>, Transformation<?>>emptyMap(),
+        Object.class,
+        Object.class,
+        new Options());
+  }
+
+  private void enqueueAndDrain(ResourceWeakReference ref) {
+    ref.enqueue();
+    resources.drainReferenceQueue();
   }
 
   @SuppressWarnings("unchecked")
@@ -0,0 +1,259 @@
+package com.bumptech.glide.load.engine;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.bumptech.glide.Priority;
+import com.bumptech.glide.load.engine.InFlightLimits.ExecutorType;
+import com.bumptech.glide.load.engine.InFlightLimits.SheddingPolicy;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 18)
+@SuppressWarnings("unchecked")
+public class AdmissionControllerTest {
+  private AdmissionController controller;
+
+  @Test
+  public void start_underLimit_startsJob() {
+    setLimits(/*maxInFlightJobs=*/ 2, SheddingPolicy.DROP_LOWEST_PRIORITY);
+    TestJob job = start(Priority.NORMAL, /*isPreload=*/ false);
+
+    job.verifyStarted();
+    assertThat(controller.getStats().getInFlightJobCount(ExecutorType.SOURCE)).isEqualTo(1);
+    assertThat(controller.getStats().getStartedCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void start_atLimit_waitsUntilEarlierJobFinishes() {
+    setLimits(/*maxInFlightJobs=*/ 1, SheddingPolicy.DROP_LOWEST_PRIORITY);
+    TestJob first = start(Priority.NORMAL, /*isPreload=*/ false);
+    TestJob second = start(Priority.NORMAL, /*isPreload=*/ false);
+
+    second.verifyNotStarted();
+    assertThat(controller.getStats().getWaitingJobCount()).isEqualTo(1);
+
+    controller.onJobFinished(first.engineJob);
+
+    second.verifyStarted();
+    assertThat(controller.getStats().getWaitingJobCount()).isEqualTo(0);
+    assertThat(controller.getStats().getWaitedCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void start_atLimitForOneExecutor_startsJobsForOtherExecutors() {
+    controller = new AdmissionController(new InFlightLimits.Builder()
+        .setMaxInFlightJobs(ExecutorType.SOURCE, 1)
+        .build());
+    start(Priority.NORMAL, /*isPreload=*/ false);
+    TestJob diskCacheJob = new TestJob(Priority.NORMAL);
+    controller.start(diskCacheJob.engineJob, diskCacheJob.decodeJob, ExecutorType.DISK_CACHE,
+        /*isPreload=*/ false);
+
+    diskCacheJob.verifyStarted();
+  }
+
+  @Test
+  public void onJobFinished_startsHighestPriorityWaitingJob() {
+    setLimits(/*maxInFlightJobs=*/ 1, SheddingPolicy.DROP_LOWEST_PRIORITY);
+    TestJob first = start(Priority.NORMAL, /*isPreload=*/ false);
+    TestJob low = start(Priority.LOW, /*isPreload=*/ false);
+    TestJob high = start(Priority.HIGH, /*isPreload=*/ false);
+
+    controller.onJobFinished(first.engineJob);
+
+    high.verifyStarted();
+    low.verifyNotStarted();
+  }
+
+  @Test
+  public void onJobFinished_usesPriorityChangedWhileWaiting() {
+    setLimits(/*maxInFlightJobs=*/ 1, SheddingPolicy.DROP_LOWEST_PRIORITY);
+    TestJob first = start(Priority.NORMAL, /*isPreload=*/ false);
+    TestJob second = start(Priority.NORMAL, /*isPreload=*/ false);
+    TestJob third = start(Priority.NORMAL, /*isPreload=*/ false);
+    when(third.engineJob.getHighestPriority()).thenReturn(Priority.IMMEDIATE);
+
+    controller.onJobFinished(first.engineJob);
+
+    third.verifyStarted();
+    second.verifyNotStarted();
+  }
+
+  @Test
+  public void onJobFinished_withEqualPriorities_startsOldestWaitingJob() {
+    setLimits(/*maxInFlightJobs=*/ 1, SheddingPolicy.DROP_LOWEST_PRIORITY);
+    TestJob first = start(Priority.NORMAL, /*isPreload=*/ false);
+    TestJob second = start(Priority.NORMAL, /*isPreload=*/ false);
+    TestJob third = start(Priority.NORMAL, /*isPreload=*/ false);
+
+    controller.onJobFinished(first.engineJob);
+
+    second.verifyStarted();
+    third.verifyNotStarted();
+  }
+
+  @Test
+  public void onJobFinished_startsWaitingForegroundJobBeforeHigherPriorityPreload() {
+    setLimits(/*maxInFlightJobs=*/ 1, SheddingPolicy.DROP_LOWEST_PRIORITY);
+    TestJob first = start(Priority.NORMAL, /*isPreload=*/ false);
+    TestJob preload = start(Priority.IMMEDIATE, /*isPreload=*/ true);
+    TestJob foreground = start(Priority.LOW, /*isPreload=*/ false);
+
+    controller.onJobFinished(first.engineJob);
+
+    foreground.verifyStarted();
+    preload.verifyNotStarted();
+  }
+
+  @Test
+  public void start_withPreload_leavesLastSlotForForegroundJobs() {
+    setLimits(/*maxInFlightJobs=*/ 2, SheddingPolicy.DROP_LOWEST_PRIORITY);
+    TestJob firstPreload = start(Priority.NORMAL, /*isPreload=*/ true);
+    TestJob secondPreload = start(Priority.NORMAL, /*isPreload=*/ true);
+    TestJob foreground = start(Priority.NORMAL, /*isPreload=*/ false);
+
+    firstPreload.verifyStarted();
+    secondPreload.verifyNotStarted();
+    foreground.verifyStarted();
+  }
+
+  @Test
+  public void onForegroundCallbackAdded_withWaitingPreload_startsPreloadInReservedSlot() {
+    setLimits(/*maxInFlightJobs=*/ 2, SheddingPolicy.DROP_LOWEST_PRIORITY);
+    start(Priority.NORMAL, /*isPreload=*/ true);
+    TestJob secondPreload = start(Priority.NORMAL, /*isPreload=*/ true);
+
+    controller.onForegroundCallbackAdded(secondPreload.engineJob);
+
+    secondPreload.verifyStarted();
+  }
+
+  @Test
+  public void onJobFinished_withLifoPreloads_startsNewestPreloadFirst() {
+    setLimits(/*maxInFlightJobs=*/ 1, SheddingPolicy.LIFO_PRELOADS);
+    TestJob first = start(Priority.NORMAL, /*isPreload=*/ false);
+    TestJob older = start(Priority.NORMAL, /*isPreload=*/ true);
+    TestJob newer = start(Priority.NORMAL, /*isPreload=*/ true);
+
+    controller.onJobFinished(first.engineJob);
+
+    newer.verifyStarted();
+    older.verifyNotStarted();
+  }
+
+  @Test
+  public void start_withTooManyWaitingJobs_shedsLowestPriorityJob() {
+    controller = new AdmissionController(new InFlightLimits.Builder()
+        .setMaxInFlightJobs(ExecutorType.SOURCE, 1)
+        .setMaxWaitingJobs(1)
+        .build());
+    start(Priority.NORMAL, /*isPreload=*/ false);
+    TestJob low = start(Priority.LOW, /*isPreload=*/ false);
+    TestJob high = start(Priority.HIGH, /*isPreload=*/ false);
+
+    low.verifyFailed();
+    high.verifyNotFailed();
+    assertThat(controller.getStats().getShedCount()).isEqualTo(1);
+    assertThat(controller.getStats().getWaitingJobCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void start_withTooManyWaitingJobs_andLifoPreloads_shedsOldestPreload() {
+    controller = new AdmissionController(new InFlightLimits.Builder()
+        .setMaxInFlightJobs(ExecutorType.SOURCE, 1)
+        .setMaxWaitingJobs(1)
+        .setSheddingPolicy(SheddingPolicy.LIFO_PRELOADS)
+        .build());
+    start(Priority.NORMAL, /*isPreload=*/ false);
+    TestJob older = start(Priority.NORMAL, /*isPreload=*/ true);
+    TestJob newer = start(Priority.NORMAL, /*isPreload=*/ true);
+
+    older.verifyFailed();
+    newer.verifyNotFailed();
+  }
+
+  @Test
+  public void start_withRejectPreloadsPolicy_andNoRoom_failsPreloadImmediately() {
+    setLimits(/*maxInFlightJobs=*/ 1, SheddingPolicy.REJECT_PRELOADS_WHEN_SATURATED);
+    start(Priority.NORMAL, /*isPreload=*/ false);
+    TestJob preload = start(Priority.NORMAL, /*isPreload=*/ true);
+    TestJob foreground = start(Priority.NORMAL, /*isPreload=*/ false);
+
+    preload.verifyFailed();
+    foreground.verifyNotFailed();
+    assertThat(controller.getStats().getWaitingJobCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void onJobFinished_withWaitingJob_failsJobWithoutStartingIt() {
+    setLimits(/*maxInFlightJobs=*/ 1, SheddingPolicy.DROP_LOWEST_PRIORITY);
+    start(Priority.NORMAL, /*isPreload=*/ false);
+    TestJob waiting = start(Priority.NORMAL, /*isPreload=*/ false);
+
+    controller.onJobFinished(waiting.engineJob);
+
+    waiting.verifyFailed();
+    waiting.verifyNotStarted();
+    assertThat(controller.getStats().getWaitingJobCount()).isEqualTo(0);
+    assertThat(controller.getStats().getShedCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void onJobFinished_withUnknownJob_doesNothing() {
+    setLimits(/*maxInFlightJobs=*/ 1, SheddingPolicy.DROP_LOWEST_PRIORITY);
+    start(Priority.NORMAL, /*isPreload=*/ false);
+    TestJob waiting = start(Priority.NORMAL, /*isPreload=*/ false);
+
+    controller.onJobFinished(mock(EngineJob.class));
+
+    waiting.verifyNotStarted();
+    assertThat(controller.getStats().getInFlightJobCount(ExecutorType.SOURCE)).isEqualTo(1);
+  }
+
+  private void setLimits(int maxInFlightJobs, SheddingPolicy sheddingPolicy) {
+    controller = new AdmissionController(new InFlightLimits.Builder()
+        .setMaxInFlightJobs(ExecutorType.SOURCE, maxInFlightJobs)
+        .setSheddingPolicy(sheddingPolicy)
+        .build());
+  }
+
+  private TestJob start(Priority priority, boolean isPreload) {
+    TestJob job = new TestJob(priority);
+    controller.start(job.engineJob, job.decodeJob, ExecutorType.SOURCE, isPreload);
+    return job;
+  }
+
+  private static final class TestJob {
+    final EngineJob<Object> engineJob = mock(EngineJob.class);
+    final DecodeJob<Object> decodeJob = mock(DecodeJob.class);
+
+    TestJob(Priority priority) {
+      when(decodeJob.getPriority()).thenReturn(priority);
+    }
+
+    void verifyStarted() {
+      verify(engineJob).start(decodeJob);
+    }
+
+    void verifyNotStarted() {
+      verify(engineJob, never()).start(any(DecodeJob.class));
+    }
+
+    void verifyFailed() {
+      verify(engineJob).failWithoutStarting(any(DecodeJob.class), any(GlideException.class));
+    }
+
+    void verifyNotFailed() {
+      verify(engineJob, never())
+          .failWithoutStarting(any(DecodeJob.class), any(GlideException.class));
+    }
+  }
+}
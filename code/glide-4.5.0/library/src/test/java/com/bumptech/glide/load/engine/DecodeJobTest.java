@@ -0,0 +1,67 @@
+package com.bumptech.glide.load.engine;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.signature.ObjectKey;
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class DecodeJobTest {
+  private final Key dataCacheKey = new ObjectKey("data");
+
+  @Test
+  public void getImageHeaderCacheKey_withSameBytes_returnsEqualKeys() {
+    assertThat(DecodeJob.getImageHeaderCacheKey(dataCacheKey, newBuffer(100, 1)))
+        .isEqualTo(DecodeJob.getImageHeaderCacheKey(dataCacheKey, newBuffer(100, 1)));
+  }
+
+  @Test
+  public void getImageHeaderCacheKey_withDifferentLength_returnsDifferentKeys() {
+    assertThat(DecodeJob.getImageHeaderCacheKey(dataCacheKey, newBuffer(100, 1)))
+        .isNotEqualTo(DecodeJob.getImageHeaderCacheKey(dataCacheKey, newBuffer(101, 1)));
+  }
+
+  @Test
+  public void getImageHeaderCacheKey_withDifferentBytesAtEnd_returnsDifferentKeys() {
+    ByteBuffer rewritten = newBuffer(1000, 1);
+    rewritten.put(999, (byte) 2);
+
+    assertThat(DecodeJob.getImageHeaderCacheKey(dataCacheKey, newBuffer(1000, 1)))
+        .isNotEqualTo(DecodeJob.getImageHeaderCacheKey(dataCacheKey, rewritten));
+  }
+
+  @Test
+  public void getImageHeaderCacheKey_withDifferentDataCacheKeys_returnsDifferentKeys() {
+    assertThat(DecodeJob.getImageHeaderCacheKey(dataCacheKey, newBuffer(100, 1)))
+        .isNotEqualTo(
+            DecodeJob.getImageHeaderCacheKey(new ObjectKey("other"), newBuffer(100, 1)));
+  }
+
+  @Test
+  public void getImageHeaderCacheKey_doesNotChangeBufferPosition() {
+    ByteBuffer buffer = newBuffer(100, 1);
+
+    DecodeJob.getImageHeaderCacheKey(dataCacheKey, buffer);
+
+    assertThat(buffer.position()).isEqualTo(0);
+  }
+
+  @Test
+  public void getImageHeaderCacheKey_withStream_returnsNull() {
+    assertThat(DecodeJob.getImageHeaderCacheKey(
+        dataCacheKey, new ByteArrayInputStream(new byte[100]))).isNull();
+  }
+
+  private static ByteBuffer newBuffer(int length, int value) {
+    byte[] data = new byte[length];
+    for (int i = 0; i < length; i++) {
+      data[i] = (byte) value;
+    }
+    return ByteBuffer.wrap(data);
+  }
+}
@@ -0,0 +1,218 @@
+package com.bumptech.glide.load.engine;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.bumptech.glide.load.engine.executor.GlideExecutor;
+import com.bumptech.glide.load.engine.executor.MockGlideExecutor;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 18)
+public class DecodePipelineTest {
+  private static final int MAX_QUEUED_DECODES = 2;
+  private static final int FETCH_COUNT = 32;
+  private ExecutorService fetchService;
+  private ExecutorService decodeService;
+  private DecodePipeline pipeline;
+
+  @Before
+  public void setUp() {
+    fetchService = mock(ExecutorService.class);
+    decodeService = mock(ExecutorService.class);
+    GlideExecutor fetchExecutor = MockGlideExecutor.newTestExecutor(fetchService);
+    GlideExecutor decodeExecutor = MockGlideExecutor.newTestExecutor(decodeService);
+    pipeline = new DecodePipeline(fetchExecutor, decodeExecutor, MAX_QUEUED_DECODES);
+  }
+
+  @Test
+  public void fetch_submitsJobToFetchExecutor() {
+    DecodeJob<?> job = mock(DecodeJob.class);
+    pipeline.fetch(job);
+
+    verify(job).onQueuedInPipeline(/*isDecode=*/ false, /*holdsDecodePermit=*/ false);
+    verify(fetchService).execute(job);
+    verify(decodeService, never()).execute(any(Runnable.class));
+  }
+
+  @Test
+  public void decodeReserved_submitsJobToDecodeExecutor() {
+    DecodeJob<?> job = mock(DecodeJob.class);
+
+    assertThat(pipeline.reserveDecode()).isTrue();
+    pipeline.decodeReserved(job);
+
+    verify(job).onQueuedInPipeline(/*isDecode=*/ true, /*holdsDecodePermit=*/ true);
+    verify(decodeService).execute(job);
+  }
+
+  @Test
+  public void reserveDecode_withFullQueue_returnsFalseAndRecordsInlineDecode() {
+    fillDecodeQueue();
+
+    assertThat(pipeline.reserveDecode()).isFalse();
+    assertThat(pipeline.getStats().getInlineDecodeCount()).isEqualTo(1L);
+  }
+
+  @Test
+  public void reserveDecode_afterQueuedDecodeStarts_returnsTrue() {
+    fillDecodeQueue();
+    pipeline.onDequeued(/*isDecode=*/ true, /*holdsDecodePermit=*/ true, /*waitMillis=*/ 1);
+
+    assertThat(pipeline.reserveDecode()).isTrue();
+  }
+
+  @Test
+  public void reserveDecode_afterReleaseReservedDecode_returnsTrue() {
+    fillDecodeQueue();
+    pipeline.releaseReservedDecode();
+
+    assertThat(pipeline.reserveDecode()).isTrue();
+  }
+
+  @Test
+  public void reserveDecode_withUnboundedFetchExecutor_boundsConcurrentDecodes()
+      throws InterruptedException {
+    ExecutorService threadPerFetch = Executors.newCachedThreadPool();
+    pipeline = new DecodePipeline(
+        MockGlideExecutor.newUnboundedTestExecutor(threadPerFetch),
+        MockGlideExecutor.newTestExecutor(decodeService),
+        MAX_QUEUED_DECODES);
+    final AtomicInteger decoding = new AtomicInteger();
+    final AtomicInteger maxDecoding = new AtomicInteger();
+    final CountDownLatch fetchesStarted = new CountDownLatch(FETCH_COUNT);
+    final CountDownLatch fetchesDone = new CountDownLatch(FETCH_COUNT);
+    for (int i = 0; i < FETCH_COUNT; i++) {
+      threadPerFetch.execute(new Runnable() {
+        @Override
+        public void run() {
+          fetchesStarted.countDown();
+          try {
+            fetchesStarted.await();
+            // Stands in for a decode, queued or running, that holds a place in the queue.
+            if (pipeline.reserveDecode()) {
+              int current = decoding.incrementAndGet();
+              updateMax(maxDecoding, current);
+              Thread.sleep(1);
+              decoding.decrementAndGet();
+              pipeline.onDequeued(/*isDecode=*/ true, /*holdsDecodePermit=*/ true, 0);
+            }
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          } finally {
+            fetchesDone.countDown();
+          }
+        }
+      });
+    }
+
+    try {
+      assertThat(fetchesDone.await(10, TimeUnit.SECONDS)).isTrue();
+    } finally {
+      threadPerFetch.shutdownNow();
+    }
+    assertThat(maxDecoding.get()).isAtMost(MAX_QUEUED_DECODES);
+    assertThat(pipeline.getStats().getInlineDecodeCount()).isEqualTo(0L);
+  }
+
+  @Test
+  public void decodeReserved_whenExecutorRejectsJob_releasesPermit() {
+    DecodeJob<?> rejected = mock(DecodeJob.class);
+    doThrow(new RejectedExecutionException()).when(decodeService).execute(rejected);
+    for (int i = 0; i < MAX_QUEUED_DECODES; i++) {
+      pipeline.reserveDecode();
+      try {
+        pipeline.decodeReserved(rejected);
+      } catch (RejectedExecutionException e) {
+        // Expected.
+      }
+    }
+
+    assertThat(pipeline.reserveDecode()).isTrue();
+  }
+
+  @Test
+  public void decode_withRoomInQueue_submitsJobHoldingPermit() {
+    DecodeJob<?> job = mock(DecodeJob.class);
+    pipeline.decode(job);
+
+    verify(job).onQueuedInPipeline(/*isDecode=*/ true, /*holdsDecodePermit=*/ true);
+    verify(decodeService).execute(job);
+  }
+
+  @Test
+  public void decode_withFullQueue_submitsJobToDecodeExecutorWithoutPermit() {
+    fillDecodeQueue();
+    DecodeJob<?> job = mock(DecodeJob.class);
+    pipeline.decode(job);
+
+    verify(job).onQueuedInPipeline(/*isDecode=*/ true, /*holdsDecodePermit=*/ false);
+    verify(decodeService).execute(job);
+    verify(fetchService, never()).execute(any(Runnable.class));
+  }
+
+  @Test
+  public void onDequeued_withoutPermit_doesNotFreeRoomInQueue() {
+    fillDecodeQueue();
+    pipeline.onDequeued(/*isDecode=*/ true, /*holdsDecodePermit=*/ false, /*waitMillis=*/ 1);
+
+    assertThat(pipeline.reserveDecode()).isFalse();
+  }
+
+  @Test
+  public void onDequeued_recordsQueueLatencyForStage() {
+    pipeline.onDequeued(/*isDecode=*/ false, /*holdsDecodePermit=*/ false, /*waitMillis=*/ 3);
+    pipeline.onDequeued(/*isDecode=*/ false, /*holdsDecodePermit=*/ false, /*waitMillis=*/ 5);
+    pipeline.decode(mock(DecodeJob.class));
+    pipeline.onDequeued(/*isDecode=*/ true, /*holdsDecodePermit=*/ true, /*waitMillis=*/ 1);
+
+    DecodePipelineStats stats = pipeline.getStats();
+    assertThat(stats.getFetchQueueLatency().getCount()).isEqualTo(2L);
+    assertThat(stats.getDecodeQueueLatency().getCount()).isEqualTo(1L);
+  }
+
+  @Test
+  public void onFetchedAndOnDecoded_recordLatencies() {
+    pipeline.onFetched(10);
+    pipeline.onDecoded(20);
+
+    DecodePipelineStats stats = pipeline.getStats();
+    assertThat(stats.getFetchLatency().getMeanMillis()).isWithin(0.001).of(10);
+    assertThat(stats.getDecodeLatency().getMeanMillis()).isWithin(0.001).of(20);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void constructor_withNonPositiveMaxQueuedDecodes_throws() {
+    new DecodePipeline(
+        MockGlideExecutor.newTestExecutor(fetchService),
+        MockGlideExecutor.newTestExecutor(decodeService),
+        /*maxQueuedDecodes=*/ 0);
+  }
+
+  private static void updateMax(AtomicInteger max, int value) {
+    int current;
+    while ((current = max.get()) < value && !max.compareAndSet(current, value)) {
+      // Retry.
+    }
+  }
+
+  private void fillDecodeQueue() {
+    for (int i = 0; i < MAX_QUEUED_DECODES; i++) {
+      assertThat(pipeline.reserveDecode()).isTrue();
+    }
+  }
+}
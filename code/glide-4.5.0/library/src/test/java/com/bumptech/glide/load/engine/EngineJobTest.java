@@ -18,6 +18,7 @@ import static org.mockito.Mockito.when;
 
 import android.os.Handler;
 import android.support.v4.util.Pools;
+import com.bumptech.glide.Priority;
 import com.bumptech.glide.load.DataSource;
 import com.bumptech.glide.load.Key;
 import com.bumptech.glide.load.engine.executor.GlideExecutor;
@@ -25,6 +26,7 @@ import com.bumptech.glide.load.engine.executor.MockGlideExecutor;
 import com.bumptech.glide.request.ResourceCallback;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ThreadPoolExecutor;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -112,6 +114,37 @@ public class EngineJobTest {
         .onEngineJobComplete(eq(job), eq(harness.key), isNull(EngineResource.class));
   }
 
+  @Test
+  public void failWithoutStarting_notifiesCallbacksAndReleasesUnqueuedDecodeJob() {
+    EngineJob<Object> job = harness.getJob();
+    GlideException exception = new GlideException("test");
+    job.failWithoutStarting(harness.decodeJob, exception);
+    ShadowLooper.runUiThreadTasks();
+
+    verify(harness.cb).onLoadFailed(eq(exception));
+    verify(harness.decodeJob).release(/*isRemovedFromQueue=*/ true);
+    verify(harness.decodeJob, never()).run();
+  }
+
+  @Test
+  public void cancel_beforeStart_notifiesListenerWithoutFailing() {
+    EngineJob<Object> job = harness.getJob();
+    job.cancel();
+
+    assertTrue(job.isCancelled());
+    verify(harness.listener).onEngineJobCancelled(eq(job), eq(harness.key));
+  }
+
+  @Test
+  public void start_withCallbackPriorityChangedBeforeStart_startsWithHighestPriority() {
+    EngineJob<Object> job = harness.getJob();
+    job.addCallback(mock(ResourceCallback.class), Priority.IMMEDIATE);
+    when(harness.decodeJob.getPriority()).thenReturn(Priority.LOW);
+    job.start(harness.decodeJob);
+
+    verify(harness.decodeJob).setPriority(Priority.IMMEDIATE);
+  }
+
   @Test
   public void testResourceIsCacheableWhenIsCacheableOnReady() {
     harness.isCacheable = true;
@@ -454,6 +487,129 @@ public class EngineJobTest {
     verify(harness.decodeJob).run();
   }
 
+  @Test
+  public void start_withDecodePipeline_submitsDecodeJobToFetchExecutor() {
+    harness.decodePipeline = new DecodePipeline(harness.sourceIoService, harness.sourceService);
+    EngineJob<Object> job = harness.getJob();
+    when(harness.decodeJob.willDecodeFromCache()).thenReturn(false);
+    harness.diskCacheService.shutdownNow();
+    harness.sourceService.shutdownNow();
+    job.start(harness.decodeJob);
+
+    verify(harness.decodeJob).setDecodePipeline(harness.decodePipeline);
+    verify(harness.decodeJob).run();
+  }
+
+  @Test
+  public void reschedule_withDecodePipeline_submitsDecodeJobToFetchExecutor() {
+    harness.decodePipeline = new DecodePipeline(harness.sourceIoService, harness.sourceService);
+    EngineJob<Object> job = harness.getJob();
+    harness.diskCacheService.shutdownNow();
+    harness.sourceService.shutdownNow();
+    job.reschedule(harness.decodeJob);
+
+    verify(harness.decodeJob).run();
+  }
+
+  @Test
+  public void start_withDecodePipeline_andUnlimitedSourcePool_doesNotUsePipeline() {
+    harness.decodePipeline = new DecodePipeline(harness.sourceIoService, harness.sourceService);
+    harness.useUnlimitedSourceGeneratorPool = true;
+    EngineJob<Object> job = harness.getJob();
+    when(harness.decodeJob.willDecodeFromCache()).thenReturn(false);
+    harness.sourceIoService.shutdownNow();
+    job.start(harness.decodeJob);
+
+    verify(harness.decodeJob).setDecodePipeline(null);
+    verify(harness.decodeJob).run();
+  }
+
+  @Test
+  public void setPriority_withQueuedDecodeJob_requeuesDecodeJobWithNewPriority() {
+    ThreadPoolExecutor sourcePool = mock(ThreadPoolExecutor.class);
+    harness.sourceService = MockGlideExecutor.newTestExecutor(sourcePool);
+    EngineJob<Object> job = harness.getJob();
+    when(harness.decodeJob.getPriority()).thenReturn(Priority.NORMAL);
+    when(sourcePool.remove(harness.decodeJob)).thenReturn(true);
+    job.start(harness.decodeJob);
+
+    job.setPriority(harness.cb, Priority.LOW);
+
+    InOrder order = inOrder(sourcePool, harness.decodeJob);
+    order.verify(harness.decodeJob).setPendingPriority(Priority.LOW);
+    order.verify(sourcePool).remove(harness.decodeJob);
+    order.verify(harness.decodeJob).applyPendingPriority();
+    order.verify(sourcePool).execute(harness.decodeJob);
+    verify(sourcePool, times(2)).execute(harness.decodeJob);
+  }
+
+  @Test
+  public void setPriority_withRunningDecodeJob_defersPriorityWithoutRequeueing() {
+    ThreadPoolExecutor sourcePool = mock(ThreadPoolExecutor.class);
+    harness.sourceService = MockGlideExecutor.newTestExecutor(sourcePool);
+    EngineJob<Object> job = harness.getJob();
+    when(harness.decodeJob.getPriority()).thenReturn(Priority.NORMAL);
+    job.start(harness.decodeJob);
+
+    job.setPriority(harness.cb, Priority.LOW);
+
+    verify(harness.decodeJob).setPendingPriority(Priority.LOW);
+    verify(harness.decodeJob, never()).setPriority(any(Priority.class));
+    verify(harness.decodeJob, never()).applyPendingPriority();
+    verify(sourcePool, times(1)).execute(harness.decodeJob);
+  }
+
+  @Test
+  public void reschedule_withPendingPriority_appliesPriorityBeforeQueueing() {
+    ThreadPoolExecutor sourcePool = mock(ThreadPoolExecutor.class);
+    harness.sourceService = MockGlideExecutor.newTestExecutor(sourcePool);
+    EngineJob<Object> job = harness.getJob();
+    job.start(harness.decodeJob);
+
+    job.reschedule(harness.decodeJob);
+
+    InOrder order = inOrder(sourcePool, harness.decodeJob);
+    order.verify(harness.decodeJob).applyPendingPriority();
+    order.verify(sourcePool).execute(harness.decodeJob);
+  }
+
+  @Test
+  public void setPriority_withOtherCallbackWantingHigherPriority_doesNotLowerPriority() {
+    EngineJob<Object> job = harness.getJob();
+    job.addCallback(mock(ResourceCallback.class), Priority.HIGH);
+    when(harness.decodeJob.getPriority()).thenReturn(Priority.HIGH);
+    job.start(harness.decodeJob);
+
+    job.setPriority(harness.cb, Priority.LOW);
+
+    verify(harness.decodeJob, never()).setPriority(any(Priority.class));
+  }
+
+  @Test
+  public void removeCallback_withHighestPriorityCallback_lowersPriority() {
+    EngineJob<Object> job = harness.getJob();
+    ResourceCallback highPriorityCb = mock(ResourceCallback.class);
+    job.addCallback(highPriorityCb, Priority.HIGH);
+    when(harness.decodeJob.getPriority()).thenReturn(Priority.HIGH);
+    job.start(harness.decodeJob);
+    job.setPriority(harness.cb, Priority.LOW);
+
+    job.removeCallback(highPriorityCb);
+
+    verify(harness.decodeJob).setPendingPriority(Priority.LOW);
+  }
+
+  @Test
+  public void addCallback_withHigherPriority_raisesPriority() {
+    EngineJob<Object> job = harness.getJob();
+    when(harness.decodeJob.getPriority()).thenReturn(Priority.NORMAL);
+    job.start(harness.decodeJob);
+
+    job.addCallback(mock(ResourceCallback.class), Priority.IMMEDIATE);
+
+    verify(harness.decodeJob).setPendingPriority(Priority.IMMEDIATE);
+  }
+
   @SuppressWarnings("unchecked")
   private static class MultiCbHarness {
     final Key key = mock(Key.class);
@@ -484,6 +640,7 @@ public class EngineJobTest {
               sourceService,
               sourceUnlimitedService,
               animationService,
+              /*decodePipeline=*/ null,
               listener,
               pool,
               factory);
@@ -512,9 +669,11 @@ public class EngineJobTest {
     final EngineResource<Object> engineResource = mock(EngineResource.class);
     final EngineJobListener listener = mock(EngineJobListener.class);
     final GlideExecutor diskCacheService = MockGlideExecutor.newMainThreadExecutor();
-    final GlideExecutor sourceService = MockGlideExecutor.newMainThreadExecutor();
+    GlideExecutor sourceService = MockGlideExecutor.newMainThreadExecutor();
     final GlideExecutor sourceUnlimitedService = MockGlideExecutor.newMainThreadExecutor();
     final GlideExecutor animationService = MockGlideExecutor.newMainThreadExecutor();
+    final GlideExecutor sourceIoService = MockGlideExecutor.newMainThreadExecutor();
+    DecodePipeline decodePipeline;
     boolean isCacheable = true;
     boolean useUnlimitedSourceGeneratorPool = false;
     final boolean useAnimationPool = false;
@@ -531,6 +690,7 @@ public class EngineJobTest {
               sourceService,
               sourceUnlimitedService,
               animationService,
+              decodePipeline,
               listener,
               pool,
               factory);
@@ -1,10 +1,15 @@
 package com.bumptech.glide.load.engine;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
 import com.bumptech.glide.load.Key;
 import com.bumptech.glide.load.Option;
 import com.bumptech.glide.load.Option.CacheKeyUpdater;
 import com.bumptech.glide.load.Options;
 import com.bumptech.glide.load.Transformation;
+import com.bumptech.glide.request.target.Target;
 import com.bumptech.glide.signature.ObjectKey;
 import com.google.common.testing.EqualsTester;
 import java.security.MessageDigest;
@@ -174,4 +179,61 @@ public class EngineKeyTest {
                 diskOptions))
         .testEquals();
   }
+
+  @Test
+  public void equalsIgnoringSize_withKeysDifferingOnlyInSize_isTrueWithSameHashCode() {
+    EngineKey first = new EngineKey("id", new ObjectKey("signature"), 100, 100,
+        Collections.<Class<?>, Transformation<?>>emptyMap(), Object.class, Object.class,
+        new Options());
+    EngineKey second = new EngineKey("id", new ObjectKey("signature"), 200, 150,
+        Collections.<Class<?>, Transformation<?>>emptyMap(), Object.class, Object.class,
+        new Options());
+
+    assertTrue(first.equalsIgnoringSize(second));
+    assertEquals(first.hashCodeIgnoringSize(), second.hashCodeIgnoringSize());
+  }
+
+  @Test
+  public void equalsIgnoringSize_withDifferentModels_isFalse() {
+    EngineKey first = new EngineKey("id", new ObjectKey("signature"), 100, 100,
+        Collections.<Class<?>, Transformation<?>>emptyMap(), Object.class, Object.class,
+        new Options());
+    EngineKey second = new EngineKey("other", new ObjectKey("signature"), 100, 100,
+        Collections.<Class<?>, Transformation<?>>emptyMap(), Object.class, Object.class,
+        new Options());
+
+    assertFalse(first.equalsIgnoringSize(second));
+  }
+
+  @Test
+  public void canUseResourceOfSize_withSlightlyLargerSize_isTrue() {
+    assertTrue(newKey(300, 300).canUseResourceOfSize(newKey(310, 310)));
+  }
+
+  @Test
+  public void canUseResourceOfSize_withSmallerSize_isFalse() {
+    assertFalse(newKey(300, 300).canUseResourceOfSize(newKey(290, 300)));
+  }
+
+  @Test
+  public void canUseResourceOfSize_withMuchLargerSize_isFalse() {
+    assertFalse(newKey(100, 100).canUseResourceOfSize(newKey(200, 200)));
+  }
+
+  @Test
+  public void canUseResourceOfSize_withDifferentAspectRatio_isFalse() {
+    assertFalse(newKey(100, 100).canUseResourceOfSize(newKey(120, 100)));
+  }
+
+  @Test
+  public void canUseResourceOfSize_withOriginalSize_isFalse() {
+    assertFalse(newKey(Target.SIZE_ORIGINAL, Target.SIZE_ORIGINAL)
+        .canUseResourceOfSize(newKey(100, 100)));
+  }
+
+  private static EngineKey newKey(int width, int height) {
+    return new EngineKey("id", new ObjectKey("signature"), width, height,
+        Collections.<Class<?>, Transformation<?>>emptyMap(), Object.class, Object.class,
+        new Options());
+  }
 }
@@ -4,7 +4,6 @@ import static com.bumptech.glide.tests.Util.mockResource;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
-import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.never;
@@ -100,38 +99,47 @@ public class EngineResourceTest {
   }
 
   @Test
-  public void testThrowsIfAcquiredOnBackgroundThread() throws InterruptedException {
+  public void testCanAcquireOnBackgroundThreadAndReleaseOnMainThread()
+      throws InterruptedException {
     Thread otherThread = new Thread(new Runnable() {
       @Override
       public void run() {
-        try {
-          engineResource.acquire();
-        } catch (IllegalThreadStateException e) {
-          return;
-        }
-        fail("Failed to receive expected IllegalThreadStateException");
+        engineResource.acquire();
       }
     });
     otherThread.start();
     otherThread.join();
+
+    assertTrue(engineResource.isAcquired());
+    engineResource.release();
+    verify(listener).onResourceReleased(cacheKey, engineResource);
   }
 
   @Test
-  public void testThrowsIfReleasedOnBackgroundThread() throws InterruptedException {
+  public void testConcurrentAcquireAndRelease_notifiesListenerOnceAllReleased()
+      throws InterruptedException {
     engineResource.acquire();
-    Thread otherThread = new Thread(new Runnable() {
-      @Override
-      public void run() {
-        try {
-          engineResource.release();
-        } catch (IllegalThreadStateException e) {
-          return;
+    Thread[] threads = new Thread[4];
+    for (int i = 0; i < threads.length; i++) {
+      threads[i] = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          for (int j = 0; j < 1000; j++) {
+            engineResource.acquire();
+            engineResource.release();
+          }
         }
-        fail("Failed to receive expected IllegalThreadStateException");
-      }
-    });
-    otherThread.start();
-    otherThread.join();
+      });
+      threads[i].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    verify(listener, never()).onResourceReleased(any(Key.class), any(EngineResource.class));
+    engineResource.release();
+    assertFalse(engineResource.isAcquired());
+    verify(listener).onResourceReleased(cacheKey, engineResource);
   }
 
   @Test(expected = IllegalStateException.class)
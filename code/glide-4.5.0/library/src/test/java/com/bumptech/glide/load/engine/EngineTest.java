@@ -32,8 +32,11 @@ import com.bumptech.glide.load.engine.executor.MockGlideExecutor;
 import com.bumptech.glide.request.ResourceCallback;
 import com.bumptech.glide.tests.BackgroundUtil;
 import com.bumptech.glide.tests.GlideShadowLooper;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -41,6 +44,7 @@ import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
 
 @RunWith(RobolectricTestRunner.class)
 @Config(manifest = Config.NONE, sdk = 18, shadows = { GlideShadowLooper.class })
@@ -64,7 +68,15 @@ public class EngineTest {
   public void testCallbackIsAddedToNewEngineJobWithNoExistingLoad() {
     harness.doLoad();
 
-    verify(harness.job).addCallback(eq(harness.cb));
+    verify(harness.job).addCallback(eq(harness.cb), eq(harness.priority));
+  }
+
+  @Test
+  public void loadStatus_setPriority_changesCallbackPriorityInJob() {
+    Engine.LoadStatus loadStatus = harness.doLoad();
+    loadStatus.setPriority(Priority.LOW);
+
+    verify(harness.job).setPriority(eq(harness.cb), eq(Priority.LOW));
   }
 
   @Test
@@ -103,7 +115,7 @@ public class EngineTest {
     harness.cb = newCallback;
     harness.doLoad();
 
-    verify(harness.job).addCallback(eq(newCallback));
+    verify(harness.job).addCallback(eq(newCallback), eq(harness.priority));
   }
 
   @Test
@@ -622,6 +634,281 @@ public class EngineTest {
     verify(harness.job, never()).start(any(DecodeJob.class));
   }
 
+  @Test
+  public void load_withLoadExecutor_doesNotCheckCachesUntilExecutorRuns() {
+    QueueingExecutor executor = new QueueingExecutor();
+    harness.loadExecutor = executor;
+    harness.activeResources.activate(harness.cacheKey, harness.resource);
+
+    assertNotNull(harness.doLoad());
+
+    verify(harness.cb, never()).onResourceReady(anyResource(), isADataSource());
+    verify(harness.cache, never()).remove(any(Key.class));
+
+    executor.runAll();
+
+    verify(harness.cb).onResourceReady(eq(harness.resource), eq(DataSource.MEMORY_CACHE));
+  }
+
+  @Test
+  public void load_withLoadExecutor_cancelledBeforeExecutorRuns_doesNotStartJob() {
+    QueueingExecutor executor = new QueueingExecutor();
+    harness.loadExecutor = executor;
+
+    harness.doLoad().cancel();
+    executor.runAll();
+
+    verify(harness.job, never()).start(any(DecodeJob.class));
+    assertThat(harness.jobs.getAll()).isEmpty();
+  }
+
+  @Test
+  public void load_withLoadExecutor_cancelledAfterJobStarted_removesCallbackFromJob() {
+    QueueingExecutor executor = new QueueingExecutor();
+    harness.loadExecutor = executor;
+
+    Engine.LoadStatus loadStatus = harness.doLoad();
+    executor.runAll();
+    verify(harness.job).start(any(DecodeJob.class));
+
+    loadStatus.cancel();
+
+    verify(harness.job).removeCallback(any(ResourceCallback.class));
+  }
+
+  @Test
+  public void load_withLoadExecutor_priorityChangedBeforeExecutorRuns_usesNewPriority() {
+    QueueingExecutor executor = new QueueingExecutor();
+    harness.loadExecutor = executor;
+
+    harness.doLoad().setPriority(Priority.LOW);
+    executor.runAll();
+
+    verify(harness.job).addCallback(any(ResourceCallback.class), eq(Priority.LOW));
+  }
+
+  @Test
+  public void load_withLoadExecutor_priorityChangedAfterJobStarted_changesPriorityInJob() {
+    QueueingExecutor executor = new QueueingExecutor();
+    harness.loadExecutor = executor;
+
+    Engine.LoadStatus loadStatus = harness.doLoad();
+    executor.runAll();
+    loadStatus.setPriority(Priority.LOW);
+
+    verify(harness.job).setPriority(any(ResourceCallback.class), eq(Priority.LOW));
+  }
+
+  @Test
+  public void load_withLoadExecutor_onBackgroundThread_postsResourceToMainThread()
+      throws InterruptedException {
+    final QueueingExecutor executor = new QueueingExecutor();
+    harness.loadExecutor = executor;
+    harness.activeResources.activate(harness.cacheKey, harness.resource);
+
+    harness.doLoad();
+    BackgroundUtil.testInBackground(new BackgroundUtil.BackgroundTester() {
+      @Override
+      public void runTest() {
+        executor.runAll();
+      }
+    });
+    verify(harness.cb, never()).onResourceReady(anyResource(), isADataSource());
+
+    ShadowLooper.runUiThreadTasks();
+
+    verify(harness.cb).onResourceReady(eq(harness.resource), eq(DataSource.MEMORY_CACHE));
+  }
+
+  @Test
+  public void load_withLoadExecutor_cancelledBeforeResourceIsPosted_releasesResource()
+      throws InterruptedException {
+    final QueueingExecutor executor = new QueueingExecutor();
+    harness.loadExecutor = executor;
+    harness.activeResources.activate(harness.cacheKey, harness.resource);
+
+    Engine.LoadStatus loadStatus = harness.doLoad();
+    BackgroundUtil.testInBackground(new BackgroundUtil.BackgroundTester() {
+      @Override
+      public void runTest() {
+        executor.runAll();
+      }
+    });
+    loadStatus.cancel();
+    ShadowLooper.runUiThreadTasks();
+
+    verify(harness.cb, never()).onResourceReady(anyResource(), isADataSource());
+    verify(harness.resource).acquire();
+    verify(harness.resource).release();
+  }
+
+  @Test
+  public void load_withSizeCoalescing_andSlightlyLargerResourceInCache_usesLargerResource() {
+    harness.isSizeCoalescingEnabled = true;
+    harness.cache = new LruResourceCache(100);
+    when(harness.resource.isCacheable()).thenReturn(true);
+    harness.getEngine().onResourceReleased(harness.newKey(110, 110), harness.resource);
+    harness.setRequestedKey(harness.newKey(100, 100));
+
+    harness.doLoad();
+
+    verify(harness.cb).onResourceReady(eq(harness.resource), eq(DataSource.MEMORY_CACHE));
+    verify(harness.job, never()).start(any(DecodeJob.class));
+    assertThat(harness.getEngine().getNearestSizeCacheHitCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void load_withSizeCoalescing_andSlightlyLargerActiveResource_usesLargerResource() {
+    harness.isSizeCoalescingEnabled = true;
+    harness.activeResources.activate(harness.newKey(110, 110), harness.resource);
+    harness.setRequestedKey(harness.newKey(100, 100));
+
+    harness.doLoad();
+
+    verify(harness.resource).acquire();
+    verify(harness.cb).onResourceReady(eq(harness.resource), eq(DataSource.MEMORY_CACHE));
+    verify(harness.job, never()).start(any(DecodeJob.class));
+    assertThat(harness.getEngine().getNearestSizeCacheHitCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void load_withoutSizeCoalescing_andSlightlyLargerActiveResource_startsNewLoad() {
+    harness.activeResources.activate(harness.newKey(110, 110), harness.resource);
+    harness.setRequestedKey(harness.newKey(100, 100));
+
+    harness.doLoad();
+
+    verify(harness.cb, never()).onResourceReady(anyResource(), isADataSource());
+  }
+
+  @Test
+  public void load_withSizeCoalescing_andSmallerResourceInCache_startsNewLoad() {
+    harness.isSizeCoalescingEnabled = true;
+    harness.cache = new LruResourceCache(100);
+    when(harness.resource.isCacheable()).thenReturn(true);
+    harness.getEngine().onResourceReleased(harness.newKey(90, 90), harness.resource);
+    harness.setRequestedKey(harness.newKey(100, 100));
+
+    harness.doLoad();
+
+    verify(harness.cb, never()).onResourceReady(anyResource(), isADataSource());
+    assertThat(harness.getEngine().getNearestSizeCacheHitCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void load_withoutSizeCoalescing_andSlightlyLargerResourceInCache_startsNewLoad() {
+    harness.cache = new LruResourceCache(100);
+    when(harness.resource.isCacheable()).thenReturn(true);
+    harness.getEngine().onResourceReleased(harness.newKey(110, 110), harness.resource);
+    harness.setRequestedKey(harness.newKey(100, 100));
+
+    harness.doLoad();
+
+    verify(harness.cb, never()).onResourceReady(anyResource(), isADataSource());
+  }
+
+  @Test
+  public void load_withSizeCoalescing_afterLargerResourceEvicted_startsNewLoad() {
+    harness.isSizeCoalescingEnabled = true;
+    harness.cache = new LruResourceCache(100);
+    when(harness.resource.isCacheable()).thenReturn(true);
+    EngineKey larger = harness.newKey(110, 110);
+    when(harness.resource.getKey()).thenReturn(larger);
+    when(harness.resource.getSize()).thenReturn(1);
+    harness.getEngine().onResourceReleased(larger, harness.resource);
+    harness.cache.clearMemory();
+    harness.setRequestedKey(harness.newKey(100, 100));
+
+    harness.doLoad();
+
+    verify(harness.cb, never()).onResourceReady(anyResource(), isADataSource());
+  }
+
+  @Test
+  public void getAdmissionStats_withoutInFlightLimits_returnsNull() {
+    assertThat(harness.getEngine().getAdmissionStats()).isNull();
+  }
+
+  @Test
+  public void load_withInFlightLimitReached_startsJobWhenEarlierJobCompletes() {
+    harness.inFlightLimits = new InFlightLimits.Builder()
+        .setMaxInFlightJobs(InFlightLimits.ExecutorType.SOURCE, 1)
+        .build();
+    harness.stubDecodeJob();
+    EngineJob<?> first = harness.job;
+    harness.doLoad();
+    EngineJob<?> second = startLoadWithNewJob();
+
+    verify(first).start(any(DecodeJob.class));
+    verify(second, never()).start(any(DecodeJob.class));
+    assertThat(harness.getEngine().getAdmissionStats().getWaitingJobCount()).isEqualTo(1);
+
+    harness.getEngine().onEngineJobComplete(first, harness.cacheKey, /*resource=*/ null);
+
+    verify(second).start(any(DecodeJob.class));
+  }
+
+  @Test
+  public void load_withInFlightLimitReached_andRejectedPreload_failsJobWithoutStartingIt() {
+    harness.inFlightLimits = new InFlightLimits.Builder()
+        .setMaxInFlightJobs(InFlightLimits.ExecutorType.SOURCE, 1)
+        .setSheddingPolicy(InFlightLimits.SheddingPolicy.REJECT_PRELOADS_WHEN_SATURATED)
+        .build();
+    harness.stubDecodeJob();
+    harness.doLoad();
+    harness.isPreload = true;
+    EngineJob<?> preload = startLoadWithNewJob();
+
+    verify(preload, never()).start(any(DecodeJob.class));
+    verify(preload).failWithoutStarting(any(DecodeJob.class), any(GlideException.class));
+    assertThat(harness.getEngine().getAdmissionStats().getShedCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void load_joiningWaitingPreload_withForegroundLoad_startsJob() {
+    harness.inFlightLimits = new InFlightLimits.Builder()
+        .setMaxInFlightJobs(InFlightLimits.ExecutorType.SOURCE, 2)
+        .build();
+    harness.stubDecodeJob();
+    harness.isPreload = true;
+    harness.doLoad();
+    EngineJob<?> preload = startLoadWithNewJob();
+    verify(preload, never()).start(any(DecodeJob.class));
+
+    harness.isPreload = false;
+    harness.cb = mock(ResourceCallback.class);
+    harness.doLoad();
+
+    verify(preload).start(any(DecodeJob.class));
+  }
+
+  /**
+   * Starts a load that doesn't join the harness' existing job because it only retrieves from
+   * cache, and returns the new job.
+   */
+  private EngineJob<?> startLoadWithNewJob() {
+    harness.job = mock(EngineJob.class);
+    harness.onlyRetrieveFromCache = true;
+    harness.doLoad();
+    return harness.job;
+  }
+
+  private static final class QueueingExecutor implements Executor {
+    private final List<Runnable> queued = new ArrayList<>();
+
+    @Override
+    public void execute(Runnable command) {
+      queued.add(command);
+    }
+
+    void runAll() {
+      for (Runnable runnable : queued) {
+        runnable.run();
+      }
+      queued.clear();
+    }
+  }
+
   private static class EngineTestHarness {
     final EngineKey cacheKey = mock(EngineKey.class);
     final EngineKeyFactory keyFactory = mock(EngineKeyFactory.class);
@@ -630,7 +917,8 @@ public class EngineTest {
     final EngineResource resource = mock(EngineResource.class);
     final Jobs jobs = new Jobs();
     final ActiveResources activeResources =
-        new ActiveResources(/*isActiveResourceRetentionAllowed=*/ true);
+        new ActiveResources(
+            /*isActiveResourceRetentionAllowed=*/ true, /*isSizeCoalescingEnabled=*/ true);
 
     final int width = 100;
     final int height = 100;
@@ -650,6 +938,11 @@ public class EngineTest {
     boolean useUnlimitedSourceGeneratorPool = false;
     boolean onlyRetrieveFromCache = false;
     final boolean isScaleOnlyOrNoTransform = true;
+    Executor loadExecutor = null;
+    Priority priority = Priority.HIGH;
+    boolean isPreload = false;
+    InFlightLimits inFlightLimits = null;
+    boolean isSizeCoalescingEnabled = false;
 
     EngineTestHarness() {
       when(keyFactory.buildKey(eq(model), eq(signature), anyInt(), anyInt(), eq(transformations),
@@ -659,6 +952,27 @@ public class EngineTest {
       job = mock(EngineJob.class);
     }
 
+    EngineKey newKey(int width, int height) {
+      return new EngineKey(model, signature, width, height, transformations, Object.class,
+          Object.class, options);
+    }
+
+    void setRequestedKey(EngineKey key) {
+      when(keyFactory.buildKey(eq(model), eq(signature), anyInt(), anyInt(), eq(transformations),
+          eq(Object.class), eq(Object.class), eq(options))).thenReturn(key);
+      when(engineJobFactory.build(
+          eq(key), anyBoolean(), anyBoolean(), anyBoolean(), anyBoolean()))
+          .thenReturn((EngineJob<Object>) job);
+    }
+
+    void stubDecodeJob() {
+      when(decodeJobFactory.build(any(GlideContext.class), any(), any(EngineKey.class),
+          any(Key.class), anyInt(), anyInt(), any(Class.class), any(Class.class),
+          any(Priority.class), any(DiskCacheStrategy.class), any(Map.class), anyBoolean(),
+          anyBoolean(), anyBoolean(), any(Options.class), any(DecodeJob.Callback.class)))
+          .thenReturn(mock(DecodeJob.class));
+    }
+
     void callOnEngineJobComplete() {
       getEngine().onEngineJobComplete(job, cacheKey, resource);
     }
@@ -677,7 +991,7 @@ public class EngineTest {
           height,
           Object.class /*resourceClass*/,
           Object.class /*transcodeClass*/,
-          Priority.HIGH,
+          priority,
           DiskCacheStrategy.ALL,
           transformations,
           false /*isTransformationRequired*/,
@@ -687,6 +1001,7 @@ public class EngineTest {
           useUnlimitedSourceGeneratorPool,
           /*useAnimationPool=*/ false,
           onlyRetrieveFromCache,
+          isPreload,
           cb);
     }
 
@@ -706,7 +1021,11 @@ public class EngineTest {
                 engineJobFactory,
                 decodeJobFactory,
                 resourceRecycler,
-                /*isActiveResourceRetentionAllowed=*/ true);
+                /*isActiveResourceRetentionAllowed=*/ true,
+                loadExecutor,
+                /*sourceIoExecutor=*/ null,
+                inFlightLimits,
+                isSizeCoalescingEnabled);
       }
       return engine;
     }
@@ -0,0 +1,117 @@
+package com.bumptech.glide.load.engine;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.mock;
+
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.Transformation;
+import com.bumptech.glide.request.target.Target;
+import com.bumptech.glide.signature.ObjectKey;
+import java.util.Collections;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 18)
+public class JobsTest {
+  private Jobs jobs;
+  private EngineJob<?> job;
+
+  @Before
+  public void setUp() {
+    jobs = new Jobs(/*isSizeCoalescingEnabled=*/ true);
+    job = mock(EngineJob.class);
+  }
+
+  @Test
+  public void getCoalescable_withSlightlyLargerJob_returnsJob() {
+    jobs.put(newKey("model", 310, 310), job);
+
+    assertThat(jobs.getCoalescable(newKey("model", 300, 300), false)).isSameAs(job);
+  }
+
+  @Test
+  public void getCoalescable_withSmallerJob_returnsNull() {
+    jobs.put(newKey("model", 300, 300), job);
+
+    assertThat(jobs.getCoalescable(newKey("model", 310, 310), false)).isNull();
+  }
+
+  @Test
+  public void getCoalescable_withMuchLargerJob_returnsNull() {
+    jobs.put(newKey("model", 600, 600), job);
+
+    assertThat(jobs.getCoalescable(newKey("model", 300, 300), false)).isNull();
+  }
+
+  @Test
+  public void getCoalescable_withDifferentAspectRatio_returnsNull() {
+    jobs.put(newKey("model", 360, 300), job);
+
+    assertThat(jobs.getCoalescable(newKey("model", 300, 300), false)).isNull();
+  }
+
+  @Test
+  public void getCoalescable_withDifferentModel_returnsNull() {
+    jobs.put(newKey("other", 310, 310), job);
+
+    assertThat(jobs.getCoalescable(newKey("model", 300, 300), false)).isNull();
+  }
+
+  @Test
+  public void getCoalescable_withMultipleJobs_returnsClosestInSize() {
+    EngineJob<?> closest = mock(EngineJob.class);
+    jobs.put(newKey("model", 360, 360), job);
+    jobs.put(newKey("model", 310, 310), closest);
+
+    assertThat(jobs.getCoalescable(newKey("model", 300, 300), false)).isSameAs(closest);
+  }
+
+  @Test
+  public void getCoalescable_withOriginalSize_returnsNull() {
+    jobs.put(newKey("model", 310, 310), job);
+
+    assertThat(
+        jobs.getCoalescable(newKey("model", Target.SIZE_ORIGINAL, Target.SIZE_ORIGINAL), false))
+        .isNull();
+  }
+
+  @Test
+  public void getCoalescable_afterJobRemoved_returnsNull() {
+    EngineKey key = newKey("model", 310, 310);
+    jobs.put(key, job);
+    jobs.removeIfCurrent(key, job);
+
+    assertThat(jobs.getCoalescable(newKey("model", 300, 300), false)).isNull();
+  }
+
+  @Test
+  public void getCoalescable_withOnlyRetrieveFromCacheMismatch_returnsNull() {
+    jobs.put(newKey("model", 310, 310), job);
+
+    assertThat(jobs.getCoalescable(newKey("model", 300, 300), true)).isNull();
+  }
+
+  @Test
+  public void getCoalescable_withCoalescingDisabled_returnsNull() {
+    jobs = new Jobs();
+    jobs.put(newKey("model", 310, 310), job);
+
+    assertThat(jobs.getCoalescable(newKey("model", 300, 300), false)).isNull();
+  }
+
+  private static EngineKey newKey(Object model, int width, int height) {
+    return new EngineKey(
+        model,
+        new ObjectKey("signature"),
+        width,
+        height,
+        Collections.<Class<?>, Transformation<?>>emptyMap(),
+        Object.class,
+        Object.class,
+        new Options());
+  }
+}
@@ -0,0 +1,103 @@
+package com.bumptech.glide.load.engine;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class LatencyHistogramTest {
+  private LatencyHistogram histogram;
+
+  @Before
+  public void setUp() {
+    histogram = new LatencyHistogram();
+  }
+
+  @Test
+  public void getBucket_returnsLogarithmicBuckets() {
+    assertThat(LatencyHistogram.getBucket(0)).isEqualTo(0);
+    assertThat(LatencyHistogram.getBucket(1)).isEqualTo(1);
+    assertThat(LatencyHistogram.getBucket(3)).isEqualTo(2);
+    assertThat(LatencyHistogram.getBucket(4)).isEqualTo(3);
+    assertThat(LatencyHistogram.getBucket(Long.MAX_VALUE))
+        .isEqualTo(LatencyHistogram.BUCKET_COUNT - 1);
+  }
+
+  @Test
+  public void record_incrementsCountInBucket() {
+    histogram.record(0.5);
+    histogram.record(5);
+    histogram.record(6);
+
+    assertThat(histogram.getCount()).isEqualTo(3L);
+    assertThat(histogram.getCountInBucket(0)).isEqualTo(1L);
+    assertThat(histogram.getCountInBucket(3)).isEqualTo(2L);
+  }
+
+  @Test
+  public void record_withNegativeLatency_recordsInFirstBucket() {
+    histogram.record(-1);
+
+    assertThat(histogram.getCountInBucket(0)).isEqualTo(1L);
+    assertThat(histogram.getMeanMillis()).isWithin(0.001).of(0);
+  }
+
+  @Test
+  public void getMeanMillis_withNoLatencies_returnsZero() {
+    assertThat(histogram.getMeanMillis()).isWithin(0.001).of(0);
+  }
+
+  @Test
+  public void getMeanMillis_returnsMeanOfRecordedLatencies() {
+    histogram.record(1.5);
+    histogram.record(4.5);
+
+    assertThat(histogram.getMeanMillis()).isWithin(0.001).of(3);
+  }
+
+  @Test
+  public void getPercentileUpperBoundMillis_withNoLatencies_returnsZero() {
+    assertThat(histogram.getPercentileUpperBoundMillis(50)).isEqualTo(0L);
+  }
+
+  @Test
+  public void getPercentileUpperBoundMillis_returnsUpperBoundOfBucket() {
+    for (int i = 0; i < 99; i++) {
+      histogram.record(3);
+    }
+    histogram.record(100);
+
+    assertThat(histogram.getPercentileUpperBoundMillis(0)).isEqualTo(4L);
+    assertThat(histogram.getPercentileUpperBoundMillis(50)).isEqualTo(4L);
+    assertThat(histogram.getPercentileUpperBoundMillis(99)).isEqualTo(4L);
+    assertThat(histogram.getPercentileUpperBoundMillis(100)).isEqualTo(128L);
+  }
+
+  @Test
+  public void getPercentileUpperBoundMillis_withLatencyInLastBucket_returnsMaxValue() {
+    histogram.record(Double.MAX_VALUE);
+
+    assertThat(histogram.getPercentileUpperBoundMillis(100)).isEqualTo(Long.MAX_VALUE);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void getPercentileUpperBoundMillis_withInvalidPercentile_throws() {
+    histogram.getPercentileUpperBoundMillis(101);
+  }
+
+  @Test
+  public void reset_clearsAllBuckets() {
+    histogram.record(1);
+    histogram.record(1000);
+
+    histogram.reset();
+
+    assertThat(histogram.getCount()).isEqualTo(0L);
+    for (int i = 0; i < histogram.getBucketCount(); i++) {
+      assertThat(histogram.getCountInBucket(i)).isEqualTo(0L);
+    }
+  }
+}
@@ -0,0 +1,75 @@
+package com.bumptech.glide.load.engine;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.Transformation;
+import com.bumptech.glide.signature.ObjectKey;
+import java.util.Collections;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 18)
+public class NearestSizeIndexTest {
+  private NearestSizeIndex index;
+
+  @Before
+  public void setUp() {
+    index = new NearestSizeIndex();
+  }
+
+  @Test
+  public void getNearest_withEmptyIndex_returnsNull() {
+    assertThat(index.getNearest(newKey("model", 100, 100))).isNull();
+  }
+
+  @Test
+  public void getNearest_withSlightlyLargerKey_returnsKey() {
+    EngineKey larger = newKey("model", 110, 110);
+    index.add(larger);
+
+    assertThat(index.getNearest(newKey("model", 100, 100))).isSameAs(larger);
+  }
+
+  @Test
+  public void getNearest_withEqualKey_returnsNull() {
+    index.add(newKey("model", 100, 100));
+
+    assertThat(index.getNearest(newKey("model", 100, 100))).isNull();
+  }
+
+  @Test
+  public void getNearest_withMultipleLargerKeys_returnsSmallest() {
+    EngineKey nearest = newKey("model", 105, 105);
+    index.add(newKey("model", 120, 120));
+    index.add(nearest);
+
+    assertThat(index.getNearest(newKey("model", 100, 100))).isSameAs(nearest);
+  }
+
+  @Test
+  public void getNearest_afterKeyAddedTwiceAndRemovedOnce_returnsNull() {
+    EngineKey larger = newKey("model", 110, 110);
+    index.add(larger);
+    index.add(larger);
+    index.remove(larger);
+
+    assertThat(index.getNearest(newKey("model", 100, 100))).isNull();
+  }
+
+  private static EngineKey newKey(Object model, int width, int height) {
+    return new EngineKey(
+        model,
+        new ObjectKey("signature"),
+        width,
+        height,
+        Collections.<Class<?>, Transformation<?>>emptyMap(),
+        Object.class,
+        Object.class,
+        new Options());
+  }
+}
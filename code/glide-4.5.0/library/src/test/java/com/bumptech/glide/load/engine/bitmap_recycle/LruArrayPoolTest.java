@@ -171,6 +171,28 @@ public class LruArrayPoolTest {
     assertThat(pool.get(targetSize, byte[].class)).isNotSameAs(toPut);
   }
 
+  @Test
+  public void setSizeMultiplier_withSmallerMultiplier_evictsArrays() {
+    fillPool(pool, MAX_SIZE, 1);
+
+    pool.setSizeMultiplier(0.5f);
+
+    assertThat(pool.getCurrentSize()).isEqualTo(MAX_SIZE / 2);
+  }
+
+  @Test
+  public void setSizeMultiplier_withLargerMultiplier_retainsMoreArrays() {
+    pool.setSizeMultiplier(2f);
+    fillPool(pool, 2 * MAX_SIZE, 1);
+
+    assertThat(pool.getCurrentSize()).isEqualTo(2 * MAX_SIZE);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void setSizeMultiplier_withNegativeMultiplier_throws() {
+    pool.setSizeMultiplier(-1f);
+  }
+
   private void testTrimMemory(int fillSize, int trimLevel, int expectedSize) {
     pool = new LruArrayPool(MAX_SIZE);
     fillPool(pool, fillSize / ADAPTER.getElementSizeInBytes(), 1);
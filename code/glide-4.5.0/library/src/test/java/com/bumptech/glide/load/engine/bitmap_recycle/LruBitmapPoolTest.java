@@ -194,6 +194,20 @@ public class LruBitmapPoolTest {
     assertEquals(MAX_SIZE, pool.getMaxSize());
   }
 
+  @Test
+  public void getStats_countsHitsMissesPutsAndEvictions() {
+    fillPool(pool, MAX_SIZE + 1);
+    pool.get(100, 100, Bitmap.Config.ARGB_8888);
+    pool.clearMemory();
+    pool.get(100, 100, Bitmap.Config.ARGB_8888);
+
+    BitmapPoolStats stats = pool.getStats();
+    assertThat(stats.getPutCount()).isEqualTo(MAX_SIZE + 1L);
+    assertThat(stats.getHitCount()).isEqualTo(1L);
+    assertThat(stats.getMissCount()).isEqualTo(1L);
+    assertThat(stats.getEvictionCount()).isEqualTo((long) MAX_SIZE);
+  }
+
   @Test
   public void testMaxSizeChangesAfterSizeMultiplier() {
     pool.setSizeMultiplier(2);
@@ -0,0 +1,261 @@
+package com.bumptech.glide.load.engine.bitmap_recycle;
+
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_BACKGROUND;
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_COMPLETE;
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN;
+import static com.google.common.truth.Truth.assertThat;
+
+import android.graphics.Bitmap;
+import com.bumptech.glide.util.Util;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.Shadows;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.Implementation;
+import org.robolectric.annotation.Implements;
+import org.robolectric.shadows.ShadowBitmap;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 19,
+    shadows = ShardedBitmapPoolTest.ReconfigurableShadowBitmap.class)
+public class ShardedBitmapPoolTest {
+  private static final int BITMAP_SIZE = Util.getBitmapByteSize(10, 10, Bitmap.Config.ARGB_8888);
+  private static final int MAX_SIZE = 10 * BITMAP_SIZE;
+  private Set<Bitmap.Config> allowedConfigs;
+  private ShardedBitmapPool pool;
+
+  @Before
+  public void setUp() {
+    allowedConfigs = new HashSet<>(Collections.singleton(Bitmap.Config.ARGB_8888));
+    pool = new ShardedBitmapPool(MAX_SIZE, allowedConfigs);
+  }
+
+  @Test
+  public void get_afterPut_returnsPooledBitmap() {
+    Bitmap bitmap = createMutableBitmap();
+    pool.put(bitmap);
+
+    assertThat(pool.get(10, 10, Bitmap.Config.ARGB_8888)).isSameAs(bitmap);
+    assertThat(pool.getCurrentSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void get_withEmptyPool_returnsNewBitmap() {
+    Bitmap result = pool.get(10, 10, Bitmap.Config.ARGB_8888);
+
+    assertThat(result.getWidth()).isEqualTo(10);
+    assertThat(pool.getStats().getMissCount()).isEqualTo(1L);
+  }
+
+  @Test
+  public void get_withNullConfig_andEmptyPool_returnsNewArgb8888Bitmap() {
+    Bitmap result = pool.get(100, 100, /*config=*/ null);
+    assertThat(result.getConfig()).isEqualTo(Bitmap.Config.ARGB_8888);
+  }
+
+  @Test
+  public void getDirty_withNullConfig_andEmptyPool_returnsNewArgb8888Bitmap() {
+    Bitmap result = pool.getDirty(100, 100, /*config=*/ null);
+    assertThat(result.getConfig()).isEqualTo(Bitmap.Config.ARGB_8888);
+  }
+
+  @Test
+  public void get_withSmallerRequest_returnsLargerBitmap() {
+    Bitmap bitmap = createMutableBitmap();
+    pool.put(bitmap);
+
+    assertThat(pool.getDirty(5, 5, Bitmap.Config.ARGB_8888)).isSameAs(bitmap);
+  }
+
+  @Test
+  public void get_withRequestMoreThanMaxSizeMultipleSmaller_returnsNewBitmap() {
+    Bitmap bitmap = createMutableBitmap();
+    pool.put(bitmap);
+
+    // 100 pixels is more than 8 times 9 pixels.
+    assertThat(pool.getDirty(3, 3, Bitmap.Config.ARGB_8888)).isNotSameAs(bitmap);
+    assertThat(pool.getCurrentSize()).isEqualTo((long) BITMAP_SIZE);
+  }
+
+  @Test
+  public void get_withLargerRequest_returnsNewBitmap() {
+    Bitmap bitmap = createMutableBitmap();
+    pool.put(bitmap);
+
+    assertThat(pool.getDirty(11, 10, Bitmap.Config.ARGB_8888)).isNotSameAs(bitmap);
+  }
+
+  @Test
+  public void get_withIncompatibleConfig_returnsNewBitmap() {
+    allowedConfigs.add(Bitmap.Config.RGB_565);
+    Bitmap bitmap = Bitmap.createBitmap(20, 10, Bitmap.Config.RGB_565);
+    pool.put(bitmap);
+
+    assertThat(pool.getDirty(10, 10, Bitmap.Config.ARGB_8888)).isNotSameAs(bitmap);
+    assertThat(pool.getDirty(20, 10, Bitmap.Config.RGB_565)).isSameAs(bitmap);
+  }
+
+  @Test
+  @Config(sdk = 18)
+  public void get_beforeKitKat_onlyReturnsBitmapsWithSameDimensions() {
+    Bitmap bitmap = createMutableBitmap();
+    pool.put(bitmap);
+
+    assertThat(pool.getDirty(5, 5, Bitmap.Config.ARGB_8888)).isNotSameAs(bitmap);
+    assertThat(pool.getDirty(10, 10, Bitmap.Config.ARGB_8888)).isSameAs(bitmap);
+  }
+
+  @Test
+  public void put_withImmutableBitmap_recyclesBitmap() {
+    Bitmap bitmap = createMutableBitmap();
+    Shadows.shadowOf(bitmap).setMutable(false);
+    pool.put(bitmap);
+
+    assertThat(bitmap.isRecycled()).isTrue();
+    assertThat(pool.getCurrentSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void put_withDisallowedConfig_recyclesBitmap() {
+    Bitmap bitmap = Bitmap.createBitmap(10, 10, Bitmap.Config.RGB_565);
+    pool.put(bitmap);
+
+    assertThat(bitmap.isRecycled()).isTrue();
+    assertThat(pool.getCurrentSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void put_withBitmapLargerThanPool_recyclesBitmap() {
+    Bitmap bitmap = Bitmap.createBitmap(100, 100, Bitmap.Config.ARGB_8888);
+    pool.put(bitmap);
+
+    assertThat(bitmap.isRecycled()).isTrue();
+    assertThat(pool.getStats().getPutCount()).isEqualTo(0L);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void put_withRecycledBitmap_throws() {
+    Bitmap bitmap = createMutableBitmap();
+    bitmap.recycle();
+    pool.put(bitmap);
+  }
+
+  @Test
+  public void put_overMaxSize_evictsOldestBitmaps() {
+    List<Bitmap> bitmaps = fillPool(12);
+
+    assertThat(pool.getCurrentSize()).isEqualTo((long) MAX_SIZE);
+    assertThat(bitmaps.get(0).isRecycled()).isTrue();
+    assertThat(bitmaps.get(1).isRecycled()).isTrue();
+    assertThat(bitmaps.get(2).isRecycled()).isFalse();
+    assertThat(pool.getStats().getEvictionCount()).isEqualTo(2L);
+  }
+
+  @Test
+  public void put_overMaxSize_evictsOldestBitmapAcrossBuckets() {
+    Bitmap oldestLarge = Bitmap.createBitmap(20, 20, Bitmap.Config.ARGB_8888);
+    pool.put(oldestLarge);
+    List<Bitmap> small = fillPool(6);
+    Bitmap newestLarge = Bitmap.createBitmap(10, 20, Bitmap.Config.ARGB_8888);
+
+    pool.put(newestLarge);
+
+    assertThat(oldestLarge.isRecycled()).isTrue();
+    assertThat(newestLarge.isRecycled()).isFalse();
+    for (Bitmap bitmap : small) {
+      assertThat(bitmap.isRecycled()).isFalse();
+    }
+  }
+
+  @Test
+  public void clearMemory_removesAllBitmaps() {
+    List<Bitmap> bitmaps = fillPool(5);
+
+    pool.clearMemory();
+
+    assertThat(pool.getCurrentSize()).isEqualTo(0);
+    for (Bitmap bitmap : bitmaps) {
+      assertThat(bitmap.isRecycled()).isTrue();
+    }
+  }
+
+  @Test
+  public void trimMemory_uiHidden_removesHalfOfBitmaps() {
+    fillPool(10);
+    pool.trimMemory(TRIM_MEMORY_UI_HIDDEN);
+    assertThat(pool.getCurrentSize()).isEqualTo((long) MAX_SIZE / 2);
+  }
+
+  @Test
+  public void trimMemory_uiHidden_withPoolLessThanHalfFull_removesNoBitmaps() {
+    fillPool(4);
+    pool.trimMemory(TRIM_MEMORY_UI_HIDDEN);
+    assertThat(pool.getCurrentSize()).isEqualTo(4L * BITMAP_SIZE);
+  }
+
+  @Test
+  public void trimMemory_backgroundOrGreater_removesAllBitmaps() {
+    for (int trimLevel : new int[] {TRIM_MEMORY_BACKGROUND, TRIM_MEMORY_COMPLETE}) {
+      fillPool(10);
+      pool.trimMemory(trimLevel);
+      assertThat(pool.getCurrentSize()).isEqualTo(0);
+    }
+  }
+
+  @Test
+  public void setSizeMultiplier_decreasingSize_evictsBitmaps() {
+    fillPool(10);
+
+    pool.setSizeMultiplier(0.5f);
+
+    assertThat(pool.getMaxSize()).isEqualTo((long) MAX_SIZE / 2);
+    assertThat(pool.getCurrentSize()).isEqualTo((long) MAX_SIZE / 2);
+  }
+
+  @Test
+  public void getStats_countsHitsAndMisses() {
+    pool.put(createMutableBitmap());
+    pool.get(10, 10, Bitmap.Config.ARGB_8888);
+    pool.get(10, 10, Bitmap.Config.ARGB_8888);
+
+    BitmapPoolStats stats = pool.getStats();
+    assertThat(stats.getHitCount()).isEqualTo(1L);
+    assertThat(stats.getMissCount()).isEqualTo(1L);
+    assertThat(stats.getPutCount()).isEqualTo(1L);
+    assertThat(stats.getHitRate()).isWithin(0.001).of(0.5);
+  }
+
+  private List<Bitmap> fillPool(int count) {
+    List<Bitmap> result = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      Bitmap bitmap = createMutableBitmap();
+      result.add(bitmap);
+      pool.put(bitmap);
+    }
+    return result;
+  }
+
+  private static Bitmap createMutableBitmap() {
+    return Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888);
+  }
+
+  /**
+   * Robolectric's Bitmaps can't be reconfigured, but only the dimensions matter here.
+   */
+  @Implements(Bitmap.class)
+  public static final class ReconfigurableShadowBitmap extends ShadowBitmap {
+    @Implementation
+    public void reconfigure(int width, int height, Bitmap.Config config) {
+      setWidth(width);
+      setHeight(height);
+      setConfig(config);
+    }
+  }
+}
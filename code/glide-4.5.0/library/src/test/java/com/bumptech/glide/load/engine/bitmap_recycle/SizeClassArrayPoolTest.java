@@ -0,0 +1,297 @@
+package com.bumptech.glide.load.engine.bitmap_recycle;
+
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_BACKGROUND;
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_COMPLETE;
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN;
+import static com.google.common.truth.Truth.assertThat;
+
+import com.bumptech.glide.tests.BackgroundUtil;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 18)
+public class SizeClassArrayPoolTest {
+  private static final int MAX_SIZE = 1024;
+  private static final int MAX_PUT_SIZE = MAX_SIZE / 2;
+  private SizeClassArrayPool pool;
+
+  @Before
+  public void setUp() {
+    pool = new SizeClassArrayPool(MAX_SIZE);
+  }
+
+  @Test
+  public void testNewPoolIsEmpty() {
+    assertThat(pool.getCurrentSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void get_withEmptyPool_returnsArrayRoundedUpToPowerOfTwo() {
+    assertThat(pool.get(100, byte[].class)).hasLength(128);
+    assertThat(pool.get(64, int[].class)).hasLength(64);
+  }
+
+  @Test
+  public void get_withEmptyPool_andArrayTooLargeToPool_returnsExactArray() {
+    assertThat(pool.get(MAX_PUT_SIZE + 1, byte[].class)).hasLength(MAX_PUT_SIZE + 1);
+    assertThat(pool.get(MAX_PUT_SIZE / 4 + 1, int[].class)).hasLength(MAX_PUT_SIZE / 4 + 1);
+  }
+
+  @Test
+  public void get_afterPut_returnsSameArray() {
+    byte[] expected = pool.get(100, byte[].class);
+    pool.put(expected);
+
+    assertThat(pool.getCurrentSize()).isEqualTo(128);
+    assertThat(pool.get(100, byte[].class)).isSameAs(expected);
+    assertThat(pool.getCurrentSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void get_withPoolContainingLargerArray_returnsLargerArray() {
+    byte[] expected = new byte[MAX_PUT_SIZE];
+    pool.put(expected);
+
+    assertThat(pool.get(MAX_PUT_SIZE - 1, byte[].class)).isSameAs(expected);
+  }
+
+  @Test
+  public void get_withPoolContainingSmallerArray_returnsNewArray() {
+    byte[] smaller = new byte[MAX_PUT_SIZE - 1];
+    pool.put(smaller);
+
+    assertThat(pool.get(MAX_PUT_SIZE, byte[].class)).isNotSameAs(smaller);
+  }
+
+  @Test
+  public void get_withArrayOfDifferentType_returnsNewArray() {
+    pool.put(new int[16]);
+
+    assertThat(pool.get(16, byte[].class)).hasLength(16);
+    assertThat(pool.getCurrentSize()).isEqualTo(64);
+  }
+
+  @Test
+  public void get_withPoolMoreThanHalfFull_andArrayMuchLargerThanRequested_returnsNewArray() {
+    fillSharedFreeLists(new byte[MAX_PUT_SIZE], new byte[MAX_PUT_SIZE / 2]);
+
+    byte[] result = pool.get(4, byte[].class);
+
+    assertThat(result).hasLength(4);
+    assertThat(pool.getCurrentSize()).isEqualTo(MAX_PUT_SIZE + MAX_PUT_SIZE / 2);
+  }
+
+  @Test
+  public void get_withPoolNoMoreThanHalfFull_andArrayMuchLargerThanRequested_returnsArray() {
+    byte[] expected = new byte[MAX_PUT_SIZE];
+    fillSharedFreeLists(expected);
+
+    assertThat(pool.get(4, byte[].class)).isSameAs(expected);
+  }
+
+  @Test
+  public void getExact_withPoolContainingLargerArray_returnsExactArray() {
+    pool.put(new byte[MAX_PUT_SIZE]);
+
+    assertThat(pool.getExact(MAX_PUT_SIZE - 1, byte[].class)).hasLength(MAX_PUT_SIZE - 1);
+  }
+
+  @Test
+  public void getExact_withPoolContainingExactArray_returnsArray() {
+    byte[] other = new byte[100];
+    byte[] expected = new byte[101];
+    pool.put(expected);
+    pool.put(other);
+
+    assertThat(pool.getExact(101, byte[].class)).isSameAs(expected);
+    assertThat(pool.getCurrentSize()).isEqualTo(100);
+  }
+
+  @Test
+  public void getExact_withExactArrayInSharedFreeList_returnsArray() {
+    byte[] expected = new byte[100];
+    fillSharedFreeLists(expected);
+
+    assertThat(pool.getExact(100, byte[].class)).isSameAs(expected);
+    assertThat(pool.getCurrentSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void put_withArrayMoreThanHalfPoolSize_doesNotRetainArray() {
+    byte[] toPut = new byte[MAX_PUT_SIZE + 1];
+    pool.put(toPut);
+
+    assertThat(pool.getCurrentSize()).isEqualTo(0);
+    assertThat(pool.get(MAX_PUT_SIZE + 1, byte[].class)).isNotSameAs(toPut);
+  }
+
+  @Test
+  public void put_withEmptyArray_doesNotRetainArray() {
+    pool.put(new byte[0]);
+
+    assertThat(pool.getCurrentSize()).isEqualTo(0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void put_withUnsupportedArrayType_throws() {
+    pool.put(new long[10]);
+  }
+
+  @Test
+  public void put_withFullMagazine_addsToSharedFreeList() throws InterruptedException {
+    final List<byte[]> arrays = new ArrayList<>();
+    for (int i = 0; i < SizeClassArrayPool.MAGAZINE_CAPACITY + 1; i++) {
+      byte[] array = new byte[16];
+      arrays.add(array);
+      pool.put(array);
+    }
+
+    final AtomicReference<byte[]> fromOtherThread = new AtomicReference<>();
+    BackgroundUtil.testInBackground(new BackgroundUtil.BackgroundTester() {
+      @Override
+      public void runTest() {
+        fromOtherThread.set(pool.get(16, byte[].class));
+      }
+    });
+
+    assertThat(fromOtherThread.get()).isSameAs(arrays.get(arrays.size() - 1));
+  }
+
+  @Test
+  public void put_isSizeLimited() {
+    for (int i = 0; i < 4 * MAX_SIZE / 64; i++) {
+      pool.put(new byte[64]);
+      assertThat(pool.getCurrentSize()).isAtMost(MAX_SIZE);
+    }
+    assertThat(pool.getCurrentSize()).isEqualTo(MAX_SIZE);
+  }
+
+  @Test
+  public void put_overMaxSize_evictsArraysInOtherThreadsMagazines() throws InterruptedException {
+    putInBackground(new byte[MAX_PUT_SIZE / 2]);
+    fillSharedFreeLists(new byte[MAX_PUT_SIZE]);
+
+    pool.put(new byte[MAX_PUT_SIZE / 2]);
+
+    assertThat(pool.getCurrentSize()).isAtMost(MAX_SIZE);
+  }
+
+  @Test
+  public void clearMemory_removesAllArrays_includingOtherThreadsMagazines()
+      throws InterruptedException {
+    putInBackground(new byte[32]);
+    pool.put(new byte[32]);
+    fillSharedFreeLists(new byte[MAX_PUT_SIZE]);
+
+    pool.clearMemory();
+
+    assertThat(pool.getCurrentSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void testTrimMemoryUiHiddenOrLessRemovesHalfOfArrays() {
+    fillPool(MAX_SIZE);
+    pool.trimMemory(TRIM_MEMORY_UI_HIDDEN);
+    assertThat(pool.getCurrentSize()).isEqualTo(MAX_SIZE / 2);
+  }
+
+  @Test
+  public void testTrimMemoryUiHiddenOrLessRemovesNoArraysIfPoolLessThanHalfFull() {
+    fillPool(MAX_SIZE / 2);
+    pool.trimMemory(TRIM_MEMORY_UI_HIDDEN);
+    assertThat(pool.getCurrentSize()).isEqualTo(MAX_SIZE / 2);
+  }
+
+  @Test
+  public void testTrimMemoryBackgroundOrGreaterRemovesAllArrays() {
+    for (int trimLevel : new int[] {TRIM_MEMORY_BACKGROUND, TRIM_MEMORY_COMPLETE}) {
+      fillPool(MAX_SIZE);
+      pool.trimMemory(trimLevel);
+      assertThat(pool.getCurrentSize()).isEqualTo(0);
+    }
+  }
+
+  @Test
+  public void setSizeMultiplier_withSmallerMultiplier_evictsArrays() {
+    fillPool(MAX_SIZE);
+
+    pool.setSizeMultiplier(0.5f);
+
+    assertThat(pool.getCurrentSize()).isEqualTo(MAX_SIZE / 2);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void setSizeMultiplier_withNegativeMultiplier_throws() {
+    pool.setSizeMultiplier(-1f);
+  }
+
+  @Test
+  public void getAndPut_fromManyThreads_staysWithinMaxSize() throws InterruptedException {
+    final int threadCount = 8;
+    final CountDownLatch start = new CountDownLatch(1);
+    final CountDownLatch done = new CountDownLatch(threadCount);
+    final AtomicReference<Throwable> failure = new AtomicReference<>();
+    for (int i = 0; i < threadCount; i++) {
+      final int threadIndex = i;
+      new Thread(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            start.await();
+            for (int j = 0; j < 2000; j++) {
+              int size = 1 << ((threadIndex + j) % 8);
+              byte[] bytes = pool.get(size, byte[].class);
+              int[] ints = pool.getExact(size / 2 + 1, int[].class);
+              pool.put(bytes);
+              pool.put(ints);
+              if (j % 500 == 0) {
+                pool.trimMemory(TRIM_MEMORY_UI_HIDDEN);
+              }
+            }
+          } catch (Throwable t) {
+            failure.compareAndSet(null, t);
+          } finally {
+            done.countDown();
+          }
+        }
+      }).start();
+    }
+    start.countDown();
+    done.await();
+
+    assertThat(failure.get()).isNull();
+    assertThat(pool.getCurrentSize()).isAtMost(MAX_SIZE);
+    pool.clearMemory();
+    assertThat(pool.getCurrentSize()).isEqualTo(0);
+  }
+
+  private void fillPool(int bytes) {
+    for (int i = 0; i < bytes / 32; i++) {
+      pool.put(new byte[32]);
+    }
+  }
+
+  private void fillSharedFreeLists(byte[]... arrays) {
+    for (byte[] array : arrays) {
+      pool.put(array);
+    }
+    pool.drainMagazines();
+  }
+
+  private void putInBackground(final byte[] array) throws InterruptedException {
+    BackgroundUtil.testInBackground(new BackgroundUtil.BackgroundTester() {
+      @Override
+      public void runTest() {
+        pool.put(array);
+      }
+    });
+  }
+}
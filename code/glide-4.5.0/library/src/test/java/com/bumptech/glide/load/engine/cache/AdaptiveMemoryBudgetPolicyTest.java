@@ -0,0 +1,129 @@
+package com.bumptech.glide.load.engine.cache;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class AdaptiveMemoryBudgetPolicyTest {
+  private static final float MODERATE_HEAP = 0.7f;
+  private final AdaptiveMemoryBudgetPolicy policy = new AdaptiveMemoryBudgetPolicy();
+
+  @Test
+  public void update_withAllocationFailure_halvesEveryMultiplier() {
+    MemorySignals signals = new MemorySignals.Builder()
+        .setHeapUsedFraction(MODERATE_HEAP)
+        .setAllocationFailureCount(1)
+        .build();
+
+    assertThat(policy.update(signals, MemoryBudget.DEFAULT))
+        .isEqualTo(new MemoryBudget(0.5f, 0.5f, 0.5f));
+  }
+
+  @Test
+  public void update_withRepeatedAllocationFailures_neverGoesBelowMinimum() {
+    MemorySignals signals = new MemorySignals.Builder().setAllocationFailureCount(3).build();
+    MemoryBudget budget = MemoryBudget.DEFAULT;
+    for (int i = 0; i < 10; i++) {
+      budget = policy.update(signals, budget);
+    }
+
+    float min = AdaptiveMemoryBudgetPolicy.MIN_MULTIPLIER;
+    assertThat(budget).isEqualTo(new MemoryBudget(min, min, min));
+  }
+
+  @Test
+  public void update_withHighHeapUsage_reducesEveryMultiplierByOneStep() {
+    MemorySignals signals = new MemorySignals.Builder().setHeapUsedFraction(0.9f).build();
+
+    assertThat(policy.update(signals, MemoryBudget.DEFAULT))
+        .isEqualTo(new MemoryBudget(0.9f, 0.9f, 0.9f));
+  }
+
+  @Test
+  public void update_withHighHeapUsage_ignoresHitRates() {
+    MemorySignals signals = new MemorySignals.Builder()
+        .setHeapUsedFraction(0.9f)
+        .setMemoryCacheCounts(100, 0)
+        .setBitmapPoolCounts(0, 100)
+        .build();
+
+    assertThat(policy.update(signals, MemoryBudget.DEFAULT))
+        .isEqualTo(new MemoryBudget(0.9f, 0.9f, 0.9f));
+  }
+
+  @Test
+  public void update_withHigherMemoryCacheHitRate_movesStepToMemoryCache() {
+    MemorySignals signals = new MemorySignals.Builder()
+        .setHeapUsedFraction(MODERATE_HEAP)
+        .setMemoryCacheCounts(80, 20)
+        .setBitmapPoolCounts(20, 80)
+        .build();
+
+    assertThat(policy.update(signals, MemoryBudget.DEFAULT))
+        .isEqualTo(new MemoryBudget(1.1f, 0.9f, 1f));
+  }
+
+  @Test
+  public void update_withHigherBitmapPoolHitRate_movesStepToBitmapPool() {
+    MemorySignals signals = new MemorySignals.Builder()
+        .setHeapUsedFraction(MODERATE_HEAP)
+        .setMemoryCacheCounts(20, 80)
+        .setBitmapPoolCounts(80, 20)
+        .build();
+
+    assertThat(policy.update(signals, MemoryBudget.DEFAULT))
+        .isEqualTo(new MemoryBudget(0.9f, 1.1f, 1f));
+  }
+
+  @Test
+  public void update_withSimilarHitRates_returnsSameBudget() {
+    MemorySignals signals = new MemorySignals.Builder()
+        .setHeapUsedFraction(MODERATE_HEAP)
+        .setMemoryCacheCounts(50, 50)
+        .setBitmapPoolCounts(45, 55)
+        .build();
+
+    assertThat(policy.update(signals, MemoryBudget.DEFAULT)).isEqualTo(MemoryBudget.DEFAULT);
+  }
+
+  @Test
+  public void update_withTooFewRequests_returnsSameBudget() {
+    MemorySignals signals = new MemorySignals.Builder()
+        .setHeapUsedFraction(MODERATE_HEAP)
+        .setMemoryCacheCounts(AdaptiveMemoryBudgetPolicy.MIN_REQUESTS - 1, 0)
+        .setBitmapPoolCounts(0, 100)
+        .build();
+
+    assertThat(policy.update(signals, MemoryBudget.DEFAULT)).isEqualTo(MemoryBudget.DEFAULT);
+  }
+
+  @Test
+  public void update_withMemoryCacheAtMaximum_doesNotMoveMoreToMemoryCache() {
+    MemorySignals signals = new MemorySignals.Builder()
+        .setHeapUsedFraction(MODERATE_HEAP)
+        .setMemoryCacheCounts(100, 0)
+        .setBitmapPoolCounts(0, 100)
+        .build();
+    MemoryBudget current =
+        new MemoryBudget(AdaptiveMemoryBudgetPolicy.MAX_MULTIPLIER, 0.5f, 1f);
+
+    assertThat(policy.update(signals, current)).isEqualTo(current);
+  }
+
+  @Test
+  public void update_withLowHeapUsage_growsReducedMultipliersBackToDefault() {
+    MemorySignals signals = new MemorySignals.Builder().setHeapUsedFraction(0.2f).build();
+    MemoryBudget budget = new MemoryBudget(0.5f, 0.95f, 1.2f);
+
+    budget = policy.update(signals, budget);
+    assertThat(budget).isEqualTo(new MemoryBudget(0.6f, 1f, 1.2f));
+
+    for (int i = 0; i < 10; i++) {
+      budget = policy.update(signals, budget);
+    }
+    assertThat(budget).isEqualTo(new MemoryBudget(1f, 1f, 1.2f));
+  }
+}
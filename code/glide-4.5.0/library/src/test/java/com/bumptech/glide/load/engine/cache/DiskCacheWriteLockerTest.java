@@ -0,0 +1,161 @@
+package com.bumptech.glide.load.engine.cache;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class DiskCacheWriteLockerTest {
+  private static final String KEY = "key";
+  private DiskCacheWriteLocker locker;
+
+  @Before
+  public void setUp() {
+    locker = new DiskCacheWriteLocker();
+  }
+
+  @Test
+  public void release_afterAcquire_removesLock() {
+    locker.acquire(KEY);
+    assertThat(locker.getLockCount()).isEqualTo(1);
+
+    locker.release(KEY);
+    assertThat(locker.getLockCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void acquire_withDifferentKeys_doesNotBlock() throws InterruptedException {
+    locker.acquire(KEY);
+    final CountDownLatch acquired = new CountDownLatch(1);
+    Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        locker.acquire("other");
+        acquired.countDown();
+        locker.release("other");
+      }
+    });
+    thread.start();
+
+    assertThat(acquired.await(5, TimeUnit.SECONDS)).isTrue();
+    thread.join();
+    locker.release(KEY);
+  }
+
+  @Test
+  public void acquire_withSameKey_blocksUntilReleased() throws InterruptedException {
+    locker.acquire(KEY);
+    final CountDownLatch acquired = new CountDownLatch(1);
+    Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        locker.acquire(KEY);
+        acquired.countDown();
+        locker.release(KEY);
+      }
+    });
+    thread.start();
+
+    assertThat(acquired.await(100, TimeUnit.MILLISECONDS)).isFalse();
+    locker.release(KEY);
+    assertThat(acquired.await(5, TimeUnit.SECONDS)).isTrue();
+    thread.join();
+    assertThat(locker.getLockCount()).isEqualTo(0);
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void release_withoutAcquire_throws() {
+    locker.release(KEY);
+  }
+
+  @Test
+  public void release_fromThreadThatDoesNotHoldLock_throwsAndKeepsLock()
+      throws InterruptedException {
+    locker.acquire(KEY);
+    final AtomicReference<RuntimeException> thrown = new AtomicReference<>();
+    Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          locker.release(KEY);
+        } catch (RuntimeException e) {
+          thrown.set(e);
+        }
+      }
+    });
+    thread.start();
+    thread.join();
+
+    assertThat(thrown.get()).isInstanceOf(IllegalMonitorStateException.class);
+    assertThat(locker.getLockCount()).isEqualTo(1);
+    locker.release(KEY);
+    assertThat(locker.getLockCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void acquireAndRelease_fromManyThreads_allowsOnlyOneWriterPerKey()
+      throws InterruptedException {
+    final int threadCount = 16;
+    final int iterations = 2000;
+    final String[] keys = new String[] {"a", "b", "c"};
+    final AtomicInteger[] writers = new AtomicInteger[keys.length];
+    for (int i = 0; i < writers.length; i++) {
+      writers[i] = new AtomicInteger();
+    }
+    final AtomicBoolean isViolated = new AtomicBoolean();
+    final AtomicReference<Throwable> error = new AtomicReference<>();
+    final CountDownLatch start = new CountDownLatch(1);
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < threadCount; i++) {
+      final int threadIndex = i;
+      Thread thread = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            start.await();
+            for (int j = 0; j < iterations; j++) {
+              int keyIndex = (threadIndex + j) % keys.length;
+              locker.acquire(keys[keyIndex]);
+              try {
+                if (writers[keyIndex].incrementAndGet() != 1) {
+                  isViolated.set(true);
+                }
+                Thread.yield();
+                writers[keyIndex].decrementAndGet();
+              } finally {
+                locker.release(keys[keyIndex]);
+              }
+            }
+          } catch (Throwable t) {
+            error.compareAndSet(null, t);
+          }
+        }
+      });
+      threads.add(thread);
+      thread.start();
+    }
+
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join(TimeUnit.SECONDS.toMillis(30));
+      if (thread.isAlive()) {
+        fail("Timed out waiting for writer threads, possible deadlock");
+      }
+    }
+
+    assertThat(error.get()).isNull();
+    assertThat(isViolated.get()).isFalse();
+    assertThat(locker.getLockCount()).isEqualTo(0);
+  }
+}
@@ -1,7 +1,9 @@
 package com.bumptech.glide.load.engine.cache;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.junit.Assume.assumeTrue;
 import static org.mockito.Mockito.mock;
@@ -139,6 +141,29 @@ public class DiskLruCacheWrapperTest {
     assertArrayEquals(data, received);
   }
 
+  @Test
+  public void get_afterReopeningWithDifferentDigest_discardsExistingEntries() {
+    cache.put(key, new DiskCache.Writer() {
+      @Override
+      public boolean write(@NonNull File file) {
+        try {
+          Util.writeFile(file, data);
+        } catch (IOException e) {
+          fail(e.toString());
+        }
+        return true;
+      }
+    });
+    File entry = new File(dir, new SafeKeyGenerator().getSafeKey(key) + ".0");
+    assertTrue(entry.exists());
+
+    DiskCache murmurCache = DiskLruCacheWrapper.create(
+        dir, 10 * 1024 * 1024, SafeKeyGenerator.MURMUR3_128);
+    assertNull(murmurCache.get(key));
+    assertFalse(entry.exists());
+    murmurCache.clear();
+  }
+
   // Tests #2465.
   @Test
   public void clearDiskCache_afterOpeningDiskCache_andDeleteDirectoryOutsideGlide_doesNotThrow() {
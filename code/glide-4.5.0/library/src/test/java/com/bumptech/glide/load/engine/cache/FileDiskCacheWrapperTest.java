@@ -0,0 +1,99 @@
+package com.bumptech.glide.load.engine.cache;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertArrayEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.signature.ObjectKey;
+import com.bumptech.glide.tests.Util;
+import com.bumptech.glide.util.ByteBufferUtil;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 18)
+public class FileDiskCacheWrapperTest {
+  private DiskCache wrapped;
+  private ByteBufferDiskCache cache;
+  private Key key;
+  private File file;
+
+  @Before
+  public void setUp() {
+    wrapped = mock(DiskCache.class);
+    cache = FileDiskCacheWrapper.wrap(wrapped);
+    key = new ObjectKey("key");
+    file = new File(RuntimeEnvironment.application.getCacheDir(), "wrapped");
+  }
+
+  @After
+  public void tearDown() {
+    // GC before delete() to release files on Windows (https://stackoverflow.com/a/4213208/253468)
+    System.gc();
+    if (!file.delete() && file.exists()) {
+      throw new RuntimeException("Failed to delete: " + file);
+    }
+  }
+
+  @Test
+  public void wrap_withByteBufferDiskCache_returnsGivenCache() {
+    ByteBufferDiskCache diskCache = mock(ByteBufferDiskCache.class);
+
+    assertThat(FileDiskCacheWrapper.wrap(diskCache)).isSameAs(diskCache);
+  }
+
+  @Test
+  public void getBuffer_withCachedFile_returnsFileContents() throws IOException {
+    byte[] data = new byte[] {1, 2, 3, 4, 5};
+    Util.writeFile(file, data);
+    when(wrapped.get(key)).thenReturn(file);
+
+    ByteBuffer buffer = cache.getBuffer(key);
+
+    assertThat(buffer.isReadOnly()).isTrue();
+    assertArrayEquals(data, ByteBufferUtil.toBytes(buffer));
+  }
+
+  @Test
+  public void getBuffer_withMissingEntry_returnsNull() {
+    assertThat(cache.getBuffer(key)).isNull();
+  }
+
+  @Test
+  public void getBuffer_withEmptyFile_returnsNull() throws IOException {
+    Util.writeFile(file, new byte[0]);
+    when(wrapped.get(key)).thenReturn(file);
+
+    assertThat(cache.getBuffer(key)).isNull();
+  }
+
+  @Test
+  public void get_returnsWrappedFile() {
+    when(wrapped.get(key)).thenReturn(file);
+
+    assertThat(cache.get(key)).isEqualTo(file);
+  }
+
+  @Test
+  public void put_delete_clear_delegateToWrappedCache() {
+    DiskCache.Writer writer = mock(DiskCache.Writer.class);
+    cache.put(key, writer);
+    cache.delete(key);
+    cache.clear();
+
+    verify(wrapped).put(key, writer);
+    verify(wrapped).delete(key);
+    verify(wrapped).clear();
+  }
+}
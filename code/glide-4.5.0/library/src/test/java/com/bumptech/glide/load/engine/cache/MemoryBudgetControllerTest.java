@@ -0,0 +1,207 @@
+package com.bumptech.glide.load.engine.cache;
+
+import static com.bumptech.glide.tests.Util.mockResource;
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyFloat;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.graphics.Bitmap;
+import android.os.Handler;
+import android.os.Looper;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.load.engine.bitmap_recycle.LruArrayPool;
+import com.bumptech.glide.load.engine.bitmap_recycle.LruBitmapPool;
+import com.bumptech.glide.signature.ObjectKey;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 18)
+public class MemoryBudgetControllerTest {
+  private static final long INTERVAL_MS = 100;
+  private LruResourceCache memoryCache;
+  private LruBitmapPool bitmapPool;
+  private LruArrayPool arrayPool;
+  private MemoryBudgetPolicy policy;
+  private FakeHeapInfo heapInfo;
+  private MemoryBudgetController controller;
+
+  @Before
+  public void setUp() {
+    memoryCache = spy(new LruResourceCache(1000));
+    bitmapPool = spy(new LruBitmapPool(1000));
+    arrayPool = new LruArrayPool(100);
+    policy = mock(MemoryBudgetPolicy.class);
+    when(policy.update(any(MemorySignals.class), any(MemoryBudget.class)))
+        .thenReturn(MemoryBudget.DEFAULT);
+    heapInfo = new FakeHeapInfo();
+    controller = new MemoryBudgetController(memoryCache, bitmapPool, arrayPool, policy, heapInfo,
+        new Handler(Looper.getMainLooper()), INTERVAL_MS);
+  }
+
+  @Test
+  public void update_passesHitCountsAndHeapUsageToPolicy() {
+    Key key = new ObjectKey("key");
+    memoryCache.put(key, mockResource());
+    memoryCache.remove(key);
+    memoryCache.remove(key);
+    bitmapPool.get(10, 10, Bitmap.Config.ARGB_8888);
+    heapInfo.usedBytes = 25;
+    heapInfo.maxBytes = 100;
+
+    MemorySignals signals = updateAndCaptureSignals();
+
+    assertThat(signals.getMemoryCacheHitCount()).isEqualTo(1L);
+    assertThat(signals.getMemoryCacheLookupCount()).isEqualTo(2L);
+    assertThat(signals.getBitmapPoolHitCount()).isEqualTo(0L);
+    assertThat(signals.getBitmapPoolGetCount()).isEqualTo(1L);
+    assertThat(signals.getHeapUsedFraction()).isWithin(0.001f).of(0.25f);
+  }
+
+  @Test
+  public void update_passesOnlyCountsSincePreviousUpdate() {
+    Key key = new ObjectKey("key");
+    memoryCache.remove(key);
+    controller.update();
+    memoryCache.remove(key);
+    memoryCache.remove(key);
+
+    assertThat(updateAndCaptureSignals().getMemoryCacheLookupCount()).isEqualTo(2L);
+  }
+
+  @Test
+  public void update_afterStatsReset_passesCountsSinceReset() {
+    Key key = new ObjectKey("key");
+    memoryCache.remove(key);
+    memoryCache.remove(key);
+    controller.update();
+    memoryCache.getStats().reset();
+    memoryCache.remove(key);
+
+    assertThat(updateAndCaptureSignals().getMemoryCacheLookupCount()).isEqualTo(1L);
+  }
+
+  @Test
+  public void update_passesAndClearsAllocationFailures() {
+    controller.recordAllocationFailure();
+    controller.recordAllocationFailure();
+
+    assertThat(updateAndCaptureSignals().getAllocationFailureCount()).isEqualTo(2);
+    assertThat(updateAndCaptureSignals().getAllocationFailureCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void update_withNewBudget_appliesMultipliersInOrder() {
+    when(policy.update(any(MemorySignals.class), any(MemoryBudget.class)))
+        .thenReturn(new MemoryBudget(1.2f, 0.8f, 0.5f));
+
+    controller.update();
+
+    InOrder order = inOrder(memoryCache, bitmapPool);
+    order.verify(memoryCache).setSizeMultiplier(eq(1.2f));
+    order.verify(bitmapPool).setSizeMultiplier(eq(0.8f));
+    assertThat(controller.getBudget()).isEqualTo(new MemoryBudget(1.2f, 0.8f, 0.5f));
+  }
+
+  @Test
+  public void update_withUnchangedBudget_doesNotApply() {
+    controller.update();
+
+    verify(memoryCache, never()).setSizeMultiplier(anyFloat());
+    verify(bitmapPool, never()).setSizeMultiplier(anyFloat());
+  }
+
+  @Test
+  public void update_passesPreviousBudgetToPolicy() {
+    MemoryBudget first = new MemoryBudget(0.5f, 0.5f, 0.5f);
+    when(policy.update(any(MemorySignals.class), any(MemoryBudget.class))).thenReturn(first);
+    controller.update();
+
+    controller.update();
+
+    verify(policy).update(any(MemorySignals.class), eq(first));
+  }
+
+  @Test
+  public void setBaseMultiplier_scalesBudget() {
+    when(policy.update(any(MemorySignals.class), any(MemoryBudget.class)))
+        .thenReturn(new MemoryBudget(1.2f, 0.8f, 1f));
+    controller.update();
+
+    controller.setBaseMultiplier(0.5f);
+
+    verify(memoryCache).setSizeMultiplier(eq(0.6f));
+    verify(bitmapPool).setSizeMultiplier(eq(0.4f));
+  }
+
+  @Test
+  public void start_updatesPeriodically() {
+    controller.start();
+    verify(policy, never()).update(any(MemorySignals.class), any(MemoryBudget.class));
+
+    ShadowLooper.idleMainLooper(INTERVAL_MS, TimeUnit.MILLISECONDS);
+    verify(policy, times(1)).update(any(MemorySignals.class), any(MemoryBudget.class));
+
+    ShadowLooper.idleMainLooper(INTERVAL_MS, TimeUnit.MILLISECONDS);
+    verify(policy, times(2)).update(any(MemorySignals.class), any(MemoryBudget.class));
+  }
+
+  @Test
+  public void start_calledTwice_updatesOncePerInterval() {
+    controller.start();
+    controller.start();
+
+    ShadowLooper.idleMainLooper(INTERVAL_MS, TimeUnit.MILLISECONDS);
+
+    verify(policy, times(1)).update(any(MemorySignals.class), any(MemoryBudget.class));
+  }
+
+  @Test
+  public void stop_stopsUpdates() {
+    controller.start();
+    controller.stop();
+
+    ShadowLooper.idleMainLooper(10 * INTERVAL_MS, TimeUnit.MILLISECONDS);
+
+    verify(policy, never()).update(any(MemorySignals.class), any(MemoryBudget.class));
+  }
+
+  private MemorySignals updateAndCaptureSignals() {
+    controller.update();
+    ArgumentCaptor<MemorySignals> captor = ArgumentCaptor.forClass(MemorySignals.class);
+    verify(policy, atLeastOnce())
+        .update(captor.capture(), any(MemoryBudget.class));
+    return captor.getValue();
+  }
+
+  private static final class FakeHeapInfo implements MemoryBudgetController.HeapInfo {
+    long usedBytes;
+    long maxBytes;
+
+    @Override
+    public long getUsedBytes() {
+      return usedBytes;
+    }
+
+    @Override
+    public long getMaxBytes() {
+      return maxBytes;
+    }
+  }
+}
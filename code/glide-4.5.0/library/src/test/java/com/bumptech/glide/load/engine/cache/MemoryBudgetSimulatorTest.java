@@ -0,0 +1,235 @@
+package com.bumptech.glide.load.engine.cache;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.support.annotation.NonNull;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Random;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class MemoryBudgetSimulatorTest {
+  private static final int SIZE = 100;
+
+  @Test
+  public void run_withRepeatedLookups_hitsAfterFirstLookup() {
+    MemoryTrace trace = new MemoryTrace.Builder()
+        .addLookup("a", SIZE)
+        .addLookup("a", SIZE)
+        .addLookup("a", SIZE)
+        .build();
+
+    MemoryBudgetSimulator.Result result =
+        new MemoryBudgetSimulator(SIZE, SIZE).run(trace, new FixedPolicy());
+
+    assertThat(result.getMemoryCacheHitCount()).isEqualTo(2L);
+    assertThat(result.getMemoryCacheMissCount()).isEqualTo(1L);
+  }
+
+  @Test
+  public void run_withMemoryCacheTooSmall_evictsLeastRecentlyUsed() {
+    MemoryTrace trace = new MemoryTrace.Builder()
+        .addLookup("a", SIZE)
+        .addLookup("b", SIZE)
+        .addLookup("a", SIZE)
+        .addLookup("c", SIZE)
+        .addLookup("a", SIZE)
+        .addLookup("b", SIZE)
+        .build();
+
+    MemoryBudgetSimulator.Result result =
+        new MemoryBudgetSimulator(2 * SIZE, SIZE).run(trace, new FixedPolicy());
+
+    // a and c are cached when b is looked up again.
+    assertThat(result.getMemoryCacheHitCount()).isEqualTo(2L);
+  }
+
+  @Test
+  public void run_withBitmapPool_reusesLargerBitmapsWithinMaxSizeMultiple() {
+    MemoryTrace trace = new MemoryTrace.Builder()
+        .addBitmapPut(SIZE)
+        .addBitmapGet(SIZE / 2)
+        .addBitmapPut(SIZE)
+        .addBitmapGet(SIZE / MemoryBudgetSimulator.MAX_SIZE_MULTIPLE - 1)
+        .addBitmapGet(SIZE + 1)
+        .build();
+
+    MemoryBudgetSimulator.Result result =
+        new MemoryBudgetSimulator(SIZE, SIZE).run(trace, new FixedPolicy());
+
+    assertThat(result.getBitmapPoolHitCount()).isEqualTo(1L);
+    assertThat(result.getBitmapPoolMissCount()).isEqualTo(2L);
+  }
+
+  @Test
+  public void run_withSmallerBudget_evictsFromMemoryCache() {
+    MemoryTrace trace = new MemoryTrace.Builder()
+        .addLookup("a", SIZE)
+        .addLookup("b", SIZE)
+        .addSample(0.5f, 0)
+        .addLookup("b", SIZE)
+        .addLookup("a", SIZE)
+        .build();
+
+    MemoryBudgetSimulator.Result result = new MemoryBudgetSimulator(2 * SIZE, SIZE)
+        .run(trace, new FixedPolicy(new MemoryBudget(0.5f, 1f, 1f)));
+
+    // Only b, the most recently used, fits in the smaller cache.
+    assertThat(result.getMemoryCacheHitCount()).isEqualTo(1L);
+    assertThat(result.getBudgets())
+        .containsExactly(MemoryBudget.DEFAULT, new MemoryBudget(0.5f, 1f, 1f))
+        .inOrder();
+  }
+
+  @Test
+  public void run_passesCountsSincePreviousSampleToPolicy() {
+    MemoryTrace trace = new MemoryTrace.Builder()
+        .addLookup("a", SIZE)
+        .addLookup("a", SIZE)
+        .addBitmapGet(SIZE)
+        .addSample(0.5f, 2)
+        .addLookup("a", SIZE)
+        .addSample(0.6f, 0)
+        .build();
+    RecordingPolicy policy = new RecordingPolicy();
+
+    new MemoryBudgetSimulator(SIZE, SIZE).run(trace, policy);
+
+    assertThat(policy.first.getMemoryCacheLookupCount()).isEqualTo(2L);
+    assertThat(policy.first.getMemoryCacheHitCount()).isEqualTo(1L);
+    assertThat(policy.first.getBitmapPoolGetCount()).isEqualTo(1L);
+    assertThat(policy.first.getAllocationFailureCount()).isEqualTo(2);
+    assertThat(policy.last.getMemoryCacheLookupCount()).isEqualTo(1L);
+    assertThat(policy.last.getBitmapPoolGetCount()).isEqualTo(0L);
+    assertThat(policy.last.getHeapUsedFraction()).isWithin(0.001f).of(0.6f);
+  }
+
+  @Test
+  public void run_withSameTraceAndPolicy_isDeterministic() {
+    MemoryTrace trace = createRandomTrace(1234);
+    MemoryBudgetSimulator simulator = new MemoryBudgetSimulator(20 * SIZE, 20 * SIZE);
+
+    MemoryBudgetSimulator.Result first = simulator.run(trace, new AdaptiveMemoryBudgetPolicy());
+    MemoryBudgetSimulator.Result second = simulator.run(trace, new AdaptiveMemoryBudgetPolicy());
+
+    assertThat(second.getMemoryCacheHitCount()).isEqualTo(first.getMemoryCacheHitCount());
+    assertThat(second.getBitmapPoolHitCount()).isEqualTo(first.getBitmapPoolHitCount());
+    assertThat(second.getBudgets()).isEqualTo(first.getBudgets());
+  }
+
+  @Test
+  public void run_withAdaptivePolicy_andBitmapPoolMissingMore_movesBudgetToBitmapPool() {
+    MemoryTrace.Builder builder = new MemoryTrace.Builder();
+    for (int sample = 0; sample < 5; sample++) {
+      for (int i = 0; i < 50; i++) {
+        builder.addLookup("key" + (sample * 50 + i), SIZE);
+        builder.addBitmapGet(SIZE);
+        builder.addBitmapPut(SIZE);
+      }
+      builder.addSample(0.7f, 0);
+    }
+
+    MemoryBudgetSimulator.Result result = new MemoryBudgetSimulator(20 * SIZE, 20 * SIZE)
+        .run(builder.build(), new AdaptiveMemoryBudgetPolicy());
+
+    assertThat(result.getFinalBudget().getBitmapPoolMultiplier())
+        .isGreaterThan(result.getFinalBudget().getMemoryCacheMultiplier());
+  }
+
+  @Test
+  public void trace_writeThenRead_returnsEquivalentTrace() throws IOException {
+    MemoryTrace trace = createRandomTrace(5678);
+    StringWriter writer = new StringWriter();
+    trace.write(writer);
+
+    MemoryTrace read = MemoryTrace.read(new StringReader(writer.toString()));
+    StringWriter rewritten = new StringWriter();
+    read.write(rewritten);
+
+    assertThat(read.size()).isEqualTo(trace.size());
+    assertThat(rewritten.toString()).isEqualTo(writer.toString());
+  }
+
+  @Test
+  public void trace_read_ignoresCommentsAndBlankLines() throws IOException {
+    MemoryTrace trace = MemoryTrace.read(new StringReader(
+        "# A comment\n\nL key 10\n  G 20  \nP 30\nS 0.5 1\n"));
+
+    assertThat(trace.size()).isEqualTo(4);
+  }
+
+  @Test(expected = IOException.class)
+  public void trace_read_withUnknownEvent_throws() throws IOException {
+    MemoryTrace.read(new StringReader("X 10\n"));
+  }
+
+  @Test(expected = IOException.class)
+  public void trace_read_withInvalidNumber_throws() throws IOException {
+    MemoryTrace.read(new StringReader("G ten\n"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void trace_addLookup_withWhitespaceInKey_throws() {
+    new MemoryTrace.Builder().addLookup("a key", SIZE);
+  }
+
+  private static MemoryTrace createRandomTrace(long seed) {
+    Random random = new Random(seed);
+    MemoryTrace.Builder builder = new MemoryTrace.Builder();
+    for (int i = 0; i < 2000; i++) {
+      int size = SIZE * (1 + random.nextInt(4));
+      switch (random.nextInt(3)) {
+        case 0:
+          builder.addLookup("key" + random.nextInt(40), size);
+          break;
+        case 1:
+          builder.addBitmapGet(size);
+          break;
+        default:
+          builder.addBitmapPut(size);
+          break;
+      }
+      if (i % 100 == 99) {
+        builder.addSample(random.nextFloat(), random.nextInt(10) == 0 ? 1 : 0);
+      }
+    }
+    return builder.build();
+  }
+
+  private static final class FixedPolicy implements MemoryBudgetPolicy {
+    private final MemoryBudget budget;
+
+    FixedPolicy() {
+      this(MemoryBudget.DEFAULT);
+    }
+
+    FixedPolicy(MemoryBudget budget) {
+      this.budget = budget;
+    }
+
+    @NonNull
+    @Override
+    public MemoryBudget update(@NonNull MemorySignals signals, @NonNull MemoryBudget current) {
+      return budget;
+    }
+  }
+
+  private static final class RecordingPolicy implements MemoryBudgetPolicy {
+    MemorySignals first;
+    MemorySignals last;
+
+    @NonNull
+    @Override
+    public MemoryBudget update(@NonNull MemorySignals signals, @NonNull MemoryBudget current) {
+      if (first == null) {
+        first = signals;
+      }
+      last = signals;
+      return current;
+    }
+  }
+}
@@ -0,0 +1,80 @@
+package com.bumptech.glide.load.engine.cache;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class Murmur3MessageDigestTest {
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private MessageDigest digest;
+
+  @Before
+  public void setUp() {
+    digest = new Murmur3MessageDigest();
+  }
+
+  @Test
+  public void digest_withEmptyInput_returnsZeros() {
+    assertThat(digest.digest()).isEqualTo(new byte[16]);
+  }
+
+  @Test
+  public void digest_withShortInput_matchesReferenceImplementation() {
+    assertThat(digest.digest("hell".getBytes(UTF_8)))
+        .isEqualTo(toBytes(0x629942693e10f867L, 0x92db0b82baeb5347L));
+  }
+
+  @Test
+  public void digest_withMultipleBlocks_matchesReferenceImplementation() {
+    assertThat(digest.digest("The quick brown fox jumps over the lazy dog".getBytes(UTF_8)))
+        .isEqualTo(toBytes(0xe34bbc7bbc071b6cL, 0x7a433ca9c49a9347L));
+  }
+
+  @Test
+  public void digest_withChunkedUpdates_matchesSingleUpdate() {
+    byte[] input = new byte[257];
+    new Random(1).nextBytes(input);
+    byte[] expected = digest.digest(input);
+
+    for (int chunkSize = 1; chunkSize < 40; chunkSize++) {
+      for (int i = 0; i < input.length; i += chunkSize) {
+        int length = Math.min(chunkSize, input.length - i);
+        if (length == 1) {
+          digest.update(input[i]);
+        } else {
+          digest.update(input, i, length);
+        }
+      }
+      assertThat(digest.digest()).isEqualTo(expected);
+    }
+  }
+
+  @Test
+  public void digest_resetsDigest() {
+    byte[] first = digest.digest("first".getBytes(UTF_8));
+    digest.digest("second".getBytes(UTF_8));
+
+    assertThat(digest.digest("first".getBytes(UTF_8))).isEqualTo(first);
+  }
+
+  @Test
+  public void getDigestLength_returns16() {
+    assertThat(digest.getDigestLength()).isEqualTo(16);
+  }
+
+  private static byte[] toBytes(long h1, long h2) {
+    byte[] result = new byte[16];
+    for (int i = 0; i < 8; i++) {
+      result[i] = (byte) (h1 >>> (8 * i));
+      result[i + 8] = (byte) (h2 >>> (8 * i));
+    }
+    return result;
+  }
+}
@@ -1,5 +1,6 @@
 package com.bumptech.glide.load.engine.cache;
 
+import static com.google.common.truth.Truth.assertThat;
 import static org.junit.Assert.assertTrue;
 
 import android.support.annotation.NonNull;
@@ -35,6 +36,48 @@ public class SafeKeyGeneratorTest {
     }
   }
 
+  @Test
+  public void getSafeKey_withDefaultDigest_returnsSha256Hex() {
+    assertThat(keyGenerator.getSafeKey(new MockKey("abc")))
+        .isEqualTo("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad");
+  }
+
+  @Test
+  public void getSafeKey_withMurmur3Digest_returnsValidKeys() {
+    keyGenerator = new SafeKeyGenerator(SafeKeyGenerator.MURMUR3_128);
+    Pattern diskCacheRegex = Pattern.compile("[a-z0-9]{32}");
+    for (int i = 0; i < 1000; i++) {
+      String key = getRandomKeyFromGenerator();
+      assertTrue(key, diskCacheRegex.matcher(key).matches());
+    }
+  }
+
+  @Test
+  public void getSafeKey_withCachedKey_doesNotRecalculateDigest() {
+    CountingKey key = new CountingKey("key");
+    String first = keyGenerator.getSafeKey(key);
+    String second = keyGenerator.getSafeKey(key);
+
+    assertThat(second).isEqualTo(first);
+    assertThat(key.updateCount).isEqualTo(1);
+  }
+
+  @Test
+  public void getSafeKey_withManyKeys_returnsSameKeysAsNewGenerator() {
+    SafeKeyGenerator other = new SafeKeyGenerator();
+    for (int i = 0; i < 3000; i++) {
+      MockKey key = new MockKey(String.valueOf(i % 1500));
+      assertThat(keyGenerator.getSafeKey(key)).isEqualTo(other.getSafeKey(key));
+    }
+  }
+
+  @Test
+  public void getCacheFormatVersion_differsBetweenDigests() {
+    assertThat(new SafeKeyGenerator().getCacheFormatVersion()).isEqualTo(1);
+    assertThat(new SafeKeyGenerator(SafeKeyGenerator.MURMUR3_128).getCacheFormatVersion())
+        .isNotEqualTo(1);
+  }
+
   private String getRandomKeyFromGenerator() {
     return keyGenerator.getSafeKey(new MockKey(getNextId()));
   }
@@ -43,6 +86,21 @@ public class SafeKeyGeneratorTest {
     return String.valueOf(nextId++);
   }
 
+  private static final class CountingKey implements Key {
+    private final String id;
+    private int updateCount;
+
+    CountingKey(String id) {
+      this.id = id;
+    }
+
+    @Override
+    public void updateDiskCacheKey(@NonNull MessageDigest messageDigest) {
+      updateCount++;
+      messageDigest.update(id.getBytes(CHARSET));
+    }
+  }
+
   private static final class MockKey implements Key {
     private final String id;
 
@@ -54,5 +112,15 @@ public class SafeKeyGeneratorTest {
     public void updateDiskCacheKey(@NonNull MessageDigest messageDigest) {
       messageDigest.update(id.getBytes(CHARSET));
     }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof MockKey && id.equals(((MockKey) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+      return id.hashCode();
+    }
   }
 }
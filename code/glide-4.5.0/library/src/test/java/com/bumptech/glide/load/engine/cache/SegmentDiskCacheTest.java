@@ -0,0 +1,329 @@
+package com.bumptech.glide.load.engine.cache;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.fail;
+
+import android.support.annotation.NonNull;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.signature.ObjectKey;
+import com.bumptech.glide.tests.Util;
+import com.bumptech.glide.util.ByteBufferUtil;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 18)
+public class SegmentDiskCacheTest {
+  private static final int SEGMENT_SIZE = 100;
+  private static final Executor DIRECT_EXECUTOR = new Executor() {
+    @Override
+    public void execute(@NonNull Runnable command) {
+      command.run();
+    }
+  };
+
+  private SegmentDiskCache cache;
+  private File dir;
+
+  @Before
+  public void setUp() {
+    dir = new File(RuntimeEnvironment.application.getCacheDir(), "segments");
+    cache = newCache(10 * SEGMENT_SIZE);
+  }
+
+  @After
+  public void tearDown() {
+    cache.clear();
+    deleteRecursive(dir);
+  }
+
+  private SegmentDiskCache newCache(long maxSize) {
+    return new SegmentDiskCache(dir, maxSize, SEGMENT_SIZE, DIRECT_EXECUTOR);
+  }
+
+  private static void deleteRecursive(File file) {
+    if (file.isDirectory()) {
+      File[] files = file.listFiles();
+      if (files != null) {
+        for (File f : files) {
+          deleteRecursive(f);
+        }
+      }
+    }
+    if (!file.delete() && file.exists()) {
+      throw new RuntimeException("Failed to delete: " + file);
+    }
+  }
+
+  @Test
+  public void get_afterPut_returnsFileWithData() throws IOException {
+    Key key = new ObjectKey("key");
+    byte[] data = put(key, 10);
+
+    assertArrayEquals(data, Util.readFile(cache.get(key), data.length));
+  }
+
+  @Test
+  public void getBuffer_afterPut_returnsData() {
+    Key key = new ObjectKey("key");
+    byte[] data = put(key, 10);
+
+    assertArrayEquals(data, ByteBufferUtil.toBytes(cache.getBuffer(key)));
+  }
+
+  @Test
+  public void getBuffer_withMultipleEntries_returnsDataForEachEntry() {
+    byte[][] data = new byte[20][];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = put(new ObjectKey(i), 10 + i);
+    }
+
+    for (int i = 0; i < data.length; i++) {
+      assertArrayEquals(data[i], ByteBufferUtil.toBytes(cache.getBuffer(new ObjectKey(i))));
+    }
+  }
+
+  @Test
+  public void getBuffer_withMissingKey_returnsNull() {
+    assertThat(cache.getBuffer(new ObjectKey("missing"))).isNull();
+    assertThat(cache.get(new ObjectKey("missing"))).isNull();
+  }
+
+  @Test
+  public void put_packsSmallEntriesInToSharedSegments() {
+    for (int i = 0; i < 10; i++) {
+      put(new ObjectKey(i), 10);
+    }
+
+    assertThat(cache.getSegmentCount()).isEqualTo(1);
+    assertThat(cache.getCurrentSize()).isEqualTo(100);
+  }
+
+  @Test
+  public void put_withEntryLargerThanSegmentSize_storesEntry() {
+    Key key = new ObjectKey("key");
+    byte[] data = put(key, SEGMENT_SIZE * 2);
+
+    assertArrayEquals(data, ByteBufferUtil.toBytes(cache.getBuffer(key)));
+  }
+
+  @Test
+  public void put_withWriterReturningFalse_doesNotCommit() {
+    Key key = new ObjectKey("key");
+    cache.put(key, new DiskCache.Writer() {
+      @Override
+      public boolean write(@NonNull File file) {
+        writeFile(file, new byte[] {1, 2, 3});
+        return false;
+      }
+    });
+
+    assertThat(cache.getBuffer(key)).isNull();
+  }
+
+  @Test
+  public void put_afterWriterThrows_canPutAgain() {
+    Key key = new ObjectKey("key");
+    try {
+      cache.put(key, new DiskCache.Writer() {
+        @Override
+        public boolean write(@NonNull File file) {
+          throw new RuntimeException("test");
+        }
+      });
+    } catch (RuntimeException e) {
+      // Expected.
+    }
+
+    byte[] data = put(key, 10);
+
+    assertArrayEquals(data, ByteBufferUtil.toBytes(cache.getBuffer(key)));
+  }
+
+  @Test
+  public void put_withExistingEntry_keepsExistingEntry() {
+    Key key = new ObjectKey("key");
+    byte[] data = put(key, 10);
+    put(key, 20);
+
+    assertArrayEquals(data, ByteBufferUtil.toBytes(cache.getBuffer(key)));
+  }
+
+  @Test
+  public void delete_removesEntry() {
+    Key key = new ObjectKey("key");
+    put(key, 10);
+
+    cache.delete(key);
+
+    assertThat(cache.getBuffer(key)).isNull();
+    assertThat(cache.get(key)).isNull();
+  }
+
+  @Test
+  public void delete_withMostOfSegmentDeleted_compactsSegment() {
+    for (int i = 0; i < 10; i++) {
+      put(new ObjectKey(i), 10);
+    }
+    // Start a new segment so that the first one is sealed.
+    byte[] last = put(new ObjectKey("last"), 10);
+
+    for (int i = 1; i < 10; i++) {
+      cache.delete(new ObjectKey(i));
+    }
+
+    // Once fewer than half of the entries in the first segment were live, the remaining four were
+    // copied in to the active segment and the first segment was deleted.
+    assertThat(cache.getSegmentCount()).isEqualTo(1);
+    assertThat(cache.getCurrentSize()).isEqualTo(50);
+    assertThat(cache.getBuffer(new ObjectKey(1))).isNull();
+    assertThat(ByteBufferUtil.toBytes(cache.getBuffer(new ObjectKey(0)))).hasLength(10);
+    assertArrayEquals(last, ByteBufferUtil.toBytes(cache.getBuffer(new ObjectKey("last"))));
+  }
+
+  @Test
+  public void delete_withMostIndexRecordsStale_rewritesIndexAndKeepsEntries() {
+    byte[] kept = put(new ObjectKey("kept"), 10);
+    for (int i = 0; i < 100; i++) {
+      put(new ObjectKey(i), 1);
+      cache.delete(new ObjectKey(i));
+    }
+
+    // Without a rewrite, each put and delete would have left a record in the index.
+    assertThat(cache.getIndexRecordCount()).isLessThan(100);
+    assertThat(new File(dir, "segments.index.tmp").exists()).isFalse();
+
+    cache = newCache(10 * SEGMENT_SIZE);
+    assertArrayEquals(kept, ByteBufferUtil.toBytes(cache.getBuffer(new ObjectKey("kept"))));
+    assertThat(cache.getBuffer(new ObjectKey(99))).isNull();
+  }
+
+  @Test
+  public void getBuffer_afterReopening_withLeftoverIndexRewrite_keepsPreviousIndex()
+      throws IOException {
+    byte[] data = put(new ObjectKey("key"), 10);
+    File leftover = new File(dir, "segments.index.tmp");
+    Util.writeFile(leftover, new byte[] {1, 2, 3});
+
+    cache = newCache(10 * SEGMENT_SIZE);
+
+    assertArrayEquals(data, ByteBufferUtil.toBytes(cache.getBuffer(new ObjectKey("key"))));
+    assertThat(leftover.exists()).isFalse();
+  }
+
+  @Test
+  public void put_beyondMaxSize_dropsOldestSegment() {
+    cache = newCache(2 * SEGMENT_SIZE);
+    for (int i = 0; i < 30; i++) {
+      put(new ObjectKey(i), 10);
+    }
+
+    assertThat(cache.getCurrentSize()).isAtMost(2L * SEGMENT_SIZE);
+    assertThat(cache.getBuffer(new ObjectKey(0))).isNull();
+    assertThat(cache.getBuffer(new ObjectKey(29))).isNotNull();
+  }
+
+  @Test
+  public void put_beyondMaxSize_keepsRecentlyReadEntriesFromOldestSegment() {
+    cache = newCache(2 * SEGMENT_SIZE);
+    byte[] data = put(new ObjectKey(0), 10);
+    for (int i = 1; i < 10; i++) {
+      put(new ObjectKey(i), 10);
+    }
+    cache.getBuffer(new ObjectKey(0));
+
+    for (int i = 10; i < 30; i++) {
+      put(new ObjectKey(i), 10);
+    }
+
+    assertArrayEquals(data, ByteBufferUtil.toBytes(cache.getBuffer(new ObjectKey(0))));
+    assertThat(cache.getBuffer(new ObjectKey(1))).isNull();
+    assertThat(cache.getCurrentSize()).isAtMost(2L * SEGMENT_SIZE);
+  }
+
+  @Test
+  public void getBuffer_afterReopening_returnsData() {
+    byte[][] data = new byte[25][];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = put(new ObjectKey(i), 10);
+    }
+    cache.delete(new ObjectKey(3));
+
+    cache = newCache(10 * SEGMENT_SIZE);
+
+    assertThat(cache.getBuffer(new ObjectKey(3))).isNull();
+    for (int i = 0; i < data.length; i++) {
+      if (i != 3) {
+        assertArrayEquals(data[i], ByteBufferUtil.toBytes(cache.getBuffer(new ObjectKey(i))));
+      }
+    }
+  }
+
+  @Test
+  public void getBuffer_afterReopeningWithDifferentDigest_discardsExistingEntries() {
+    Key key = new ObjectKey("key");
+    put(key, 10);
+
+    cache = new SegmentDiskCache(
+        dir, 10 * SEGMENT_SIZE, SEGMENT_SIZE, DIRECT_EXECUTOR, SafeKeyGenerator.MURMUR3_128);
+
+    assertThat(cache.getBuffer(key)).isNull();
+    assertThat(cache.getCurrentSize()).isEqualTo(0);
+    byte[] data = put(key, 10);
+    assertArrayEquals(data, ByteBufferUtil.toBytes(cache.getBuffer(key)));
+  }
+
+  @Test
+  public void clear_removesAllEntries() {
+    Key key = new ObjectKey("key");
+    put(key, 10);
+
+    cache.clear();
+
+    assertThat(cache.getBuffer(key)).isNull();
+    assertThat(cache.getCurrentSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void put_afterClear_storesEntry() {
+    put(new ObjectKey("first"), 10);
+    cache.clear();
+
+    Key key = new ObjectKey("second");
+    byte[] data = put(key, 10);
+
+    assertArrayEquals(data, ByteBufferUtil.toBytes(cache.getBuffer(key)));
+  }
+
+  private byte[] put(Key key, int length) {
+    final byte[] data = new byte[length];
+    for (int i = 0; i < length; i++) {
+      data[i] = (byte) (key.hashCode() + i);
+    }
+    cache.put(key, new DiskCache.Writer() {
+      @Override
+      public boolean write(@NonNull File file) {
+        writeFile(file, data);
+        return true;
+      }
+    });
+    return data;
+  }
+
+  private static void writeFile(File file, byte[] data) {
+    try {
+      Util.writeFile(file, data);
+    } catch (IOException e) {
+      fail(e.toString());
+    }
+  }
+}
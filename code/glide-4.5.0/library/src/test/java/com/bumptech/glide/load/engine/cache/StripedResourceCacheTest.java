@@ -0,0 +1,337 @@
+package com.bumptech.glide.load.engine.cache;
+
+import static com.bumptech.glide.load.engine.cache.MemoryCache.ResourceRemovedListener;
+import static com.bumptech.glide.tests.Util.mockResource;
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.ComponentCallbacks2;
+import android.support.annotation.NonNull;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.load.engine.Resource;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class StripedResourceCacheTest {
+
+  @Test
+  public void constructor_roundsConcurrencyLevelUpToPowerOfTwo() {
+    assertThat(new StripedResourceCache(100, 1).getSegmentCount()).isEqualTo(1);
+    assertThat(new StripedResourceCache(100, 3).getSegmentCount()).isEqualTo(4);
+    assertThat(new StripedResourceCache(100, 16).getSegmentCount()).isEqualTo(16);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void constructor_withZeroConcurrencyLevel_throws() {
+    new StripedResourceCache(100, 0);
+  }
+
+  @Test
+  public void put_withExistingItem_updatesSizeCorrectly() {
+    PutWithExistingEntryHarness harness = new PutWithExistingEntryHarness();
+    harness.cache.put(harness.key, harness.first);
+    harness.cache.put(harness.key, harness.second);
+
+    assertThat(harness.cache.getCurrentSize()).isEqualTo(harness.second.getSize());
+  }
+
+  @Test
+  public void put_withExistingItem_evictsExistingItem() {
+    PutWithExistingEntryHarness harness = new PutWithExistingEntryHarness();
+    harness.cache.put(harness.key, harness.first);
+    harness.cache.put(harness.key, harness.second);
+
+    verify(harness.listener).onResourceRemoved(harness.first);
+  }
+
+  @Test
+  public void get_afterPutWithExistingItem_returnsNewItem() {
+    PutWithExistingEntryHarness harness = new PutWithExistingEntryHarness();
+    harness.cache.put(harness.key, harness.first);
+    harness.cache.put(harness.key, harness.second);
+
+    assertThat(harness.cache.get(harness.key)).isEqualTo(harness.second);
+  }
+
+  @Test
+  public void remove_returnsItemAndUpdatesSize() {
+    PutWithExistingEntryHarness harness = new PutWithExistingEntryHarness();
+    harness.cache.put(harness.key, harness.first);
+
+    assertThat(harness.cache.remove(harness.key)).isEqualTo(harness.first);
+    assertThat(harness.cache.getCurrentSize()).isEqualTo(0);
+    assertThat(harness.cache.remove(harness.key)).isNull();
+    verify(harness.listener, never()).onResourceRemoved(harness.first);
+  }
+
+  @Test
+  public void clearMemory_afterPutWithExistingItem_evictsOnlyNewItem() {
+    PutWithExistingEntryHarness harness = new PutWithExistingEntryHarness();
+    harness.cache.put(harness.key, harness.first);
+    harness.cache.put(harness.key, harness.second);
+
+    verify(harness.listener).onResourceRemoved(harness.first);
+    verify(harness.listener, never()).onResourceRemoved(harness.second);
+
+    harness.cache.clearMemory();
+
+    verify(harness.listener, times(1)).onResourceRemoved(harness.first);
+    verify(harness.listener).onResourceRemoved(harness.second);
+    assertThat(harness.cache.getCurrentSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void testTrimMemoryBackground() {
+    TrimClearMemoryCacheHarness harness = new TrimClearMemoryCacheHarness();
+
+    harness.resourceCache.trimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND);
+
+    verify(harness.listener).onResourceRemoved(eq(harness.first));
+    verify(harness.listener).onResourceRemoved(eq(harness.second));
+  }
+
+  @Test
+  public void testTrimMemoryModerate() {
+    TrimClearMemoryCacheHarness harness = new TrimClearMemoryCacheHarness();
+
+    harness.resourceCache.trimMemory(ComponentCallbacks2.TRIM_MEMORY_MODERATE);
+
+    verify(harness.listener).onResourceRemoved(harness.first);
+    verify(harness.listener).onResourceRemoved(harness.second);
+  }
+
+  @Test
+  public void testTrimMemoryUiHidden() {
+    TrimClearMemoryCacheHarness harness = new TrimClearMemoryCacheHarness();
+
+    harness.resourceCache.trimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+
+    verify(harness.listener).onResourceRemoved(harness.first);
+    verify(harness.listener, never()).onResourceRemoved(harness.second);
+  }
+
+  @Test
+  public void testResourceRemovedListenerIsNotifiedWhenResourceIsTooLarge() {
+    StripedResourceCache resourceCache = new StripedResourceCache(100);
+    Resource<?> resource = getResource(200);
+
+    ResourceRemovedListener listener = mock(ResourceRemovedListener.class);
+
+    resourceCache.setResourceRemovedListener(listener);
+    resourceCache.put(new MockKey(), resource);
+
+    verify(listener).onResourceRemoved(eq(resource));
+    assertThat(resourceCache.getCurrentSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void testSizeIsBasedOnResourceAcrossSegments() {
+    StripedResourceCache resourceCache = new StripedResourceCache(100, 4);
+    List<Key> keys = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      Key key = new MockKey();
+      keys.add(key);
+      resourceCache.put(key, getResource(25));
+    }
+
+    assertThat(resourceCache.getCurrentSize()).isEqualTo(100);
+    int present = 0;
+    for (Key key : keys) {
+      if (resourceCache.contains(key)) {
+        present++;
+      }
+    }
+    assertThat(present).isEqualTo(4);
+  }
+
+  @Test
+  public void testReferencedEntriesGetASecondChance() {
+    StripedResourceCache resourceCache = new StripedResourceCache(100, 1);
+    Key firstKey = new MockKey();
+    resourceCache.put(firstKey, getResource(40));
+    Key secondKey = new MockKey();
+    resourceCache.put(secondKey, getResource(40));
+
+    resourceCache.get(firstKey);
+    resourceCache.put(new MockKey(), getResource(40));
+
+    assertTrue(resourceCache.contains(firstKey));
+    assertFalse(resourceCache.contains(secondKey));
+  }
+
+  @Test
+  public void testSetSizeMultiplier_evictsUntilUnderNewSize() {
+    TrimClearMemoryCacheHarness harness = new TrimClearMemoryCacheHarness();
+
+    harness.resourceCache.setSizeMultiplier(0.5f);
+
+    assertThat(harness.resourceCache.getMaxSize()).isEqualTo(50);
+    assertThat(harness.resourceCache.getCurrentSize()).isEqualTo(50);
+    verify(harness.listener).onResourceRemoved(harness.first);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSetSizeMultiplier_withNegativeMultiplier_throws() {
+    new StripedResourceCache(100).setSizeMultiplier(-1);
+  }
+
+  @Test
+  public void testPreventEviction() {
+    final StripedResourceCache cache = new StripedResourceCache(100, 1);
+    final Resource<?> first = getResource(30);
+    final Key firstKey = new MockKey();
+    cache.put(firstKey, first);
+    Resource<?> second = getResource(30);
+    Key secondKey = new MockKey();
+    cache.put(secondKey, second);
+    Resource<?> third = getResource(30);
+    Key thirdKey = new MockKey();
+    cache.put(thirdKey, third);
+    cache.setResourceRemovedListener(new ResourceRemovedListener() {
+      @Override
+      public void onResourceRemoved(@NonNull Resource<?> removed) {
+        if (removed == first) {
+          cache.put(firstKey, first);
+        }
+      }
+    });
+
+    // trims from 100 to 50, having 30+30+30 items, it should trim to 1 item
+    cache.trimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+
+    // and that 1 item must be first, because it's forced to return to cache in the listener
+    assertTrue(cache.contains(firstKey));
+    assertFalse(cache.contains(secondKey));
+    assertFalse(cache.contains(thirdKey));
+  }
+
+  @Test
+  public void testConcurrentPutsAndRemoves_keepSizeConsistent() throws InterruptedException {
+    final StripedResourceCache cache = new StripedResourceCache(10_000, 8);
+    final AtomicLong evictedSize = new AtomicLong();
+    final AtomicLong removedSize = new AtomicLong();
+    cache.setResourceRemovedListener(new ResourceRemovedListener() {
+      @Override
+      public void onResourceRemoved(@NonNull Resource<?> removed) {
+        evictedSize.addAndGet(removed.getSize());
+      }
+    });
+    final int threadCount = 8;
+    final int keysPerThread = 200;
+    final CountDownLatch latch = new CountDownLatch(threadCount);
+    final Resource<?> resource = new FakeResource(100);
+    for (int i = 0; i < threadCount; i++) {
+      new Thread(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            for (int j = 0; j < keysPerThread; j++) {
+              Key key = new MockKey();
+              cache.put(key, resource);
+              if (j % 2 == 0) {
+                Resource<?> removed = cache.remove(key);
+                if (removed != null) {
+                  removedSize.addAndGet(removed.getSize());
+                }
+              }
+            }
+          } finally {
+            latch.countDown();
+          }
+        }
+      }).start();
+    }
+    latch.await();
+
+    assertThat(cache.getCurrentSize()).isAtMost(cache.getMaxSize());
+    assertThat(cache.getCurrentSize() + evictedSize.get() + removedSize.get())
+        .isEqualTo(threadCount * keysPerThread * 100L);
+  }
+
+  private Resource<?> getResource(int size) {
+    Resource<?> resource = mockResource();
+    when(resource.getSize()).thenReturn(size);
+    return resource;
+  }
+
+  private static final class FakeResource implements Resource<Object> {
+    private final Object resource = new Object();
+    private final int size;
+
+    FakeResource(int size) {
+      this.size = size;
+    }
+
+    @NonNull
+    @Override
+    public Class<Object> getResourceClass() {
+      return Object.class;
+    }
+
+    @NonNull
+    @Override
+    public Object get() {
+      return resource;
+    }
+
+    @Override
+    public int getSize() {
+      return size;
+    }
+
+    @Override
+    public void recycle() {
+      // Do nothing.
+    }
+  }
+
+  private static class MockKey implements Key {
+    @Override
+    public void updateDiskCacheKey(@NonNull MessageDigest messageDigest) {
+      messageDigest.update(toString().getBytes(CHARSET));
+    }
+  }
+
+  private static class PutWithExistingEntryHarness {
+    final StripedResourceCache cache = new StripedResourceCache(100);
+    final Resource<?> first = mockResource();
+    final Resource<?> second = mockResource();
+    final ResourceRemovedListener listener = mock(ResourceRemovedListener.class);
+    final Key key = new MockKey();
+
+    PutWithExistingEntryHarness() {
+      when(first.getSize()).thenReturn(50);
+      when(second.getSize()).thenReturn(50);
+      cache.setResourceRemovedListener(listener);
+    }
+  }
+
+  private static class TrimClearMemoryCacheHarness {
+    final StripedResourceCache resourceCache = new StripedResourceCache(100, 1);
+    final Resource<?> first = mockResource();
+    final Resource<?> second = mockResource();
+    final ResourceRemovedListener listener = mock(ResourceRemovedListener.class);
+
+    TrimClearMemoryCacheHarness() {
+      when(first.getSize()).thenReturn(50);
+      when(second.getSize()).thenReturn(50);
+      resourceCache.put(new MockKey(), first);
+      resourceCache.put(new MockKey(), second);
+      resourceCache.setResourceRemovedListener(listener);
+    }
+  }
+}
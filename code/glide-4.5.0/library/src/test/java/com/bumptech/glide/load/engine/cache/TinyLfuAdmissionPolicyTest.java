@@ -0,0 +1,96 @@
+package com.bumptech.glide.load.engine.cache;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.signature.ObjectKey;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class TinyLfuAdmissionPolicyTest {
+  private TinyLfuAdmissionPolicy policy;
+
+  @Before
+  public void setUp() {
+    policy = new TinyLfuAdmissionPolicy(64);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void constructor_withZeroExpectedEntries_throws() {
+    new TinyLfuAdmissionPolicy(0);
+  }
+
+  @Test
+  public void frequency_withUnrecordedKey_returnsZero() {
+    assertThat(policy.frequency(new ObjectKey("unknown"))).isEqualTo(0);
+  }
+
+  @Test
+  public void frequency_countsRecordedRequests() {
+    Key key = new ObjectKey("key");
+    for (int i = 0; i < 5; i++) {
+      policy.record(key);
+    }
+
+    assertThat(policy.frequency(key)).isEqualTo(5);
+  }
+
+  @Test
+  public void frequency_isCappedAtMaxFrequency() {
+    Key key = new ObjectKey("key");
+    for (int i = 0; i < TinyLfuAdmissionPolicy.MAX_FREQUENCY * 2; i++) {
+      policy.record(key);
+    }
+
+    assertThat(policy.frequency(key)).isEqualTo(TinyLfuAdmissionPolicy.MAX_FREQUENCY);
+  }
+
+  @Test
+  public void admit_withMoreFrequentCandidate_returnsTrue() {
+    Key candidate = new ObjectKey("candidate");
+    Key victim = new ObjectKey("victim");
+    policy.record(candidate);
+    policy.record(candidate);
+    policy.record(victim);
+
+    assertThat(policy.admit(candidate, victim)).isTrue();
+  }
+
+  @Test
+  public void admit_withLessFrequentCandidate_returnsFalse() {
+    Key candidate = new ObjectKey("candidate");
+    Key victim = new ObjectKey("victim");
+    policy.record(candidate);
+    policy.record(victim);
+    policy.record(victim);
+
+    assertThat(policy.admit(candidate, victim)).isFalse();
+  }
+
+  @Test
+  public void admit_withEquallyFrequentCandidate_returnsFalse() {
+    Key candidate = new ObjectKey("candidate");
+    Key victim = new ObjectKey("victim");
+    policy.record(candidate);
+    policy.record(victim);
+
+    assertThat(policy.admit(candidate, victim)).isFalse();
+  }
+
+  @Test
+  public void record_afterSampleSize_halvesFrequencies() {
+    Key key = new ObjectKey("key");
+    for (int i = 0; i < 8; i++) {
+      policy.record(key);
+    }
+    // Enough distinct keys to trigger at least one reset.
+    for (int i = 0; i < 64 * 10; i++) {
+      policy.record(new ObjectKey(i));
+    }
+
+    assertThat(policy.frequency(key)).isLessThan(8);
+  }
+}
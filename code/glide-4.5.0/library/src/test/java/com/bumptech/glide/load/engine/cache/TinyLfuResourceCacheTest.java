@@ -0,0 +1,296 @@
+package com.bumptech.glide.load.engine.cache;
+
+import static com.bumptech.glide.load.engine.cache.MemoryCache.ResourceRemovedListener;
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.ComponentCallbacks2;
+import android.support.annotation.NonNull;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.load.engine.Resource;
+import com.bumptech.glide.signature.ObjectKey;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class TinyLfuResourceCacheTest {
+  private static final int SIZE = 100;
+
+  private ResourceRemovedListener listener;
+  private TinyLfuResourceCache cache;
+
+  @Before
+  public void setUp() {
+    listener = mock(ResourceRemovedListener.class);
+    cache = new TinyLfuResourceCache(SIZE);
+    cache.setResourceRemovedListener(listener);
+  }
+
+  @Test
+  public void put_addsResourceToWindow() {
+    Key key = new ObjectKey("key");
+    Resource<?> resource = new FakeResource(1);
+    cache.put(key, resource);
+
+    assertThat(cache.isInWindow(key)).isTrue();
+    assertThat(cache.get(key)).isEqualTo(resource);
+    assertThat(cache.getCurrentSize()).isEqualTo(1);
+  }
+
+  @Test
+  public void put_withResourceLargerThanCache_removesResource() {
+    Resource<?> resource = new FakeResource(SIZE);
+    cache.put(new ObjectKey("key"), resource);
+
+    verify(listener).onResourceRemoved(eq(resource));
+    assertThat(cache.getCurrentSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void put_withExistingItem_evictsExistingItemAndUpdatesSize() {
+    Key key = new ObjectKey("key");
+    Resource<?> first = new FakeResource(10);
+    Resource<?> second = new FakeResource(20);
+    cache.put(key, first);
+
+    assertThat(cache.put(key, second)).isEqualTo(first);
+    verify(listener).onResourceRemoved(eq(first));
+    assertThat(cache.getCurrentSize()).isEqualTo(20);
+    assertThat(cache.get(key)).isEqualTo(second);
+  }
+
+  @Test
+  public void put_withNullResource_removesExistingItemWithoutNotifyingListener() {
+    Key key = new ObjectKey("key");
+    Resource<?> resource = new FakeResource(10);
+    cache.put(key, resource);
+
+    assertThat(cache.put(key, null)).isEqualTo(resource);
+    assertThat(cache.contains(key)).isFalse();
+    assertThat(cache.getCurrentSize()).isEqualTo(0);
+    verify(listener, never()).onResourceRemoved(any(Resource.class));
+  }
+
+  @Test
+  public void remove_returnsResourceAndUpdatesSize() {
+    Key key = new ObjectKey("key");
+    Resource<?> resource = new FakeResource(10);
+    cache.put(key, resource);
+
+    assertThat(cache.remove(key)).isEqualTo(resource);
+    assertThat(cache.getCurrentSize()).isEqualTo(0);
+    assertThat(cache.remove(key)).isNull();
+    verify(listener, never()).onResourceRemoved(eq(resource));
+  }
+
+  @Test
+  public void remove_recordsHitsAndMisses() {
+    Key key = new ObjectKey("key");
+    cache.put(key, new FakeResource(1));
+    cache.remove(key);
+    cache.remove(key);
+
+    assertThat(cache.getStats().getHitCount()).isEqualTo(1);
+    assertThat(cache.getStats().getMissCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void put_withNewResourcesBeyondWindow_movesOldestResourceToProbation() {
+    Key first = new ObjectKey("first");
+    Key second = new ObjectKey("second");
+    cache.put(first, new FakeResource(1));
+    cache.put(second, new FakeResource(1));
+
+    assertThat(cache.isInWindow(first)).isFalse();
+    assertThat(cache.contains(first)).isTrue();
+    assertThat(cache.isInWindow(second)).isTrue();
+  }
+
+  @Test
+  public void get_withResourceInProbation_promotesResourceToProtected() {
+    Key first = new ObjectKey("first");
+    cache.put(first, new FakeResource(1));
+    cache.put(new ObjectKey("second"), new FakeResource(1));
+
+    cache.get(first);
+
+    assertThat(cache.isProtected(first)).isTrue();
+  }
+
+  @Test
+  public void put_afterRemoveFromMainRegion_returnsResourceToProtected() {
+    Key first = new ObjectKey("first");
+    Resource<?> resource = new FakeResource(1);
+    cache.put(first, resource);
+    cache.put(new ObjectKey("second"), new FakeResource(1));
+
+    cache.remove(first);
+    cache.put(first, resource);
+
+    assertThat(cache.isProtected(first)).isTrue();
+  }
+
+  @Test
+  public void put_whenFull_rejectsInfrequentCandidates() {
+    AdmissionPolicy policy = mock(AdmissionPolicy.class);
+    when(policy.admit(any(Key.class), any(Key.class))).thenReturn(false);
+    cache = new TinyLfuResourceCache(SIZE, policy);
+    cache.setResourceRemovedListener(listener);
+
+    Resource<?>[] resources = new Resource<?>[SIZE + 1];
+    for (int i = 0; i < resources.length; i++) {
+      resources[i] = new FakeResource(1);
+      cache.put(new ObjectKey(i), resources[i]);
+    }
+
+    // The oldest resource is still in the cache, the one that was pushed out of the window is not.
+    assertThat(cache.contains(new ObjectKey(0))).isTrue();
+    assertThat(cache.contains(new ObjectKey(SIZE - 1))).isFalse();
+    verify(listener).onResourceRemoved(eq(resources[SIZE - 1]));
+    assertThat(cache.getStats().getRejectionCount()).isEqualTo(1);
+    assertThat(cache.getCurrentSize()).isEqualTo(SIZE);
+  }
+
+  @Test
+  public void put_whenFull_admitsFrequentCandidates() {
+    AdmissionPolicy policy = mock(AdmissionPolicy.class);
+    when(policy.admit(any(Key.class), any(Key.class))).thenReturn(true);
+    cache = new TinyLfuResourceCache(SIZE, policy);
+    cache.setResourceRemovedListener(listener);
+
+    Resource<?>[] resources = new Resource<?>[SIZE + 1];
+    for (int i = 0; i < resources.length; i++) {
+      resources[i] = new FakeResource(1);
+      cache.put(new ObjectKey(i), resources[i]);
+    }
+
+    assertThat(cache.contains(new ObjectKey(0))).isFalse();
+    assertThat(cache.contains(new ObjectKey(SIZE - 1))).isTrue();
+    verify(listener).onResourceRemoved(eq(resources[0]));
+    assertThat(cache.getStats().getRejectionCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void setSizeMultiplier_evictsResourcesOverNewSize() {
+    for (int i = 0; i < SIZE / 2; i++) {
+      cache.put(new ObjectKey(i), new FakeResource(1));
+    }
+
+    cache.setSizeMultiplier(0.2f);
+
+    assertThat(cache.getMaxSize()).isEqualTo(SIZE / 5L);
+    assertThat(cache.getCurrentSize()).isAtMost(SIZE / 5L);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void setSizeMultiplier_withNegativeMultiplier_throws() {
+    cache.setSizeMultiplier(-1);
+  }
+
+  @Test
+  public void clearMemory_removesAllResources() {
+    for (int i = 0; i < SIZE / 2; i++) {
+      cache.put(new ObjectKey(i), new FakeResource(1));
+    }
+
+    cache.clearMemory();
+
+    assertThat(cache.getCurrentSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void trimMemory_withBackgroundLevel_removesAllResources() {
+    for (int i = 0; i < SIZE / 2; i++) {
+      cache.put(new ObjectKey(i), new FakeResource(1));
+    }
+
+    cache.trimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND);
+
+    assertThat(cache.getCurrentSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void trimMemory_withUiHiddenLevel_removesHalfOfMaxSize() {
+    for (int i = 0; i < SIZE; i++) {
+      cache.put(new ObjectKey(i), new FakeResource(1));
+    }
+
+    cache.trimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+
+    assertThat(cache.getCurrentSize()).isAtMost(SIZE / 2L);
+  }
+
+  @Test
+  public void replay_withScanResistantTrace_hasHigherHitRateThanLru() {
+    LruResourceCache lru = new LruResourceCache(SIZE);
+    lru.setResourceRemovedListener(listener);
+
+    replayHotSetWithScans(lru);
+    replayHotSetWithScans(cache);
+
+    double lruHitRate = lru.getStats().getHitRate();
+    double tinyLfuHitRate = cache.getStats().getHitRate();
+    assertThat(tinyLfuHitRate).isGreaterThan(lruHitRate);
+    // A quarter of requests are for the hot set, most of which should be hits.
+    assertThat(tinyLfuHitRate).isGreaterThan(0.15);
+  }
+
+  /**
+   * Replays a trace where a small set of resources is requested repeatedly while scrolling past a
+   * long list of resources that are only ever loaded once, using the cache the way
+   * {@link com.bumptech.glide.load.engine.Engine} does.
+   */
+  private static void replayHotSetWithScans(MemoryCache memoryCache) {
+    int hotSetSize = SIZE / 2;
+    int scanKey = SIZE;
+    for (int round = 0; round < 2000; round++) {
+      request(memoryCache, new ObjectKey(round % hotSetSize));
+      for (int i = 0; i < 3; i++) {
+        request(memoryCache, new ObjectKey(scanKey++));
+      }
+    }
+  }
+
+  private static void request(MemoryCache memoryCache, Key key) {
+    Resource<?> resource = memoryCache.remove(key);
+    memoryCache.put(key, resource != null ? resource : new FakeResource(1));
+  }
+
+  private static final class FakeResource implements Resource<Object> {
+    private final Object resource = new Object();
+    private final int size;
+
+    FakeResource(int size) {
+      this.size = size;
+    }
+
+    @NonNull
+    @Override
+    public Class<Object> getResourceClass() {
+      return Object.class;
+    }
+
+    @NonNull
+    @Override
+    public Object get() {
+      return resource;
+    }
+
+    @Override
+    public int getSize() {
+      return size;
+    }
+
+    @Override
+    public void recycle() {
+      // Do nothing.
+    }
+  }
+}
@@ -0,0 +1,260 @@
+package com.bumptech.glide.load.engine.cache;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import android.support.annotation.NonNull;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.signature.ObjectKey;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 18)
+public class WriteBehindDiskCacheTest {
+  private ByteBufferDiskCache wrapped;
+  private ManualExecutor executor;
+  private WriteBehindDiskCache cache;
+  private Key key;
+  private DiskCache.Writer writer;
+  private Runnable onComplete;
+
+  @Before
+  public void setUp() {
+    wrapped = mock(ByteBufferDiskCache.class);
+    executor = new ManualExecutor();
+    cache = new WriteBehindDiskCache(wrapped, 2, executor);
+    key = new ObjectKey("key");
+    writer = mock(DiskCache.Writer.class);
+    onComplete = mock(Runnable.class);
+  }
+
+  @Test
+  public void enqueue_doesNotWriteUntilDrained() {
+    cache.enqueue(key, writer, onComplete);
+
+    verify(wrapped, never()).put(any(Key.class), any(DiskCache.Writer.class));
+    verify(onComplete, never()).run();
+    assertThat(cache.getQueueDepth()).isEqualTo(1);
+
+    executor.runAll();
+
+    verify(wrapped).put(key, writer);
+    verify(onComplete).run();
+    assertThat(cache.getQueueDepth()).isEqualTo(0);
+    assertThat(cache.getCompletedWriteCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void enqueue_withMultipleWrites_drainsAllWritesInOrder() {
+    Key otherKey = new ObjectKey("other");
+    DiskCache.Writer otherWriter = mock(DiskCache.Writer.class);
+    cache.enqueue(key, writer, onComplete);
+    cache.enqueue(otherKey, otherWriter, null);
+
+    assertThat(executor.size()).isEqualTo(1);
+    executor.runAll();
+
+    InOrder order = inOrder(wrapped);
+    order.verify(wrapped).put(key, writer);
+    order.verify(wrapped).put(otherKey, otherWriter);
+    assertThat(cache.getMaxQueueDepth()).isEqualTo(2);
+  }
+
+  @Test
+  public void enqueue_withQueuedWriteForKey_cancelsNewWrite() {
+    Runnable otherOnComplete = mock(Runnable.class);
+    cache.enqueue(key, writer, onComplete);
+    cache.enqueue(key, mock(DiskCache.Writer.class), otherOnComplete);
+
+    verify(otherOnComplete).run();
+    executor.runAll();
+
+    verify(wrapped, times(1)).put(any(Key.class), any(DiskCache.Writer.class));
+    verify(wrapped).put(key, writer);
+    assertThat(cache.getCancelledWriteCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void enqueue_withFullQueue_writesOnCallingThread() {
+    cache.enqueue(new ObjectKey("first"), writer, null);
+    cache.enqueue(new ObjectKey("second"), writer, null);
+
+    cache.enqueue(key, writer, onComplete);
+
+    verify(wrapped).put(key, writer);
+    verify(onComplete).run();
+    assertThat(cache.getCallerRunsCount()).isEqualTo(1);
+    assertThat(cache.getQueueDepth()).isEqualTo(2);
+  }
+
+  @Test
+  public void enqueue_withThrowingWrite_continuesDraining() {
+    Key otherKey = new ObjectKey("other");
+    DiskCache.Writer otherWriter = mock(DiskCache.Writer.class);
+    doThrow(new RuntimeException("test")).when(wrapped).put(key, writer);
+    cache.enqueue(key, writer, onComplete);
+    cache.enqueue(otherKey, otherWriter, null);
+
+    executor.runAll();
+
+    verify(onComplete).run();
+    verify(wrapped).put(otherKey, otherWriter);
+  }
+
+  @Test
+  public void getBuffer_withQueuedWrite_writesBeforeReading() {
+    cache.enqueue(key, writer, onComplete);
+
+    cache.getBuffer(key);
+
+    InOrder order = inOrder(wrapped, onComplete);
+    order.verify(wrapped).put(key, writer);
+    order.verify(onComplete).run();
+    order.verify(wrapped).getBuffer(key);
+
+    executor.runAll();
+    verify(wrapped, times(1)).put(key, writer);
+  }
+
+  @Test
+  public void get_withQueuedWrite_writesBeforeReading() {
+    cache.enqueue(key, writer, onComplete);
+
+    cache.get(key);
+
+    InOrder order = inOrder(wrapped);
+    order.verify(wrapped).put(key, writer);
+    order.verify(wrapped).get(key);
+  }
+
+  @Test
+  public void getBuffer_withWriteInProgress_waitsForWrite() throws InterruptedException {
+    final CountDownLatch writeStarted = new CountDownLatch(1);
+    final CountDownLatch finishWrite = new CountDownLatch(1);
+    final List<String> events = new ArrayList<>();
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws Throwable {
+        writeStarted.countDown();
+        finishWrite.await(5, TimeUnit.SECONDS);
+        synchronized (events) {
+          events.add("write");
+        }
+        return null;
+      }
+    }).when(wrapped).put(eq(key), any(DiskCache.Writer.class));
+    cache.enqueue(key, writer, null);
+
+    Thread writerThread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        executor.runAll();
+      }
+    });
+    writerThread.start();
+    assertThat(writeStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+    Thread readerThread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        cache.getBuffer(key);
+        synchronized (events) {
+          events.add("read");
+        }
+      }
+    });
+    readerThread.start();
+    finishWrite.countDown();
+    readerThread.join(5000);
+    writerThread.join(5000);
+
+    assertThat(events).containsExactly("write", "read").inOrder();
+  }
+
+  @Test
+  public void delete_withQueuedWrite_cancelsWrite() {
+    cache.enqueue(key, writer, onComplete);
+
+    cache.delete(key);
+    executor.runAll();
+
+    verify(onComplete).run();
+    verify(wrapped, never()).put(any(Key.class), any(DiskCache.Writer.class));
+    verify(wrapped).delete(key);
+    assertThat(cache.getCancelledWriteCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void clear_withQueuedWrites_cancelsWrites() {
+    Runnable otherOnComplete = mock(Runnable.class);
+    cache.enqueue(key, writer, onComplete);
+    cache.enqueue(new ObjectKey("other"), writer, otherOnComplete);
+
+    cache.clear();
+    executor.runAll();
+
+    verify(onComplete).run();
+    verify(otherOnComplete).run();
+    verify(wrapped, never()).put(any(Key.class), any(DiskCache.Writer.class));
+    verify(wrapped).clear();
+  }
+
+  @Test
+  public void put_writesSynchronously() {
+    cache.put(key, writer);
+
+    verify(wrapped).put(key, writer);
+    assertThat(executor.size()).isEqualTo(0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void constructor_withZeroMaxQueueSize_throws() {
+    new WriteBehindDiskCache(wrapped, 0, executor);
+  }
+
+  private static final class ManualExecutor implements Executor {
+    private final List<Runnable> runnables = new ArrayList<>();
+
+    @Override
+    public synchronized void execute(@NonNull Runnable command) {
+      runnables.add(command);
+    }
+
+    synchronized int size() {
+      return runnables.size();
+    }
+
+    void runAll() {
+      while (true) {
+        Runnable next;
+        synchronized (this) {
+          if (runnables.isEmpty()) {
+            return;
+          }
+          next = runnables.remove(0);
+        }
+        next.run();
+      }
+    }
+  }
+}
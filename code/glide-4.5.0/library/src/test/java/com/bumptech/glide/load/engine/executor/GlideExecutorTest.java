@@ -37,6 +37,53 @@ public class GlideExecutorTest {
     assertThat(resultPriorities).containsExactly(5, 1, 2, 3, 4).inOrder();
   }
 
+  @Test
+  public void testWorkStealingLoadsAreExecutedInOrder() throws InterruptedException {
+    final List<Integer> resultPriorities = Collections.synchronizedList(new ArrayList<Integer>());
+    GlideExecutor executor = GlideExecutor.newWorkStealingDiskCacheExecutor(
+        1, "test", GlideExecutor.UncaughtThrowableStrategy.DEFAULT);
+    for (int i = 5; i > 0; i--) {
+      executor.execute(new MockRunnable(i, new MockRunnable.OnRun() {
+        @Override
+        public void onRun(int priority) {
+          resultPriorities.add(priority);
+        }
+      }));
+    }
+
+    executor.shutdown();
+    executor.awaitTermination(500, TimeUnit.MILLISECONDS);
+
+    // Since no jobs are queued, the first item added will be run immediately, regardless of
+    // priority.
+    assertThat(resultPriorities).containsExactly(5, 1, 2, 3, 4).inOrder();
+  }
+
+  @Test
+  public void newVirtualThreadSourceIoExecutor_runsTasksOnSourceIoThreads()
+      throws InterruptedException {
+    final List<String> threadNames = Collections.synchronizedList(new ArrayList<String>());
+    GlideExecutor executor = GlideExecutor.newVirtualThreadSourceIoExecutor();
+    for (int i = 0; i < 3; i++) {
+      executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          threadNames.add(Thread.currentThread().getName());
+        }
+      });
+    }
+
+    executor.shutdown();
+    assertThat(executor.awaitTermination(500, TimeUnit.MILLISECONDS)).isTrue();
+
+    assertThat(threadNames).hasSize(3);
+    String expectedPrefix = GlideExecutor.isVirtualThreadSupported()
+        ? "glide-source-io-virtual-thread-" : "glide-source-io-thread-";
+    for (String threadName : threadNames) {
+      assertThat(threadName).startsWith(expectedPrefix);
+    }
+  }
+
   private static final class MockRunnable implements Runnable,
       Comparable<MockRunnable> {
     private final int priority;
@@ -25,6 +25,15 @@ public final class MockGlideExecutor {
     return new GlideExecutor(executorService);
   }
 
+  /**
+   * Returns a {@link GlideExecutor} backed by the given service that reports itself as
+   * {@link GlideExecutor#isUnbounded() unbounded}, like an executor that runs each task on its own
+   * virtual thread.
+   */
+  public static GlideExecutor newUnboundedTestExecutor(ExecutorService executorService) {
+    return new GlideExecutor(executorService, /*isUnbounded=*/ true);
+  }
+
   public static GlideExecutor newMainThreadExecutor() {
     return newTestExecutor(new DirectExecutorService());
   }
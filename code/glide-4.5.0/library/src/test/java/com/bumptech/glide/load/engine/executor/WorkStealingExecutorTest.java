@@ -0,0 +1,380 @@
+package com.bumptech.glide.load.engine.executor;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class WorkStealingExecutorTest {
+  private static final long TIMEOUT_MS = 5000;
+  private WorkStealingExecutor executor;
+
+  @After
+  public void tearDown() throws InterruptedException {
+    if (executor != null) {
+      executor.shutdownNow();
+      executor.awaitTermination(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void constructor_withZeroThreads_throws() {
+    new WorkStealingExecutor(0, Executors.defaultThreadFactory());
+  }
+
+  @Test
+  public void execute_startsThreadsLazily() throws InterruptedException {
+    executor = new WorkStealingExecutor(4, Executors.defaultThreadFactory());
+    assertThat(executor.getStartedThreadCount()).isEqualTo(0);
+
+    final CountDownLatch ran = new CountDownLatch(1);
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        ran.countDown();
+      }
+    });
+
+    assertThat(ran.await(TIMEOUT_MS, TimeUnit.MILLISECONDS)).isTrue();
+    assertThat(executor.getStartedThreadCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void execute_withBusyThread_runsQueuedTasksInPriorityOrder()
+      throws InterruptedException {
+    executor = new WorkStealingExecutor(1, Executors.defaultThreadFactory());
+    final List<Integer> results = Collections.synchronizedList(new ArrayList<Integer>());
+    CountDownLatch release = blockThread();
+    for (int i = 5; i > 0; i--) {
+      executor.execute(new PrioritizedRunnable(i, results));
+    }
+
+    release.countDown();
+    executor.shutdown();
+
+    assertThat(executor.awaitTermination(TIMEOUT_MS, TimeUnit.MILLISECONDS)).isTrue();
+    assertThat(results).containsExactly(1, 2, 3, 4, 5).inOrder();
+  }
+
+  @Test
+  public void execute_withEqualPriorities_runsTasksInSubmissionOrder()
+      throws InterruptedException {
+    executor = new WorkStealingExecutor(1, Executors.defaultThreadFactory());
+    final List<Integer> results = Collections.synchronizedList(new ArrayList<Integer>());
+    CountDownLatch release = blockThread();
+    for (int i = 0; i < 5; i++) {
+      final int index = i;
+      executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          results.add(index);
+        }
+      });
+    }
+
+    release.countDown();
+    executor.shutdown();
+
+    assertThat(executor.awaitTermination(TIMEOUT_MS, TimeUnit.MILLISECONDS)).isTrue();
+    assertThat(results).containsExactly(0, 1, 2, 3, 4).inOrder();
+  }
+
+  @Test
+  public void remove_withQueuedTask_preventsTaskFromRunning() throws InterruptedException {
+    executor = new WorkStealingExecutor(1, Executors.defaultThreadFactory());
+    final List<Integer> results = Collections.synchronizedList(new ArrayList<Integer>());
+    CountDownLatch release = blockThread();
+    Runnable removed = new PrioritizedRunnable(1, results);
+    executor.execute(removed);
+    executor.execute(new PrioritizedRunnable(2, results));
+
+    assertThat(executor.remove(removed)).isTrue();
+    assertThat(executor.remove(removed)).isFalse();
+    release.countDown();
+    executor.shutdown();
+
+    assertThat(executor.awaitTermination(TIMEOUT_MS, TimeUnit.MILLISECONDS)).isTrue();
+    assertThat(results).containsExactly(2);
+  }
+
+  @Test
+  public void remove_thenExecute_withNewPriority_runsTaskInNewPriorityOrder()
+      throws InterruptedException {
+    executor = new WorkStealingExecutor(1, Executors.defaultThreadFactory());
+    final List<Integer> results = Collections.synchronizedList(new ArrayList<Integer>());
+    CountDownLatch release = blockThread();
+    PrioritizedRunnable demoted = new PrioritizedRunnable(1, results);
+    executor.execute(demoted);
+    executor.execute(new PrioritizedRunnable(2, results));
+
+    executor.remove(demoted);
+    demoted.priority = 3;
+    executor.execute(demoted);
+    release.countDown();
+    executor.shutdown();
+
+    assertThat(executor.awaitTermination(TIMEOUT_MS, TimeUnit.MILLISECONDS)).isTrue();
+    assertThat(results).containsExactly(2, 3).inOrder();
+  }
+
+  @Test
+  public void execute_fromBlockedWorker_isStolenByIdleWorker() throws InterruptedException {
+    executor = new WorkStealingExecutor(2, Executors.defaultThreadFactory());
+    // Start both threads.
+    executor.execute(new NoOpRunnable());
+    final CountDownLatch release = new CountDownLatch(1);
+    final CountDownLatch stolen = new CountDownLatch(1);
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        // Submitted from a worker, so it goes to this worker's own queue.
+        executor.execute(new Runnable() {
+          @Override
+          public void run() {
+            stolen.countDown();
+          }
+        });
+        awaitQuietly(release);
+      }
+    });
+
+    try {
+      assertThat(stolen.await(TIMEOUT_MS, TimeUnit.MILLISECONDS)).isTrue();
+    } finally {
+      release.countDown();
+    }
+  }
+
+  @Test
+  public void execute_withHigherPriorityTaskOnOtherQueue_runsItBeforeOwnQueuedTask()
+      throws InterruptedException {
+    executor = new WorkStealingExecutor(2, Executors.defaultThreadFactory());
+    final List<Integer> results = Collections.synchronizedList(new ArrayList<Integer>());
+    final CountDownLatch ran = new CountDownLatch(2);
+    final CountDownLatch submitted = new CountDownLatch(2);
+    final CountDownLatch releaseFirst = new CountDownLatch(1);
+    final CountDownLatch releaseSecond = new CountDownLatch(1);
+    // Each task starts its own thread and, since it runs on a worker, queues its task on that
+    // worker's own queue.
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        executor.execute(new PrioritizedRunnable(5, results, ran));
+        submitted.countDown();
+        awaitQuietly(releaseFirst);
+      }
+    });
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        executor.execute(new PrioritizedRunnable(1, results, ran));
+        submitted.countDown();
+        awaitQuietly(releaseSecond);
+      }
+    });
+    assertThat(submitted.await(TIMEOUT_MS, TimeUnit.MILLISECONDS)).isTrue();
+
+    try {
+      // Only the first worker is free, so it has to run both tasks.
+      releaseFirst.countDown();
+      assertThat(ran.await(TIMEOUT_MS, TimeUnit.MILLISECONDS)).isTrue();
+    } finally {
+      releaseSecond.countDown();
+    }
+
+    assertThat(results).containsExactly(1, 5).inOrder();
+  }
+
+  @Test
+  public void execute_fromManyThreads_runsEveryTask() throws InterruptedException {
+    executor = new WorkStealingExecutor(4, Executors.defaultThreadFactory());
+    final int threadCount = 8;
+    final int tasksPerThread = 1000;
+    final AtomicInteger ran = new AtomicInteger();
+    final CountDownLatch done = new CountDownLatch(threadCount * tasksPerThread);
+    for (int i = 0; i < threadCount; i++) {
+      new Thread(new Runnable() {
+        @Override
+        public void run() {
+          for (int j = 0; j < tasksPerThread; j++) {
+            executor.execute(new Runnable() {
+              @Override
+              public void run() {
+                ran.incrementAndGet();
+                done.countDown();
+              }
+            });
+          }
+        }
+      }).start();
+    }
+
+    assertThat(done.await(TIMEOUT_MS, TimeUnit.MILLISECONDS)).isTrue();
+    assertThat(ran.get()).isEqualTo(threadCount * tasksPerThread);
+  }
+
+  @Test
+  public void execute_afterTaskThrows_replacesThread() throws InterruptedException {
+    final AtomicInteger createdThreads = new AtomicInteger();
+    executor = new WorkStealingExecutor(1, new ThreadFactory() {
+      @Override
+      public Thread newThread(@NonNull final Runnable runnable) {
+        createdThreads.incrementAndGet();
+        return new Thread() {
+          @Override
+          public void run() {
+            try {
+              runnable.run();
+            } catch (RuntimeException e) {
+              // Expected.
+            }
+          }
+        };
+      }
+    });
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        throw new RuntimeException("Test");
+      }
+    });
+    final CountDownLatch ran = new CountDownLatch(1);
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        ran.countDown();
+      }
+    });
+
+    assertThat(ran.await(TIMEOUT_MS, TimeUnit.MILLISECONDS)).isTrue();
+    assertThat(createdThreads.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void shutdown_runsQueuedTasksAndTerminates() throws InterruptedException {
+    executor = new WorkStealingExecutor(2, Executors.defaultThreadFactory());
+    final AtomicInteger ran = new AtomicInteger();
+    CountDownLatch release = blockThread();
+    for (int i = 0; i < 10; i++) {
+      executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          ran.incrementAndGet();
+        }
+      });
+    }
+
+    executor.shutdown();
+    assertThat(executor.isShutdown()).isTrue();
+    release.countDown();
+
+    assertThat(executor.awaitTermination(TIMEOUT_MS, TimeUnit.MILLISECONDS)).isTrue();
+    assertThat(executor.isTerminated()).isTrue();
+    assertThat(ran.get()).isEqualTo(10);
+  }
+
+  @Test
+  public void shutdown_withNoThreadsStarted_terminatesImmediately() {
+    executor = new WorkStealingExecutor(2, Executors.defaultThreadFactory());
+    executor.shutdown();
+    assertThat(executor.isTerminated()).isTrue();
+  }
+
+  @Test(expected = RejectedExecutionException.class)
+  public void execute_afterShutdown_throws() {
+    executor = new WorkStealingExecutor(2, Executors.defaultThreadFactory());
+    executor.shutdown();
+    executor.execute(new NoOpRunnable());
+  }
+
+  @Test
+  public void shutdownNow_returnsQueuedTasks() throws InterruptedException {
+    executor = new WorkStealingExecutor(1, Executors.defaultThreadFactory());
+    blockThread();
+    Runnable first = new NoOpRunnable();
+    Runnable second = new NoOpRunnable();
+    executor.execute(first);
+    executor.execute(second);
+
+    List<Runnable> result = executor.shutdownNow();
+
+    assertThat(result).containsExactly(first, second);
+    assertThat(executor.awaitTermination(TIMEOUT_MS, TimeUnit.MILLISECONDS)).isTrue();
+  }
+
+  /**
+   * Occupies every thread of a single threaded executor until the returned latch is released.
+   */
+  private CountDownLatch blockThread() throws InterruptedException {
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        started.countDown();
+        awaitQuietly(release);
+      }
+    });
+    assertThat(started.await(TIMEOUT_MS, TimeUnit.MILLISECONDS)).isTrue();
+    return release;
+  }
+
+  static void awaitQuietly(CountDownLatch latch) {
+    try {
+      latch.await(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static final class NoOpRunnable implements Runnable {
+    @Override
+    public void run() {
+      // Do nothing.
+    }
+  }
+
+  private static final class PrioritizedRunnable
+      implements Runnable, Comparable<PrioritizedRunnable> {
+    int priority;
+    private final List<Integer> results;
+    @Nullable private final CountDownLatch ran;
+
+    PrioritizedRunnable(int priority, List<Integer> results) {
+      this(priority, results, /*ran=*/ null);
+    }
+
+    PrioritizedRunnable(int priority, List<Integer> results, @Nullable CountDownLatch ran) {
+      this.priority = priority;
+      this.results = results;
+      this.ran = ran;
+    }
+
+    @Override
+    public int compareTo(@NonNull PrioritizedRunnable other) {
+      return priority - other.priority;
+    }
+
+    @Override
+    public void run() {
+      results.add(priority);
+      if (ran != null) {
+        ran.countDown();
+      }
+    }
+  }
+}
@@ -0,0 +1,78 @@
+package com.bumptech.glide.load.model;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.data.DataFetcher;
+import com.bumptech.glide.load.data.StreamByteBufferFetcher;
+import com.bumptech.glide.load.model.stream.HttpGlideUrlLoader;
+import com.bumptech.glide.util.Preconditions;
+import java.io.InputStream;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 18)
+public class ByteBufferGlideUrlLoaderTest {
+  @Mock private ModelLoader<GlideUrl, InputStream> streamLoader;
+  @Mock private DataFetcher<InputStream> streamFetcher;
+  private ByteBufferGlideUrlLoader loader;
+  private GlideUrl model;
+
+  @Before
+  public void setUp() {
+    MockitoAnnotations.initMocks(this);
+    loader = new ByteBufferGlideUrlLoader(streamLoader);
+    model = mock(GlideUrl.class);
+  }
+
+  @Test
+  public void buildLoadData_withoutBufferResponse_returnsNull() {
+    assertThat(loader.buildLoadData(model, 100, 100, new Options())).isNull();
+    verify(streamLoader, never())
+        .buildLoadData(any(GlideUrl.class), anyInt(), anyInt(), any(Options.class));
+  }
+
+  @Test
+  public void buildLoadData_withBufferResponse_wrapsStreamLoaderFetcher() {
+    Options options = new Options().set(HttpGlideUrlLoader.BUFFER_RESPONSE, true);
+    when(streamLoader.buildLoadData(eq(model), eq(100), eq(100), eq(options)))
+        .thenReturn(new ModelLoader.LoadData<>(model, streamFetcher));
+
+    ModelLoader.LoadData<?> result =
+        Preconditions.checkNotNull(loader.buildLoadData(model, 100, 100, options));
+
+    assertThat(result.fetcher).isInstanceOf(StreamByteBufferFetcher.class);
+    assertThat(result.sourceKey).isEqualTo(model);
+    result.fetcher.cleanup();
+    verify(streamFetcher).cleanup();
+  }
+
+  @Test
+  public void buildLoadData_withBufferResponse_andNullStreamLoadData_returnsNull() {
+    Options options = new Options().set(HttpGlideUrlLoader.BUFFER_RESPONSE, true);
+
+    assertThat(loader.buildLoadData(model, 100, 100, options)).isNull();
+  }
+
+  @Test
+  public void handles_returnsStreamLoaderResult() {
+    when(streamLoader.handles(model)).thenReturn(false);
+    assertThat(loader.handles(model)).isFalse();
+
+    when(streamLoader.handles(model)).thenReturn(true);
+    assertThat(loader.handles(model)).isTrue();
+  }
+}
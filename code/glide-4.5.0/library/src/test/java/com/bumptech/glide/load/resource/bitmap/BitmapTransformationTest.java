@@ -1,5 +1,6 @@
 package com.bumptech.glide.load.resource.bitmap;
 
+import static com.google.common.truth.Truth.assertThat;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
@@ -12,9 +13,11 @@ import com.bumptech.glide.Glide;
 import com.bumptech.glide.GlideBuilder;
 import com.bumptech.glide.load.engine.Resource;
 import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool;
+import com.bumptech.glide.load.engine.executor.GlideExecutor;
 import com.bumptech.glide.request.target.Target;
 import com.bumptech.glide.tests.Util;
 import java.security.MessageDigest;
+import java.util.concurrent.atomic.AtomicReference;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -63,6 +66,51 @@ public class BitmapTransformationTest {
     assertEquals(resource, transformation.transform(context, resource, 1, 1));
   }
 
+  @Test
+  public void testDrawsInStripesOnlyWhileTransforming_withTransformationExecutor() {
+    GlideExecutor transformationExecutor = GlideExecutor.newTransformationExecutor();
+    Glide.init(context, new GlideBuilder()
+        .setBitmapPool(bitmapPool)
+        .setTransformationExecutor(transformationExecutor));
+    final AtomicReference<StripedCanvasDrawer> drawer = new AtomicReference<>();
+    BitmapTransformation transformation = new BitmapTransformation() {
+      @Override
+      public void updateDiskCacheKey(@NonNull MessageDigest messageDigest) { }
+
+      @Override
+      protected Bitmap transform(@NonNull BitmapPool pool, @NonNull Bitmap toTransform,
+          int outWidth, int outHeight) {
+        drawer.set(TransformationUtils.getStripedCanvasDrawer());
+        return toTransform;
+      }
+    };
+
+    transformation.transform(context, mockResource(100, 100), 1, 1);
+
+    assertThat(drawer.get()).isNotNull();
+    assertThat(TransformationUtils.getStripedCanvasDrawer()).isNull();
+  }
+
+  @Test
+  public void testDrawsOnCallingThread_withoutTransformationExecutor() {
+    final AtomicReference<StripedCanvasDrawer> drawer = new AtomicReference<>();
+    BitmapTransformation transformation = new BitmapTransformation() {
+      @Override
+      public void updateDiskCacheKey(@NonNull MessageDigest messageDigest) { }
+
+      @Override
+      protected Bitmap transform(@NonNull BitmapPool pool, @NonNull Bitmap toTransform,
+          int outWidth, int outHeight) {
+        drawer.set(TransformationUtils.getStripedCanvasDrawer());
+        return toTransform;
+      }
+    };
+
+    transformation.transform(context, mockResource(100, 100), 1, 1);
+
+    assertNull(drawer.get());
+  }
+
   @Test
   public void testReturnsNewResourceWhenBitmapTransformed() {
     final Bitmap transformed = Bitmap.createBitmap(100, 100, Bitmap.Config.ARGB_4444);
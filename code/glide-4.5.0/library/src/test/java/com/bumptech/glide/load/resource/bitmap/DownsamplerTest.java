@@ -0,0 +1,131 @@
+package com.bumptech.glide.load.resource.bitmap;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.graphics.Bitmap;
+import com.bumptech.glide.load.DecodeFormat;
+import com.bumptech.glide.load.ImageHeaderParser;
+import com.bumptech.glide.load.ImageHeaderParser.ImageType;
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.engine.Resource;
+import com.bumptech.glide.load.engine.bitmap_recycle.ArrayPool;
+import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPoolAdapter;
+import com.bumptech.glide.load.engine.bitmap_recycle.LruArrayPool;
+import com.bumptech.glide.load.engine.cache.LruResourceCache;
+import com.bumptech.glide.load.engine.cache.MemoryBudget;
+import com.bumptech.glide.load.engine.cache.MemoryBudgetController;
+import com.bumptech.glide.load.engine.cache.MemoryBudgetPolicy;
+import com.bumptech.glide.load.engine.cache.MemorySignals;
+import com.bumptech.glide.signature.ObjectKey;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 18)
+public class DownsamplerTest {
+  @Mock private ImageHeaderParser parser;
+  private Downsampler downsampler;
+
+  @Before
+  public void setUp() throws IOException {
+    MockitoAnnotations.initMocks(this);
+    when(parser.getType(any(InputStream.class))).thenReturn(ImageType.JPEG);
+    when(parser.getOrientation(any(InputStream.class), any(ArrayPool.class)))
+        .thenReturn(ImageHeaderParser.UNKNOWN_ORIENTATION);
+    downsampler = new Downsampler(Collections.singletonList(parser),
+        RuntimeEnvironment.application.getResources().getDisplayMetrics(),
+        new BitmapPoolAdapter(), new LruArrayPool());
+  }
+
+  @Test
+  public void decode_withSameImageHeaderCacheKey_parsesHeaderOnce() throws IOException {
+    decode(optionsWithHeaderCacheKey("data"));
+    decode(optionsWithHeaderCacheKey("data"));
+
+    verify(parser, times(1)).getOrientation(any(InputStream.class), any(ArrayPool.class));
+    verify(parser, times(1)).getType(any(InputStream.class));
+  }
+
+  @Test
+  public void decode_withCachedHeader_usesCachedImageType() throws IOException {
+    Options options = optionsWithHeaderCacheKey("data");
+    options.set(Downsampler.DECODE_FORMAT, DecodeFormat.PREFER_RGB_565);
+    decode(options);
+    // An image with alpha would be decoded as ARGB_8888, but the header isn't parsed again.
+    when(parser.getType(any(InputStream.class))).thenReturn(ImageType.PNG_A);
+
+    assertThat(decode(options).getConfig()).isEqualTo(Bitmap.Config.RGB_565);
+  }
+
+  @Test
+  public void decode_withDifferentImageHeaderCacheKeys_parsesHeaderForEach() throws IOException {
+    decode(optionsWithHeaderCacheKey("first"));
+    decode(optionsWithHeaderCacheKey("second"));
+
+    verify(parser, times(2)).getOrientation(any(InputStream.class), any(ArrayPool.class));
+  }
+
+  @Test
+  public void decode_withoutImageHeaderCacheKey_parsesHeaderEachTime() throws IOException {
+    decode(new Options());
+    decode(new Options());
+
+    verify(parser, times(2)).getOrientation(any(InputStream.class), any(ArrayPool.class));
+  }
+
+  @Test
+  public void decode_withOutOfMemoryError_recordsAllocationFailure() throws IOException {
+    MemoryBudgetPolicy policy = mock(MemoryBudgetPolicy.class);
+    when(policy.update(any(MemorySignals.class), any(MemoryBudget.class)))
+        .thenReturn(MemoryBudget.DEFAULT);
+    MemoryBudgetController controller = new MemoryBudgetController(new LruResourceCache(100),
+        new BitmapPoolAdapter(), new LruArrayPool(), policy);
+    downsampler = new Downsampler(Collections.singletonList(parser),
+        RuntimeEnvironment.application.getResources().getDisplayMetrics(),
+        new BitmapPoolAdapter(), new LruArrayPool(), controller,
+        /*transformationExecutor=*/ null);
+    when(parser.getType(any(InputStream.class))).thenThrow(new OutOfMemoryError());
+
+    try {
+      decode(new Options());
+      fail("Expected OutOfMemoryError");
+    } catch (OutOfMemoryError e) {
+      // Expected.
+    }
+    controller.update();
+
+    ArgumentCaptor<MemorySignals> signals = ArgumentCaptor.forClass(MemorySignals.class);
+    verify(policy).update(signals.capture(), any(MemoryBudget.class));
+    assertThat(signals.getValue().getAllocationFailureCount()).isEqualTo(1);
+  }
+
+  private Bitmap decode(Options options) throws IOException {
+    InputStream is = new ByteArrayInputStream(new byte[] {1, 2, 3, 4});
+    Resource<Bitmap> resource = downsampler.decode(is, 100, 100, options);
+    assertThat(resource).isNotNull();
+    return resource.get();
+  }
+
+  private static Options optionsWithHeaderCacheKey(String key) {
+    Options options = new Options();
+    options.set(Downsampler.IMAGE_HEADER_CACHE_KEY, new ObjectKey(key));
+    return options;
+  }
+}
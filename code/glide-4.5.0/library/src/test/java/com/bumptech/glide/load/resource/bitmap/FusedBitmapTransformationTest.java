@@ -0,0 +1,222 @@
+package com.bumptech.glide.load.resource.bitmap;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.graphics.Bitmap;
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.GlideBuilder;
+import com.bumptech.glide.load.MultiTransformation;
+import com.bumptech.glide.load.Transformation;
+import com.bumptech.glide.load.engine.Resource;
+import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool;
+import com.bumptech.glide.request.target.Target;
+import com.bumptech.glide.tests.KeyTester;
+import com.bumptech.glide.tests.Util;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 18)
+@SuppressWarnings({"unchecked", "varargs"})
+public class FusedBitmapTransformationTest {
+  @Rule public final KeyTester keyTester = new KeyTester();
+  @Mock private BitmapPool bitmapPool;
+
+  @Before
+  public void setUp() {
+    MockitoAnnotations.initMocks(this);
+    when(bitmapPool.get(anyInt(), anyInt(), any(Bitmap.Config.class)))
+        .thenAnswer(new Util.CreateBitmap());
+  }
+
+  @After
+  public void tearDown() {
+    Glide.tearDown();
+  }
+
+  @Test
+  public void canFuse_withBuiltInTransformations_returnsTrue() {
+    assertThat(FusedBitmapTransformation.canFuse(new CenterCrop(), new CenterInside(),
+        new FitCenter(), new CircleCrop(), new RoundedCorners(10))).isTrue();
+  }
+
+  @Test
+  public void canFuse_withNoTransformations_returnsFalse() {
+    assertThat(FusedBitmapTransformation.canFuse()).isFalse();
+  }
+
+  @Test
+  public void canFuse_withSubclassOfBuiltInTransformation_returnsFalse() {
+    assertThat(FusedBitmapTransformation.canFuse(new CenterCrop() { }, new CircleCrop()))
+        .isFalse();
+  }
+
+  @Test
+  public void canFuse_withCustomTransformation_returnsFalse() {
+    Transformation<Bitmap> custom = mock(Transformation.class);
+    assertThat(FusedBitmapTransformation.canFuse(new CenterCrop(), custom)).isFalse();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void constructor_withCustomTransformation_throws() {
+    Transformation<Bitmap> custom = mock(Transformation.class);
+    new FusedBitmapTransformation(new CenterCrop(), custom);
+  }
+
+  @Test
+  public void transform_centerCropThenRoundedCorners_matchesSequential() {
+    assertMatchesSequential(
+        Bitmap.createBitmap(200, 100, Bitmap.Config.ARGB_8888), 50, 50,
+        new CenterCrop(), new RoundedCorners(10));
+  }
+
+  @Test
+  public void transform_fitCenterThenCircleCrop_matchesSequential() {
+    assertMatchesSequential(
+        Bitmap.createBitmap(300, 100, Bitmap.Config.ARGB_8888), 90, 60,
+        new FitCenter(), new CircleCrop());
+  }
+
+  @Test
+  public void transform_centerCropThenCircleCrop_withRgb565_matchesSequential() {
+    assertMatchesSequential(
+        Bitmap.createBitmap(120, 300, Bitmap.Config.RGB_565), 80, 40,
+        new CenterCrop(), new CircleCrop());
+  }
+
+  @Test
+  public void transform_centerInsideThenRoundedCorners_withSmallBitmap_matchesSequential() {
+    assertMatchesSequential(
+        Bitmap.createBitmap(20, 30, Bitmap.Config.ARGB_8888), 100, 100,
+        new CenterInside(), new RoundedCorners(5));
+  }
+
+  @Test
+  public void transform_centerCropThenFitCenter_withRgb565_matchesSequential() {
+    assertMatchesSequential(
+        Bitmap.createBitmap(400, 300, Bitmap.Config.RGB_565), 101, 77,
+        new CenterCrop(), new FitCenter(), new CenterInside());
+  }
+
+  @Test
+  public void transform_withSizeOriginal_matchesSequential() {
+    assertMatchesSequential(
+        Bitmap.createBitmap(64, 48, Bitmap.Config.ARGB_8888), Target.SIZE_ORIGINAL,
+        Target.SIZE_ORIGINAL, new FitCenter(), new RoundedCorners(4));
+  }
+
+  @Test
+  public void transform_circleCropThenCenterCrop_matchesSequential() {
+    assertMatchesSequential(
+        Bitmap.createBitmap(100, 100, Bitmap.Config.ARGB_8888), 40, 20,
+        new CircleCrop(), new CenterCrop());
+  }
+
+  @Test
+  public void transform_circleCropThenRoundedCorners_matchesSequential() {
+    assertMatchesSequential(
+        Bitmap.createBitmap(100, 60, Bitmap.Config.ARGB_8888), 40, 40,
+        new CircleCrop(), new RoundedCorners(3));
+  }
+
+  @Test
+  public void transform_withMultipleTransformations_obtainsOneBitmapFromPool() {
+    Bitmap toTransform = Bitmap.createBitmap(200, 100, Bitmap.Config.RGB_565);
+    FusedBitmapTransformation fused =
+        new FusedBitmapTransformation(new CenterCrop(), new FitCenter(), new RoundedCorners(10));
+
+    fused.transform(bitmapPool, toTransform, 50, 50);
+
+    verify(bitmapPool, times(1)).get(anyInt(), anyInt(), any(Bitmap.Config.class));
+    verify(bitmapPool, never()).put(any(Bitmap.class));
+  }
+
+  @Test
+  public void transform_withContext_drawsWithGlidesBitmapPool() {
+    Glide.init(RuntimeEnvironment.application, new GlideBuilder().setBitmapPool(bitmapPool));
+    Resource<Bitmap> resource = mockResource(Bitmap.createBitmap(200, 100, Bitmap.Config.RGB_565));
+    FusedBitmapTransformation fused =
+        new FusedBitmapTransformation(new CenterCrop(), new RoundedCorners(10));
+
+    Resource<Bitmap> result = fused.transform(RuntimeEnvironment.application, resource, 50, 50);
+
+    verify(bitmapPool).get(50, 50, Bitmap.Config.ARGB_8888);
+    assertThat(result.get().getWidth()).isEqualTo(50);
+    assertThat(result.get().getHeight()).isEqualTo(50);
+  }
+
+  @Test
+  public void transform_withNoChanges_returnsGivenBitmap() {
+    Bitmap toTransform = Bitmap.createBitmap(50, 50, Bitmap.Config.ARGB_8888);
+    FusedBitmapTransformation fused =
+        new FusedBitmapTransformation(new CenterCrop(), new FitCenter(), new CenterInside());
+
+    assertThat(fused.transform(bitmapPool, toTransform, 50, 50)).isSameAs(toTransform);
+    verify(bitmapPool, never()).get(anyInt(), anyInt(), any(Bitmap.Config.class));
+  }
+
+  @Test
+  public void testEquals() {
+    keyTester
+        .addEquivalenceGroup(
+            new FusedBitmapTransformation(new CenterCrop(), new RoundedCorners(10)),
+            new FusedBitmapTransformation(new CenterCrop(), new RoundedCorners(10)))
+        .addEquivalenceGroup(
+            new MultiTransformation<>(new CenterCrop(), new RoundedCorners(10)))
+        .addEquivalenceGroup(
+            new FusedBitmapTransformation(new RoundedCorners(10), new CenterCrop()))
+        .addEquivalenceGroup(
+            new FusedBitmapTransformation(new CenterCrop(), new RoundedCorners(20)))
+        .addRegressionTest(
+            new FusedBitmapTransformation(new CenterCrop(), new RoundedCorners(10)),
+            "55fbc433f50feae9c6b011a681ef3edfc640c4488b4ab6b7dd260e3e6b197d85")
+        .test();
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Resource<Bitmap> mockResource(Bitmap bitmap) {
+    Resource<Bitmap> resource = mock(Resource.class);
+    when(resource.get()).thenReturn(bitmap);
+    return resource;
+  }
+
+  private void assertMatchesSequential(Bitmap toTransform, int outWidth, int outHeight,
+      BitmapTransformation... transformations) {
+    Bitmap expected = toTransform;
+    for (BitmapTransformation transformation : transformations) {
+      int targetWidth = outWidth == Target.SIZE_ORIGINAL ? expected.getWidth() : outWidth;
+      int targetHeight = outHeight == Target.SIZE_ORIGINAL ? expected.getHeight() : outHeight;
+      expected = transformation.transform(bitmapPool, expected, targetWidth, targetHeight);
+    }
+
+    // BitmapTransformation resolves Target.SIZE_ORIGINAL before calling transform.
+    Bitmap actual =
+        new FusedBitmapTransformation(transformations)
+            .transform(
+                bitmapPool,
+                toTransform,
+                outWidth == Target.SIZE_ORIGINAL ? toTransform.getWidth() : outWidth,
+                outHeight == Target.SIZE_ORIGINAL ? toTransform.getHeight() : outHeight);
+
+    assertThat(actual.getWidth()).isEqualTo(expected.getWidth());
+    assertThat(actual.getHeight()).isEqualTo(expected.getHeight());
+    assertThat(actual.getConfig()).isEqualTo(expected.getConfig());
+    assertThat(actual.hasAlpha()).isEqualTo(expected.hasAlpha());
+    assertThat(actual == toTransform).isEqualTo(expected == toTransform);
+  }
+}
@@ -0,0 +1,59 @@
+package com.bumptech.glide.load.resource.bitmap;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.bumptech.glide.load.ImageHeaderParser;
+import com.bumptech.glide.load.ImageHeaderParser.ImageType;
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.signature.ObjectKey;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 18)
+public class ImageHeaderCacheTest {
+  private ImageHeaderCache cache;
+  private ImageHeader header;
+
+  @Before
+  public void setUp() {
+    cache = new ImageHeaderCache();
+    header = new ImageHeader(ImageType.JPEG, 6, 100, 200, "image/jpeg");
+  }
+
+  @Test
+  public void get_withoutKey_returnsNull() {
+    cache.put(new Options(), header);
+
+    assertThat(cache.get(new Options())).isNull();
+  }
+
+  @Test
+  public void get_withSameKey_returnsHeader() {
+    cache.put(optionsWithKey("data"), header);
+
+    assertThat(cache.get(optionsWithKey("data"))).isSameAs(header);
+  }
+
+  @Test
+  public void get_withDifferentKey_returnsNull() {
+    cache.put(optionsWithKey("data"), header);
+
+    assertThat(cache.get(optionsWithKey("other"))).isNull();
+  }
+
+  @Test
+  public void put_withUnknownDimensions_doesNotCacheHeader() {
+    cache.put(optionsWithKey("data"),
+        new ImageHeader(ImageType.UNKNOWN, ImageHeaderParser.UNKNOWN_ORIENTATION, -1, -1, null));
+
+    assertThat(cache.get(optionsWithKey("data"))).isNull();
+  }
+
+  private static Options optionsWithKey(String key) {
+    return new Options().set(Downsampler.IMAGE_HEADER_CACHE_KEY, new ObjectKey(key));
+  }
+}
@@ -0,0 +1,126 @@
+package com.bumptech.glide.load.resource.bitmap;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.graphics.Rect;
+import com.bumptech.glide.Priority;
+import com.bumptech.glide.load.Options;
+import com.google.common.testing.EqualsTester;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 18)
+public class ImageTileTest {
+
+  @Test
+  public void forRegion_returnsOnlyTilesIntersectingRegion() {
+    List<ImageTile> tiles =
+        ImageTile.forRegion(1000, 1000, new Rect(150, 150, 250, 250), /*tileSize=*/ 100, 1);
+
+    assertThat(tiles).containsExactly(
+        new ImageTile(100, 100, 200, 200, 1),
+        new ImageTile(200, 100, 300, 200, 1),
+        new ImageTile(100, 200, 200, 300, 1),
+        new ImageTile(200, 200, 300, 300, 1));
+  }
+
+  @Test
+  public void forRegion_withSampleSize_usesLargerTilesInImage() {
+    List<ImageTile> tiles =
+        ImageTile.forRegion(1000, 1000, new Rect(0, 0, 200, 200), /*tileSize=*/ 100, 2);
+
+    assertThat(tiles).containsExactly(new ImageTile(0, 0, 200, 200, 2));
+  }
+
+  @Test
+  public void forRegion_clipsTilesToImage() {
+    List<ImageTile> tiles =
+        ImageTile.forRegion(150, 120, new Rect(0, 0, 1000, 1000), /*tileSize=*/ 100, 1);
+
+    assertThat(tiles).containsExactly(
+        new ImageTile(0, 0, 100, 100, 1),
+        new ImageTile(100, 0, 150, 100, 1),
+        new ImageTile(0, 100, 100, 120, 1),
+        new ImageTile(100, 100, 150, 120, 1));
+  }
+
+  @Test
+  public void forRegion_withRegionOutsideImage_returnsEmptyList() {
+    assertThat(ImageTile.forRegion(100, 100, new Rect(200, 200, 300, 300), 100, 1)).isEmpty();
+  }
+
+  @Test
+  public void forRegion_ordersTilesByDistanceFromCenterOfRegion() {
+    List<ImageTile> tiles =
+        ImageTile.forRegion(1000, 1000, new Rect(0, 0, 300, 100), /*tileSize=*/ 100, 1);
+
+    assertThat(tiles.get(0)).isEqualTo(new ImageTile(100, 0, 200, 100, 1));
+  }
+
+  @Test
+  public void getPriority_prioritizesTilesByVisibility() {
+    Rect region = new Rect(50, 0, 350, 100);
+
+    assertThat(new ImageTile(100, 0, 200, 100, 1).getPriority(region))
+        .isEqualTo(Priority.HIGH);
+    assertThat(new ImageTile(200, 0, 300, 100, 1).getPriority(region))
+        .isEqualTo(Priority.IMMEDIATE);
+    assertThat(new ImageTile(0, 0, 100, 100, 1).getPriority(region))
+        .isEqualTo(Priority.NORMAL);
+    assertThat(new ImageTile(0, 100, 100, 200, 1).getPriority(region))
+        .isEqualTo(Priority.LOW);
+  }
+
+  @Test
+  public void getSampleSize_returnsLargestSampleSizeWithEnoughPixels() {
+    assertThat(ImageTile.getSampleSize(2f)).isEqualTo(1);
+    assertThat(ImageTile.getSampleSize(1f)).isEqualTo(1);
+    assertThat(ImageTile.getSampleSize(0.6f)).isEqualTo(1);
+    assertThat(ImageTile.getSampleSize(0.5f)).isEqualTo(2);
+    assertThat(ImageTile.getSampleSize(0.2f)).isEqualTo(4);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void constructor_withNonPowerOfTwoSampleSize_throws() {
+    new ImageTile(0, 0, 100, 100, 3);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void constructor_withEmptyTile_throws() {
+    new ImageTile(100, 0, 100, 100, 1);
+  }
+
+  @Test
+  public void testEquals() {
+    new EqualsTester()
+        .addEqualityGroup(new ImageTile(0, 0, 100, 100, 1), new ImageTile(0, 0, 100, 100, 1))
+        .addEqualityGroup(new ImageTile(1, 0, 100, 100, 1))
+        .addEqualityGroup(new ImageTile(0, 1, 100, 100, 1))
+        .addEqualityGroup(new ImageTile(0, 0, 101, 100, 1))
+        .addEqualityGroup(new ImageTile(0, 0, 100, 101, 1))
+        .addEqualityGroup(new ImageTile(0, 0, 100, 100, 2))
+        .testEquals();
+  }
+
+  @Test
+  public void tileOption_withDifferentTiles_updatesDiskCacheKeyDifferently()
+      throws NoSuchAlgorithmException {
+    Options first = new Options().set(TiledBitmapDecoder.TILE, new ImageTile(0, 0, 100, 100, 1));
+    Options second =
+        new Options().set(TiledBitmapDecoder.TILE, new ImageTile(100, 0, 200, 100, 1));
+
+    assertThat(getDigest(first)).isNotEqualTo(getDigest(second));
+  }
+
+  private static byte[] getDigest(Options options) throws NoSuchAlgorithmException {
+    MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+    options.updateDiskCacheKey(messageDigest);
+    return messageDigest.digest();
+  }
+}
@@ -0,0 +1,143 @@
+package com.bumptech.glide.load.resource.bitmap;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.support.annotation.NonNull;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 18)
+public class StripedCanvasDrawerTest {
+  private static final int LARGE_WIDTH = 1024;
+  private static final int LARGE_HEIGHT = 2049;
+
+  private ExecutorService executor;
+  private RecordingDrawOperation operation;
+
+  @Before
+  public void setUp() {
+    executor = Executors.newFixedThreadPool(3);
+    operation = new RecordingDrawOperation();
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void getStripeCount_withSmallBitmap_returnsOne() {
+    assertThat(StripedCanvasDrawer.getStripeCount(100, 100, 4)).isEqualTo(1);
+  }
+
+  @Test
+  public void getStripeCount_withLargeBitmap_returnsMaxStripes() {
+    assertThat(StripedCanvasDrawer.getStripeCount(LARGE_WIDTH, LARGE_HEIGHT, 4)).isEqualTo(4);
+  }
+
+  @Test
+  public void getStripeCount_withMediumBitmap_limitsStripesByMinPixels() {
+    int height = 2 * StripedCanvasDrawer.MIN_PIXELS_PER_STRIPE / 1024;
+    assertThat(StripedCanvasDrawer.getStripeCount(1024, height, 4)).isEqualTo(2);
+  }
+
+  @Test
+  public void getStripeCount_withFewRows_limitsStripesByHeight() {
+    assertThat(StripedCanvasDrawer.getStripeCount(1024 * 1024, 2, 4)).isEqualTo(2);
+  }
+
+  @Test
+  public void getStripeTop_coversAllRowsWithEvenStripes() {
+    int stripeCount = 4;
+    assertThat(StripedCanvasDrawer.getStripeTop(0, stripeCount, LARGE_HEIGHT)).isEqualTo(0);
+    assertThat(StripedCanvasDrawer.getStripeTop(stripeCount, stripeCount, LARGE_HEIGHT))
+        .isEqualTo(LARGE_HEIGHT);
+    for (int i = 0; i < stripeCount; i++) {
+      int stripeHeight = StripedCanvasDrawer.getStripeTop(i + 1, stripeCount, LARGE_HEIGHT)
+          - StripedCanvasDrawer.getStripeTop(i, stripeCount, LARGE_HEIGHT);
+      assertThat(stripeHeight).isAnyOf(LARGE_HEIGHT / stripeCount, LARGE_HEIGHT / stripeCount + 1);
+    }
+  }
+
+  @Test
+  public void draw_withSmallBitmap_drawsOnceOnCallingThread() {
+    Bitmap bitmap = Bitmap.createBitmap(100, 100, Bitmap.Config.ARGB_8888);
+
+    new StripedCanvasDrawer(executor, 4).draw(bitmap, operation);
+
+    assertThat(operation.threads).containsExactly(Thread.currentThread());
+  }
+
+  @Test
+  public void draw_withLargeBitmap_drawsEachStripeOnce() {
+    Bitmap bitmap = Bitmap.createBitmap(LARGE_WIDTH, LARGE_HEIGHT, Bitmap.Config.ARGB_8888);
+
+    new StripedCanvasDrawer(executor, 4).draw(bitmap, operation);
+
+    assertThat(operation.threads).hasSize(4);
+    assertThat(operation.threads).contains(Thread.currentThread());
+  }
+
+  @Test
+  public void draw_withRejectingExecutor_drawsAllStripesOnCallingThread() {
+    Bitmap bitmap = Bitmap.createBitmap(LARGE_WIDTH, LARGE_HEIGHT, Bitmap.Config.ARGB_8888);
+    Executor rejecting = new Executor() {
+      @Override
+      public void execute(@NonNull Runnable command) {
+        throw new RejectedExecutionException();
+      }
+    };
+
+    new StripedCanvasDrawer(rejecting, 4).draw(bitmap, operation);
+
+    assertThat(operation.threads).hasSize(4);
+    assertThat(new ArrayList<>(operation.threads))
+        .containsExactlyElementsIn(Collections.nCopies(4, Thread.currentThread()));
+  }
+
+  @Test
+  public void draw_whenStripeOnOtherThreadThrows_rethrowsOnCallingThread() {
+    Bitmap bitmap = Bitmap.createBitmap(LARGE_WIDTH, LARGE_HEIGHT, Bitmap.Config.ARGB_8888);
+    final Thread callingThread = Thread.currentThread();
+    final IllegalStateException expected = new IllegalStateException();
+    StripedCanvasDrawer.DrawOperation throwing = new StripedCanvasDrawer.DrawOperation() {
+      @Override
+      public void draw(@NonNull Canvas canvas) {
+        if (Thread.currentThread() != callingThread) {
+          throw expected;
+        }
+      }
+    };
+
+    try {
+      new StripedCanvasDrawer(executor, 4).draw(bitmap, throwing);
+      fail("Expected exception");
+    } catch (IllegalStateException e) {
+      assertThat(e).isSameAs(expected);
+    }
+  }
+
+  private static final class RecordingDrawOperation implements StripedCanvasDrawer.DrawOperation {
+    final List<Thread> threads = Collections.synchronizedList(new ArrayList<Thread>());
+
+    @Override
+    public void draw(@NonNull Canvas canvas) {
+      threads.add(Thread.currentThread());
+    }
+  }
+}
@@ -0,0 +1,126 @@
+package com.bumptech.glide.load.resource.bitmap;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.graphics.Bitmap;
+import com.bumptech.glide.load.ImageHeaderParser;
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.engine.Resource;
+import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool;
+import com.bumptech.glide.load.engine.bitmap_recycle.LruArrayPool;
+import com.bumptech.glide.testutil.TestResourceUtil;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.util.Util;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 19)
+public class TiledBitmapDecoderTest {
+  // 4128x2322.
+  private static final String JPEG = "issue387_rotated_jpeg.jpg";
+
+  private BitmapPool bitmapPool;
+  private TiledBitmapDecoder decoder;
+  private Options options;
+
+  @Before
+  public void setUp() {
+    bitmapPool = mock(BitmapPool.class);
+    decoder = new TiledBitmapDecoder(
+        Collections.<ImageHeaderParser>singletonList(new DefaultImageHeaderParser()),
+        bitmapPool,
+        new LruArrayPool());
+    options = new Options();
+  }
+
+  @Test
+  public void handles_withoutTile_returnsFalse() throws IOException {
+    assertThat(decoder.handles(openJpeg(), options)).isFalse();
+  }
+
+  @Test
+  public void handles_withTileAndJpeg_returnsTrue() throws IOException {
+    options.set(TiledBitmapDecoder.TILE, new ImageTile(0, 0, 100, 100, 1));
+
+    assertThat(decoder.handles(openJpeg(), options)).isTrue();
+  }
+
+  @Test
+  public void handles_withTileAndUnsupportedType_returnsFalse() throws IOException {
+    options.set(TiledBitmapDecoder.TILE, new ImageTile(0, 0, 100, 100, 1));
+
+    assertThat(decoder.handles(TestResourceUtil.openResource(getClass(), "test.gif"), options))
+        .isFalse();
+  }
+
+  @Test
+  public void decode_decodesOnlyTile() throws IOException {
+    options.set(TiledBitmapDecoder.TILE, new ImageTile(100, 200, 300, 350, 1));
+
+    Resource<Bitmap> result = decoder.decode(openJpeg(), 100, 100, options);
+
+    assertThat(result.get().getWidth()).isEqualTo(200);
+    assertThat(result.get().getHeight()).isEqualTo(150);
+  }
+
+  @Test
+  public void decode_withTileOnEdgeOfImage_clipsTileToImage() throws IOException {
+    options.set(TiledBitmapDecoder.TILE, new ImageTile(4000, 2300, 4200, 2400, 1));
+
+    Resource<Bitmap> result = decoder.decode(openJpeg(), 100, 100, options);
+
+    assertThat(result.get().getWidth()).isEqualTo(128);
+    assertThat(result.get().getHeight()).isEqualTo(22);
+  }
+
+  @Test(expected = IOException.class)
+  public void decode_withTileOutsideOfImage_throws() throws IOException {
+    options.set(TiledBitmapDecoder.TILE, new ImageTile(5000, 0, 5100, 100, 1));
+
+    decoder.decode(openJpeg(), 100, 100, options);
+  }
+
+  @Test
+  public void decode_withUnusedPooledBitmap_returnsBitmapToPool() throws IOException {
+    Bitmap pooled = Bitmap.createBitmap(100, 50, Bitmap.Config.ARGB_8888);
+    when(bitmapPool.getDirty(100, 50, Bitmap.Config.ARGB_8888)).thenReturn(pooled);
+    options.set(TiledBitmapDecoder.TILE, new ImageTile(0, 0, 200, 100, 2));
+
+    decoder.decode(openJpeg(), 100, 100, options);
+
+    verify(bitmapPool).put(pooled);
+  }
+
+  @Test
+  public void decode_withStreamWithoutMarkSupport_decodesTile() throws IOException {
+    options.set(TiledBitmapDecoder.TILE, new ImageTile(0, 0, 100, 100, 1));
+    InputStream is = new ByteArrayInputStream(readJpeg()) {
+      @Override
+      public boolean markSupported() {
+        return false;
+      }
+    };
+
+    Resource<Bitmap> result = decoder.decode(is, 100, 100, options);
+
+    assertThat(result.get().getWidth()).isEqualTo(100);
+  }
+
+  private InputStream openJpeg() throws IOException {
+    return new ByteArrayInputStream(readJpeg());
+  }
+
+  private byte[] readJpeg() throws IOException {
+    return Util.readBytes(TestResourceUtil.openResource(getClass(), JPEG));
+  }
+}
@@ -16,8 +16,8 @@ import org.mockito.MockitoAnnotations;
 @RunWith(JUnit4.class)
 public class ErrorRequestCoordinatorTest {
 
-  @Mock private Request primary;
-  @Mock private Request error;
+  @Mock(extraInterfaces = Deprioritizable.class) private Request primary;
+  @Mock(extraInterfaces = Deprioritizable.class) private Request error;
   @Mock private RequestCoordinator parent;
   private ErrorRequestCoordinator coordinator;
 
@@ -253,6 +253,13 @@ public class ErrorRequestCoordinatorTest {
     verify(error).recycle();
   }
 
+  @Test
+  public void setDeprioritized_deprioritizesPrimaryAndError() {
+    coordinator.setDeprioritized(true);
+    verify((Deprioritizable) primary).setDeprioritized(true);
+    verify((Deprioritizable) error).setDeprioritized(true);
+  }
+
   @Test
   public void isEquivalentTo() {
     assertThat(coordinator.isEquivalentTo(primary)).isFalse();
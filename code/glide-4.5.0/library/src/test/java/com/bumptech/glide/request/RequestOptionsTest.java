@@ -16,6 +16,7 @@ import com.bumptech.glide.load.engine.DiskCacheStrategy;
 import com.bumptech.glide.load.resource.bitmap.CenterCrop;
 import com.bumptech.glide.load.resource.bitmap.CircleCrop;
 import com.bumptech.glide.load.resource.bitmap.DownsampleStrategy;
+import com.bumptech.glide.load.resource.bitmap.FusedBitmapTransformation;
 import com.bumptech.glide.signature.ObjectKey;
 import com.bumptech.glide.util.Util;
 import com.google.common.testing.EqualsTester;
@@ -262,6 +263,14 @@ public class RequestOptionsTest {
       .isInstanceOf(MultiTransformation.class);
   }
 
+  @Test
+  @SuppressWarnings({"unchecked", "varargs"})
+  public void testApplyMultiTransform_withBuiltInTransformations_doesNotFuseTransformations() {
+    options.transforms(new CenterCrop(), new CircleCrop());
+    assertThat(options.getTransformations().get(Bitmap.class))
+      .isNotInstanceOf(FusedBitmapTransformation.class);
+  }
+
   @Test
   public void isSkipMemoryCacheSet_withoutSkipMemoryCache_isFalse() {
     assertThat(options.isSkipMemoryCacheSet()).isFalse();
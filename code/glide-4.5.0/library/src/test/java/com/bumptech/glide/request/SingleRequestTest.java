@@ -11,6 +11,7 @@ import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Matchers.isA;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -46,6 +47,7 @@ import java.util.Map;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.InOrder;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 import org.robolectric.RobolectricTestRunner;
@@ -268,6 +270,7 @@ public class SingleRequestTest {
             anyBoolean(),
             /*useAnimationPool=*/ anyBoolean(),
             anyBoolean(),
+            /*isPreload=*/ anyBoolean(),
             any(ResourceCallback.class));
   }
 
@@ -302,6 +305,7 @@ public class SingleRequestTest {
             anyBoolean(),
             anyBoolean(),
             anyBoolean(),
+            /*isPreload=*/ anyBoolean(),
             any(ResourceCallback.class)))
         .thenReturn(loadStatus);
 
@@ -314,6 +318,73 @@ public class SingleRequestTest {
     verify(loadStatus).cancel();
   }
 
+  @Test
+  public void setDeprioritized_withRunningLoad_lowersAndRestoresLoadPriority() {
+    Engine.LoadStatus loadStatus = mock(Engine.LoadStatus.class);
+    when(builder.engine
+        .load(
+            eq(builder.glideContext),
+            eq(builder.model),
+            eq(builder.signature),
+            anyInt(),
+            anyInt(),
+            eq(Object.class),
+            eq(List.class),
+            any(Priority.class),
+            any(DiskCacheStrategy.class),
+            eq(builder.transformations),
+            anyBoolean(),
+            anyBoolean(),
+            any(Options.class),
+            anyBoolean(),
+            anyBoolean(),
+            anyBoolean(),
+            anyBoolean(),
+            /*isPreload=*/ anyBoolean(),
+            any(ResourceCallback.class)))
+        .thenReturn(loadStatus);
+    SingleRequest<List> request = builder.build();
+    request.begin();
+    request.onSizeReady(100, 100);
+
+    request.setDeprioritized(true);
+    request.setDeprioritized(false);
+
+    InOrder order = inOrder(loadStatus);
+    order.verify(loadStatus).setPriority(Priority.LOW);
+    order.verify(loadStatus).setPriority(Priority.HIGH);
+  }
+
+  @Test
+  public void setDeprioritized_beforeLoadStarts_startsLoadWithLowPriority() {
+    SingleRequest<List> request = builder.build();
+    request.setDeprioritized(true);
+    request.begin();
+    request.onSizeReady(100, 100);
+
+    verify(builder.engine)
+        .load(
+            eq(builder.glideContext),
+            eq(builder.model),
+            eq(builder.signature),
+            anyInt(),
+            anyInt(),
+            eq(Object.class),
+            eq(List.class),
+            eq(Priority.LOW),
+            any(DiskCacheStrategy.class),
+            eq(builder.transformations),
+            anyBoolean(),
+            anyBoolean(),
+            any(Options.class),
+            anyBoolean(),
+            anyBoolean(),
+            anyBoolean(),
+            anyBoolean(),
+            /*isPreload=*/ anyBoolean(),
+            any(ResourceCallback.class));
+  }
+
   @Test
   public void testResourceIsRecycledOnClear() {
     SingleRequest<List> request = builder.build();
@@ -569,6 +640,7 @@ public class SingleRequestTest {
             anyBoolean(),
             /*useAnimationPool=*/ anyBoolean(),
             anyBoolean(),
+            /*isPreload=*/ anyBoolean(),
             any(ResourceCallback.class)))
         .thenAnswer(new Answer<Object>() {
           @Override
@@ -703,6 +775,7 @@ public class SingleRequestTest {
             anyBoolean(),
             /*useAnimationPool=*/ anyBoolean(),
             anyBoolean(),
+            /*isPreload=*/ anyBoolean(),
             any(ResourceCallback.class));
   }
 
@@ -741,6 +814,7 @@ public class SingleRequestTest {
             anyBoolean(),
             /*useAnimationPool=*/ anyBoolean(),
             anyBoolean(),
+            /*isPreload=*/ anyBoolean(),
             any(ResourceCallback.class)))
         .thenAnswer(new CallResourceCallback(builder.resource));
     SingleRequest<List> request = builder.build();
@@ -785,6 +859,7 @@ public class SingleRequestTest {
             anyBoolean(),
             /*useAnimationPool=*/ anyBoolean(),
             anyBoolean(),
+            /*isPreload=*/ anyBoolean(),
             any(ResourceCallback.class));
   }
 
@@ -818,6 +893,7 @@ public class SingleRequestTest {
             eq(true),
             /*useAnimationPool=*/ anyBoolean(),
             anyBoolean(),
+            /*isPreload=*/ anyBoolean(),
             any(ResourceCallback.class));
   }
 
@@ -850,6 +926,7 @@ public class SingleRequestTest {
             eq(false),
             /*useAnimationPool=*/ anyBoolean(),
             anyBoolean(),
+            /*isPreload=*/ anyBoolean(),
             any(ResourceCallback.class));
   }
 
@@ -23,8 +23,8 @@ import org.mockito.stubbing.Answer;
 
 @RunWith(JUnit4.class)
 public class ThumbnailRequestCoordinatorTest {
-  @Mock private Request full;
-  @Mock private Request thumb;
+  @Mock(extraInterfaces = Deprioritizable.class) private Request full;
+  @Mock(extraInterfaces = Deprioritizable.class) private Request thumb;
   @Mock private RequestCoordinator parent;
   private ThumbnailRequestCoordinator coordinator;
 
@@ -143,6 +143,13 @@ public class ThumbnailRequestCoordinatorTest {
     verify(full).recycle();
   }
 
+  @Test
+  public void setDeprioritized_deprioritizesFullAndThumb() {
+    coordinator.setDeprioritized(true);
+    verify((Deprioritizable) full).setDeprioritized(true);
+    verify((Deprioritizable) thumb).setDeprioritized(true);
+  }
+
   @Test
   public void testIsPausedWhenFullIsPaused() {
     when(full.isPaused()).thenReturn(true);
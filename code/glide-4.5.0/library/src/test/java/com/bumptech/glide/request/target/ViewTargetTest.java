@@ -12,6 +12,7 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 import android.content.Context;
@@ -24,6 +25,7 @@ import android.view.View.OnAttachStateChangeListener;
 import android.view.ViewTreeObserver;
 import android.view.WindowManager;
 import com.bumptech.glide.request.Request;
+import com.bumptech.glide.request.ThumbnailRequestCoordinator;
 import com.bumptech.glide.request.transition.Transition;
 import com.bumptech.glide.tests.Util;
 import com.bumptech.glide.util.Preconditions;
@@ -59,6 +61,8 @@ public class ViewTargetTest {
   private PreDrawShadowViewTreeObserver shadowObserver;
   @Mock private SizeReadyCallback cb;
   @Mock private Request request;
+  // One of Glide's own requests, which unlike other Requests can be deprioritized.
+  @Mock private ThumbnailRequestCoordinator deprioritizableRequest;
   private int sdkVersion;
   private AttachStateTarget attachStateTarget;
 
@@ -563,6 +567,55 @@ public class ViewTargetTest {
     verify(request, never()).pause();
   }
 
+  @Test
+  public void deprioritizeOnDetach_onDetach_deprioritizesRequest() {
+    attachStateTarget.deprioritizeOnDetach();
+    attachStateTarget.setRequest(deprioritizableRequest);
+    shadowView.callOnDetachedFromWindow();
+
+    verify(deprioritizableRequest).setDeprioritized(true);
+    verify(deprioritizableRequest, never()).pause();
+  }
+
+  @Test
+  public void deprioritizeOnDetach_onAttach_restoresRequestPriority() {
+    attachStateTarget.deprioritizeOnDetach();
+    attachStateTarget.setRequest(deprioritizableRequest);
+    shadowView.callOnDetachedFromWindow();
+    shadowView.callOnAttachedToWindow();
+
+    verify(deprioritizableRequest).setDeprioritized(false);
+  }
+
+  @Test
+  public void deprioritizeOnDetach_onDetach_withNullRequest_doesNothing() {
+    attachStateTarget.deprioritizeOnDetach();
+    attachStateTarget.setRequest(null);
+    shadowView.callOnDetachedFromWindow();
+  }
+
+  @Test
+  public void deprioritizeOnDetach_onDetach_withOtherRequest_leavesRequestUnchanged() {
+    attachStateTarget.deprioritizeOnDetach();
+    attachStateTarget.setRequest(request);
+    shadowView.callOnDetachedFromWindow();
+
+    verifyZeroInteractions(request);
+  }
+
+  @Test
+  public void deprioritizeOnDetach_withClearOnDetach_registersObserverOnceAndPausesRequest() {
+    attachStateTarget
+        .deprioritizeOnDetach()
+        .clearOnDetach();
+    attachStateTarget.setRequest(deprioritizableRequest);
+    shadowView.callOnDetachedFromWindow();
+
+    assertThat(shadowView.attachStateListeners).hasSize(1);
+    verify(deprioritizableRequest).pause();
+    verify(deprioritizableRequest, never()).setDeprioritized(true);
+  }
+
   @Test
   public void clearOnDetach_onAttach_withNullRequest_doesNothing() {
     attachStateTarget.clearOnDetach();
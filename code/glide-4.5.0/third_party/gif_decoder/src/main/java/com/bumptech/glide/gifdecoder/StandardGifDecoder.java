@@ -62,9 +62,16 @@ import java.util.Arrays;
 public class StandardGifDecoder implements GifDecoder {
   private static final String TAG = StandardGifDecoder.class.getSimpleName();
 
-  /** Maximum pixel stack size for decoding LZW compressed data. */
+  /** Maximum number of codes in the LZW string table. */
   private static final int MAX_STACK_SIZE = 4 * 1024;
 
+  // Each LZW string table entry packs the last pixel of the code's string in its lowest 8 bits,
+  // the length of the string in the next 12 bits and the code of the string's prefix in the
+  // highest 12 bits.
+  private static final int LZW_LENGTH_SHIFT = 8;
+  private static final int LZW_PREFIX_SHIFT = 20;
+  private static final int LZW_LENGTH_MASK = 0xFFF;
+
   private static final int NULL_CODE = -1;
 
   private static final int INITIAL_FRAME_POINTER = -1;
@@ -98,12 +105,19 @@ public class StandardGifDecoder implements GifDecoder {
   private GifHeaderParser parser;
 
   // LZW decoder working arrays.
-  private short[] prefix;
-  private byte[] suffix;
-  private byte[] pixelStack;
+  /** The packed LZW string table, allocated once and reused for every frame. */
+  private int[] lzwTable;
+  /** Holds a single LZW string when it can't be written directly to its final position. */
+  private byte[] lzwString;
+  /** Color table indices, only used for interlaced or downsampled frames. */
   private byte[] mainPixels;
   @ColorInt
   private int[] mainScratch;
+  // The area, in downsampled pixels, of mainScratch that may differ from previousImage.
+  private int dirtyLeft;
+  private int dirtyTop;
+  private int dirtyRight;
+  private int dirtyBottom;
 
   private int framePointer;
   private GifHeader header;
@@ -225,7 +239,8 @@ public class StandardGifDecoder implements GifDecoder {
 
   @Override
   public int getByteSize() {
-    return rawData.limit() + mainPixels.length + (mainScratch.length * BYTES_PER_INTEGER);
+    int mainPixelsSize = mainPixels != null ? mainPixels.length : 0;
+    return rawData.limit() + mainPixelsSize + (mainScratch.length * BYTES_PER_INTEGER);
   }
 
   @Nullable
@@ -322,6 +337,7 @@ public class StandardGifDecoder implements GifDecoder {
     if (mainPixels != null) {
       bitmapProvider.release(mainPixels);
     }
+    mainPixels = null;
     if (mainScratch != null) {
       bitmapProvider.release(mainScratch);
     }
@@ -374,9 +390,8 @@ public class StandardGifDecoder implements GifDecoder {
     this.sampleSize = sampleSize;
     downsampledWidth = header.width / sampleSize;
     downsampledHeight = header.height / sampleSize;
-    // Now that we know the size, init scratch arrays.
-    // TODO Find a way to avoid this entirely or at least downsample it (either should be possible).
-    mainPixels = bitmapProvider.obtainByteArray(header.width * header.height);
+    // Now that we know the size, init scratch arrays. mainPixels is only needed, and so only
+    // obtained, for interlaced or downsampled frames.
     mainScratch = bitmapProvider.obtainIntArray(downsampledWidth * downsampledHeight);
   }
 
@@ -424,6 +439,7 @@ public class StandardGifDecoder implements GifDecoder {
       }
       previousImage = null;
       Arrays.fill(dest, COLOR_TRANSPARENT_BLACK);
+      markDirty(0, 0, downsampledWidth, downsampledHeight);
     }
 
     // clear all pixels when dispose is 3 but previousImage is null.
@@ -432,6 +448,7 @@ public class StandardGifDecoder implements GifDecoder {
     if (previousFrame != null && previousFrame.dispose == DISPOSAL_PREVIOUS
             && previousImage == null) {
       Arrays.fill(dest, COLOR_TRANSPARENT_BLACK);
+      markDirty(0, 0, downsampledWidth, downsampledHeight);
     }
 
     // fill in starting image contents based on last image's dispose code
@@ -465,20 +482,29 @@ public class StandardGifDecoder implements GifDecoder {
             dest[pointer] = c;
           }
         }
+        markDirty(downsampledIX, downsampledIY, downsampledIX + downsampledIW,
+            downsampledIY + downsampledIH);
       } else if (previousFrame.dispose == DISPOSAL_PREVIOUS && previousImage != null) {
-        // Start with the previous frame
-        previousImage.getPixels(dest, 0, downsampledWidth, 0, 0, downsampledWidth,
-            downsampledHeight);
+        // Start with the previous frame. Only the area drawn since previousImage was saved can
+        // differ from it, so only that area needs to be restored.
+        copyDirtyPixels(previousImage, true /*toScratch*/);
       }
     }
 
-    // Decode pixels for this frame into the global pixels[] scratch.
-    decodeBitmapData(currentFrame);
-
     if (currentFrame.interlace || sampleSize != 1) {
+      // Decode color table indices for this frame into the global pixels[] scratch, then
+      // deinterlace and/or downsample them into dest.
+      decodeBitmapData(currentFrame, false /*intoScratch*/);
       copyCopyIntoScratchRobust(currentFrame);
+      int downsampledIX = currentFrame.ix / sampleSize;
+      int downsampledIY = currentFrame.iy / sampleSize;
+      markDirty(downsampledIX, downsampledIY, downsampledIX + currentFrame.iw / sampleSize,
+          downsampledIY + currentFrame.ih / sampleSize);
     } else {
-      copyIntoScratchFast(currentFrame);
+      // Decode this frame's colors directly into dest.
+      decodeBitmapData(currentFrame, true /*intoScratch*/);
+      markDirty(currentFrame.ix, currentFrame.iy, currentFrame.ix + currentFrame.iw,
+          currentFrame.iy + currentFrame.ih);
     }
 
     // Copy pixels into previous image
@@ -486,9 +512,12 @@ public class StandardGifDecoder implements GifDecoder {
         || currentFrame.dispose == DISPOSAL_NONE)) {
       if (previousImage == null) {
         previousImage = getNextBitmap();
+        previousImage.setPixels(dest, 0, downsampledWidth, 0, 0, downsampledWidth,
+            downsampledHeight);
+        clearDirty();
+      } else {
+        copyDirtyPixels(previousImage, false /*toScratch*/);
       }
-      previousImage.setPixels(dest, 0, downsampledWidth, 0, 0, downsampledWidth,
-          downsampledHeight);
     }
 
     // Set pixels for current image.
@@ -497,50 +526,56 @@ public class StandardGifDecoder implements GifDecoder {
     return result;
   }
 
-  private void copyIntoScratchFast(GifFrame currentFrame) {
-    int[] dest = mainScratch;
-    int downsampledIH = currentFrame.ih;
-    int downsampledIY = currentFrame.iy;
-    int downsampledIW = currentFrame.iw;
-    int downsampledIX = currentFrame.ix;
-    // Copy each source line to the appropriate place in the destination.
-    boolean isFirstFrame = framePointer == 0;
-    int width = this.downsampledWidth;
-    byte[] mainPixels = this.mainPixels;
-    int[] act = this.act;
-    byte transparentColorIndex = -1;
-    for (int i = 0; i < downsampledIH; i++) {
-      int line = i + downsampledIY;
-      int k = line * width;
-      // Start of line in dest.
-      int dx = k + downsampledIX;
-      // End of dest line.
-      int dlim = dx + downsampledIW;
-      if (k + width < dlim) {
-        // Past dest edge.
-        dlim = k + width;
-      }
-      // Start of line in source.
-      int sx = i * currentFrame.iw;
-
-      while (dx < dlim) {
-        byte byteCurrentColorIndex = mainPixels[sx];
-        int currentColorIndex = ((int) byteCurrentColorIndex) & MASK_INT_LOWEST_BYTE;
-        if (currentColorIndex != transparentColorIndex) {
-          int color = act[currentColorIndex];
-          if (color != COLOR_TRANSPARENT_BLACK) {
-            dest[dx] = color;
-          } else {
-            transparentColorIndex = byteCurrentColorIndex;
-          }
-        }
-        ++sx;
-        ++dx;
-      }
+  /**
+   * Expands the area of {@link #mainScratch} that may differ from {@link #previousImage} to
+   * include the given rect, clipped to the bounds of the image.
+   */
+  private void markDirty(int left, int top, int right, int bottom) {
+    left = Math.max(0, left);
+    top = Math.max(0, top);
+    right = Math.min(downsampledWidth, right);
+    bottom = Math.min(downsampledHeight, bottom);
+    if (left >= right || top >= bottom) {
+      return;
+    }
+    if (dirtyLeft >= dirtyRight || dirtyTop >= dirtyBottom) {
+      dirtyLeft = left;
+      dirtyTop = top;
+      dirtyRight = right;
+      dirtyBottom = bottom;
+    } else {
+      dirtyLeft = Math.min(dirtyLeft, left);
+      dirtyTop = Math.min(dirtyTop, top);
+      dirtyRight = Math.max(dirtyRight, right);
+      dirtyBottom = Math.max(dirtyBottom, bottom);
     }
+  }
 
-    isFirstFrameTransparent =
-        isFirstFrameTransparent == null && isFirstFrame && transparentColorIndex != -1;
+  private void clearDirty() {
+    dirtyLeft = 0;
+    dirtyTop = 0;
+    dirtyRight = 0;
+    dirtyBottom = 0;
+  }
+
+  /**
+   * Copies the dirty area of {@link #mainScratch} from or to the given {@link Bitmap} so that the
+   * two match, without touching the pixels that already do.
+   */
+  private void copyDirtyPixels(Bitmap bitmap, boolean toScratch) {
+    int width = dirtyRight - dirtyLeft;
+    int height = dirtyBottom - dirtyTop;
+    if (width > 0 && height > 0) {
+      int offset = dirtyTop * downsampledWidth + dirtyLeft;
+      if (toScratch) {
+        bitmap.getPixels(mainScratch, offset, downsampledWidth, dirtyLeft, dirtyTop, width,
+            height);
+      } else {
+        bitmap.setPixels(mainScratch, offset, downsampledWidth, dirtyLeft, dirtyTop, width,
+            height);
+      }
+    }
+    clearDirty();
   }
 
   private void copyCopyIntoScratchRobust(GifFrame currentFrame) {
@@ -686,9 +721,16 @@ public class StandardGifDecoder implements GifDecoder {
   }
 
   /**
-   * Decodes LZW image data into pixel array. Adapted from John Cristy's BitmapMagick.
+   * Decodes LZW image data into pixels. Adapted from John Cristy's BitmapMagick.
+   *
+   * <p>Rather than walking each code's string onto a pixel stack and popping it off again, the
+   * string is written backwards from the packed string table directly to its final position.
+   *
+   * <p>If {@code intoScratch} is {@code true}, each pixel's color is written directly to its
+   * position in {@link #mainScratch}, which requires that the frame is neither interlaced nor
+   * downsampled. Otherwise the frame's color table indices are written to {@link #mainPixels}.
    */
-  private void decodeBitmapData(GifFrame frame) {
+  private void decodeBitmapData(GifFrame frame, boolean intoScratch) {
     if (frame != null) {
       // Jump to the frame start position.
       rawData.position(frame.bufferFrameStart);
@@ -696,25 +738,38 @@ public class StandardGifDecoder implements GifDecoder {
 
     int npix = (frame == null) ? header.width * header.height : frame.iw * frame.ih;
     int available, clear, codeMask, codeSize, endOfInformation, inCode, oldCode, bits, code, count,
-        i, datum, dataSize, first, top, bi, pi;
+        datum, dataSize, first, length, tail, bi, pi;
 
-    if (mainPixels == null || mainPixels.length < npix) {
-      // Allocate new pixel array.
-      mainPixels = bitmapProvider.obtainByteArray(npix);
-    }
-    byte[] mainPixels = this.mainPixels;
-    if (prefix == null) {
-      prefix = new short[MAX_STACK_SIZE];
-    }
-    short[] prefix = this.prefix;
-    if (suffix == null) {
-      suffix = new byte[MAX_STACK_SIZE];
+    byte[] mainPixels = null;
+    if (!intoScratch) {
+      if (this.mainPixels == null || this.mainPixels.length < npix) {
+        if (this.mainPixels != null) {
+          bitmapProvider.release(this.mainPixels);
+        }
+        // Allocate new pixel array, large enough to be reused for every frame.
+        this.mainPixels =
+            bitmapProvider.obtainByteArray(Math.max(npix, header.width * header.height));
+      }
+      mainPixels = this.mainPixels;
     }
-    byte[] suffix = this.suffix;
-    if (pixelStack == null) {
-      pixelStack = new byte[MAX_STACK_SIZE + 1];
+    if (lzwTable == null) {
+      lzwTable = new int[MAX_STACK_SIZE];
+      lzwString = new byte[MAX_STACK_SIZE + 1];
     }
-    byte[] pixelStack = this.pixelStack;
+    int[] lzwTable = this.lzwTable;
+    byte[] lzwString = this.lzwString;
+
+    // The position in dest of the next pixel when writing directly to mainScratch.
+    int[] dest = mainScratch;
+    int[] act = this.act;
+    int width = downsampledWidth;
+    int frameX = intoScratch ? frame.ix : 0;
+    int frameWidth = intoScratch ? frame.iw : 0;
+    int line = intoScratch ? frame.iy : 0;
+    int dx = line * width + frameX;
+    int dlim = getRowLimit(line, dx, frameWidth);
+    int rowRemaining = frameWidth;
+    boolean sawTransparent = false;
 
     // Initialize GIF data stream decoder.
     dataSize = readByte();
@@ -727,13 +782,12 @@ public class StandardGifDecoder implements GifDecoder {
 
     for (code = 0; code < clear; code++) {
       // XXX ArrayIndexOutOfBoundsException.
-      prefix[code] = 0;
-      suffix[code] = (byte) code;
+      lzwTable[code] = (1 << LZW_LENGTH_SHIFT) | code;
     }
     byte[] block = this.block;
     // Decode GIF pixel stream.
-    i = datum = bits = count = first = top = pi = bi = 0;
-    while (i < npix) {
+    datum = bits = count = first = pi = bi = 0;
+    while (pi < npix) {
       // Read a new data block.
       if (count == 0) {
         count = readBlock();
@@ -765,43 +819,95 @@ public class StandardGifDecoder implements GifDecoder {
           continue;
         } else if (code == endOfInformation) {
           break;
-        } else if (oldCode == NULL_CODE) {
-          pixelStack[top] = suffix[code];
-          ++top;
-          oldCode = code;
-          first = code;
-          continue;
         }
 
         inCode = code;
-        if (code >= available) {
-          pixelStack[top] = (byte) first;
-          ++top;
+        tail = NULL_CODE;
+        if (oldCode == NULL_CODE) {
+          length = 1;
+        } else if (code >= available) {
+          // The string for the previous code followed by its own first pixel.
+          tail = first;
           code = oldCode;
+          length = ((lzwTable[code] >>> LZW_LENGTH_SHIFT) & LZW_LENGTH_MASK) + 1;
+        } else {
+          length = (lzwTable[code] >>> LZW_LENGTH_SHIFT) & LZW_LENGTH_MASK;
         }
 
-        while (code >= clear) {
-          pixelStack[top] = suffix[code];
-          ++top;
-          code = prefix[code];
-        }
-        first = ((int) suffix[code]) & MASK_INT_LOWEST_BYTE;
-
-        mainPixels[pi] = (byte) first;
-        ++pi;
-        ++i;
+        if (pi < npix) {
+          // Write the string backwards, either directly to mainPixels or, if it doesn't fit or
+          // needs to be mapped to colors, to lzwString.
+          final byte[] out;
+          final int end;
+          if (!intoScratch && pi + length <= npix) {
+            out = mainPixels;
+            end = pi + length;
+          } else {
+            out = lzwString;
+            end = length;
+          }
+          int position = end - 1;
+          if (tail != NULL_CODE) {
+            out[position--] = (byte) tail;
+          }
+          int start = end - length;
+          int entry;
+          while (position >= start) {
+            entry = lzwTable[code];
+            out[position--] = (byte) entry;
+            code = entry >>> LZW_PREFIX_SHIFT;
+          }
+          int stringFirst = ((int) out[start]) & MASK_INT_LOWEST_BYTE;
+          first = oldCode == NULL_CODE ? inCode : stringFirst;
 
-        while (top > 0) {
-          // Pop a pixel off the pixel stack.
-          mainPixels[pi] = pixelStack[--top];
-          ++pi;
-          ++i;
+          if (!intoScratch) {
+            if (out == lzwString) {
+              length = Math.min(length, npix - pi);
+              System.arraycopy(lzwString, 0, mainPixels, pi, length);
+            }
+            pi += length;
+          } else if (length < rowRemaining) {
+            // The whole string is in the current row.
+            int visible = Math.min(length, dlim - dx);
+            for (int j = 0; j < visible; j++) {
+              int color = act[((int) lzwString[j]) & MASK_INT_LOWEST_BYTE];
+              if (color != COLOR_TRANSPARENT_BLACK) {
+                dest[dx + j] = color;
+              } else {
+                sawTransparent = true;
+              }
+            }
+            dx += length;
+            rowRemaining -= length;
+            pi += length;
+          } else {
+            // The string wraps onto the next row(s).
+            for (int j = 0; j < length && pi < npix; j++, pi++) {
+              if (dx < dlim) {
+                int color = act[((int) lzwString[j]) & MASK_INT_LOWEST_BYTE];
+                if (color != COLOR_TRANSPARENT_BLACK) {
+                  dest[dx] = color;
+                } else {
+                  sawTransparent = true;
+                }
+              }
+              ++dx;
+              if (--rowRemaining == 0) {
+                ++line;
+                dx = line * width + frameX;
+                dlim = getRowLimit(line, dx, frameWidth);
+                rowRemaining = frameWidth;
+              }
+            }
+          }
         }
 
         // Add a new string to the string table.
-        if (available < MAX_STACK_SIZE) {
-          prefix[available] = (short) oldCode;
-          suffix[available] = (byte) first;
+        if (oldCode != NULL_CODE && available < MAX_STACK_SIZE) {
+          int prefixLength = (lzwTable[oldCode] >>> LZW_LENGTH_SHIFT) & LZW_LENGTH_MASK;
+          lzwTable[available] = (oldCode << LZW_PREFIX_SHIFT)
+              | (((prefixLength + 1) & LZW_LENGTH_MASK) << LZW_LENGTH_SHIFT)
+              | first;
           ++available;
           if (((available & codeMask) == 0) && (available < MAX_STACK_SIZE)) {
             ++codeSize;
@@ -813,9 +919,43 @@ public class StandardGifDecoder implements GifDecoder {
     }
 
     // Clear missing pixels.
-    Arrays.fill(mainPixels, pi, npix, (byte) COLOR_TRANSPARENT_BLACK);
+    if (!intoScratch) {
+      Arrays.fill(mainPixels, pi, npix, (byte) COLOR_TRANSPARENT_BLACK);
+    } else {
+      @ColorInt int color = act[0];
+      for (; pi < npix; pi++) {
+        if (dx < dlim) {
+          if (color != COLOR_TRANSPARENT_BLACK) {
+            dest[dx] = color;
+          } else {
+            sawTransparent = true;
+          }
+        }
+        ++dx;
+        if (--rowRemaining == 0) {
+          ++line;
+          dx = line * width + frameX;
+          dlim = getRowLimit(line, dx, frameWidth);
+          rowRemaining = frameWidth;
+        }
+      }
+      isFirstFrameTransparent =
+          isFirstFrameTransparent == null && framePointer == 0 && sawTransparent;
+    }
+  }
+
+  /**
+   * Returns the end, exclusive, of the pixels in {@link #mainScratch} that a frame row starting at
+   * {@code dx} and {@code frameWidth} pixels wide can write to without leaving the image.
+   */
+  private int getRowLimit(int line, int dx, int frameWidth) {
+    if (line >= downsampledHeight) {
+      return dx;
+    }
+    return Math.min(dx + frameWidth, (line + 1) * downsampledWidth);
   }
 
+
   /**
    * Reads a single byte from the input stream.
    */
@@ -166,6 +166,31 @@ public class GifDecoderTest {
         (((CustomShadowBitmap) shadowOf(firstFrameTwice))).getPixels()));
   }
 
+  @Test
+  @Config(shadows = {CustomShadowBitmap.class})
+  public void testDecodesPixelsAfterClearCodeInOrder() {
+    // A 4x1 GIF with a black, red, green and blue color table whose LZW data is a clear code
+    // followed by the literal codes for red, green, blue and black.
+    byte[] data = new byte[] {
+        'G', 'I', 'F', '8', '9', 'a', 4, 0, 1, 0, (byte) 0x81, 0, 0,
+        0, 0, 0, (byte) 0xFF, 0, 0, 0, (byte) 0xFF, 0, 0, 0, (byte) 0xFF,
+        ',', 0, 0, 0, 0, 4, 0, 1, 0, 0,
+        2, 3, (byte) 0x8C, 6, 5, 0,
+        ';'
+    };
+    GifHeaderParser headerParser = new GifHeaderParser();
+    headerParser.setData(data);
+    GifHeader header = headerParser.parseHeader();
+    GifDecoder decoder = new StandardGifDecoder(provider);
+    decoder.setData(header, data);
+    decoder.advance();
+    Bitmap frame = decoder.getNextFrame();
+
+    assertEquals(GifDecoder.STATUS_OK, decoder.getStatus());
+    int[] expected = new int[] {0xFFFF0000, 0xFF00FF00, 0xFF0000FF, 0xFF000000};
+    assertTrue(Arrays.equals(expected, ((CustomShadowBitmap) shadowOf(frame)).getPixels()));
+  }
+
   /**
    * Preserve generated bitmap data for checking.
    */